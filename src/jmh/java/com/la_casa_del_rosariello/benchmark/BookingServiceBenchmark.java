@@ -0,0 +1,116 @@
+package com.la_casa_del_rosariello.benchmark;
+
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.Proprieta;
+import com.la_casa_del_rosariello.repository.BookingRepository;
+import com.la_casa_del_rosariello.service.BookingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Percorsi critici di BookingService a diversi volumi di storico.
+// SampleTime riporta i percentili di latenza, -prof gc (predefinito nel profilo benchmark) l'allocazione per operazione.
+//
+//   ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="BookingServiceBenchmark -prof gc"
+//
+// conflittoQueryEntita e conflittoQueryExists confrontano le due forme della query di sovrapposizione;
+// il parametro indici=false elimina tutti gli indici utilizzabili dalla query di sovrapposizione (per unità, stato
+// o data di inizio) per misurare la scansione completa della tabella.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingServiceBenchmark {
+
+    // Indici su colonne del filtro di sovrapposizione (proprietaId, statoPrenotazione, dataInizio, dataFine)
+    private static final List<String> INDICI_SOVRAPPOSIZIONE = List.of(
+            "idx_booking_proprieta_stato_inizio_fine",
+            "idx_booking_stato_inizio_fine",
+            "idx_booking_inizio_id",
+            "idx_booking_stato_scadenza");
+
+    @Param({"1000", "100000", "1000000"})
+    public int volume;
+
+    @Param({"true", "false"})
+    public boolean indici;
+
+    private ConfigurableApplicationContext contesto;
+    private BookingService bookingService;
+    private BookingRepository bookingRepository;
+    private LocalDate oggi;
+    private int giorniOccupati;
+
+    // Le nuove prenotazioni vengono create oltre la finestra dell'indice, una dopo l'altra senza sovrapposizioni
+    private final AtomicLong prossimaCreazione = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        contesto = ContestoBenchmark.avvia(volume);
+        bookingService = contesto.getBean(BookingService.class);
+        bookingRepository = contesto.getBean(BookingRepository.class);
+        oggi = LocalDate.now();
+        giorniOccupati = Math.max(30, 4 * ContestoBenchmark.attive(volume));
+        prossimaCreazione.set(oggi.plusYears(5).toEpochDay());
+        if (!indici) {
+            JdbcTemplate jdbc = contesto.getBean(JdbcTemplate.class);
+            for (String indice : INDICI_SOVRAPPOSIZIONE) {
+                jdbc.execute("DROP INDEX " + indice);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contesto.close();
+    }
+
+    @Benchmark
+    public boolean verificaDisponibilita() {
+        LocalDate inizio = dataCasuale();
+        return bookingService.verificaDisponibilita(Proprieta.PREDEFINITA, inizio, inizio.plusDays(3));
+    }
+
+    @Benchmark
+    public boolean conflittoQueryExists() {
+        LocalDate inizio = dataCasuale();
+        return bookingRepository.existsOverlappingBooking(Proprieta.PREDEFINITA, inizio, inizio.plusDays(3), BookingService.STATI_BLOCCANTI);
+    }
+
+    @Benchmark
+    public int conflittoQueryEntita() {
+        LocalDate inizio = dataCasuale();
+        return bookingRepository.findOverlappingBookings(Proprieta.PREDEFINITA, inizio, inizio.plusDays(3), BookingService.STATI_BLOCCANTI).size();
+    }
+
+    @Benchmark
+    public Booking createdBooking() {
+        LocalDate inizio = LocalDate.ofEpochDay(prossimaCreazione.getAndAdd(2));
+        Booking booking = new Booking();
+        booking.setDataInizio(inizio);
+        booking.setDataFine(inizio.plusDays(2));
+        booking.setOspiteNome("Mario");
+        booking.setOspiteCognome("Rossi");
+        booking.setOspiteEmail("mario.rossi@example.com");
+        booking.setNumeroOspiti(2);
+        return bookingService.createdBooking(booking);
+    }
+
+    @Benchmark
+    public double calcolaPrezzoTotale() {
+        LocalDate inizio = dataCasuale();
+        return bookingService.calcolaPrezzoTotale(inizio, inizio.plusDays(1 + ThreadLocalRandom.current().nextInt(14)));
+    }
+
+    private LocalDate dataCasuale() {
+        return oggi.plusDays(1 + ThreadLocalRandom.current().nextInt(giorniOccupati));
+    }
+}
@@ -0,0 +1,102 @@
+package com.la_casa_del_rosariello.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Test di carico HTTP per confrontare thread di piattaforma e virtual thread lato server.
+// Avviare l'applicazione due volte (senza profilo e con --spring.profiles.active=virtual) e lanciare:
+//
+//   ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.la_casa_del_rosariello.benchmark.CaricoHttp \
+//          -Djmh.args="http://localhost:8080 500 30"
+//
+// Argomenti: URL base, numero di client concorrenti, durata in secondi di ciascuno scenario.
+// Ogni client è un virtual thread che invia richieste in sequenza; vengono riportati throughput e percentili di latenza.
+// Le latenze finiscono in un unico Recorder HdrHistogram (già sul classpath con micrometer-core), condiviso dai client:
+// memoria costante qualunque sia il numero di richieste.
+public final class CaricoHttp {
+
+    private CaricoHttp() {}
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concorrenza = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Duration durata = Duration.ofSeconds(args.length > 2 ? Integer.parseInt(args[2]) : 30);
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        LocalDate oggi = LocalDate.now();
+        scenario("GET /bookings/disponibilita", client, concorrenza, durata, () -> {
+            LocalDate inizio = oggi.plusDays(1 + ThreadLocalRandom.current().nextInt(365));
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/bookings/disponibilita?dataInizio=" + inizio + "&dataFine=" + inizio.plusDays(3)))
+                    .GET()
+                    .build();
+        });
+
+        // Soggiorni di una notte, tutti diversi, molto avanti nel tempo: misura il percorso di scrittura senza conflitti
+        AtomicLong prossimoGiorno = new AtomicLong(oggi.plusYears(2).toEpochDay() + ThreadLocalRandom.current().nextInt(100_000));
+        scenario("POST /bookings", client, concorrenza, durata, () -> {
+            LocalDate inizio = LocalDate.ofEpochDay(prossimoGiorno.getAndIncrement());
+            String corpo = "{\"dataInizio\":\"" + inizio + "\",\"dataFine\":\"" + inizio.plusDays(1) + "\"," +
+                    "\"nomeOspite\":\"Carico\",\"cognomeOspite\":\"Test\",\"emailOspite\":\"carico@example.com\"," +
+                    "\"numeroOspiti\":1,\"statoPrenotazione\":\"CONFERMATA\"}";
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/bookings"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(corpo))
+                    .build();
+        });
+    }
+
+    private static void scenario(String nome, HttpClient client, int concorrenza, Duration durata, Supplier<HttpRequest> richieste) throws InterruptedException {
+        long scadenza = System.nanoTime() + durata.toNanos();
+        AtomicInteger errori = new AtomicInteger();
+        // Registrazione senza lock da più thread; 3 cifre significative, range adattato ai valori misurati
+        Recorder latenze = new Recorder(3);
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concorrenza; c++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < scadenza) {
+                        long inizio = System.nanoTime();
+                        try {
+                            HttpResponse<Void> risposta = client.send(richieste.get(), HttpResponse.BodyHandlers.discarding());
+                            if (risposta.statusCode() >= 500) {
+                                errori.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errori.incrementAndGet();
+                        }
+                        latenze.recordValue(System.nanoTime() - inizio);
+                    }
+                });
+            }
+        }
+
+        Histogram istogramma = latenze.getIntervalHistogram();
+        long totale = istogramma.getTotalCount();
+        System.out.printf("%s — %d client, %d s%n", nome, concorrenza, durata.toSeconds());
+        System.out.printf("  richieste: %d (%.1f/s), errori: %d%n", totale, totale / (double) durata.toSeconds(), errori.get());
+        System.out.printf("  latenza ms  p50 %.2f  p95 %.2f  p99 %.2f  max %.2f%n",
+                millisecondi(istogramma.getValueAtPercentile(50)), millisecondi(istogramma.getValueAtPercentile(95)),
+                millisecondi(istogramma.getValueAtPercentile(99)), millisecondi(istogramma.getMaxValue()));
+    }
+
+    private static double millisecondi(long nanosecondi) {
+        return nanosecondi / 1_000_000.0;
+    }
+}
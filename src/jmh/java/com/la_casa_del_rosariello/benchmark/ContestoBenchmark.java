@@ -0,0 +1,103 @@
+package com.la_casa_del_rosariello.benchmark;
+
+import com.la_casa_del_rosariello.Application;
+import com.la_casa_del_rosariello.service.IndiceOccupazione;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Avvia l'applicazione (senza web server) su un H2 in memoria e lo popola con il volume richiesto.
+// Le prenotazioni attive sono poche centinaia nei prossimi anni, come nella realtà; il resto è storico
+// (date passate, in buona parte CANCELLATA), cioè le righe che le query di sovrapposizione devono saper saltare.
+public final class ContestoBenchmark {
+
+    // Valori ordinali di StatoPrenotazione
+    private static final int CONFERMATA = 0;
+    private static final int CANCELLATA = 2;
+
+    private static final int DIMENSIONE_BATCH = 5_000;
+
+    // Tutte le prenotazioni generate appartengono all'unità predefinita
+    private static final long PROPRIETA = 1L;
+
+    private ContestoBenchmark() {}
+
+    public static ConfigurableApplicationContext avvia(int volume) {
+        ConfigurableApplicationContext contesto = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark" + volume + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.flyway.enabled=false",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                        "logging.level.root=WARN")
+                .run();
+
+        popola(contesto.getBean(JdbcTemplate.class), volume);
+        // L'indice è stato caricato all'avvio, a database vuoto
+        contesto.getBean(IndiceOccupazione.class).carica();
+        return contesto;
+    }
+
+    // Numero di prenotazioni future attive: una ogni 4 giorni a partire da domani
+    public static int attive(int volume) {
+        return Math.min(volume / 10, 250);
+    }
+
+    private static void popola(JdbcTemplate jdbc, int volume) {
+        Random random = new Random(42);
+        LocalDate oggi = LocalDate.now();
+        int attive = attive(volume);
+
+        jdbc.update("INSERT INTO proprieta (id, nome, capienza, coefficiente_prezzo, attiva) VALUES (?, 'Benchmark', 2, 1.0, TRUE)", PROPRIETA);
+        List<Object[]> prenotazioni = new ArrayList<>(DIMENSIONE_BATCH);
+        List<Object[]> notti = new ArrayList<>();
+        for (int i = 1; i <= volume; i++) {
+            LocalDate inizio;
+            int durata;
+            int stato;
+            if (i <= attive) {
+                inizio = oggi.plusDays(1 + 4L * (i - 1));
+                durata = 3;
+                stato = CONFERMATA;
+                for (int n = 0; n < durata; n++) {
+                    notti.add(new Object[]{(long) i, PROPRIETA, Date.valueOf(inizio.plusDays(n))});
+                }
+            } else {
+                inizio = oggi.minusDays(1 + random.nextInt(7_000));
+                durata = 1 + random.nextInt(7);
+                stato = random.nextInt(3) == 0 ? CONFERMATA : CANCELLATA;
+            }
+            double prezzo = durata * 60.0;
+            String email = "ospite" + (i % 5_000) + "@example.com";
+            prenotazioni.add(new Object[]{(long) i, PROPRIETA, Date.valueOf(inizio), Date.valueOf(inizio.plusDays(durata)),
+                    "Ospite" + i, "Benchmark", email, email, 1 + random.nextInt(2), stato,
+                    Timestamp.valueOf(LocalDateTime.now().minusDays(random.nextInt(365))), null, prezzo, 0.0, prezzo, 0L});
+            if (prenotazioni.size() == DIMENSIONE_BATCH) {
+                inserisciPrenotazioni(jdbc, prenotazioni);
+            }
+        }
+        inserisciPrenotazioni(jdbc, prenotazioni);
+        jdbc.batchUpdate("INSERT INTO notte_prenotata (id, booking_id, proprieta_id, notte) VALUES (NEXT VALUE FOR notte_prenotata_seq, ?, ?, ?)", notti);
+
+        // La sequenza usata da Hibernate deve partire dopo gli id inseriti a mano, con un blocco di allocazione di margine
+        // (l'ottimizzatore pooled usa gli id da valore - 49 a valore)
+        jdbc.execute("ALTER SEQUENCE booking_seq RESTART WITH " + (volume + 51));
+    }
+
+    private static void inserisciPrenotazioni(JdbcTemplate jdbc, List<Object[]> prenotazioni) {
+        jdbc.batchUpdate("INSERT INTO booking (id, proprieta_id, data_inizio, data_fine, ospite_nome, ospite_cognome, ospite_email, ospite_email_normalizzata, numero_ospiti, " +
+                "stato_prenotazione, data_creazione, note, prezzo_notti, sconto_durata, prezzo_totale, versione) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", prenotazioni);
+        prenotazioni.clear();
+    }
+}
@@ -0,0 +1,92 @@
+package com.la_casa_del_rosariello.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.boot.logging.LoggingInitializationContext;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Latenza aggiunta a una richiesta dalle righe INFO, con la configurazione di produzione (logback-spring.xml caricato
+// da Spring Boot: encoder JSON logstash, file a rotazione, appender asincrono).
+// SINCRONO collega direttamente l'appender FILE (formattazione e scrittura nel thread chiamante),
+// ASINCRONO lascia ASYNC_FILE come in produzione (accodamento nel thread chiamante, scrittura in background).
+// ASYNC_CONSOLE viene staccato per non mescolare i log con l'output di JMH; i file finiscono in una cartella temporanea.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class LoggingBenchmark {
+
+    @Param({"SINCRONO", "ASINCRONO"})
+    public String modalita;
+
+    private LoggingSystem loggingSystem;
+    private org.slf4j.Logger logger;
+    private Path cartella;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        cartella = Files.createTempDirectory("benchmark-logging");
+        StandardEnvironment ambiente = new StandardEnvironment();
+        ambiente.getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of("logging.file.path", cartella.toString())));
+
+        loggingSystem = LoggingSystem.get(getClass().getClassLoader());
+        loggingSystem.beforeInitialize();
+        loggingSystem.initialize(new LoggingInitializationContext(ambiente), "classpath:logback-spring.xml", null);
+
+        LoggerContext contesto = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Logger root = contesto.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.detachAppender("ASYNC_CONSOLE");
+        if (modalita.equals("SINCRONO")) {
+            Appender<ILoggingEvent> file = ((AsyncAppender) root.getAppender("ASYNC_FILE")).getAppender("FILE");
+            root.detachAppender("ASYNC_FILE");
+            root.addAppender(file);
+        }
+
+        // Categoria al livello predefinito (INFO), come i controller e i job
+        logger = LoggerFactory.getLogger("com.la_casa_del_rosariello.controller.BookingController");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        loggingSystem.cleanUp();
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+        try (Stream<Path> file = Files.walk(cartella)) {
+            for (Path percorso : file.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(percorso);
+            }
+        }
+    }
+
+    // Le righe INFO di una richiesta di creazione, con l'identificativo di correlazione nel MDC
+    @Benchmark
+    public void richiestaConLogInfo() {
+        MDC.put("correlationId", "3f1c2a9e-benchmark");
+        try {
+            LocalDate inizio = LocalDate.of(2030, 7, 1);
+            logger.info("Richiesta di prenotazione {} - {} per {} ospiti", inizio, inizio.plusDays(7), 2);
+            logger.info("Prenotazione {} creata: {} ({} - {})", 42L, "CONFERMATA", inizio, inizio.plusDays(7));
+        } finally {
+            MDC.remove("correlationId");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.la_casa_del_rosariello.benchmark;
+
+import com.la_casa_del_rosariello.controller.BookingMapper;
+import com.la_casa_del_rosariello.dto.BookingResponseDTO;
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.service.BookingService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Costo della mappatura Booking -> BookingResponseDTO su una pagina di elenco
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappaturaDTOBenchmark {
+
+    private ConfigurableApplicationContext contesto;
+    private BookingMapper bookingMapper;
+    private List<Booking> pagina;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        contesto = ContestoBenchmark.avvia(1_000);
+        bookingMapper = contesto.getBean(BookingMapper.class);
+        pagina = contesto.getBean(BookingService.class).findAllBookings(PageRequest.of(0, 50)).getContent();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contesto.close();
+    }
+
+    @Benchmark
+    public void mapToBookingResponseDTO(Blackhole blackhole) {
+        for (Booking booking : pagina) {
+            BookingResponseDTO dto = bookingMapper.mapToBookingResponseDTO(booking);
+            blackhole.consume(dto);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.la_casa_del_rosariello.config;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+// AsyncAppender di logback con una politica di scarto diversa: quando la coda scende sotto discardingThreshold
+// posti liberi vengono scartati solo TRACE e DEBUG (l'implementazione standard scarta anche INFO).
+// WARN ed ERROR non vengono mai persi: a coda piena il thread chiamante attende.
+public class AppenderAsincrono extends AsyncAppender {
+
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        return event.getLevel().toInt() <= Level.DEBUG_INT;
+    }
+}
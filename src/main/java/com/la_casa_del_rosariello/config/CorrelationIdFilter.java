@@ -0,0 +1,45 @@
+package com.la_casa_del_rosariello.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+// Assegna a ogni richiesta un identificativo di correlazione (quello ricevuto dal client, se valido, altrimenti uno nuovo),
+// lo mette nel MDC, così compare in ogni riga di log JSON della richiesta, e lo restituisce nella risposta.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Correlation-Id";
+    public static final String CHIAVE_MDC = "correlationId";
+
+    // Il valore finisce nei log: niente caratteri di controllo o lunghezze arbitrarie dal client
+    private static final Pattern FORMATO_VALIDO = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String ricevuto = request.getHeader(HEADER);
+        String correlationId = ricevuto != null && FORMATO_VALIDO.matcher(ricevuto).matches()
+                ? ricevuto
+                : UUID.randomUUID().toString();
+
+        MDC.put(CHIAVE_MDC, correlationId);
+        response.setHeader(HEADER, correlationId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(CHIAVE_MDC);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.la_casa_del_rosariello.config;
+
+import com.la_casa_del_rosariello.exception.BookingConflictException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+// Metriche su BookingService e sui repository, senza toccare il codice dei servizi:
+// - booking.service{metodo, esito}: latenza di ogni metodo pubblico; per le verifiche di disponibilità
+//   l'esito distingue disponibile/occupato, i conflitti hanno esito "conflitto". Le chiamate interne al servizio
+//   non attraversano il proxy: la verifica di disponibilità dentro createdBooking/aggiornaPrenotazione è misurata
+//   esplicitamente da BookingService sullo stesso timer
+// - booking.conflitti{metodo}: BookingConflictException lanciate
+// - booking.repository{metodo}: tempo di ogni query
+// - booking.repository.sovrapposizione: osservazione (timer + span di tracing campionato) attorno alle query di sovrapposizione
+@Aspect
+@Component
+public class MetricheBookingAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
+    public MetricheBookingAspect(MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Around("execution(public * com.la_casa_del_rosariello.service.BookingService.*(..))")
+    public Object misuraServizio(ProceedingJoinPoint joinPoint) throws Throwable {
+        String metodo = joinPoint.getSignature().getName();
+        Timer.Sample campione = Timer.start(meterRegistry);
+        String esito = "ok";
+        try {
+            Object risultato = joinPoint.proceed();
+            if (risultato instanceof Boolean disponibile && metodo.startsWith("verificaDisponibilita")) {
+                esito = disponibile ? "disponibile" : "occupato";
+            }
+            return risultato;
+        } catch (BookingConflictException e) {
+            esito = "conflitto";
+            meterRegistry.counter("booking.conflitti", "metodo", metodo).increment();
+            throw e;
+        } catch (Throwable t) {
+            esito = t.getClass().getSimpleName();
+            throw t;
+        } finally {
+            campione.stop(meterRegistry.timer("booking.service", "metodo", metodo, "esito", esito));
+        }
+    }
+
+    @Around("execution(* com.la_casa_del_rosariello.repository.*Repository.*(..))")
+    public Object misuraRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        String metodo = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        if (joinPoint.getSignature().getName().contains("Overlapping")) {
+            return Observation.createNotStarted("booking.repository.sovrapposizione", observationRegistry)
+                    .lowCardinalityKeyValue("metodo", metodo)
+                    .observeChecked(joinPoint::proceed);
+        }
+        Timer.Sample campione = Timer.start(meterRegistry);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            campione.stop(meterRegistry.timer("booking.repository", "metodo", metodo));
+        }
+    }
+}
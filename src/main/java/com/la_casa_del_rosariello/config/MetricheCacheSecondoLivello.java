@@ -0,0 +1,28 @@
+package com.la_casa_del_rosariello.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+
+// Hit/miss/put/eviction delle regioni della cache di secondo livello anche in produzione, senza le statistiche
+// di Hibernate (attive solo nel profilo dev perché costano su ogni sessione). Le contano già le cache Caffeine
+// via JCache (monitoring.statistics in application.conf): qui vengono solo collegate al MeterRegistry,
+// come cache.gets/cache.puts/cache.evictions con tag cache=<regione>, accanto alle cache applicative.
+@Component
+public class MetricheCacheSecondoLivello {
+
+    public MetricheCacheSecondoLivello(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        // Le regioni delle entità vengono create con la SessionFactory (missing_cache_strategy=create)
+        if (entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory() instanceof JCacheRegionFactory regionFactory) {
+            CacheManager cacheManager = regionFactory.getCacheManager();
+            for (String nome : cacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(meterRegistry, cacheManager.getCache(nome));
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.la_casa_del_rosariello.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Attivo solo in modalità virtual thread: ascolta l'evento JFR jdk.VirtualThreadPinned e segnala i casi
+// in cui un virtual thread resta agganciato al thread carrier durante un'operazione bloccante
+// (tipicamente un blocco synchronized attorno all'I/O nel driver JDBC), che annullerebbe i benefici della modalità.
+// È solo osservazione: il pinning non viene impedito né corretto. Contatore e log dicono quale sezione
+// synchronized va sostituita (o quale versione del driver aggiornare) prima di tenere attivo il profilo.
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class MonitorPinningVirtualThread {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonitorPinningVirtualThread.class);
+
+    private final Counter pinning;
+    private final Duration soglia;
+    private RecordingStream stream;
+
+    public MonitorPinningVirtualThread(MeterRegistry meterRegistry,
+                                       @Value("${booking.virtual-thread.soglia-pinning:20ms}") Duration soglia) {
+        this.pinning = meterRegistry.counter("booking.virtualthread.pinning");
+        this.soglia = soglia;
+    }
+
+    @PostConstruct
+    public void avvia() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(soglia).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", evento -> {
+            pinning.increment();
+            if (logger.isWarnEnabled()) {
+                logger.warn("Virtual thread bloccato sul carrier per {} ms: {}", evento.getDuration().toMillis(),
+                        evento.getStackTrace() != null && !evento.getStackTrace().getFrames().isEmpty()
+                                ? evento.getStackTrace().getFrames().get(0)
+                                : "stack non disponibile");
+            }
+        });
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    public void ferma() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
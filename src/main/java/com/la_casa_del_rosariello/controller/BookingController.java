@@ -1,13 +1,24 @@
 package com.la_casa_del_rosariello.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.la_casa_del_rosariello.dto.BookingRequestDTO;
 import com.la_casa_del_rosariello.dto.BookingResponseDTO;
+import com.la_casa_del_rosariello.dto.CalendarioResponseDTO;
+import com.la_casa_del_rosariello.dto.ConflittoResponseDTO;
 import com.la_casa_del_rosariello.dto.DisponibilitaResponseDTO;
+import com.la_casa_del_rosariello.dto.ImportazioneResponseDTO;
+import com.la_casa_del_rosariello.dto.PaginaKeysetDTO;
+import com.la_casa_del_rosariello.dto.PeriodoSuggeritoDTO;
 import com.la_casa_del_rosariello.dto.PrezzoResponseDTO;
+import com.la_casa_del_rosariello.dto.SuggerimentiResponseDTO;
 import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.Proprieta;
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
 import com.la_casa_del_rosariello.exception.BookingConflictException;
 import com.la_casa_del_rosariello.exception.BookingNotFoundException;
 import com.la_casa_del_rosariello.exception.InvalidGuestNumberException;
+import com.la_casa_del_rosariello.exception.PreconditionFailedException;
+import com.la_casa_del_rosariello.exception.PreconditionRequiredException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,18 +26,41 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import com.la_casa_del_rosariello.service.BookingService;
+import com.la_casa_del_rosariello.service.FlussoDisponibilita;
+import com.la_casa_del_rosariello.service.ImportazioneService;
+import com.la_casa_del_rosariello.service.LettoreImportazione;
+import com.la_casa_del_rosariello.service.PreventivoSoggiorno;
+import com.la_casa_del_rosariello.service.ProprietaService;
+import com.la_casa_del_rosariello.service.RegistroIdempotenza;
+import com.la_casa_del_rosariello.service.SuggeritoreDate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import jakarta.validation.Valid;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.groups.Default;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -35,42 +69,58 @@ import java.util.stream.Collectors;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final ImportazioneService importazioneService;
+    private final LettoreImportazione lettoreImportazione;
+    private final ObjectMapper objectMapper;
+    private final RegistroIdempotenza registroIdempotenza;
+    private final SuggeritoreDate suggeritoreDate;
+    private final FlussoDisponibilita flussoDisponibilita;
+    private final BookingMapper bookingMapper;
+    private final ProprietaService proprietaService;
 
-    public BookingController(BookingService bookingService) {
-        this.bookingService = bookingService;
-    }
-
-    // Metodo di utilità per la mappatura DTO (assicurati che sia corretto come discusso)
-    private BookingResponseDTO mapToBookingResponseDTO(Booking booking) {
-        BookingResponseDTO dto = new BookingResponseDTO();
-        dto.setId(booking.getId());
-        dto.setDataInizio(booking.getDataInizio());
-        dto.setDataFine(booking.getDataFine());
-        dto.setNomeOspite(booking.getOspiteNome());
-        dto.setCognomeOspite(booking.getOspiteCognome());
-        dto.setEmailOspite(booking.getOspiteEmail());
-        dto.setNumeroOspiti(booking.getNumeroOspiti());
-        dto.setNote(booking.getNote());
-        dto.setDataCreazione(booking.getDataCreazione());
+    // Limite massimo di righe per pagina nell'elenco keyset
+    private static final int LIMITE_MASSIMO_PAGINA = 500;
 
-        dto.setStato(booking.getStatoPrenotazione());
-
-        dto.setPrezzoTotale(bookingService.calcolaPrezzoTotale(booking.getDataInizio(), booking.getDataFine()));
-        return dto;
+    public BookingController(BookingService bookingService, ImportazioneService importazioneService, LettoreImportazione lettoreImportazione, ObjectMapper objectMapper, RegistroIdempotenza registroIdempotenza,
+                             SuggeritoreDate suggeritoreDate, FlussoDisponibilita flussoDisponibilita, BookingMapper bookingMapper,
+                             ProprietaService proprietaService) {
+        this.bookingService = bookingService;
+        this.importazioneService = importazioneService;
+        this.lettoreImportazione = lettoreImportazione;
+        this.objectMapper = objectMapper;
+        this.registroIdempotenza = registroIdempotenza;
+        this.suggeritoreDate = suggeritoreDate;
+        this.flussoDisponibilita = flussoDisponibilita;
+        this.bookingMapper = bookingMapper;
+        this.proprietaService = proprietaService;
     }
 
     // --- Endpoint per il Prezzo per Notte ---
-    @Operation(summary = "Recupera il prezzo per notte",
-               description = "Restituisce il prezzo attuale per notte per una prenotazione.")
+    @Operation(summary = "Recupera il prezzo per notte o il preventivo di un soggiorno",
+               description = "Senza parametri restituisce il prezzo base per notte. Con dataInizio e dataFine restituisce anche il preventivo del soggiorno (tariffe stagionali, weekend e sconti per durata), per un soggiorno di al massimo un anno.")
+    @ApiResponse(responseCode = "200", description = "Prezzo", content = @Content(schema = @Schema(implementation = PrezzoResponseDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Richiesta non valida (es. date non corrette o periodo superiore a un anno)")
     @GetMapping("/prezzo")
-    public ResponseEntity<PrezzoResponseDTO> getPrezzoPerNotte() {
+    public ResponseEntity<PrezzoResponseDTO> getPrezzoPerNotte(
+            @RequestParam(value = "dataInizio", required = false) @Parameter(description = "Data di inizio del soggiorno (formato YYYY-MM-DD)") LocalDate dataInizio,
+            @RequestParam(value = "dataFine", required = false) @Parameter(description = "Data di fine del soggiorno (formato YYYY-MM-DD)") LocalDate dataFine) {
         double prezzo = bookingService.getPrezzoPerNotte();
-        return ResponseEntity.ok(new PrezzoResponseDTO(prezzo));
+        if (dataInizio == null && dataFine == null) {
+            return ResponseEntity.ok(new PrezzoResponseDTO(prezzo));
+        }
+        // Stesso limite del calendario: il preventivo somma le tariffe notte per notte
+        if (dataInizio == null || dataFine == null || !dataFine.isAfter(dataInizio) || dataFine.isAfter(dataInizio.plusYears(1))) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        PreventivoSoggiorno preventivo = bookingService.calcolaPreventivo(dataInizio, dataFine);
+        return ResponseEntity.ok(new PrezzoResponseDTO(prezzo, dataInizio, dataFine, preventivo.getNotti(),
+                preventivo.getImportoNotti(), preventivo.getScontoDurata(), preventivo.getTotale()));
     }
 
     // --- Endpoint per la Verifica Disponibilità ---
     @Operation(summary = "Verifica la disponibilità per un periodo",
-               description = "Controlla se la struttura è disponibile tra le date specificate.")
+               description = "Controlla se un'unità è disponibile tra le date specificate (senza unità: l'unità predefinita).")
     @Parameter(description = "Data di inizio del periodo (formato YYYY-MM-DD)", required = true)
     @Parameter(description = "Data di fine del periodo (formato YYYY-MM-DD)", required = true)
     @ApiResponse(responseCode = "200", description = "Risposta di disponibilità", content = @Content(schema = @Schema(implementation = DisponibilitaResponseDTO.class)))
@@ -78,7 +128,8 @@ public class BookingController {
     @GetMapping("/disponibilita")
     public ResponseEntity<DisponibilitaResponseDTO> verificaDisponibilita(
             @RequestParam("dataInizio") @Parameter(description = "Data di inizio della prenotazione") LocalDate dataInizio,
-            @RequestParam("dataFine") LocalDate dataFine) {
+            @RequestParam("dataFine") LocalDate dataFine,
+            @RequestParam(value = "proprieta", required = false) @Parameter(description = "ID dell'unità (opzionale)") Long proprietaId) {
 
         // Controllo base sulle date prima di passare al Service
         if (dataFine.isBefore(dataInizio) || dataFine.isEqual(dataInizio)) {
@@ -86,41 +137,146 @@ public class BookingController {
             return ResponseEntity.badRequest().body(new DisponibilitaResponseDTO(false));
         }
 
-        boolean disponibile = bookingService.verificaDisponibilita(dataInizio, dataFine);
+        boolean disponibile = bookingService.verificaDisponibilita(unita(proprietaId), dataInizio, dataFine);
         return ResponseEntity.ok(new DisponibilitaResponseDTO(disponibile));
     }
 
+    // --- Endpoint per le Notifiche di Disponibilità (SSE) ---
+    @Operation(summary = "Notifiche push dei cambi di disponibilità",
+               description = "Flusso Server-Sent Events al posto del polling di /disponibilita: un evento \"invalidazione\" (unità e periodo) "
+                       + "dopo ogni creazione, modifica o cancellazione che tocca le date seguite; un evento \"ricarica\" se il client è rimasto indietro "
+                       + "e deve rileggere tutto il periodo. Un commento di battito arriva periodicamente; alla scadenza la connessione si chiude "
+                       + "e EventSource si ricollega da solo: con Last-Event-ID il primo evento è una \"ricarica\", perché le invalidazioni "
+                       + "pubblicate mentre era scollegato non vengono ripetute.")
+    @ApiResponse(responseCode = "200", description = "Flusso text/event-stream")
+    @ApiResponse(responseCode = "400", description = "Richiesta non valida (es. date non corrette)")
+    @ApiResponse(responseCode = "404", description = "Unità non trovata")
+    @ApiResponse(responseCode = "503", description = "Troppe connessioni aperte")
+    @GetMapping(value = "/disponibilita/eventi", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> seguiDisponibilita(
+            @RequestParam(value = "dataInizio", required = false) @Parameter(description = "Inizio del periodo seguito (opzionale, formato YYYY-MM-DD)") LocalDate dataInizio,
+            @RequestParam(value = "dataFine", required = false) @Parameter(description = "Fine del periodo seguito (opzionale, formato YYYY-MM-DD)") LocalDate dataFine,
+            @RequestParam(value = "proprieta", required = false) @Parameter(description = "ID dell'unità (opzionale)") Long proprietaId,
+            @RequestHeader(value = "Last-Event-ID", required = false) @Parameter(description = "Inviato da EventSource quando si ricollega") String ultimoEvento) {
+
+        if ((dataInizio == null) != (dataFine == null) || (dataInizio != null && !dataFine.isAfter(dataInizio))) {
+            return ResponseEntity.badRequest().build();
+        }
+        proprietaService.trovaProprieta(unita(proprietaId));
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header("X-Accel-Buffering", "no") // Niente buffering nei reverse proxy (nginx)
+                .body(flussoDisponibilita.iscrivi(unita(proprietaId), dataInizio, dataFine, ultimoEvento != null));
+    }
+
+    // --- Endpoint per il Calendario delle Disponibilità ---
+    @Operation(summary = "Calendario di occupazione per un periodo",
+               description = "Restituisce gli intervalli liberi/occupati (codifica run-length) tra le date specificate, per un periodo massimo di un anno.")
+    @ApiResponse(responseCode = "200", description = "Calendario del periodo", content = @Content(schema = @Schema(implementation = CalendarioResponseDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Richiesta non valida (es. date non corrette o periodo superiore a un anno)")
+    @GetMapping("/calendario")
+    public ResponseEntity<CalendarioResponseDTO> getCalendario(
+            @RequestParam("from") @Parameter(description = "Prima notte del periodo (formato YYYY-MM-DD)") LocalDate from,
+            @RequestParam("to") @Parameter(description = "Fine del periodo, esclusa (formato YYYY-MM-DD)") LocalDate to,
+            @RequestParam(value = "proprieta", required = false) @Parameter(description = "ID dell'unità (opzionale)") Long proprietaId) {
+
+        if (!to.isAfter(from) || to.isAfter(from.plusYears(1))) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(new CalendarioResponseDTO(from, to, bookingService.getCalendario(unita(proprietaId), from, to)));
+    }
+
+    // --- Endpoint per i Suggerimenti di Date Alternative ---
+    @Operation(summary = "Date alternative per un soggiorno",
+               description = "Restituisce il periodo libero della stessa durata più vicino prima e quello più vicino dopo le date richieste, nella stessa unità, per un soggiorno di al massimo un anno.")
+    @ApiResponse(responseCode = "200", description = "Suggerimenti", content = @Content(schema = @Schema(implementation = SuggerimentiResponseDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Richiesta non valida (es. date non corrette o periodo superiore a un anno)")
+    @GetMapping("/suggerimenti")
+    public ResponseEntity<SuggerimentiResponseDTO> getSuggerimenti(
+            @RequestParam("dataInizio") @Parameter(description = "Data di inizio desiderata (formato YYYY-MM-DD)") LocalDate dataInizio,
+            @RequestParam("dataFine") @Parameter(description = "Data di fine desiderata (formato YYYY-MM-DD)") LocalDate dataFine,
+            @RequestParam(value = "proprieta", required = false) @Parameter(description = "ID dell'unità (opzionale)") Long proprietaId) {
+
+        // Stesso limite del calendario: la ricerca scorre la finestra attorno al periodo notte per notte
+        if (!dataFine.isAfter(dataInizio) || dataFine.isAfter(dataInizio.plusYears(1))) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Long unita = unita(proprietaId);
+        SuggeritoreDate.Suggerimenti suggerimenti = suggeritoreDate.suggerisci(unita, dataInizio, dataFine);
+        return ResponseEntity.ok(new SuggerimentiResponseDTO(unita, dataInizio, dataFine,
+                bookingService.verificaDisponibilita(unita, dataInizio, dataFine),
+                periodo(suggerimenti.prima()), periodo(suggerimenti.dopo())));
+    }
+
     // --- Endpoint per Creare una Prenotazione ---
     @Operation(summary = "Crea una nuova prenotazione",
                description = "Permette di creare una nuova prenotazione nel sistema.")
     @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Dati della prenotazione da creare", required = true,
                                                           content = @Content(schema = @Schema(implementation = BookingRequestDTO.class)))
     @ApiResponse(responseCode = "201", description = "Prenotazione creata con successo", content = @Content(schema = @Schema(implementation = BookingResponseDTO.class)))
-    @ApiResponse(responseCode = "400", description = "Richiesta non valida (es. errori di validazione, numero ospiti non valido)")
-    @ApiResponse(responseCode = "409", description = "Conflitto (date già prenotate)")
+    @ApiResponse(responseCode = "400", description = "Richiesta non valida (es. errori di validazione, numero ospiti oltre la capienza dell'unità)")
+    @ApiResponse(responseCode = "404", description = "Unità non trovata")
+    @ApiResponse(responseCode = "409", description = "Conflitto (date già prenotate, con le date libere più vicine) o richiesta con la stessa Idempotency-Key ancora in corso", content = @Content(schema = @Schema(implementation = ConflittoResponseDTO.class)))
+    @ApiResponse(responseCode = "422", description = "Idempotency-Key non valida o già usata con dati diversi")
     @PostMapping
-    public ResponseEntity<BookingResponseDTO> creaPrenotazione(@Valid @RequestBody BookingRequestDTO requestDTO) {
-        // Mappatura da DTO a Entità
-        Booking nuovaPrenotazione = new Booking();
-        nuovaPrenotazione.setDataInizio(requestDTO.getDataInizio());
-        nuovaPrenotazione.setDataFine(requestDTO.getDataFine());
-        nuovaPrenotazione.setOspiteNome(requestDTO.getNomeOspite());
-        nuovaPrenotazione.setOspiteCognome(requestDTO.getCognomeOspite());
-        nuovaPrenotazione.setOspiteEmail(requestDTO.getEmailOspite());
-        nuovaPrenotazione.setNumeroOspiti(requestDTO.getNumeroOspiti());
-        nuovaPrenotazione.setNote(requestDTO.getNote());
-        // Lo stato e la data di creazione sono gestiti nell'entità/service
+    public ResponseEntity<BookingResponseDTO> creaPrenotazione(
+            @RequestHeader(value = RegistroIdempotenza.HEADER, required = false) @Parameter(description = "Chiave scelta dal client: i nuovi invii con la stessa chiave ricevono la risposta originale") String idempotencyKey,
+            @Validated({Default.class, BookingRequestDTO.DateFuture.class}) @RequestBody BookingRequestDTO requestDTO,
+            HttpServletRequest request) {
+        return registroIdempotenza.esegui(cliente(request), "POST /bookings", idempotencyKey, requestDTO, () -> {
+            // Mappatura da DTO a Entità
+            Booking nuovaPrenotazione = new Booking();
+            nuovaPrenotazione.setProprietaId(unita(requestDTO.getProprietaId()));
+            nuovaPrenotazione.setDataInizio(requestDTO.getDataInizio());
+            nuovaPrenotazione.setDataFine(requestDTO.getDataFine());
+            nuovaPrenotazione.setOspiteNome(requestDTO.getNomeOspite());
+            nuovaPrenotazione.setOspiteCognome(requestDTO.getCognomeOspite());
+            nuovaPrenotazione.setOspiteEmail(requestDTO.getEmailOspite());
+            nuovaPrenotazione.setNumeroOspiti(requestDTO.getNumeroOspiti());
+            nuovaPrenotazione.setNote(requestDTO.getNote());
+            // Lo stato e la data di creazione sono gestiti nell'entità/service
 
-        try {
-            Booking prenotazioneSalvata = bookingService.createdBooking(nuovaPrenotazione);
+            try {
+                // Stato PENDENTE nella richiesta = blocco temporaneo delle date (checkout), altrimenti prenotazione confermata
+                Booking prenotazioneSalvata = bookingService.createdBooking(nuovaPrenotazione,
+                        requestDTO.getStatoPrenotazione() == StatoPrenotazione.PENDENTE);
 
-            // Mappatura da Entità a Response DTO
-            BookingResponseDTO responseDTO = mapToBookingResponseDTO(prenotazioneSalvata);
-            return new ResponseEntity<>(responseDTO, HttpStatus.CREATED); // 201 Created
-        } catch (InvalidGuestNumberException | BookingConflictException | IllegalArgumentException e) {
-            // Questi errori verranno catturati dal @ControllerAdvice per ritornare un 400 o 409
-            throw e;
-        }
+                // Mappatura da Entità a Response DTO
+                BookingResponseDTO responseDTO = bookingMapper.mapToBookingResponseDTO(prenotazioneSalvata);
+                return ResponseEntity.status(HttpStatus.CREATED).eTag(etag(prenotazioneSalvata)).body(responseDTO); // 201 Created
+            } catch (InvalidGuestNumberException | BookingConflictException | IllegalArgumentException e) {
+                // Questi errori verranno catturati dal @ControllerAdvice per ritornare un 400 o 409
+                throw e;
+            }
+        });
+    }
+
+    // --- Endpoint per l'Importazione Massiva di Prenotazioni ---
+    @Operation(summary = "Importa un lotto di prenotazioni",
+               description = "Importa un array JSON di prenotazioni. Le righe non valide o in conflitto vengono scartate e riportate nella risposta, le altre salvate.")
+    @ApiResponse(responseCode = "200", description = "Esito dell'importazione", content = @Content(schema = @Schema(implementation = ImportazioneResponseDTO.class)))
+    @ApiResponse(responseCode = "409", description = "Conflitto con prenotazioni create durante l'importazione (il lotto viene annullato)")
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportazioneResponseDTO> importaPrenotazioni(@RequestBody List<BookingRequestDTO> richieste) {
+        return ResponseEntity.ok(importazioneService.importa(lettoreImportazione.daLista(richieste)));
+    }
+
+    @Operation(summary = "Importa un lotto di prenotazioni in streaming",
+               description = "Come POST /bookings/import, ma legge il corpo riga per riga in formato NDJSON (application/x-ndjson) o CSV con intestazione (text/csv).")
+    @ApiResponse(responseCode = "200", description = "Esito dell'importazione", content = @Content(schema = @Schema(implementation = ImportazioneResponseDTO.class)))
+    @ApiResponse(responseCode = "409", description = "Conflitto con prenotazioni create durante l'importazione (il lotto viene annullato)")
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<ImportazioneResponseDTO> importaPrenotazioniStream(
+            @RequestHeader("Content-Type") MediaType contentType,
+            InputStream corpo) throws IOException {
+        // La lettura avviene fuori dalla transazione di importazione
+        List<LettoreImportazione.RigaImportazione> righe = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? lettoreImportazione.leggiNdjson(corpo)
+                : lettoreImportazione.leggiCsv(corpo);
+        return ResponseEntity.ok(importazioneService.importa(righe));
     }
 
     // --- Endpoint per Visualizzare i Dettagli di una Singola Prenotazione ---
@@ -128,14 +284,53 @@ public class BookingController {
                description = "Restituisce i dettagli completi di una prenotazione dato il suo ID.")
     @Parameter(description = "ID della prenotazione da recuperare", required = true)
     @ApiResponse(responseCode = "200", description = "Dettagli prenotazione recuperati con successo", content = @Content(schema = @Schema(implementation = BookingResponseDTO.class)))
+    @ApiResponse(responseCode = "304", description = "Prenotazione non modificata rispetto all'ETag indicato in If-None-Match")
     @ApiResponse(responseCode = "404", description = "Prenotazione non trovata")
     @GetMapping("/{id}")
-    public ResponseEntity<BookingResponseDTO> getPrenotazioneById(@PathVariable Long id) {
+    public ResponseEntity<BookingResponseDTO> getPrenotazioneById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) @Parameter(description = "ETag già in possesso del client") String ifNoneMatch) {
         Booking booking = bookingService.findBookingById(id)
                 .orElseThrow(() -> new BookingNotFoundException("Prenotazione non trovata con ID: " + id));
 
-        BookingResponseDTO responseDTO = mapToBookingResponseDTO(booking);
-        return ResponseEntity.ok(responseDTO); // 200 OK
+        String etag = etag(booking);
+        // Il client ha già questa versione: nessuna mappatura né corpo da inviare
+        if (contieneEtag(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).build();
+        }
+
+        BookingResponseDTO responseDTO = bookingMapper.mapToBookingResponseDTO(booking);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).body(responseDTO); // 200 OK
+    }
+
+    // --- Endpoint (Ospite) per le proprie prenotazioni ---
+    @Operation(summary = "Recupera le prenotazioni di un ospite",
+               description = "Restituisce le prenotazioni associate all'email indicata (senza distinzione tra maiuscole e minuscole), dalla più recente.")
+    @ApiResponse(responseCode = "200", description = "Prenotazioni dell'ospite")
+    @ApiResponse(responseCode = "400", description = "Email mancante")
+    @GetMapping("/ospite")
+    public ResponseEntity<List<BookingResponseDTO>> getPrenotazioniOspite(
+            @RequestParam("email") @Parameter(description = "Email usata al momento della prenotazione") String email) {
+        if (email.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<BookingResponseDTO> prenotazioni = bookingService.findPrenotazioniOspite(email).stream()
+                .map(bookingMapper::mapToBookingResponseDTO)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(prenotazioni);
+    }
+
+    @Operation(summary = "Recupera una prenotazione dell'ospite",
+               description = "Restituisce la prenotazione solo se l'email indicata coincide con quella dell'ospite.")
+    @ApiResponse(responseCode = "200", description = "Dettagli della prenotazione", content = @Content(schema = @Schema(implementation = BookingResponseDTO.class)))
+    @ApiResponse(responseCode = "404", description = "Prenotazione non trovata per questa email")
+    @GetMapping("/ospite/{id}")
+    public ResponseEntity<BookingResponseDTO> getPrenotazioneOspite(
+            @PathVariable Long id,
+            @RequestParam("email") @Parameter(description = "Email usata al momento della prenotazione") String email) {
+        Booking booking = bookingService.findPrenotazioneOspite(id, email)
+                .orElseThrow(() -> new BookingNotFoundException("Prenotazione non trovata con ID: " + id));
+        return ResponseEntity.ok(bookingMapper.mapToBookingResponseDTO(booking));
     }
 
     // --- Endpoint per Aggiornare una Prenotazione Esistente ---
@@ -146,24 +341,33 @@ public class BookingController {
     @ApiResponse(responseCode = "200", description = "Prenotazione aggiornata con successo", content = @Content(schema = @Schema(implementation = BookingResponseDTO.class)))
     @ApiResponse(responseCode = "400", description = "Richiesta non valida (es. errori di validazione, numero ospiti non valido)")
     @ApiResponse(responseCode = "404", description = "Prenotazione non trovata")
-    @ApiResponse(responseCode = "409", description = "Conflitto (date già prenotate dopo l'aggiornamento)")
+    @ApiResponse(responseCode = "409", description = "Conflitto (date già prenotate dopo l'aggiornamento) o richiesta con la stessa Idempotency-Key ancora in corso")
+    @ApiResponse(responseCode = "412", description = "La prenotazione è stata modificata da un'altra richiesta (If-Match non corrispondente)")
+    @ApiResponse(responseCode = "422", description = "Idempotency-Key non valida o già usata con dati diversi")
+    @ApiResponse(responseCode = "428", description = "Header If-Match mancante")
     @PutMapping("/{id}")
     public ResponseEntity<BookingResponseDTO> aggiornaPrenotazione(
             @PathVariable Long id,
-            @Valid @RequestBody BookingRequestDTO requestDTO) { // Qui ricevi il DTO corretto
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) @Parameter(description = "ETag della versione su cui si basa la modifica (obbligatorio)", required = true) String ifMatch,
+            @RequestHeader(value = RegistroIdempotenza.HEADER, required = false) @Parameter(description = "Chiave scelta dal client: i nuovi invii con la stessa chiave ricevono la risposta originale") String idempotencyKey,
+            @Validated({Default.class, BookingRequestDTO.DateFuture.class}) @RequestBody BookingRequestDTO requestDTO, // Qui ricevi il DTO corretto
+            HttpServletRequest request) {
 
-        try {
-            // Passa DIRETTAMENTE il 'requestDTO' al service.
-            Booking bookingAggiornata = bookingService.aggiornaPrenotazione(id, requestDTO);
-
-            BookingResponseDTO responseDTO = mapToBookingResponseDTO(bookingAggiornata);
-            return ResponseEntity.ok(responseDTO); // 200 OK
-        } catch (BookingNotFoundException | InvalidGuestNumberException | BookingConflictException |
-                 IllegalArgumentException e) {
-            // Qui stai ri-lanciando l'eccezione, il che è corretto se hai un @ControllerAdvice
-            // per gestirle e mappare a risposte HTTP appropriate (es. 404, 400, 409).
-            throw e;
-        }
+        Long versioneAttesa = versioneDaIfMatch(ifMatch);
+        return registroIdempotenza.esegui(cliente(request), "PUT /bookings/" + id, idempotencyKey, requestDTO, () -> {
+            try {
+                // Passa DIRETTAMENTE il 'requestDTO' al service.
+                Booking bookingAggiornata = bookingService.aggiornaPrenotazione(id, requestDTO, versioneAttesa);
+
+                BookingResponseDTO responseDTO = bookingMapper.mapToBookingResponseDTO(bookingAggiornata);
+                return ResponseEntity.ok().eTag(etag(bookingAggiornata)).body(responseDTO); // 200 OK
+            } catch (BookingNotFoundException | InvalidGuestNumberException | BookingConflictException |
+                     IllegalArgumentException e) {
+                // Qui stai ri-lanciando l'eccezione, il che è corretto se hai un @ControllerAdvice
+                // per gestirle e mappare a risposte HTTP appropriate (es. 404, 400, 409).
+                throw e;
+            }
+        });
     }
 
     // --- Endpoint per Cancellare una Prenotazione (cambia stato) ---
@@ -171,12 +375,16 @@ public class BookingController {
                description = "Imposta lo stato di una prenotazione a 'CANCELLATA' dato il suo ID.")
     @Parameter(description = "ID della prenotazione da cancellare", required = true)
     @ApiResponse(responseCode = "200", description = "Prenotazione cancellata con successo", content = @Content(schema = @Schema(implementation = BookingResponseDTO.class)))
+    @ApiResponse(responseCode = "412", description = "La prenotazione è stata modificata da un'altra richiesta (If-Match non corrispondente)")
+    @ApiResponse(responseCode = "428", description = "Header If-Match mancante")
     @PatchMapping("/{id}/cancella") // PATCH è appropriato per un aggiornamento parziale/cambio di stato
-    public ResponseEntity<BookingResponseDTO> cancellaPrenotazione(@PathVariable Long id) {
+    public ResponseEntity<BookingResponseDTO> cancellaPrenotazione(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) @Parameter(description = "ETag della versione su cui si basa la modifica (obbligatorio)", required = true) String ifMatch) {
         try {
-            Booking bookingCancellata = bookingService.cancellaPrenotazione(id);
-            BookingResponseDTO responseDTO = mapToBookingResponseDTO(bookingCancellata);
-            return ResponseEntity.ok(responseDTO); // 200 OK
+            Booking bookingCancellata = bookingService.cancellaPrenotazione(id, versioneDaIfMatch(ifMatch));
+            BookingResponseDTO responseDTO = bookingMapper.mapToBookingResponseDTO(bookingCancellata);
+            return ResponseEntity.ok().eTag(etag(bookingCancellata)).body(responseDTO); // 200 OK
         } catch (BookingNotFoundException e) {
             throw e;
         }
@@ -192,10 +400,175 @@ public class BookingController {
     // @PreAuthorize("hasRole('ADMIN')") // Esempio di protezione con Spring Security (richiede configurazione aggiuntiva)
     public ResponseEntity<Page<BookingResponseDTO>> getAllPrenotazioni(Pageable pageable) {
         Page<Booking> bookingsPage = bookingService.findAllBookings(pageable);
-        Page<BookingResponseDTO> responseDTOsPage = bookingsPage.map(this::mapToBookingResponseDTO);
+        Page<BookingResponseDTO> responseDTOsPage = bookingsPage.map(bookingMapper::mapToBookingResponseDTO);
         return ResponseEntity.ok(responseDTOsPage);
     }
 
+    // --- Endpoint (Admin) per l'elenco con paginazione keyset ---
+    @Operation(summary = "Elenco prenotazioni con paginazione keyset",
+               description = "Restituisce le prenotazioni successive al cursore indicato, ordinate per id oppure per data di inizio se è presente dopoDataInizio. Non esegue il conteggio totale.")
+    @ApiResponse(responseCode = "200", description = "Pagina di prenotazioni", content = @Content(schema = @Schema(implementation = PaginaKeysetDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Limite non valido")
+    @GetMapping("/elenco")
+    public ResponseEntity<PaginaKeysetDTO> getElencoPrenotazioni(
+            @RequestParam(value = "dopoId", required = false) @Parameter(description = "Id dell'ultima prenotazione della pagina precedente") Long dopoId,
+            @RequestParam(value = "dopoDataInizio", required = false) @Parameter(description = "Data di inizio dell'ultima prenotazione della pagina precedente (ordinamento per data)") LocalDate dopoDataInizio,
+            @RequestParam(value = "limite", defaultValue = "50") int limite) {
+
+        if (limite < 1 || limite > LIMITE_MASSIMO_PAGINA) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Booking> righe = bookingService.findPaginaKeyset(dopoId, dopoDataInizio, limite);
+        boolean altri = righe.size() > limite;
+        List<Booking> pagina = altri ? righe.subList(0, limite) : righe;
+        Booking ultima = pagina.isEmpty() ? null : pagina.get(pagina.size() - 1);
+
+        List<BookingResponseDTO> contenuto = pagina.stream().map(bookingMapper::mapToBookingResponseDTO).collect(Collectors.toList());
+        return ResponseEntity.ok(new PaginaKeysetDTO(contenuto, altri,
+                ultima != null ? ultima.getId() : null,
+                ultima != null && dopoDataInizio != null ? ultima.getDataInizio() : null));
+    }
+
+    // --- Endpoint (Admin) per l'esportazione completa ---
+    @Operation(summary = "Esporta tutte le prenotazioni",
+               description = "Scrive tutte le prenotazioni in streaming, in formato NDJSON (predefinito) o CSV, con memoria costante lato server.")
+    @ApiResponse(responseCode = "200", description = "Esportazione in corso")
+    @ApiResponse(responseCode = "400", description = "Formato non supportato")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> esportaPrenotazioni(
+            @RequestParam(value = "formato", defaultValue = "ndjson") @Parameter(description = "ndjson oppure csv") String formato) {
+
+        boolean csv = "csv".equalsIgnoreCase(formato);
+        if (!csv && !"ndjson".equalsIgnoreCase(formato)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody corpo = output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            if (csv) {
+                writer.write("id,dataInizio,dataFine,nomeOspite,cognomeOspite,emailOspite,numeroOspiti,stato,dataCreazione,note,prezzoTotale,proprietaId\n");
+            }
+            bookingService.esportaPrenotazioni(booking -> {
+                try {
+                    BookingResponseDTO dto = bookingMapper.mapToBookingResponseDTO(booking);
+                    writer.write(csv ? rigaCsv(dto) : objectMapper.writeValueAsString(dto));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header("Content-Disposition", "attachment; filename=\"prenotazioni." + (csv ? "csv" : "ndjson") + "\"")
+                .body(corpo);
+    }
+
+    private static PeriodoSuggeritoDTO periodo(SuggeritoreDate.Periodo periodo) {
+        return periodo != null ? new PeriodoSuggeritoDTO(periodo.dataInizio(), periodo.dataFine()) : null;
+    }
+
+    // Le richieste senza unità si riferiscono all'unità predefinita
+    private static Long unita(Long proprietaId) {
+        return proprietaId != null ? proprietaId : Proprieta.PREDEFINITA;
+    }
+
+    // ETag forte basato sulla versione della prenotazione (ogni modifica la incrementa)
+    private static String etag(Booking booking) {
+        return "\"" + booking.getVersione() + "\"";
+    }
+
+    // If-None-Match può contenere più ETag separati da virgola, anche deboli (W/"..."), oppure "*"
+    private static boolean contieneEtag(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        for (String valore : header.split(",")) {
+            String tag = valore.trim();
+            if (tag.equals("*") || tag.replaceFirst("^W/", "").equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Versione attesa da If-Match (si considera il primo ETag); null se vale "*" (modifica esplicitamente incondizionata).
+    // Senza header la modifica è rifiutata con 428: il client deve partire da una versione letta.
+    // Un valore che non può corrispondere a nessuna versione fa fallire subito la precondizione
+    private static Long versioneDaIfMatch(String header) {
+        if (header == null || header.isBlank()) {
+            throw new PreconditionRequiredException("Header If-Match obbligatorio: indicare l'ETag della versione letta della prenotazione.");
+        }
+        if (header.trim().equals("*")) {
+            return null;
+        }
+        String tag = header.split(",")[0].trim().replaceFirst("^W/", "");
+        try {
+            return Long.valueOf(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match non corrisponde a nessuna versione della prenotazione: " + header);
+        }
+    }
+
+    // Ambito delle Idempotency-Key: l'utente autenticato se c'è, altrimenti l'indirizzo del chiamante
+    // (dietro un proxy è quello del proxy, salvo server.forward-headers-strategy)
+    private static String cliente(HttpServletRequest request) {
+        return request.getUserPrincipal() != null
+                ? "utente:" + request.getUserPrincipal().getName()
+                : "ip:" + request.getRemoteAddr();
+    }
+
+    private String rigaCsv(BookingResponseDTO dto) {
+        return String.join(",",
+                String.valueOf(dto.getId()),
+                String.valueOf(dto.getDataInizio()),
+                String.valueOf(dto.getDataFine()),
+                campoCsv(dto.getNomeOspite()),
+                campoCsv(dto.getCognomeOspite()),
+                campoCsv(dto.getEmailOspite()),
+                String.valueOf(dto.getNumeroOspiti()),
+                String.valueOf(dto.getStato()),
+                dto.getDataCreazione() != null ? dto.getDataCreazione().toString() : "",
+                campoCsv(dto.getNote()),
+                String.valueOf(dto.getPrezzoTotale()),
+                String.valueOf(dto.getProprietaId()));
+    }
+
+    private String campoCsv(String valore) {
+        if (valore == null) {
+            return "";
+        }
+        if (valore.contains(",") || valore.contains("\"") || valore.contains("\n")) {
+            return "\"" + valore.replace("\"", "\"\"") + "\"";
+        }
+        return valore;
+    }
+
+    // Due modifiche concorrenti sulla stessa versione: la seconda fallisce al commit per il controllo di @Version
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @Operation(summary = "Gestore dei conflitti di versione", hidden = true)
+    @ApiResponse(responseCode = "412", description = "La prenotazione è stata modificata da un'altra richiesta")
+    public ResponseEntity<Map<String, String>> handleOptimisticLocking(ObjectOptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(Map.of("errore", "La prenotazione è stata modificata da un'altra richiesta, ricaricarla e riprovare."));
+    }
+
+    // Il 409 propone subito le alternative: l'ospite non deve riprovare le date a mano
+    @ExceptionHandler(BookingConflictException.class)
+    @Operation(summary = "Gestore dei conflitti di date", hidden = true)
+    @ApiResponse(responseCode = "409", description = "Date già prenotate", content = @Content(schema = @Schema(implementation = ConflittoResponseDTO.class)))
+    public ResponseEntity<ConflittoResponseDTO> handleBookingConflict(BookingConflictException ex) {
+        if (!ex.hasPeriodo()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ConflittoResponseDTO(ex.getMessage(), null, null));
+        }
+        SuggeritoreDate.Suggerimenti suggerimenti = suggeritoreDate.suggerisci(ex.getProprietaId(), ex.getDataInizio(), ex.getDataFine());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ConflittoResponseDTO(ex.getMessage(), periodo(suggerimenti.prima()), periodo(suggerimenti.dopo())));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @Operation(summary = "Gestore degli errori di validazione della richiesta", hidden = true) // Nasconde dall'UI principale
     @ApiResponse(responseCode = "400", description = "Errori di validazione dei campi", content = @Content(schema = @Schema(implementation = Map.class)))
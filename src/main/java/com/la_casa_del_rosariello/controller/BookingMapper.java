@@ -0,0 +1,44 @@
+package com.la_casa_del_rosariello.controller;
+
+import com.la_casa_del_rosariello.dto.BookingResponseDTO;
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.service.BookingService;
+import org.springframework.stereotype.Component;
+
+// Mappatura Booking -> BookingResponseDTO, condivisa dagli endpoint delle prenotazioni
+@Component
+public class BookingMapper {
+
+    private final BookingService bookingService;
+
+    public BookingMapper(BookingService bookingService) {
+        this.bookingService = bookingService;
+    }
+
+    public BookingResponseDTO mapToBookingResponseDTO(Booking booking) {
+        BookingResponseDTO dto = new BookingResponseDTO();
+        dto.setId(booking.getId());
+        dto.setProprietaId(booking.getProprietaId());
+        dto.setDataInizio(booking.getDataInizio());
+        dto.setDataFine(booking.getDataFine());
+        dto.setNomeOspite(booking.getOspiteNome());
+        dto.setCognomeOspite(booking.getOspiteCognome());
+        dto.setEmailOspite(booking.getOspiteEmail());
+        dto.setNumeroOspiti(booking.getNumeroOspiti());
+        dto.setNote(booking.getNote());
+        dto.setDataCreazione(booking.getDataCreazione());
+
+        dto.setStato(booking.getStatoPrenotazione());
+        dto.setScadenzaHold(booking.getScadenzaHold());
+
+        // Prezzo salvato con la prenotazione; il calcolo resta solo per le righe non ancora allineate dal backfill
+        if (booking.getPrezzoTotale() != null) {
+            dto.setPrezzoTotale(booking.getPrezzoTotale());
+            dto.setImportoNotti(booking.getPrezzoNotti());
+            dto.setScontoDurata(booking.getScontoDurata());
+        } else {
+            dto.setPrezzoTotale(bookingService.calcolaPrezzoTotale(booking.getDataInizio(), booking.getDataFine()));
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,211 @@
+package com.la_casa_del_rosariello.controller;
+
+import com.la_casa_del_rosariello.dto.CalendarioEsternoRequestDTO;
+import com.la_casa_del_rosariello.dto.CalendarioEsternoResponseDTO;
+import com.la_casa_del_rosariello.dto.EsitoSincronizzazioneDTO;
+import com.la_casa_del_rosariello.dto.ProprietaRequestDTO;
+import com.la_casa_del_rosariello.dto.ProprietaResponseDTO;
+import com.la_casa_del_rosariello.dto.RicercaResponseDTO;
+import com.la_casa_del_rosariello.dto.RisultatoRicercaDTO;
+import com.la_casa_del_rosariello.entity.CalendarioEsterno;
+import com.la_casa_del_rosariello.entity.Proprieta;
+import com.la_casa_del_rosariello.service.CalendarioIcalService;
+import com.la_casa_del_rosariello.service.ProprietaService;
+import com.la_casa_del_rosariello.service.RicercaDisponibilita;
+import com.la_casa_del_rosariello.service.SincronizzazioneCalendari;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@Tag(name = "Unità", description = "API per la gestione delle unità prenotabili (camere e appartamenti)")
+@RequestMapping("/proprieta")
+public class ProprietaController {
+
+    private final ProprietaService proprietaService;
+    private final RicercaDisponibilita ricercaDisponibilita;
+    private final CalendarioIcalService calendarioIcalService;
+    private final SincronizzazioneCalendari sincronizzazioneCalendari;
+
+    // Limite massimo di risultati restituiti da una ricerca
+    private static final int LIMITE_MASSIMO_RICERCA = 100;
+
+    private static final MediaType TEXT_CALENDAR = new MediaType("text", "calendar", StandardCharsets.UTF_8);
+
+    public ProprietaController(ProprietaService proprietaService, RicercaDisponibilita ricercaDisponibilita,
+                               CalendarioIcalService calendarioIcalService, SincronizzazioneCalendari sincronizzazioneCalendari) {
+        this.proprietaService = proprietaService;
+        this.ricercaDisponibilita = ricercaDisponibilita;
+        this.calendarioIcalService = calendarioIcalService;
+        this.sincronizzazioneCalendari = sincronizzazioneCalendari;
+    }
+
+    private ProprietaResponseDTO mapToProprietaResponseDTO(Proprieta proprieta) {
+        return new ProprietaResponseDTO(proprieta.getId(), proprieta.getNome(), proprieta.getDescrizione(),
+                proprieta.getCapienza(), proprieta.getCoefficientePrezzo(), proprieta.isAttiva());
+    }
+
+    private CalendarioEsternoResponseDTO mapToCalendarioEsternoResponseDTO(CalendarioEsterno calendario) {
+        return new CalendarioEsternoResponseDTO(calendario.getId(), calendario.getProprietaId(), calendario.getNome(), calendario.getUrl(),
+                calendario.isAttivo(), calendario.getUltimaSincronizzazione(), calendario.getUltimoEsito());
+    }
+
+    // --- Endpoint per l'Elenco delle Unità ---
+    @Operation(summary = "Recupera le unità prenotabili")
+    @GetMapping
+    public ResponseEntity<List<ProprietaResponseDTO>> getProprieta() {
+        return ResponseEntity.ok(proprietaService.elencaProprieta().stream()
+                .map(this::mapToProprietaResponseDTO)
+                .collect(Collectors.toList()));
+    }
+
+    // --- Endpoint per Creare un'Unità ---
+    @Operation(summary = "Crea un'unità prenotabile")
+    @ApiResponse(responseCode = "201", description = "Unità creata con successo", content = @Content(schema = @Schema(implementation = ProprietaResponseDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Richiesta non valida")
+    @PostMapping
+    public ResponseEntity<ProprietaResponseDTO> creaProprieta(@Valid @RequestBody ProprietaRequestDTO requestDTO) {
+        Proprieta proprieta = new Proprieta(requestDTO.getNome(), requestDTO.getDescrizione(), requestDTO.getCapienza());
+        if (requestDTO.getCoefficientePrezzo() != null) {
+            proprieta.setCoefficientePrezzo(requestDTO.getCoefficientePrezzo());
+        }
+        return new ResponseEntity<>(mapToProprietaResponseDTO(proprietaService.creaProprieta(proprieta)), HttpStatus.CREATED);
+    }
+
+    // --- Endpoint per la Ricerca delle Unità Disponibili ---
+    @Operation(summary = "Cerca le unità libere per un periodo",
+               description = "Restituisce le unità attive senza prenotazioni nel periodo e con capienza sufficiente, per un soggiorno di al massimo un anno. Il costo non cresce con una query per unità.")
+    @ApiResponse(responseCode = "200", description = "Unità disponibili")
+    @ApiResponse(responseCode = "400", description = "Richiesta non valida (es. date non corrette o periodo superiore a un anno)")
+    @GetMapping("/disponibili")
+    public ResponseEntity<List<ProprietaResponseDTO>> getProprietaDisponibili(
+            @RequestParam("dataInizio") @Parameter(description = "Data di inizio del soggiorno (formato YYYY-MM-DD)") LocalDate dataInizio,
+            @RequestParam("dataFine") @Parameter(description = "Data di fine del soggiorno (formato YYYY-MM-DD)") LocalDate dataFine,
+            @RequestParam(value = "ospiti", defaultValue = "1") @Parameter(description = "Numero di ospiti") int ospiti) {
+        // Stesso limite di /bookings/calendario: il costo della verifica cresce con la lunghezza del periodo
+        if (!dataFine.isAfter(dataInizio) || dataFine.isAfter(dataInizio.plusYears(1)) || ospiti < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(proprietaService.findDisponibili(dataInizio, dataFine, ospiti).stream()
+                .map(this::mapToProprietaResponseDTO)
+                .collect(Collectors.toList()));
+    }
+
+    // --- Endpoint per la Ricerca con Prezzi ---
+    @Operation(summary = "Cerca un soggiorno su tutte le unità",
+               description = "Restituisce le unità libere nel periodo con capienza sufficiente, ordinate per prezzo totale. "
+                       + "Il soggiorno può durare al massimo un anno. "
+                       + "Se la ricerca supera il budget di latenza la risposta contiene le unità valutate fino a quel momento ed è marcata come parziale.")
+    @ApiResponse(responseCode = "200", description = "Risultati della ricerca", content = @Content(schema = @Schema(implementation = RicercaResponseDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Richiesta non valida (es. date non corrette o periodo superiore a un anno)")
+    @GetMapping("/ricerca")
+    public ResponseEntity<RicercaResponseDTO> cerca(
+            @RequestParam("dataInizio") @Parameter(description = "Data di inizio del soggiorno (formato YYYY-MM-DD)") LocalDate dataInizio,
+            @RequestParam("dataFine") @Parameter(description = "Data di fine del soggiorno (formato YYYY-MM-DD)") LocalDate dataFine,
+            @RequestParam(value = "ospiti", defaultValue = "1") @Parameter(description = "Numero di ospiti") int ospiti,
+            @RequestParam(value = "limite", defaultValue = "20") @Parameter(description = "Numero massimo di risultati") int limite) {
+        // Il preventivo di ogni unità candidata somma le tariffe notte per notte
+        if (!dataFine.isAfter(dataInizio) || dataFine.isAfter(dataInizio.plusYears(1)) || ospiti < 1 || limite < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        RicercaDisponibilita.Esito esito = ricercaDisponibilita.cerca(dataInizio, dataFine, ospiti, Math.min(limite, LIMITE_MASSIMO_RICERCA));
+        List<RisultatoRicercaDTO> risultati = esito.risultati().stream()
+                .map(r -> new RisultatoRicercaDTO(r.proprieta().getId(), r.proprieta().getNome(), r.proprieta().getCapienza(),
+                        r.preventivo().getNotti(), r.preventivo().getImportoNotti(), r.preventivo().getScontoDurata(), r.preventivo().getTotale()))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(new RicercaResponseDTO(dataInizio, dataFine, ospiti, risultati,
+                esito.unitaCandidate(), esito.unitaValutate(), esito.parziale()));
+    }
+
+    // --- Endpoint per l'Esportazione iCal delle Date Bloccate ---
+    @Operation(summary = "Esporta le date bloccate di un'unità in formato iCal",
+               description = "Feed per i portali esterni: un evento per ogni prenotazione che blocca il calendario, da oggi in avanti, senza dati dell'ospite. "
+                       + "Con If-None-Match o If-Modified-Since la risposta è un 304 senza corpo finché il calendario non cambia.")
+    @ApiResponse(responseCode = "200", description = "Calendario in formato text/calendar")
+    @ApiResponse(responseCode = "304", description = "Calendario non modificato rispetto ai validatori indicati")
+    @ApiResponse(responseCode = "404", description = "Unità non trovata")
+    @GetMapping(value = "/{id}/calendario.ics", produces = "text/calendar")
+    public ResponseEntity<String> esportaCalendario(@PathVariable Long id, WebRequest webRequest) {
+        // La versione si calcola senza leggere le prenotazioni: un portale che interroga spesso costa due righe d'indice
+        CalendarioIcalService.Versione versione = calendarioIcalService.versione(id);
+        if (webRequest.checkNotModified(versione.etag(), versione.ultimaModifica())) {
+            return null; // 304 con ETag e Last-Modified già impostati
+        }
+        return ResponseEntity.ok()
+                .contentType(TEXT_CALENDAR)
+                .eTag(versione.etag())
+                .lastModified(versione.ultimaModifica())
+                .cacheControl(CacheControl.noCache())
+                .body(calendarioIcalService.esporta(id, Instant.now()));
+    }
+
+    // --- Endpoint per l'Elenco dei Calendari Esterni ---
+    @Operation(summary = "Recupera i calendari esterni importati per un'unità")
+    @ApiResponse(responseCode = "200", description = "Calendari esterni dell'unità")
+    @ApiResponse(responseCode = "404", description = "Unità non trovata")
+    @GetMapping("/{id}/calendari-esterni")
+    public ResponseEntity<List<CalendarioEsternoResponseDTO>> getCalendariEsterni(@PathVariable Long id) {
+        return ResponseEntity.ok(calendarioIcalService.elencaCalendari(id).stream()
+                .map(this::mapToCalendarioEsternoResponseDTO)
+                .collect(Collectors.toList()));
+    }
+
+    // --- Endpoint per Aggiungere un Calendario Esterno ---
+    @Operation(summary = "Aggiunge un calendario iCal esterno a un'unità",
+               description = "Gli eventi del calendario diventano blocchi dell'unità, aggiornati periodicamente dal job di sincronizzazione. "
+                       + "Sono ammessi URL http(s) e file: nella cartella configurata (booking.ical.cartella).")
+    @ApiResponse(responseCode = "201", description = "Calendario aggiunto", content = @Content(schema = @Schema(implementation = CalendarioEsternoResponseDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Richiesta non valida (es. URL non ammesso)")
+    @ApiResponse(responseCode = "404", description = "Unità non trovata")
+    @PostMapping("/{id}/calendari-esterni")
+    public ResponseEntity<CalendarioEsternoResponseDTO> creaCalendarioEsterno(@PathVariable Long id,
+                                                                              @Valid @RequestBody CalendarioEsternoRequestDTO requestDTO) {
+        CalendarioEsterno calendario = calendarioIcalService.creaCalendario(new CalendarioEsterno(id, requestDTO.getNome(), requestDTO.getUrl().trim()));
+        return new ResponseEntity<>(mapToCalendarioEsternoResponseDTO(calendario), HttpStatus.CREATED);
+    }
+
+    // --- Endpoint per Sincronizzare Subito un Calendario Esterno ---
+    @Operation(summary = "Sincronizza subito un calendario esterno",
+               description = "Scarica il calendario (senza validatori: anche se invariato) e applica le differenze ai blocchi dell'unità.")
+    @ApiResponse(responseCode = "200", description = "Esito della sincronizzazione", content = @Content(schema = @Schema(implementation = EsitoSincronizzazioneDTO.class)))
+    @ApiResponse(responseCode = "404", description = "Unità o calendario non trovati")
+    @ApiResponse(responseCode = "409", description = "Sincronizzazione già in corso o date prenotate nel frattempo")
+    @ApiResponse(responseCode = "502", description = "Calendario esterno non raggiungibile")
+    @PostMapping("/{id}/calendari-esterni/{calendarioId}/sincronizza")
+    public ResponseEntity<EsitoSincronizzazioneDTO> sincronizzaCalendarioEsterno(@PathVariable Long id, @PathVariable Long calendarioId) {
+        CalendarioEsterno calendario = calendarioIcalService.trovaCalendario(id, calendarioId);
+        CalendarioIcalService.Esito esito;
+        try {
+            esito = sincronizzazioneCalendari.sincronizza(calendario, true);
+        } catch (IOException e) {
+            sincronizzazioneCalendari.registraErrore(calendario, e);
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        if (esito == null) {
+            return ResponseEntity.ok(new EsitoSincronizzazioneDTO(calendarioId, false, 0, 0, 0, 0, List.of()));
+        }
+        return ResponseEntity.ok(new EsitoSincronizzazioneDTO(calendarioId, true, esito.creati(), esito.spostati(), esito.cancellati(),
+                esito.invariati(), esito.conflitti()));
+    }
+}
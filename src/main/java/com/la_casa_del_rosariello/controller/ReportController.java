@@ -0,0 +1,170 @@
+package com.la_casa_del_rosariello.controller;
+
+import com.la_casa_del_rosariello.dto.AndamentoDTO;
+import com.la_casa_del_rosariello.dto.AnticipoResponseDTO;
+import com.la_casa_del_rosariello.dto.EventoPrenotazioneDTO;
+import com.la_casa_del_rosariello.dto.FasciaAnticipoDTO;
+import com.la_casa_del_rosariello.dto.OccupazioneGiornoDTO;
+import com.la_casa_del_rosariello.dto.RicavoMensileDTO;
+import com.la_casa_del_rosariello.dto.RiepilogoOspiteDTO;
+import com.la_casa_del_rosariello.entity.OccupazioneGiornaliera;
+import com.la_casa_del_rosariello.entity.Proprieta;
+import com.la_casa_del_rosariello.service.ReportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@RestController
+@Tag(name = "Report", description = "API di sola lettura sulle tabelle precalcolate dal registro degli eventi")
+@RequestMapping("/report")
+public class ReportController {
+
+    private final ReportService reportService;
+
+    // Limite massimo di giorni per una richiesta di occupazione giornaliera
+    private static final int GIORNI_MASSIMI_OCCUPAZIONE = 366;
+    // Limite massimo di giorni per gli indicatori e l'anticipo (una riga per giorno letta dalle tabelle precalcolate)
+    private static final int GIORNI_MASSIMI_ANALISI = 3660;
+
+    public ReportController(ReportService reportService) {
+        this.reportService = reportService;
+    }
+
+    // --- Endpoint per l'Occupazione Giornaliera ---
+    @Operation(summary = "Recupera le notti vendute e il ricavo giorno per giorno",
+               description = "Un elemento per ogni giorno del periodo (dataFine esclusa), anche quelli senza notti vendute. Conta solo le prenotazioni confermate.")
+    @ApiResponse(responseCode = "200", description = "Occupazione giornaliera")
+    @ApiResponse(responseCode = "400", description = "Richiesta non valida (es. date non corrette o periodo oltre 366 giorni)")
+    @GetMapping("/occupazione")
+    public ResponseEntity<List<OccupazioneGiornoDTO>> getOccupazione(
+            @RequestParam("dataInizio") @Parameter(description = "Primo giorno (formato YYYY-MM-DD)") LocalDate dataInizio,
+            @RequestParam("dataFine") @Parameter(description = "Giorno successivo all'ultimo (formato YYYY-MM-DD)") LocalDate dataFine,
+            @RequestParam(value = "proprieta", required = false) @Parameter(description = "Id dell'unità (predefinita se assente)") Long proprietaId) {
+        if (!dataFine.isAfter(dataInizio) || ChronoUnit.DAYS.between(dataInizio, dataFine) > GIORNI_MASSIMI_OCCUPAZIONE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Map<LocalDate, OccupazioneGiornaliera> righe = reportService.occupazioneGiornaliera(unita(proprietaId), dataInizio, dataFine).stream()
+                .collect(Collectors.toMap(OccupazioneGiornaliera::getGiorno, Function.identity()));
+        List<OccupazioneGiornoDTO> giorni = new ArrayList<>();
+        for (LocalDate giorno = dataInizio; giorno.isBefore(dataFine); giorno = giorno.plusDays(1)) {
+            OccupazioneGiornaliera riga = righe.get(giorno);
+            giorni.add(riga != null
+                    ? new OccupazioneGiornoDTO(giorno, riga.getNottiOccupate(), arrotonda(riga.getRicavo()))
+                    : new OccupazioneGiornoDTO(giorno, 0, 0));
+        }
+        return ResponseEntity.ok(giorni);
+    }
+
+    // --- Endpoint per i Ricavi Mensili ---
+    @Operation(summary = "Recupera notti vendute e ricavo per mese",
+               description = "Il ricavo di un soggiorno è ripartito sulle sue notti: un soggiorno a cavallo di due mesi contribuisce a entrambi.")
+    @ApiResponse(responseCode = "200", description = "Ricavi mensili (solo i mesi con dati)")
+    @ApiResponse(responseCode = "400", description = "Richiesta non valida")
+    @GetMapping("/ricavi")
+    public ResponseEntity<List<RicavoMensileDTO>> getRicavi(
+            @RequestParam("da") @Parameter(description = "Primo mese (formato YYYY-MM)") YearMonth primoMese,
+            @RequestParam("a") @Parameter(description = "Ultimo mese, incluso (formato YYYY-MM)") YearMonth ultimoMese,
+            @RequestParam(value = "proprieta", required = false) @Parameter(description = "Id dell'unità (predefinita se assente)") Long proprietaId) {
+        if (ultimoMese.isBefore(primoMese)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(reportService.ricaviMensili(unita(proprietaId), primoMese, ultimoMese).stream()
+                .map(r -> new RicavoMensileDTO(YearMonth.from(r.getMese()), r.getNotti(), arrotonda(r.getRicavo())))
+                .collect(Collectors.toList()));
+    }
+
+    // --- Endpoint per gli Indicatori di Occupazione e Ricavo ---
+    @Operation(summary = "Recupera occupazione, notti vendute, ricavo, ADR e RevPAR di un periodo",
+               description = "Calcolati dalle somme giornaliere precalcolate, senza leggere le prenotazioni. Senza unità indicata considera tutte le unità attive. "
+                       + "Il raggruppamento divide il periodo per mese o per stagione (nome della tariffa stagionale che copre il giorno).")
+    @ApiResponse(responseCode = "200", description = "Indicatori per sotto-periodo")
+    @ApiResponse(responseCode = "400", description = "Richiesta non valida (es. date non corrette o periodo oltre 10 anni)")
+    @ApiResponse(responseCode = "404", description = "Unità non trovata")
+    @GetMapping("/andamento")
+    public ResponseEntity<List<AndamentoDTO>> getAndamento(
+            @RequestParam("dataInizio") @Parameter(description = "Primo giorno (formato YYYY-MM-DD)") LocalDate dataInizio,
+            @RequestParam("dataFine") @Parameter(description = "Giorno successivo all'ultimo (formato YYYY-MM-DD)") LocalDate dataFine,
+            @RequestParam(value = "proprieta", required = false) @Parameter(description = "Id dell'unità (tutte le unità attive se assente)") Long proprietaId,
+            @RequestParam(value = "raggruppamento", defaultValue = "TOTALE") @Parameter(description = "TOTALE, MESE o STAGIONE") ReportService.Raggruppamento raggruppamento) {
+        if (!dataFine.isAfter(dataInizio) || ChronoUnit.DAYS.between(dataInizio, dataFine) > GIORNI_MASSIMI_ANALISI) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(reportService.andamento(proprietaId, dataInizio, dataFine, raggruppamento).stream()
+                .map(a -> new AndamentoDTO(a.etichetta(), a.dataInizio(), a.dataFine(), a.nottiDisponibili(), a.nottiVendute(),
+                        a.nottiDisponibili() > 0 ? Math.round(a.nottiVendute() * 1000.0 / a.nottiDisponibili()) / 10.0 : 0,
+                        arrotonda(a.ricavo()),
+                        a.nottiVendute() > 0 ? arrotonda(a.ricavo() / a.nottiVendute()) : 0,
+                        a.nottiDisponibili() > 0 ? arrotonda(a.ricavo() / a.nottiDisponibili()) : 0))
+                .collect(Collectors.toList()));
+    }
+
+    // --- Endpoint per la Distribuzione dell'Anticipo di Prenotazione ---
+    @Operation(summary = "Recupera la distribuzione dei giorni di anticipo tra prenotazione e arrivo",
+               description = "Prenotazioni confermate con arrivo nel periodo, per fascia di anticipo. Escluse le prenotazioni senza data di creazione (es. importate).")
+    @ApiResponse(responseCode = "200", description = "Distribuzione per fascia", content = @Content(schema = @Schema(implementation = AnticipoResponseDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Richiesta non valida (es. date non corrette o periodo oltre 10 anni)")
+    @ApiResponse(responseCode = "404", description = "Unità non trovata")
+    @GetMapping("/anticipo")
+    public ResponseEntity<AnticipoResponseDTO> getAnticipo(
+            @RequestParam("dataInizio") @Parameter(description = "Primo giorno di arrivo (formato YYYY-MM-DD)") LocalDate dataInizio,
+            @RequestParam("dataFine") @Parameter(description = "Giorno successivo all'ultimo (formato YYYY-MM-DD)") LocalDate dataFine,
+            @RequestParam(value = "proprieta", required = false) @Parameter(description = "Id dell'unità (tutte le unità se assente)") Long proprietaId) {
+        if (!dataFine.isAfter(dataInizio) || ChronoUnit.DAYS.between(dataInizio, dataFine) > GIORNI_MASSIMI_ANALISI) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<ReportService.FasciaAnticipo> fasce = reportService.anticipo(proprietaId, dataInizio, dataFine);
+        long totale = fasce.stream().mapToLong(ReportService.FasciaAnticipo::prenotazioni).sum();
+        return ResponseEntity.ok(new AnticipoResponseDTO(dataInizio, dataFine, totale, fasce.stream()
+                .map(f -> new FasciaAnticipoDTO(f.giorniMinimi(), f.giorniMassimi(), f.prenotazioni(),
+                        totale > 0 ? Math.round(f.prenotazioni() * 1000.0 / totale) / 10.0 : 0))
+                .collect(Collectors.toList())));
+    }
+
+    // --- Endpoint per il Riepilogo di un Ospite ---
+    @Operation(summary = "Recupera i totali di un ospite")
+    @ApiResponse(responseCode = "200", description = "Riepilogo dell'ospite", content = @Content(schema = @Schema(implementation = RiepilogoOspiteDTO.class)))
+    @ApiResponse(responseCode = "404", description = "Nessuna prenotazione per l'email indicata")
+    @GetMapping("/ospiti")
+    public ResponseEntity<RiepilogoOspiteDTO> getRiepilogoOspite(
+            @RequestParam("email") @Parameter(description = "Email dell'ospite") String email) {
+        return reportService.riepilogoOspite(email)
+                .map(r -> ResponseEntity.ok(new RiepilogoOspiteDTO(r.getOspiteEmailNormalizzata(), r.getPrenotazioni(),
+                        r.getPrenotazioniConfermate(), r.getNotti(), arrotonda(r.getSpesa()))))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // --- Endpoint per la Storia di una Prenotazione ---
+    @Operation(summary = "Recupera gli eventi registrati per una prenotazione", description = "In ordine di versione, dalla creazione all'ultima modifica.")
+    @ApiResponse(responseCode = "200", description = "Eventi della prenotazione (vuoto se la prenotazione non esiste)")
+    @GetMapping("/prenotazioni/{id}/eventi")
+    public ResponseEntity<List<EventoPrenotazioneDTO>> getEventiPrenotazione(@PathVariable Long id) {
+        return ResponseEntity.ok(reportService.eventiPrenotazione(id).stream()
+                .map(e -> new EventoPrenotazioneDTO(e.getId(), e.getTipo(), e.getStatoPrenotazione(), e.getDataInizio(), e.getDataFine(),
+                        e.getNumeroOspiti(), e.getPrezzoTotale(), e.getVersione(), e.getRegistratoIl()))
+                .collect(Collectors.toList()));
+    }
+
+    private static Long unita(Long proprietaId) {
+        return proprietaId != null ? proprietaId : Proprieta.PREDEFINITA;
+    }
+
+    // Le somme per differenza accumulano errori di arrotondamento: gli importi escono al centesimo
+    private static double arrotonda(double importo) {
+        return Math.round(importo * 100) / 100.0;
+    }
+}
@@ -0,0 +1,72 @@
+package com.la_casa_del_rosariello.controller;
+
+import com.la_casa_del_rosariello.dto.TariffaRequestDTO;
+import com.la_casa_del_rosariello.dto.TariffaResponseDTO;
+import com.la_casa_del_rosariello.entity.TariffaStagionale;
+import com.la_casa_del_rosariello.service.TariffaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@Tag(name = "Tariffe", description = "API per la gestione delle tariffe stagionali")
+@RequestMapping("/tariffe")
+public class TariffaController {
+
+    private final TariffaService tariffaService;
+
+    public TariffaController(TariffaService tariffaService) {
+        this.tariffaService = tariffaService;
+    }
+
+    private TariffaResponseDTO mapToTariffaResponseDTO(TariffaStagionale tariffa) {
+        return new TariffaResponseDTO(tariffa.getId(), tariffa.getNome(), tariffa.getDataInizio(), tariffa.getDataFine(),
+                tariffa.getPrezzoPerNotte(), tariffa.getPrezzoWeekend());
+    }
+
+    // --- Endpoint per l'Elenco delle Tariffe ---
+    @Operation(summary = "Recupera le tariffe stagionali",
+               description = "Restituisce tutte le tariffe in ordine di inserimento: a parità di notte prevale l'ultima.")
+    @GetMapping
+    public ResponseEntity<List<TariffaResponseDTO>> getTariffe() {
+        return ResponseEntity.ok(tariffaService.elencaTariffe().stream()
+                .map(this::mapToTariffaResponseDTO)
+                .collect(Collectors.toList()));
+    }
+
+    // --- Endpoint per Creare una Tariffa ---
+    @Operation(summary = "Crea una tariffa stagionale",
+               description = "Aggiunge una tariffa per il periodo indicato (data di fine esclusa) e aggiorna il listino.")
+    @ApiResponse(responseCode = "201", description = "Tariffa creata con successo", content = @Content(schema = @Schema(implementation = TariffaResponseDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Richiesta non valida")
+    @PostMapping
+    public ResponseEntity<TariffaResponseDTO> creaTariffa(@Valid @RequestBody TariffaRequestDTO requestDTO) {
+        if (!requestDTO.getDataFine().isAfter(requestDTO.getDataInizio())) {
+            return ResponseEntity.badRequest().build();
+        }
+        TariffaStagionale tariffa = new TariffaStagionale(requestDTO.getNome(), requestDTO.getDataInizio(), requestDTO.getDataFine(),
+                requestDTO.getPrezzoPerNotte(), requestDTO.getPrezzoWeekend());
+        return new ResponseEntity<>(mapToTariffaResponseDTO(tariffaService.creaTariffa(tariffa)), HttpStatus.CREATED);
+    }
+
+    // --- Endpoint per Eliminare una Tariffa ---
+    @Operation(summary = "Elimina una tariffa stagionale")
+    @Parameter(description = "ID della tariffa da eliminare", required = true)
+    @ApiResponse(responseCode = "204", description = "Tariffa eliminata")
+    @ApiResponse(responseCode = "404", description = "Tariffa non trovata")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> eliminaTariffa(@PathVariable Long id) {
+        tariffaService.eliminaTariffa(id);
+        return ResponseEntity.noContent().build();
+    }
+}
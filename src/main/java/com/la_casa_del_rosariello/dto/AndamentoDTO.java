@@ -0,0 +1,59 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.time.LocalDate;
+
+// Indicatori di un sotto-periodo (mese, stagione o intero periodo richiesto); dataFine esclusa.
+// tassoOccupazione in percentuale, adr = ricavo per notte venduta, revpar = ricavo per notte disponibile
+public class AndamentoDTO {
+    private String etichetta;
+    private LocalDate dataInizio;
+    private LocalDate dataFine;
+    private long nottiDisponibili;
+    private long nottiVendute;
+    private double tassoOccupazione;
+    private double ricavo;
+    private double adr;
+    private double revpar;
+
+    public AndamentoDTO() {}
+
+    public AndamentoDTO(String etichetta, LocalDate dataInizio, LocalDate dataFine, long nottiDisponibili, long nottiVendute,
+                        double tassoOccupazione, double ricavo, double adr, double revpar) {
+        this.etichetta = etichetta;
+        this.dataInizio = dataInizio;
+        this.dataFine = dataFine;
+        this.nottiDisponibili = nottiDisponibili;
+        this.nottiVendute = nottiVendute;
+        this.tassoOccupazione = tassoOccupazione;
+        this.ricavo = ricavo;
+        this.adr = adr;
+        this.revpar = revpar;
+    }
+
+    public String getEtichetta() { return etichetta; }
+    public void setEtichetta(String etichetta) { this.etichetta = etichetta; }
+
+    public LocalDate getDataInizio() { return dataInizio; }
+    public void setDataInizio(LocalDate dataInizio) { this.dataInizio = dataInizio; }
+
+    public LocalDate getDataFine() { return dataFine; }
+    public void setDataFine(LocalDate dataFine) { this.dataFine = dataFine; }
+
+    public long getNottiDisponibili() { return nottiDisponibili; }
+    public void setNottiDisponibili(long nottiDisponibili) { this.nottiDisponibili = nottiDisponibili; }
+
+    public long getNottiVendute() { return nottiVendute; }
+    public void setNottiVendute(long nottiVendute) { this.nottiVendute = nottiVendute; }
+
+    public double getTassoOccupazione() { return tassoOccupazione; }
+    public void setTassoOccupazione(double tassoOccupazione) { this.tassoOccupazione = tassoOccupazione; }
+
+    public double getRicavo() { return ricavo; }
+    public void setRicavo(double ricavo) { this.ricavo = ricavo; }
+
+    public double getAdr() { return adr; }
+    public void setAdr(double adr) { this.adr = adr; }
+
+    public double getRevpar() { return revpar; }
+    public void setRevpar(double revpar) { this.revpar = revpar; }
+}
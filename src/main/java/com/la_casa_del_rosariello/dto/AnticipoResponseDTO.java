@@ -0,0 +1,33 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Distribuzione dell'anticipo di prenotazione per gli arrivi in [dataInizio, dataFine)
+public class AnticipoResponseDTO {
+    private LocalDate dataInizio;
+    private LocalDate dataFine;
+    private long prenotazioni;
+    private List<FasciaAnticipoDTO> fasce;
+
+    public AnticipoResponseDTO() {}
+
+    public AnticipoResponseDTO(LocalDate dataInizio, LocalDate dataFine, long prenotazioni, List<FasciaAnticipoDTO> fasce) {
+        this.dataInizio = dataInizio;
+        this.dataFine = dataFine;
+        this.prenotazioni = prenotazioni;
+        this.fasce = fasce;
+    }
+
+    public LocalDate getDataInizio() { return dataInizio; }
+    public void setDataInizio(LocalDate dataInizio) { this.dataInizio = dataInizio; }
+
+    public LocalDate getDataFine() { return dataFine; }
+    public void setDataFine(LocalDate dataFine) { this.dataFine = dataFine; }
+
+    public long getPrenotazioni() { return prenotazioni; }
+    public void setPrenotazioni(long prenotazioni) { this.prenotazioni = prenotazioni; }
+
+    public List<FasciaAnticipoDTO> getFasce() { return fasce; }
+    public void setFasce(List<FasciaAnticipoDTO> fasce) { this.fasce = fasce; }
+}
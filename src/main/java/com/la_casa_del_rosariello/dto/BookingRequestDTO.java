@@ -6,12 +6,19 @@ import jakarta.validation.constraints.*;
 import java.time.LocalDate;
 
 public class BookingRequestDTO {
+
+    // Vincoli sulle date future, verificati solo su creazione e modifica dall'API:
+    // l'importazione accetta anche i fogli storici con soggiorni già conclusi
+    public interface DateFuture {}
+
+    private Long proprietaId; // Opzionale: senza unità la prenotazione va all'unità predefinita
+
     @NotNull(message = "La data di inizio non può essere nulla.")
-    @FutureOrPresent(message = "La data di inizio deve essere nel presente o nel futuro.")
+    @FutureOrPresent(groups = DateFuture.class, message = "La data di inizio deve essere nel presente o nel futuro.")
     private LocalDate dataInizio;
 
     @NotNull(message = "La data di fine non può essere nulla.")
-    @Future(message = "La data di fine deve essere nel futuro.")
+    @Future(groups = DateFuture.class, message = "La data di fine deve essere nel futuro.")
     private LocalDate dataFine;
 
     @NotBlank(message = "Il nome dell'ospite non può essere vuoto.")
@@ -25,8 +32,7 @@ public class BookingRequestDTO {
     private String emailOspite;
 
     @Min(value = 1, message = "Il numero di ospiti deve essere almeno 1.")
-    @Max(value = 2, message = "Il numero massimo di ospiti consentito è 2.")
-    private int numeroOspiti;
+    private int numeroOspiti; // Il massimo dipende dalla capienza dell'unità
 
     private String note; // Campo opzionale
 
@@ -48,6 +54,9 @@ public class BookingRequestDTO {
     }
 
     // Getter e Setter
+    public Long getProprietaId() { return proprietaId; }
+    public void setProprietaId(Long proprietaId) { this.proprietaId = proprietaId; }
+
     public LocalDate getDataInizio() { return dataInizio; }
     public void setDataInizio(LocalDate dataInizio) { this.dataInizio = dataInizio; }
 
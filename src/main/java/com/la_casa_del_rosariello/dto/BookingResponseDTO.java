@@ -7,6 +7,7 @@ import java.time.LocalDateTime;
 
 public class BookingResponseDTO {
     private Long id;
+    private Long proprietaId;
     private LocalDate dataInizio;
     private LocalDate dataFine;
     private String nomeOspite;
@@ -17,6 +18,9 @@ public class BookingResponseDTO {
     private LocalDateTime dataCreazione;
     private String note;
     private double prezzoTotale; // Aggiungiamo il prezzo totale calcolato
+    private Double importoNotti; // Scomposizione del prezzo salvata con la prenotazione
+    private Double scontoDurata;
+    private LocalDateTime scadenzaHold; // Solo per le prenotazioni PENDENTE: fino a quando le date restano trattenute
 
     // Costruttore senza argomenti
     public BookingResponseDTO() {}
@@ -69,4 +73,16 @@ public class BookingResponseDTO {
 
     public double getPrezzoTotale() { return prezzoTotale; }
     public void setPrezzoTotale(double prezzoTotale) { this.prezzoTotale = prezzoTotale; }
+
+    public Double getImportoNotti() { return importoNotti; }
+    public void setImportoNotti(Double importoNotti) { this.importoNotti = importoNotti; }
+
+    public Double getScontoDurata() { return scontoDurata; }
+    public void setScontoDurata(Double scontoDurata) { this.scontoDurata = scontoDurata; }
+
+    public Long getProprietaId() { return proprietaId; }
+    public void setProprietaId(Long proprietaId) { this.proprietaId = proprietaId; }
+
+    public LocalDateTime getScadenzaHold() { return scadenzaHold; }
+    public void setScadenzaHold(LocalDateTime scadenzaHold) { this.scadenzaHold = scadenzaHold; }
 }
@@ -0,0 +1,21 @@
+package com.la_casa_del_rosariello.dto;
+
+import jakarta.validation.constraints.*;
+
+public class CalendarioEsternoRequestDTO {
+    @NotBlank(message = "Il nome del calendario non può essere vuoto.")
+    @Size(max = 255, message = "Il nome del calendario può avere al massimo 255 caratteri.")
+    private String nome; // Es. il portale di provenienza
+
+    @NotBlank(message = "L'URL del calendario non può essere vuoto.")
+    @Size(max = 1024, message = "L'URL del calendario può avere al massimo 1024 caratteri.")
+    private String url; // http(s) oppure file: dentro la cartella configurata
+
+    public CalendarioEsternoRequestDTO() {}
+
+    public String getNome() { return nome; }
+    public void setNome(String nome) { this.nome = nome; }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+}
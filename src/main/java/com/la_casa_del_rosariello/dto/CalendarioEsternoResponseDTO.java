@@ -0,0 +1,47 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.time.LocalDateTime;
+
+public class CalendarioEsternoResponseDTO {
+    private Long id;
+    private Long proprietaId;
+    private String nome;
+    private String url;
+    private boolean attivo;
+    private LocalDateTime ultimaSincronizzazione; // null se mai sincronizzato
+    private String ultimoEsito;
+
+    public CalendarioEsternoResponseDTO() {}
+
+    public CalendarioEsternoResponseDTO(Long id, Long proprietaId, String nome, String url, boolean attivo,
+                                        LocalDateTime ultimaSincronizzazione, String ultimoEsito) {
+        this.id = id;
+        this.proprietaId = proprietaId;
+        this.nome = nome;
+        this.url = url;
+        this.attivo = attivo;
+        this.ultimaSincronizzazione = ultimaSincronizzazione;
+        this.ultimoEsito = ultimoEsito;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getProprietaId() { return proprietaId; }
+    public void setProprietaId(Long proprietaId) { this.proprietaId = proprietaId; }
+
+    public String getNome() { return nome; }
+    public void setNome(String nome) { this.nome = nome; }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    public boolean isAttivo() { return attivo; }
+    public void setAttivo(boolean attivo) { this.attivo = attivo; }
+
+    public LocalDateTime getUltimaSincronizzazione() { return ultimaSincronizzazione; }
+    public void setUltimaSincronizzazione(LocalDateTime ultimaSincronizzazione) { this.ultimaSincronizzazione = ultimaSincronizzazione; }
+
+    public String getUltimoEsito() { return ultimoEsito; }
+    public void setUltimoEsito(String ultimoEsito) { this.ultimoEsito = ultimoEsito; }
+}
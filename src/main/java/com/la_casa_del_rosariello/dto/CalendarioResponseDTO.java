@@ -0,0 +1,27 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class CalendarioResponseDTO {
+    private LocalDate dataInizio;
+    private LocalDate dataFine;
+    private List<IntervalloCalendarioDTO> intervalli; // Codifica run-length: intervalli contigui alternati liberi/occupati
+
+    public CalendarioResponseDTO() {}
+
+    public CalendarioResponseDTO(LocalDate dataInizio, LocalDate dataFine, List<IntervalloCalendarioDTO> intervalli) {
+        this.dataInizio = dataInizio;
+        this.dataFine = dataFine;
+        this.intervalli = intervalli;
+    }
+
+    public LocalDate getDataInizio() { return dataInizio; }
+    public void setDataInizio(LocalDate dataInizio) { this.dataInizio = dataInizio; }
+
+    public LocalDate getDataFine() { return dataFine; }
+    public void setDataFine(LocalDate dataFine) { this.dataFine = dataFine; }
+
+    public List<IntervalloCalendarioDTO> getIntervalli() { return intervalli; }
+    public void setIntervalli(List<IntervalloCalendarioDTO> intervalli) { this.intervalli = intervalli; }
+}
@@ -0,0 +1,25 @@
+package com.la_casa_del_rosariello.dto;
+
+// Corpo delle risposte 409: il motivo e, se il conflitto riguarda un periodo preciso, le date alternative più vicine
+public class ConflittoResponseDTO {
+    private String errore;
+    private PeriodoSuggeritoDTO prima;
+    private PeriodoSuggeritoDTO dopo;
+
+    public ConflittoResponseDTO() {}
+
+    public ConflittoResponseDTO(String errore, PeriodoSuggeritoDTO prima, PeriodoSuggeritoDTO dopo) {
+        this.errore = errore;
+        this.prima = prima;
+        this.dopo = dopo;
+    }
+
+    public String getErrore() { return errore; }
+    public void setErrore(String errore) { this.errore = errore; }
+
+    public PeriodoSuggeritoDTO getPrima() { return prima; }
+    public void setPrima(PeriodoSuggeritoDTO prima) { this.prima = prima; }
+
+    public PeriodoSuggeritoDTO getDopo() { return dopo; }
+    public void setDopo(PeriodoSuggeritoDTO dopo) { this.dopo = dopo; }
+}
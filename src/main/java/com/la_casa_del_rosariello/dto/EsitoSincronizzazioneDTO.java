@@ -0,0 +1,47 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.util.List;
+
+public class EsitoSincronizzazioneDTO {
+    private Long calendarioId;
+    private boolean modificato; // false se il feed non è cambiato dall'ultimo scaricamento
+    private int creati;
+    private int spostati;
+    private int cancellati;
+    private int invariati;
+    private List<String> conflitti; // Eventi non importati perché le date sono già occupate
+
+    public EsitoSincronizzazioneDTO() {}
+
+    public EsitoSincronizzazioneDTO(Long calendarioId, boolean modificato, int creati, int spostati, int cancellati, int invariati,
+                                    List<String> conflitti) {
+        this.calendarioId = calendarioId;
+        this.modificato = modificato;
+        this.creati = creati;
+        this.spostati = spostati;
+        this.cancellati = cancellati;
+        this.invariati = invariati;
+        this.conflitti = conflitti;
+    }
+
+    public Long getCalendarioId() { return calendarioId; }
+    public void setCalendarioId(Long calendarioId) { this.calendarioId = calendarioId; }
+
+    public boolean isModificato() { return modificato; }
+    public void setModificato(boolean modificato) { this.modificato = modificato; }
+
+    public int getCreati() { return creati; }
+    public void setCreati(int creati) { this.creati = creati; }
+
+    public int getSpostati() { return spostati; }
+    public void setSpostati(int spostati) { this.spostati = spostati; }
+
+    public int getCancellati() { return cancellati; }
+    public void setCancellati(int cancellati) { this.cancellati = cancellati; }
+
+    public int getInvariati() { return invariati; }
+    public void setInvariati(int invariati) { this.invariati = invariati; }
+
+    public List<String> getConflitti() { return conflitti; }
+    public void setConflitti(List<String> conflitti) { this.conflitti = conflitti; }
+}
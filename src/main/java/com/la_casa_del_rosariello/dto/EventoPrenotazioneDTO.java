@@ -0,0 +1,62 @@
+package com.la_casa_del_rosariello.dto;
+
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import com.la_casa_del_rosariello.entity.TipoEventoPrenotazione;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Una voce della storia di una prenotazione: la prenotazione com'era subito dopo la modifica
+public class EventoPrenotazioneDTO {
+    private Long id;
+    private TipoEventoPrenotazione tipo;
+    private StatoPrenotazione stato;
+    private LocalDate dataInizio;
+    private LocalDate dataFine;
+    private int numeroOspiti;
+    private Double prezzoTotale;
+    private Long versione;
+    private LocalDateTime registratoIl;
+
+    public EventoPrenotazioneDTO() {}
+
+    public EventoPrenotazioneDTO(Long id, TipoEventoPrenotazione tipo, StatoPrenotazione stato, LocalDate dataInizio, LocalDate dataFine,
+                                 int numeroOspiti, Double prezzoTotale, Long versione, LocalDateTime registratoIl) {
+        this.id = id;
+        this.tipo = tipo;
+        this.stato = stato;
+        this.dataInizio = dataInizio;
+        this.dataFine = dataFine;
+        this.numeroOspiti = numeroOspiti;
+        this.prezzoTotale = prezzoTotale;
+        this.versione = versione;
+        this.registratoIl = registratoIl;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public TipoEventoPrenotazione getTipo() { return tipo; }
+    public void setTipo(TipoEventoPrenotazione tipo) { this.tipo = tipo; }
+
+    public StatoPrenotazione getStato() { return stato; }
+    public void setStato(StatoPrenotazione stato) { this.stato = stato; }
+
+    public LocalDate getDataInizio() { return dataInizio; }
+    public void setDataInizio(LocalDate dataInizio) { this.dataInizio = dataInizio; }
+
+    public LocalDate getDataFine() { return dataFine; }
+    public void setDataFine(LocalDate dataFine) { this.dataFine = dataFine; }
+
+    public int getNumeroOspiti() { return numeroOspiti; }
+    public void setNumeroOspiti(int numeroOspiti) { this.numeroOspiti = numeroOspiti; }
+
+    public Double getPrezzoTotale() { return prezzoTotale; }
+    public void setPrezzoTotale(Double prezzoTotale) { this.prezzoTotale = prezzoTotale; }
+
+    public Long getVersione() { return versione; }
+    public void setVersione(Long versione) { this.versione = versione; }
+
+    public LocalDateTime getRegistratoIl() { return registratoIl; }
+    public void setRegistratoIl(LocalDateTime registratoIl) { this.registratoIl = registratoIl; }
+}
@@ -0,0 +1,30 @@
+package com.la_casa_del_rosariello.dto;
+
+// Prenotazioni fatte tra giorniMinimi e giorniMassimi giorni prima dell'arrivo (giorniMassimi null = senza limite)
+public class FasciaAnticipoDTO {
+    private int giorniMinimi;
+    private Integer giorniMassimi;
+    private long prenotazioni;
+    private double percentuale;
+
+    public FasciaAnticipoDTO() {}
+
+    public FasciaAnticipoDTO(int giorniMinimi, Integer giorniMassimi, long prenotazioni, double percentuale) {
+        this.giorniMinimi = giorniMinimi;
+        this.giorniMassimi = giorniMassimi;
+        this.prenotazioni = prenotazioni;
+        this.percentuale = percentuale;
+    }
+
+    public int getGiorniMinimi() { return giorniMinimi; }
+    public void setGiorniMinimi(int giorniMinimi) { this.giorniMinimi = giorniMinimi; }
+
+    public Integer getGiorniMassimi() { return giorniMassimi; }
+    public void setGiorniMassimi(Integer giorniMassimi) { this.giorniMassimi = giorniMassimi; }
+
+    public long getPrenotazioni() { return prenotazioni; }
+    public void setPrenotazioni(long prenotazioni) { this.prenotazioni = prenotazioni; }
+
+    public double getPercentuale() { return percentuale; }
+    public void setPercentuale(double percentuale) { this.percentuale = percentuale; }
+}
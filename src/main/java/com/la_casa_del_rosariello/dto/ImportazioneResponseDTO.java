@@ -0,0 +1,26 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.util.List;
+
+public class ImportazioneResponseDTO {
+    private int righeLette;
+    private List<Long> idCreati;
+    private List<RigaScartataDTO> scartate;
+
+    public ImportazioneResponseDTO() {}
+
+    public ImportazioneResponseDTO(int righeLette, List<Long> idCreati, List<RigaScartataDTO> scartate) {
+        this.righeLette = righeLette;
+        this.idCreati = idCreati;
+        this.scartate = scartate;
+    }
+
+    public int getRigheLette() { return righeLette; }
+    public void setRigheLette(int righeLette) { this.righeLette = righeLette; }
+
+    public List<Long> getIdCreati() { return idCreati; }
+    public void setIdCreati(List<Long> idCreati) { this.idCreati = idCreati; }
+
+    public List<RigaScartataDTO> getScartate() { return scartate; }
+    public void setScartate(List<RigaScartataDTO> scartate) { this.scartate = scartate; }
+}
@@ -0,0 +1,27 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.time.LocalDate;
+
+// Un tratto omogeneo del calendario: le notti da dataInizio (inclusa) a dataFine (esclusa) sono tutte libere o tutte occupate
+public class IntervalloCalendarioDTO {
+    private LocalDate dataInizio;
+    private LocalDate dataFine;
+    private boolean occupato;
+
+    public IntervalloCalendarioDTO() {}
+
+    public IntervalloCalendarioDTO(LocalDate dataInizio, LocalDate dataFine, boolean occupato) {
+        this.dataInizio = dataInizio;
+        this.dataFine = dataFine;
+        this.occupato = occupato;
+    }
+
+    public LocalDate getDataInizio() { return dataInizio; }
+    public void setDataInizio(LocalDate dataInizio) { this.dataInizio = dataInizio; }
+
+    public LocalDate getDataFine() { return dataFine; }
+    public void setDataFine(LocalDate dataFine) { this.dataFine = dataFine; }
+
+    public boolean isOccupato() { return occupato; }
+    public void setOccupato(boolean occupato) { this.occupato = occupato; }
+}
@@ -0,0 +1,27 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.time.LocalDate;
+
+// Periodo di un'unità la cui disponibilità è cambiata: il client rilegge disponibilità/calendario solo se si sovrappone
+public class InvalidazioneDisponibilitaDTO {
+    private Long proprietaId;
+    private LocalDate dataInizio;
+    private LocalDate dataFine; // Esclusa
+
+    public InvalidazioneDisponibilitaDTO() {}
+
+    public InvalidazioneDisponibilitaDTO(Long proprietaId, LocalDate dataInizio, LocalDate dataFine) {
+        this.proprietaId = proprietaId;
+        this.dataInizio = dataInizio;
+        this.dataFine = dataFine;
+    }
+
+    public Long getProprietaId() { return proprietaId; }
+    public void setProprietaId(Long proprietaId) { this.proprietaId = proprietaId; }
+
+    public LocalDate getDataInizio() { return dataInizio; }
+    public void setDataInizio(LocalDate dataInizio) { this.dataInizio = dataInizio; }
+
+    public LocalDate getDataFine() { return dataFine; }
+    public void setDataFine(LocalDate dataFine) { this.dataFine = dataFine; }
+}
@@ -0,0 +1,26 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.time.LocalDate;
+
+public class OccupazioneGiornoDTO {
+    private LocalDate giorno;
+    private int nottiOccupate;
+    private double ricavo;
+
+    public OccupazioneGiornoDTO() {}
+
+    public OccupazioneGiornoDTO(LocalDate giorno, int nottiOccupate, double ricavo) {
+        this.giorno = giorno;
+        this.nottiOccupate = nottiOccupate;
+        this.ricavo = ricavo;
+    }
+
+    public LocalDate getGiorno() { return giorno; }
+    public void setGiorno(LocalDate giorno) { this.giorno = giorno; }
+
+    public int getNottiOccupate() { return nottiOccupate; }
+    public void setNottiOccupate(int nottiOccupate) { this.nottiOccupate = nottiOccupate; }
+
+    public double getRicavo() { return ricavo; }
+    public void setRicavo(double ricavo) { this.ricavo = ricavo; }
+}
@@ -0,0 +1,33 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class PaginaKeysetDTO {
+    private List<BookingResponseDTO> contenuto;
+    private boolean altri; // true se esiste una pagina successiva
+    // Cursore da ripassare come dopoId / dopoDataInizio per la pagina successiva
+    private Long prossimoId;
+    private LocalDate prossimaDataInizio;
+
+    public PaginaKeysetDTO() {}
+
+    public PaginaKeysetDTO(List<BookingResponseDTO> contenuto, boolean altri, Long prossimoId, LocalDate prossimaDataInizio) {
+        this.contenuto = contenuto;
+        this.altri = altri;
+        this.prossimoId = prossimoId;
+        this.prossimaDataInizio = prossimaDataInizio;
+    }
+
+    public List<BookingResponseDTO> getContenuto() { return contenuto; }
+    public void setContenuto(List<BookingResponseDTO> contenuto) { this.contenuto = contenuto; }
+
+    public boolean isAltri() { return altri; }
+    public void setAltri(boolean altri) { this.altri = altri; }
+
+    public Long getProssimoId() { return prossimoId; }
+    public void setProssimoId(Long prossimoId) { this.prossimoId = prossimoId; }
+
+    public LocalDate getProssimaDataInizio() { return prossimaDataInizio; }
+    public void setProssimaDataInizio(LocalDate prossimaDataInizio) { this.prossimaDataInizio = prossimaDataInizio; }
+}
@@ -0,0 +1,22 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.time.LocalDate;
+
+// Periodo libero proposto al posto di quello richiesto: stessa durata, dataFine esclusa
+public class PeriodoSuggeritoDTO {
+    private LocalDate dataInizio;
+    private LocalDate dataFine;
+
+    public PeriodoSuggeritoDTO() {}
+
+    public PeriodoSuggeritoDTO(LocalDate dataInizio, LocalDate dataFine) {
+        this.dataInizio = dataInizio;
+        this.dataFine = dataFine;
+    }
+
+    public LocalDate getDataInizio() { return dataInizio; }
+    public void setDataInizio(LocalDate dataInizio) { this.dataInizio = dataInizio; }
+
+    public LocalDate getDataFine() { return dataFine; }
+    public void setDataFine(LocalDate dataFine) { this.dataFine = dataFine; }
+}
@@ -1,14 +1,52 @@
 package com.la_casa_del_rosariello.dto;
 
+import java.time.LocalDate;
+
 public class PrezzoResponseDTO {
     private double prezzoPerNotte;
 
+    // Valorizzati solo quando viene richiesto il preventivo per un periodo
+    private LocalDate dataInizio;
+    private LocalDate dataFine;
+    private Long notti;
+    private Double importoNotti;
+    private Double scontoDurata;
+    private Double prezzoTotale;
+
     public PrezzoResponseDTO() {}
 
     public PrezzoResponseDTO(double prezzoPerNotte) {
         this.prezzoPerNotte = prezzoPerNotte;
     }
 
+    public PrezzoResponseDTO(double prezzoPerNotte, LocalDate dataInizio, LocalDate dataFine, Long notti, Double importoNotti, Double scontoDurata, Double prezzoTotale) {
+        this.prezzoPerNotte = prezzoPerNotte;
+        this.dataInizio = dataInizio;
+        this.dataFine = dataFine;
+        this.notti = notti;
+        this.importoNotti = importoNotti;
+        this.scontoDurata = scontoDurata;
+        this.prezzoTotale = prezzoTotale;
+    }
+
     public double getPrezzoPerNotte() { return prezzoPerNotte; }
     public void setPrezzoPerNotte(double prezzoPerNotte) { this.prezzoPerNotte = prezzoPerNotte; }
+
+    public LocalDate getDataInizio() { return dataInizio; }
+    public void setDataInizio(LocalDate dataInizio) { this.dataInizio = dataInizio; }
+
+    public LocalDate getDataFine() { return dataFine; }
+    public void setDataFine(LocalDate dataFine) { this.dataFine = dataFine; }
+
+    public Long getNotti() { return notti; }
+    public void setNotti(Long notti) { this.notti = notti; }
+
+    public Double getImportoNotti() { return importoNotti; }
+    public void setImportoNotti(Double importoNotti) { this.importoNotti = importoNotti; }
+
+    public Double getScontoDurata() { return scontoDurata; }
+    public void setScontoDurata(Double scontoDurata) { this.scontoDurata = scontoDurata; }
+
+    public Double getPrezzoTotale() { return prezzoTotale; }
+    public void setPrezzoTotale(Double prezzoTotale) { this.prezzoTotale = prezzoTotale; }
 }
@@ -0,0 +1,30 @@
+package com.la_casa_del_rosariello.dto;
+
+import jakarta.validation.constraints.*;
+
+public class ProprietaRequestDTO {
+    @NotBlank(message = "Il nome dell'unità non può essere vuoto.")
+    private String nome;
+
+    private String descrizione; // Campo opzionale
+
+    @Min(value = 1, message = "La capienza deve essere almeno 1.")
+    private int capienza;
+
+    @Positive(message = "Il coefficiente di prezzo deve essere positivo.")
+    private Double coefficientePrezzo; // Opzionale: 1.0 = prezzi del listino
+
+    public ProprietaRequestDTO() {}
+
+    public String getNome() { return nome; }
+    public void setNome(String nome) { this.nome = nome; }
+
+    public String getDescrizione() { return descrizione; }
+    public void setDescrizione(String descrizione) { this.descrizione = descrizione; }
+
+    public int getCapienza() { return capienza; }
+    public void setCapienza(int capienza) { this.capienza = capienza; }
+
+    public Double getCoefficientePrezzo() { return coefficientePrezzo; }
+    public void setCoefficientePrezzo(Double coefficientePrezzo) { this.coefficientePrezzo = coefficientePrezzo; }
+}
@@ -0,0 +1,39 @@
+package com.la_casa_del_rosariello.dto;
+
+public class ProprietaResponseDTO {
+    private Long id;
+    private String nome;
+    private String descrizione;
+    private int capienza;
+    private double coefficientePrezzo;
+    private boolean attiva;
+
+    public ProprietaResponseDTO() {}
+
+    public ProprietaResponseDTO(Long id, String nome, String descrizione, int capienza, double coefficientePrezzo, boolean attiva) {
+        this.id = id;
+        this.nome = nome;
+        this.descrizione = descrizione;
+        this.capienza = capienza;
+        this.coefficientePrezzo = coefficientePrezzo;
+        this.attiva = attiva;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getNome() { return nome; }
+    public void setNome(String nome) { this.nome = nome; }
+
+    public String getDescrizione() { return descrizione; }
+    public void setDescrizione(String descrizione) { this.descrizione = descrizione; }
+
+    public int getCapienza() { return capienza; }
+    public void setCapienza(int capienza) { this.capienza = capienza; }
+
+    public double getCoefficientePrezzo() { return coefficientePrezzo; }
+    public void setCoefficientePrezzo(double coefficientePrezzo) { this.coefficientePrezzo = coefficientePrezzo; }
+
+    public boolean isAttiva() { return attiva; }
+    public void setAttiva(boolean attiva) { this.attiva = attiva; }
+}
@@ -0,0 +1,26 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.time.YearMonth;
+
+public class RicavoMensileDTO {
+    private YearMonth mese;
+    private int notti;
+    private double ricavo;
+
+    public RicavoMensileDTO() {}
+
+    public RicavoMensileDTO(YearMonth mese, int notti, double ricavo) {
+        this.mese = mese;
+        this.notti = notti;
+        this.ricavo = ricavo;
+    }
+
+    public YearMonth getMese() { return mese; }
+    public void setMese(YearMonth mese) { this.mese = mese; }
+
+    public int getNotti() { return notti; }
+    public void setNotti(int notti) { this.notti = notti; }
+
+    public double getRicavo() { return ricavo; }
+    public void setRicavo(double ricavo) { this.ricavo = ricavo; }
+}
@@ -0,0 +1,48 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class RicercaResponseDTO {
+    private LocalDate dataInizio;
+    private LocalDate dataFine;
+    private int ospiti;
+    private List<RisultatoRicercaDTO> risultati; // Dal prezzo più basso
+    private int unitaCandidate;
+    private int unitaValutate;
+    private boolean parziale; // true se il budget di latenza è scaduto prima di valutare tutte le unità
+
+    public RicercaResponseDTO() {}
+
+    public RicercaResponseDTO(LocalDate dataInizio, LocalDate dataFine, int ospiti, List<RisultatoRicercaDTO> risultati,
+                              int unitaCandidate, int unitaValutate, boolean parziale) {
+        this.dataInizio = dataInizio;
+        this.dataFine = dataFine;
+        this.ospiti = ospiti;
+        this.risultati = risultati;
+        this.unitaCandidate = unitaCandidate;
+        this.unitaValutate = unitaValutate;
+        this.parziale = parziale;
+    }
+
+    public LocalDate getDataInizio() { return dataInizio; }
+    public void setDataInizio(LocalDate dataInizio) { this.dataInizio = dataInizio; }
+
+    public LocalDate getDataFine() { return dataFine; }
+    public void setDataFine(LocalDate dataFine) { this.dataFine = dataFine; }
+
+    public int getOspiti() { return ospiti; }
+    public void setOspiti(int ospiti) { this.ospiti = ospiti; }
+
+    public List<RisultatoRicercaDTO> getRisultati() { return risultati; }
+    public void setRisultati(List<RisultatoRicercaDTO> risultati) { this.risultati = risultati; }
+
+    public int getUnitaCandidate() { return unitaCandidate; }
+    public void setUnitaCandidate(int unitaCandidate) { this.unitaCandidate = unitaCandidate; }
+
+    public int getUnitaValutate() { return unitaValutate; }
+    public void setUnitaValutate(int unitaValutate) { this.unitaValutate = unitaValutate; }
+
+    public boolean isParziale() { return parziale; }
+    public void setParziale(boolean parziale) { this.parziale = parziale; }
+}
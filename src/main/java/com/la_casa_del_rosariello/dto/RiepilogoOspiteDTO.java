@@ -0,0 +1,35 @@
+package com.la_casa_del_rosariello.dto;
+
+// Totali di un ospite: prenotazioni in ogni stato, notti e spesa delle sole prenotazioni confermate
+public class RiepilogoOspiteDTO {
+    private String email;
+    private int prenotazioni;
+    private int prenotazioniConfermate;
+    private int notti;
+    private double spesa;
+
+    public RiepilogoOspiteDTO() {}
+
+    public RiepilogoOspiteDTO(String email, int prenotazioni, int prenotazioniConfermate, int notti, double spesa) {
+        this.email = email;
+        this.prenotazioni = prenotazioni;
+        this.prenotazioniConfermate = prenotazioniConfermate;
+        this.notti = notti;
+        this.spesa = spesa;
+    }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public int getPrenotazioni() { return prenotazioni; }
+    public void setPrenotazioni(int prenotazioni) { this.prenotazioni = prenotazioni; }
+
+    public int getPrenotazioniConfermate() { return prenotazioniConfermate; }
+    public void setPrenotazioniConfermate(int prenotazioniConfermate) { this.prenotazioniConfermate = prenotazioniConfermate; }
+
+    public int getNotti() { return notti; }
+    public void setNotti(int notti) { this.notti = notti; }
+
+    public double getSpesa() { return spesa; }
+    public void setSpesa(double spesa) { this.spesa = spesa; }
+}
@@ -0,0 +1,19 @@
+package com.la_casa_del_rosariello.dto;
+
+public class RigaScartataDTO {
+    private int riga; // Posizione nel lotto, a partire da 1
+    private String motivo;
+
+    public RigaScartataDTO() {}
+
+    public RigaScartataDTO(int riga, String motivo) {
+        this.riga = riga;
+        this.motivo = motivo;
+    }
+
+    public int getRiga() { return riga; }
+    public void setRiga(int riga) { this.riga = riga; }
+
+    public String getMotivo() { return motivo; }
+    public void setMotivo(String motivo) { this.motivo = motivo; }
+}
@@ -0,0 +1,44 @@
+package com.la_casa_del_rosariello.dto;
+
+public class RisultatoRicercaDTO {
+    private Long proprietaId;
+    private String nome;
+    private int capienza;
+    private long notti;
+    private double importoNotti;
+    private double scontoDurata;
+    private double prezzoTotale;
+
+    public RisultatoRicercaDTO() {}
+
+    public RisultatoRicercaDTO(Long proprietaId, String nome, int capienza, long notti, double importoNotti, double scontoDurata, double prezzoTotale) {
+        this.proprietaId = proprietaId;
+        this.nome = nome;
+        this.capienza = capienza;
+        this.notti = notti;
+        this.importoNotti = importoNotti;
+        this.scontoDurata = scontoDurata;
+        this.prezzoTotale = prezzoTotale;
+    }
+
+    public Long getProprietaId() { return proprietaId; }
+    public void setProprietaId(Long proprietaId) { this.proprietaId = proprietaId; }
+
+    public String getNome() { return nome; }
+    public void setNome(String nome) { this.nome = nome; }
+
+    public int getCapienza() { return capienza; }
+    public void setCapienza(int capienza) { this.capienza = capienza; }
+
+    public long getNotti() { return notti; }
+    public void setNotti(long notti) { this.notti = notti; }
+
+    public double getImportoNotti() { return importoNotti; }
+    public void setImportoNotti(double importoNotti) { this.importoNotti = importoNotti; }
+
+    public double getScontoDurata() { return scontoDurata; }
+    public void setScontoDurata(double scontoDurata) { this.scontoDurata = scontoDurata; }
+
+    public double getPrezzoTotale() { return prezzoTotale; }
+    public void setPrezzoTotale(double prezzoTotale) { this.prezzoTotale = prezzoTotale; }
+}
@@ -0,0 +1,42 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.time.LocalDate;
+
+public class SuggerimentiResponseDTO {
+    private Long proprietaId;
+    private LocalDate dataInizio;
+    private LocalDate dataFine;
+    private boolean disponibile; // Le date richieste sono già libere
+    private PeriodoSuggeritoDTO prima; // null se non c'è un periodo libero nella finestra di ricerca
+    private PeriodoSuggeritoDTO dopo;
+
+    public SuggerimentiResponseDTO() {}
+
+    public SuggerimentiResponseDTO(Long proprietaId, LocalDate dataInizio, LocalDate dataFine, boolean disponibile,
+                                   PeriodoSuggeritoDTO prima, PeriodoSuggeritoDTO dopo) {
+        this.proprietaId = proprietaId;
+        this.dataInizio = dataInizio;
+        this.dataFine = dataFine;
+        this.disponibile = disponibile;
+        this.prima = prima;
+        this.dopo = dopo;
+    }
+
+    public Long getProprietaId() { return proprietaId; }
+    public void setProprietaId(Long proprietaId) { this.proprietaId = proprietaId; }
+
+    public LocalDate getDataInizio() { return dataInizio; }
+    public void setDataInizio(LocalDate dataInizio) { this.dataInizio = dataInizio; }
+
+    public LocalDate getDataFine() { return dataFine; }
+    public void setDataFine(LocalDate dataFine) { this.dataFine = dataFine; }
+
+    public boolean isDisponibile() { return disponibile; }
+    public void setDisponibile(boolean disponibile) { this.disponibile = disponibile; }
+
+    public PeriodoSuggeritoDTO getPrima() { return prima; }
+    public void setPrima(PeriodoSuggeritoDTO prima) { this.prima = prima; }
+
+    public PeriodoSuggeritoDTO getDopo() { return dopo; }
+    public void setDopo(PeriodoSuggeritoDTO dopo) { this.dopo = dopo; }
+}
@@ -0,0 +1,39 @@
+package com.la_casa_del_rosariello.dto;
+
+import jakarta.validation.constraints.*;
+
+import java.time.LocalDate;
+
+public class TariffaRequestDTO {
+    @NotBlank(message = "Il nome della tariffa non può essere vuoto.")
+    private String nome;
+
+    @NotNull(message = "La data di inizio non può essere nulla.")
+    private LocalDate dataInizio;
+
+    @NotNull(message = "La data di fine non può essere nulla.")
+    private LocalDate dataFine;
+
+    @Positive(message = "Il prezzo per notte deve essere positivo.")
+    private double prezzoPerNotte;
+
+    @Positive(message = "Il prezzo del weekend deve essere positivo.")
+    private Double prezzoWeekend; // Campo opzionale
+
+    public TariffaRequestDTO() {}
+
+    public String getNome() { return nome; }
+    public void setNome(String nome) { this.nome = nome; }
+
+    public LocalDate getDataInizio() { return dataInizio; }
+    public void setDataInizio(LocalDate dataInizio) { this.dataInizio = dataInizio; }
+
+    public LocalDate getDataFine() { return dataFine; }
+    public void setDataFine(LocalDate dataFine) { this.dataFine = dataFine; }
+
+    public double getPrezzoPerNotte() { return prezzoPerNotte; }
+    public void setPrezzoPerNotte(double prezzoPerNotte) { this.prezzoPerNotte = prezzoPerNotte; }
+
+    public Double getPrezzoWeekend() { return prezzoWeekend; }
+    public void setPrezzoWeekend(Double prezzoWeekend) { this.prezzoWeekend = prezzoWeekend; }
+}
@@ -0,0 +1,41 @@
+package com.la_casa_del_rosariello.dto;
+
+import java.time.LocalDate;
+
+public class TariffaResponseDTO {
+    private Long id;
+    private String nome;
+    private LocalDate dataInizio;
+    private LocalDate dataFine;
+    private double prezzoPerNotte;
+    private Double prezzoWeekend;
+
+    public TariffaResponseDTO() {}
+
+    public TariffaResponseDTO(Long id, String nome, LocalDate dataInizio, LocalDate dataFine, double prezzoPerNotte, Double prezzoWeekend) {
+        this.id = id;
+        this.nome = nome;
+        this.dataInizio = dataInizio;
+        this.dataFine = dataFine;
+        this.prezzoPerNotte = prezzoPerNotte;
+        this.prezzoWeekend = prezzoWeekend;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getNome() { return nome; }
+    public void setNome(String nome) { this.nome = nome; }
+
+    public LocalDate getDataInizio() { return dataInizio; }
+    public void setDataInizio(LocalDate dataInizio) { this.dataInizio = dataInizio; }
+
+    public LocalDate getDataFine() { return dataFine; }
+    public void setDataFine(LocalDate dataFine) { this.dataFine = dataFine; }
+
+    public double getPrezzoPerNotte() { return prezzoPerNotte; }
+    public void setPrezzoPerNotte(double prezzoPerNotte) { this.prezzoPerNotte = prezzoPerNotte; }
+
+    public Double getPrezzoWeekend() { return prezzoWeekend; }
+    public void setPrezzoWeekend(Double prezzoWeekend) { this.prezzoWeekend = prezzoWeekend; }
+}
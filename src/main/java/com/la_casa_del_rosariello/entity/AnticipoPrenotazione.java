@@ -0,0 +1,48 @@
+package com.la_casa_del_rosariello.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Proiezione: prenotazioni CONFERMATA per unità, giorno di arrivo e fascia di anticipo (giorni tra la prenotazione
+// e l'arrivo). fascia è il limite inferiore della fascia in giorni, vedi DeltaProiezioni.FASCE_ANTICIPO
+@Entity
+@Immutable
+@IdClass(AnticipoPrenotazione.Chiave.class)
+@Table(name = "anticipo_prenotazione",
+        indexes = @Index(name = "idx_anticipo_prenotazione_arrivo", columnList = "giornoArrivo, fascia, prenotazioni"))
+public class AnticipoPrenotazione {
+
+    public record Chiave(Long proprietaId, LocalDate giornoArrivo, int fascia) implements Serializable {}
+
+    @Id
+    private Long proprietaId;
+
+    @Id
+    private LocalDate giornoArrivo;
+
+    @Id
+    private int fascia;
+
+    private int prenotazioni;
+
+    public AnticipoPrenotazione() {}
+
+    public Long getProprietaId() {
+        return proprietaId;
+    }
+
+    public LocalDate getGiornoArrivo() {
+        return giornoArrivo;
+    }
+
+    public int getFascia() {
+        return fascia;
+    }
+
+    public int getPrenotazioni() {
+        return prenotazioni;
+    }
+}
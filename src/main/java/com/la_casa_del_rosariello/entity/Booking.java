@@ -2,22 +2,46 @@ package com.la_casa_del_rosariello.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // Cache di secondo livello: GET /bookings/{id} non interroga il database ad ogni lettura
+@Table(indexes = {
+        // Allineati alle migrazioni Flyway (V2, V6, V9, V11, V12, V16)
+        @Index(name = "idx_booking_stato_inizio_fine", columnList = "statoPrenotazione, dataInizio, dataFine"),
+        @Index(name = "idx_booking_proprieta_stato_inizio_fine", columnList = "proprietaId, statoPrenotazione, dataInizio, dataFine"),
+        @Index(name = "idx_booking_email_normalizzata", columnList = "ospiteEmailNormalizzata, dataInizio"),
+        @Index(name = "idx_booking_inizio_id", columnList = "dataInizio, id"),
+        @Index(name = "idx_booking_stato_scadenza", columnList = "statoPrenotazione, scadenzaHold"),
+        @Index(name = "idx_booking_calendario_uid", columnList = "calendarioEsternoId, uidEsterno")
+})
 public class Booking {
+    // Sequenza "pooled" (tabella booking_seq su MySQL): a differenza di IDENTITY permette a Hibernate
+    // di raggruppare gli INSERT in batch JDBC, riservando gli id a blocchi di 50
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "booking_seq", allocationSize = 50)
     private Long id;
 
+    // Unità prenotata (Proprieta): solo l'id, le verifiche di disponibilità non hanno bisogno di caricare l'unità.
+    // Non cambia dopo la creazione
+    @NotNull
+    @Column(nullable = false, updatable = false)
+    private Long proprietaId = Proprieta.PREDEFINITA;
+
+    // Nessun vincolo sulle date future qui: la validazione di Hibernate prima di INSERT/UPDATE rifiuterebbe
+    // le prenotazioni importate dallo storico e qualunque modifica a un soggiorno passato.
+    // Le date future sono richieste sulle richieste dell'API (BookingRequestDTO.DateFuture)
     @NotNull
-    @FutureOrPresent
     private LocalDate dataInizio;
 
     @NotNull
-    @Future
     private LocalDate dataFine;
 
     @NotBlank
@@ -30,17 +54,49 @@ public class Booking {
     @Email
     private String ospiteEmail;
 
+    // Email in minuscolo e senza spazi, usata per le ricerche dell'ospite: il confronto è un'uguaglianza sull'indice
+    // invece di un LOWER(ospite_email) che costringerebbe a scandire la tabella
+    private String ospiteEmailNormalizzata;
+
+    // Il massimo dipende dall'unità (Proprieta.capienza) ed è verificato nel service
     @Min(value = 1)
-    @Max(value = 2)
     private int numeroOspiti;
 
     @NotNull
     @Enumerated
     private StatoPrenotazione statoPrenotazione = StatoPrenotazione.PENDENTE;
 
+    // null per le prenotazioni importate: il giorno in cui sono state fatte non è noto (escluse dall'anticipo nei report)
     private LocalDateTime dataCreazione;
     private String note;
 
+    // Non salvato: chiede a onCreate di lasciare vuota dataCreazione (importazione)
+    @Transient
+    private boolean dataCreazioneNonNota;
+
+    // Solo per le prenotazioni PENDENTE: oltre questo istante le date non sono più trattenute.
+    // null = nessuna scadenza, per le PENDENTE importate; le pendenti precedenti alla gestione dei blocchi temporanei
+    // hanno ricevuto da V11 un giorno di margine e sono state poi chiuse dal job come le altre
+    private LocalDateTime scadenzaHold;
+
+    // Prezzo fissato al momento della prenotazione (o dell'ultimo cambio date): non cambia se il listino viene modificato
+    private Double prezzoNotti;
+    private Double scontoDurata;
+    private Double prezzoTotale;
+
+    // Solo per i blocchi importati da un calendario iCal esterno (CalendarioEsterno): origine e UID dell'evento,
+    // usati per confrontare un nuovo scaricamento con quanto già importato
+    @Column(updatable = false)
+    private Long calendarioEsternoId;
+
+    @Column(updatable = false)
+    private String uidEsterno;
+
+    // Blocco ottimistico: ogni UPDATE controlla e incrementa la versione, due modifiche concorrenti non si sovrascrivono.
+    // È anche il valore dell'ETag esposto dal controller
+    @Version
+    private Long versione;
+
     public Booking() {}
 
     public Booking(Long id, LocalDate dataInizio, LocalDate dataFine, String ospiteNome, String ospiteCognome, String ospiteEmail, int numeroOspiti, StatoPrenotazione statoPrenotazione, LocalDateTime dataCreazione) {
@@ -50,6 +106,7 @@ public class Booking {
         this.ospiteNome = ospiteNome;
         this.ospiteCognome = ospiteCognome;
         this.ospiteEmail = ospiteEmail;
+        this.ospiteEmailNormalizzata = normalizzaEmail(ospiteEmail);
         this.numeroOspiti = numeroOspiti;
         this.statoPrenotazione = statoPrenotazione;
         this.dataCreazione = dataCreazione;
@@ -63,6 +120,14 @@ public class Booking {
         this.id = id;
     }
 
+    public Long getProprietaId() {
+        return proprietaId;
+    }
+
+    public void setProprietaId(Long proprietaId) {
+        this.proprietaId = proprietaId;
+    }
+
     public LocalDate getDataInizio() {
         return dataInizio;
     }
@@ -101,6 +166,35 @@ public class Booking {
 
     public void setOspiteEmail(String ospiteEmail) {
         this.ospiteEmail = ospiteEmail;
+        this.ospiteEmailNormalizzata = normalizzaEmail(ospiteEmail);
+    }
+
+    public String getOspiteEmailNormalizzata() {
+        return ospiteEmailNormalizzata;
+    }
+
+    public Long getVersione() {
+        return versione;
+    }
+
+    public Long getCalendarioEsternoId() {
+        return calendarioEsternoId;
+    }
+
+    public void setCalendarioEsternoId(Long calendarioEsternoId) {
+        this.calendarioEsternoId = calendarioEsternoId;
+    }
+
+    public String getUidEsterno() {
+        return uidEsterno;
+    }
+
+    public void setUidEsterno(String uidEsterno) {
+        this.uidEsterno = uidEsterno;
+    }
+
+    public static String normalizzaEmail(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
     }
 
     public int getNumeroOspiti() {
@@ -127,6 +221,14 @@ public class Booking {
         this.dataCreazione = dataCreazione;
     }
 
+    public boolean isDataCreazioneNonNota() {
+        return dataCreazioneNonNota;
+    }
+
+    public void setDataCreazioneNonNota(boolean dataCreazioneNonNota) {
+        this.dataCreazioneNonNota = dataCreazioneNonNota;
+    }
+
     public String getNote() {
         return note;
     }
@@ -135,9 +237,48 @@ public class Booking {
         this.note = note;
     }
 
+    public LocalDateTime getScadenzaHold() {
+        return scadenzaHold;
+    }
+
+    public void setScadenzaHold(LocalDateTime scadenzaHold) {
+        this.scadenzaHold = scadenzaHold;
+    }
+
+    public boolean isHoldScaduto(LocalDateTime adesso) {
+        return statoPrenotazione == StatoPrenotazione.PENDENTE && scadenzaHold != null && !scadenzaHold.isAfter(adesso);
+    }
+
+    public Double getPrezzoNotti() {
+        return prezzoNotti;
+    }
+
+    public void setPrezzoNotti(Double prezzoNotti) {
+        this.prezzoNotti = prezzoNotti;
+    }
+
+    public Double getScontoDurata() {
+        return scontoDurata;
+    }
+
+    public void setScontoDurata(Double scontoDurata) {
+        this.scontoDurata = scontoDurata;
+    }
+
+    public Double getPrezzoTotale() {
+        return prezzoTotale;
+    }
+
+    public void setPrezzoTotale(Double prezzoTotale) {
+        this.prezzoTotale = prezzoTotale;
+    }
+
     //Quando un'entità Booking viene salvata per la prima volta nel database, spesso è utile registrarne il momento esatto della creazione. Questo è il ruolo del campo createdAt (LocalDateTime).
+    // Solo se non già impostata (es. dal costruttore) e se non è stata dichiarata non nota
     @PrePersist
     protected void onCreate() {
-        dataCreazione = LocalDateTime.now();
+        if (dataCreazione == null && !dataCreazioneNonNota) {
+            dataCreazione = LocalDateTime.now();
+        }
     }
 }
@@ -0,0 +1,111 @@
+package com.la_casa_del_rosariello.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+
+import java.time.LocalDateTime;
+
+// Feed iCal di un portale esterno per un'unità: i suoi eventi diventano blocchi (prenotazioni CONFERMATA senza prezzo)
+// mantenuti allineati dal job di sincronizzazione. url può essere http(s) oppure file: (cartella locale)
+@Entity
+@Table(name = "calendario_esterno")
+public class CalendarioEsterno {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(nullable = false, updatable = false)
+    private Long proprietaId;
+
+    @NotBlank
+    private String nome;
+
+    @NotBlank
+    @Column(length = 1024)
+    private String url;
+
+    private boolean attivo = true;
+
+    // Validatori dell'ultimo scaricamento, rimandati come If-None-Match / If-Modified-Since
+    // (per i file: data di modifica in millisecondi)
+    private String etag;
+    private String ultimaModifica;
+
+    private LocalDateTime ultimaSincronizzazione;
+
+    @Column(length = 1024)
+    private String ultimoEsito;
+
+    public CalendarioEsterno() {}
+
+    public CalendarioEsterno(Long proprietaId, String nome, String url) {
+        this.proprietaId = proprietaId;
+        this.nome = nome;
+        this.url = url;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProprietaId() {
+        return proprietaId;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public boolean isAttivo() {
+        return attivo;
+    }
+
+    public void setAttivo(boolean attivo) {
+        this.attivo = attivo;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getUltimaModifica() {
+        return ultimaModifica;
+    }
+
+    public void setUltimaModifica(String ultimaModifica) {
+        this.ultimaModifica = ultimaModifica;
+    }
+
+    public LocalDateTime getUltimaSincronizzazione() {
+        return ultimaSincronizzazione;
+    }
+
+    public void setUltimaSincronizzazione(LocalDateTime ultimaSincronizzazione) {
+        this.ultimaSincronizzazione = ultimaSincronizzazione;
+    }
+
+    public String getUltimoEsito() {
+        return ultimoEsito;
+    }
+
+    public void setUltimoEsito(String ultimoEsito) {
+        this.ultimoEsito = ultimoEsito;
+    }
+}
@@ -0,0 +1,22 @@
+package com.la_casa_del_rosariello.entity;
+
+import jakarta.persistence.*;
+
+// Outbox: eventi del registro scritti ma non ancora applicati alle proiezioni. La riga nasce nella stessa
+// transazione dell'evento e viene cancellata dal proiettore dopo averlo applicato; il registro resta intatto.
+@Entity
+@Table(name = "evento_da_proiettare")
+public class EventoDaProiettare {
+    @Id
+    private Long eventoId;
+
+    public EventoDaProiettare() {}
+
+    public EventoDaProiettare(Long eventoId) {
+        this.eventoId = eventoId;
+    }
+
+    public Long getEventoId() {
+        return eventoId;
+    }
+}
@@ -0,0 +1,137 @@
+package com.la_casa_del_rosariello.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Registro delle scritture sulle prenotazioni, solo in aggiunta: ogni riga è la fotografia della prenotazione
+// subito dopo la modifica, scritta nella stessa transazione. È la fonte da cui le proiezioni (occupazione
+// giornaliera, riepiloghi ospite, ricavi mensili) vengono aggiornate e, se serve, ricostruite da zero.
+@Entity
+@Immutable
+@Table(name = "evento_prenotazione",
+        indexes = {
+                @Index(name = "idx_evento_prenotazione_booking", columnList = "bookingId, versione"),
+                @Index(name = "idx_evento_prenotazione_proprieta", columnList = "proprietaId, registratoIl")
+        })
+public class EventoPrenotazione {
+    // Sequenza "pooled" come per Booking: gli eventi di un'importazione vengono inseriti in batch JDBC.
+    // L'id non dà l'ordine dei commit; l'ordine tra gli eventi di una prenotazione è dato dalla versione
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "evento_prenotazione_seq")
+    @SequenceGenerator(name = "evento_prenotazione_seq", sequenceName = "evento_prenotazione_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long bookingId;
+
+    @Column(nullable = false)
+    private Long proprietaId;
+
+    // Per nome: il registro non va riscritto se l'enum cambia ordine
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TipoEventoPrenotazione tipo;
+
+    @Enumerated
+    @Column(nullable = false)
+    private StatoPrenotazione statoPrenotazione;
+
+    @Column(nullable = false)
+    private LocalDate dataInizio;
+
+    @Column(nullable = false)
+    private LocalDate dataFine;
+
+    private String ospiteEmailNormalizzata;
+    private int numeroOspiti;
+    private Double prezzoTotale;
+    private LocalDateTime dataCreazione;
+
+    // Blocco importato da un calendario esterno (Booking.calendarioEsternoId): date occupate, non un soggiorno venduto qui
+    private Long calendarioEsternoId;
+
+    // Versione della prenotazione scritta da questa modifica (Booking.versione)
+    @Column(nullable = false)
+    private Long versione;
+
+    @Column(nullable = false)
+    private LocalDateTime registratoIl;
+
+    public EventoPrenotazione() {}
+
+    // La versione deve essere già quella scritta nel database: il chiamante fa il flush prima di registrare
+    public EventoPrenotazione(TipoEventoPrenotazione tipo, Booking booking) {
+        this.bookingId = booking.getId();
+        this.proprietaId = booking.getProprietaId();
+        this.tipo = tipo;
+        this.statoPrenotazione = booking.getStatoPrenotazione();
+        this.dataInizio = booking.getDataInizio();
+        this.dataFine = booking.getDataFine();
+        this.ospiteEmailNormalizzata = booking.getOspiteEmailNormalizzata();
+        this.numeroOspiti = booking.getNumeroOspiti();
+        this.prezzoTotale = booking.getPrezzoTotale();
+        this.dataCreazione = booking.getDataCreazione();
+        this.calendarioEsternoId = booking.getCalendarioEsternoId();
+        this.versione = booking.getVersione();
+        this.registratoIl = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getBookingId() {
+        return bookingId;
+    }
+
+    public Long getProprietaId() {
+        return proprietaId;
+    }
+
+    public TipoEventoPrenotazione getTipo() {
+        return tipo;
+    }
+
+    public StatoPrenotazione getStatoPrenotazione() {
+        return statoPrenotazione;
+    }
+
+    public LocalDate getDataInizio() {
+        return dataInizio;
+    }
+
+    public LocalDate getDataFine() {
+        return dataFine;
+    }
+
+    public String getOspiteEmailNormalizzata() {
+        return ospiteEmailNormalizzata;
+    }
+
+    public int getNumeroOspiti() {
+        return numeroOspiti;
+    }
+
+    public Double getPrezzoTotale() {
+        return prezzoTotale;
+    }
+
+    public LocalDateTime getDataCreazione() {
+        return dataCreazione;
+    }
+
+    public Long getCalendarioEsternoId() {
+        return calendarioEsternoId;
+    }
+
+    public Long getVersione() {
+        return versione;
+    }
+
+    public LocalDateTime getRegistratoIl() {
+        return registratoIl;
+    }
+}
@@ -0,0 +1,52 @@
+package com.la_casa_del_rosariello.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+// Una riga per ogni notte bloccata da una prenotazione CONFERMATA o PENDENTE.
+// Il vincolo di unicità su (unità, notte) impedisce a livello di database le doppie prenotazioni,
+// anche quando due richieste concorrenti superano insieme la verifica di disponibilità.
+@Entity
+@Table(name = "notte_prenotata",
+        uniqueConstraints = @UniqueConstraint(name = "uk_notte_prenotata_proprieta_notte", columnNames = {"proprietaId", "notte"}),
+        indexes = @Index(name = "idx_notte_prenotata_booking", columnList = "bookingId"))
+public class NottePrenotata {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notte_prenotata_seq")
+    @SequenceGenerator(name = "notte_prenotata_seq", sequenceName = "notte_prenotata_seq", allocationSize = 100)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long bookingId;
+
+    @Column(nullable = false)
+    private Long proprietaId;
+
+    @Column(nullable = false)
+    private LocalDate notte;
+
+    public NottePrenotata() {}
+
+    public NottePrenotata(Long bookingId, Long proprietaId, LocalDate notte) {
+        this.bookingId = bookingId;
+        this.proprietaId = proprietaId;
+        this.notte = notte;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getBookingId() {
+        return bookingId;
+    }
+
+    public Long getProprietaId() {
+        return proprietaId;
+    }
+
+    public LocalDate getNotte() {
+        return notte;
+    }
+}
@@ -0,0 +1,47 @@
+package com.la_casa_del_rosariello.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Proiezione: notti vendute (prenotazioni CONFERMATA) e ricavo per unità e giorno.
+// Scritta solo dal proiettore, con UPSERT incrementali
+@Entity
+@Immutable
+@IdClass(OccupazioneGiornaliera.Chiave.class)
+@Table(name = "occupazione_giornaliera",
+        // Report su tutte le unità: totali per giorno letti solo dall'indice (V15)
+        indexes = @Index(name = "idx_occupazione_giornaliera_giorno", columnList = "giorno, nottiOccupate, ricavo"))
+public class OccupazioneGiornaliera {
+
+    public record Chiave(Long proprietaId, LocalDate giorno) implements Serializable {}
+
+    @Id
+    private Long proprietaId;
+
+    @Id
+    private LocalDate giorno;
+
+    private int nottiOccupate;
+    private double ricavo;
+
+    public OccupazioneGiornaliera() {}
+
+    public Long getProprietaId() {
+        return proprietaId;
+    }
+
+    public LocalDate getGiorno() {
+        return giorno;
+    }
+
+    public int getNottiOccupate() {
+        return nottiOccupate;
+    }
+
+    public double getRicavo() {
+        return ricavo;
+    }
+}
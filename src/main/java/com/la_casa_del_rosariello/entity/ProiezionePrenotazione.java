@@ -0,0 +1,87 @@
+package com.la_casa_del_rosariello.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+// Ultima fotografia di una prenotazione già applicata alle proiezioni: serve al proiettore per togliere
+// il contributo precedente prima di aggiungere quello nuovo, e per ignorare gli eventi già superati
+@Entity
+@Table(name = "proiezione_prenotazione")
+public class ProiezionePrenotazione {
+    @Id
+    private Long bookingId;
+
+    private Long proprietaId;
+
+    @Enumerated
+    private StatoPrenotazione statoPrenotazione;
+
+    private LocalDate dataInizio;
+    private LocalDate dataFine;
+    private String ospiteEmailNormalizzata;
+    private Double prezzoTotale;
+
+    // Giorno in cui la prenotazione è stata fatta (Booking.dataCreazione), per l'anticipo sull'arrivo; null se non noto
+    private LocalDate dataPrenotazione;
+
+    private Long versione;
+
+    public ProiezionePrenotazione() {}
+
+    public ProiezionePrenotazione(Long bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    // Gli eventi possono arrivare fuori ordine (più istanze, id pooled): conta solo la versione più recente
+    public boolean isSuperatoDa(EventoPrenotazione evento) {
+        return versione == null || evento.getVersione() > versione;
+    }
+
+    public void aggiorna(EventoPrenotazione evento) {
+        this.proprietaId = evento.getProprietaId();
+        this.statoPrenotazione = evento.getStatoPrenotazione();
+        this.dataInizio = evento.getDataInizio();
+        this.dataFine = evento.getDataFine();
+        this.ospiteEmailNormalizzata = evento.getOspiteEmailNormalizzata();
+        this.prezzoTotale = evento.getPrezzoTotale();
+        this.dataPrenotazione = evento.getDataCreazione() != null ? evento.getDataCreazione().toLocalDate() : null;
+        this.versione = evento.getVersione();
+    }
+
+    public Long getBookingId() {
+        return bookingId;
+    }
+
+    public Long getProprietaId() {
+        return proprietaId;
+    }
+
+    public StatoPrenotazione getStatoPrenotazione() {
+        return statoPrenotazione;
+    }
+
+    public LocalDate getDataInizio() {
+        return dataInizio;
+    }
+
+    public LocalDate getDataFine() {
+        return dataFine;
+    }
+
+    public String getOspiteEmailNormalizzata() {
+        return ospiteEmailNormalizzata;
+    }
+
+    public Double getPrezzoTotale() {
+        return prezzoTotale;
+    }
+
+    public LocalDate getDataPrenotazione() {
+        return dataPrenotazione;
+    }
+
+    public Long getVersione() {
+        return versione;
+    }
+}
@@ -0,0 +1,90 @@
+package com.la_casa_del_rosariello.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+// Unità prenotabile (camera o appartamento). Ogni prenotazione appartiene a una sola unità
+// e le verifiche di disponibilità riguardano solo le prenotazioni della stessa unità.
+@Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // Letta ad ogni prenotazione per la capienza, cambia di rado
+@Table(name = "proprieta",
+        indexes = @Index(name = "idx_proprieta_attiva_capienza", columnList = "attiva, capienza")) // Allineato alla migrazione V13
+public class Proprieta {
+    // Unità creata dalla migrazione V12: le prenotazioni precedenti e le richieste senza unità vi appartengono
+    public static final Long PREDEFINITA = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    private String nome;
+
+    private String descrizione;
+
+    // Numero massimo di ospiti
+    @Min(value = 1)
+    private int capienza;
+
+    // Moltiplica il listino (tariffe stagionali, weekend, sconti) per questa unità: 1.0 = prezzi del listino
+    @Positive
+    private double coefficientePrezzo = 1.0;
+
+    // Le unità non attive restano per lo storico ma non compaiono nelle ricerche
+    private boolean attiva = true;
+
+    public Proprieta() {}
+
+    public Proprieta(String nome, String descrizione, int capienza) {
+        this.nome = nome;
+        this.descrizione = descrizione;
+        this.capienza = capienza;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public String getDescrizione() {
+        return descrizione;
+    }
+
+    public void setDescrizione(String descrizione) {
+        this.descrizione = descrizione;
+    }
+
+    public int getCapienza() {
+        return capienza;
+    }
+
+    public void setCapienza(int capienza) {
+        this.capienza = capienza;
+    }
+
+    public double getCoefficientePrezzo() {
+        return coefficientePrezzo;
+    }
+
+    public void setCoefficientePrezzo(double coefficientePrezzo) {
+        this.coefficientePrezzo = coefficientePrezzo;
+    }
+
+    public boolean isAttiva() {
+        return attiva;
+    }
+
+    public void setAttiva(boolean attiva) {
+        this.attiva = attiva;
+    }
+}
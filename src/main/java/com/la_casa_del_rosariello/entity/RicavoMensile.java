@@ -0,0 +1,45 @@
+package com.la_casa_del_rosariello.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Proiezione: notti vendute e ricavo per unità e mese (mese = primo giorno del mese).
+// Il ricavo di un soggiorno è ripartito sulle sue notti, quindi un soggiorno a cavallo di due mesi conta in entrambi
+@Entity
+@Immutable
+@IdClass(RicavoMensile.Chiave.class)
+@Table(name = "ricavo_mensile")
+public class RicavoMensile {
+
+    public record Chiave(Long proprietaId, LocalDate mese) implements Serializable {}
+
+    @Id
+    private Long proprietaId;
+
+    @Id
+    private LocalDate mese;
+
+    private int notti;
+    private double ricavo;
+
+    public RicavoMensile() {}
+
+    public Long getProprietaId() {
+        return proprietaId;
+    }
+
+    public LocalDate getMese() {
+        return mese;
+    }
+
+    public int getNotti() {
+        return notti;
+    }
+
+    public double getRicavo() {
+        return ricavo;
+    }
+}
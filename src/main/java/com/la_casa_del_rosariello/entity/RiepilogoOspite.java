@@ -0,0 +1,41 @@
+package com.la_casa_del_rosariello.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+// Proiezione: totali per ospite (email normalizzata). prenotazioni conta ogni stato,
+// notti e spesa solo le prenotazioni CONFERMATA
+@Entity
+@Immutable
+@Table(name = "riepilogo_ospite")
+public class RiepilogoOspite {
+    @Id
+    private String ospiteEmailNormalizzata;
+
+    private int prenotazioni;
+    private int prenotazioniConfermate;
+    private int notti;
+    private double spesa;
+
+    public RiepilogoOspite() {}
+
+    public String getOspiteEmailNormalizzata() {
+        return ospiteEmailNormalizzata;
+    }
+
+    public int getPrenotazioni() {
+        return prenotazioni;
+    }
+
+    public int getPrenotazioniConfermate() {
+        return prenotazioniConfermate;
+    }
+
+    public int getNotti() {
+        return notti;
+    }
+
+    public double getSpesa() {
+        return spesa;
+    }
+}
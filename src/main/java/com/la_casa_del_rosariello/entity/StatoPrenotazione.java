@@ -4,5 +4,7 @@ package com.la_casa_del_rosariello.entity;
 public enum StatoPrenotazione {
     CONFERMATA,
     PENDENTE,
-    CANCELLATA
+    CANCELLATA,
+    // Prenotazione PENDENTE non confermata entro la scadenza: le date sono state liberate
+    SCADUTA
 }
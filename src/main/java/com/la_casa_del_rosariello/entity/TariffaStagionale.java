@@ -0,0 +1,90 @@
+package com.la_casa_del_rosariello.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+
+import java.time.LocalDate;
+
+// Regola di prezzo per un periodo: vale per le notti da dataInizio (inclusa) a dataFine (esclusa).
+// Se più tariffe coprono la stessa notte vince quella inserita per ultima.
+@Entity
+@Table(name = "tariffa_stagionale")
+public class TariffaStagionale {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    private String nome;
+
+    @NotNull
+    private LocalDate dataInizio;
+
+    @NotNull
+    private LocalDate dataFine;
+
+    @Positive
+    private double prezzoPerNotte;
+
+    // Prezzo per le notti di venerdì e sabato; se assente vale prezzoPerNotte
+    @Positive
+    private Double prezzoWeekend;
+
+    public TariffaStagionale() {}
+
+    public TariffaStagionale(String nome, LocalDate dataInizio, LocalDate dataFine, double prezzoPerNotte, Double prezzoWeekend) {
+        this.nome = nome;
+        this.dataInizio = dataInizio;
+        this.dataFine = dataFine;
+        this.prezzoPerNotte = prezzoPerNotte;
+        this.prezzoWeekend = prezzoWeekend;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public LocalDate getDataInizio() {
+        return dataInizio;
+    }
+
+    public void setDataInizio(LocalDate dataInizio) {
+        this.dataInizio = dataInizio;
+    }
+
+    public LocalDate getDataFine() {
+        return dataFine;
+    }
+
+    public void setDataFine(LocalDate dataFine) {
+        this.dataFine = dataFine;
+    }
+
+    public double getPrezzoPerNotte() {
+        return prezzoPerNotte;
+    }
+
+    public void setPrezzoPerNotte(double prezzoPerNotte) {
+        this.prezzoPerNotte = prezzoPerNotte;
+    }
+
+    public Double getPrezzoWeekend() {
+        return prezzoWeekend;
+    }
+
+    public void setPrezzoWeekend(Double prezzoWeekend) {
+        this.prezzoWeekend = prezzoWeekend;
+    }
+
+    public boolean copre(LocalDate notte) {
+        return !notte.isBefore(dataInizio) && notte.isBefore(dataFine);
+    }
+}
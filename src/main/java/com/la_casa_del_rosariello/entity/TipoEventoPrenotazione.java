@@ -0,0 +1,10 @@
+package com.la_casa_del_rosariello.entity;
+
+// Tipo di scrittura che ha prodotto un evento del registro (EventoPrenotazione)
+public enum TipoEventoPrenotazione {
+    CREATA,
+    IMPORTATA,
+    MODIFICATA,
+    CANCELLATA,
+    SCADUTA
+}
@@ -0,0 +1,58 @@
+package com.la_casa_del_rosariello.event;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Evento applicativo pubblicato da BookingService ad ogni scrittura su una prenotazione.
+// Le date "vecchie" e "nuove" sono valorizzate solo se in quel momento la prenotazione bloccava il calendario
+// (stato CONFERMATA o PENDENTE), altrimenti sono null. L'email (normalizzata) è quella attuale dell'ospite, se nota;
+// vecchiaEmailOspite è quella prima della scrittura (null per le prenotazioni appena create) e differisce solo se è stata modificata.
+// scadenzaHold è valorizzata se la prenotazione ora blocca le date solo fino a quell'istante (PENDENTE con scadenza).
+// proprietaId è l'unità della prenotazione: le date si riferiscono solo al suo calendario.
+public class PrenotazioneModificataEvent {
+    private final Long bookingId;
+    private final Long proprietaId;
+    private final LocalDate vecchiaDataInizio;
+    private final LocalDate vecchiaDataFine;
+    private final LocalDate nuovaDataInizio;
+    private final LocalDate nuovaDataFine;
+    private final String vecchiaEmailOspite;
+    private final String emailOspite;
+    private final LocalDateTime scadenzaHold;
+
+    public PrenotazioneModificataEvent(Long bookingId, Long proprietaId, LocalDate vecchiaDataInizio, LocalDate vecchiaDataFine,
+                                       LocalDate nuovaDataInizio, LocalDate nuovaDataFine, String vecchiaEmailOspite, String emailOspite,
+                                       LocalDateTime scadenzaHold) {
+        this.bookingId = bookingId;
+        this.proprietaId = proprietaId;
+        this.vecchiaDataInizio = vecchiaDataInizio;
+        this.vecchiaDataFine = vecchiaDataFine;
+        this.nuovaDataInizio = nuovaDataInizio;
+        this.nuovaDataFine = nuovaDataFine;
+        this.vecchiaEmailOspite = vecchiaEmailOspite;
+        this.emailOspite = emailOspite;
+        this.scadenzaHold = scadenzaHold;
+    }
+
+    public Long getBookingId() { return bookingId; }
+
+    public Long getProprietaId() { return proprietaId; }
+
+    public LocalDate getVecchiaDataInizio() { return vecchiaDataInizio; }
+
+    public LocalDate getVecchiaDataFine() { return vecchiaDataFine; }
+
+    public LocalDate getNuovaDataInizio() { return nuovaDataInizio; }
+
+    public LocalDate getNuovaDataFine() { return nuovaDataFine; }
+
+    public String getVecchiaEmailOspite() { return vecchiaEmailOspite; }
+
+    public String getEmailOspite() { return emailOspite; }
+
+    public LocalDateTime getScadenzaHold() { return scadenzaHold; }
+
+    public boolean isBloccavaDate() { return vecchiaDataInizio != null; }
+
+    public boolean isBloccaDate() { return nuovaDataInizio != null; }
+}
@@ -3,9 +3,32 @@ package com.la_casa_del_rosariello.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.time.LocalDate;
+
+// Se il conflitto riguarda un periodo preciso di un'unità, il periodo viene conservato
+// per proporre all'ospite date alternative nella risposta 409
 @ResponseStatus(HttpStatus.CONFLICT)
 public class BookingConflictException extends RuntimeException {
+    private final Long proprietaId;
+    private final LocalDate dataInizio;
+    private final LocalDate dataFine;
+
     public BookingConflictException(String message) {
+        this(message, null, null, null);
+    }
+
+    public BookingConflictException(String message, Long proprietaId, LocalDate dataInizio, LocalDate dataFine) {
         super(message);
+        this.proprietaId = proprietaId;
+        this.dataInizio = dataInizio;
+        this.dataFine = dataFine;
     }
+
+    public Long getProprietaId() { return proprietaId; }
+
+    public LocalDate getDataInizio() { return dataInizio; }
+
+    public LocalDate getDataFine() { return dataFine; }
+
+    public boolean hasPeriodo() { return proprietaId != null && dataInizio != null && dataFine != null; }
 }
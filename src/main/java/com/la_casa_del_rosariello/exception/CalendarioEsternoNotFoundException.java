@@ -0,0 +1,11 @@
+package com.la_casa_del_rosariello.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class CalendarioEsternoNotFoundException extends RuntimeException {
+    public CalendarioEsternoNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.la_casa_del_rosariello.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class FlussoSaturoException extends RuntimeException {
+    public FlussoSaturoException(String message) {
+        super(message);
+    }
+}
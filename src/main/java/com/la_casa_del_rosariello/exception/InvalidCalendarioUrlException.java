@@ -0,0 +1,11 @@
+package com.la_casa_del_rosariello.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCalendarioUrlException extends RuntimeException {
+    public InvalidCalendarioUrlException(String message) {
+        super(message);
+    }
+}
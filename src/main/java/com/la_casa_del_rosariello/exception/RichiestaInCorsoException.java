@@ -0,0 +1,11 @@
+package com.la_casa_del_rosariello.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class RichiestaInCorsoException extends RuntimeException {
+    public RichiestaInCorsoException(String message) {
+        super(message);
+    }
+}
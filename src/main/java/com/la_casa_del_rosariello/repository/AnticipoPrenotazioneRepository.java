@@ -0,0 +1,25 @@
+package com.la_casa_del_rosariello.repository;
+
+import com.la_casa_del_rosariello.entity.AnticipoPrenotazione;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AnticipoPrenotazioneRepository extends JpaRepository<AnticipoPrenotazione, AnticipoPrenotazione.Chiave> {
+
+    interface TotaleFascia {
+        Integer getFascia();
+        Long getPrenotazioni();
+    }
+
+    // Prenotazioni con arrivo nel periodo (dataFine esclusa), per fascia di anticipo
+    @Query("SELECT a.fascia AS fascia, SUM(a.prenotazioni) AS prenotazioni FROM AnticipoPrenotazione a " +
+            "WHERE a.proprietaId = :proprietaId AND a.giornoArrivo >= :dataInizio AND a.giornoArrivo < :dataFine GROUP BY a.fascia")
+    List<TotaleFascia> sommaPerFascia(Long proprietaId, LocalDate dataInizio, LocalDate dataFine);
+
+    @Query("SELECT a.fascia AS fascia, SUM(a.prenotazioni) AS prenotazioni FROM AnticipoPrenotazione a " +
+            "WHERE a.giornoArrivo >= :dataInizio AND a.giornoArrivo < :dataFine GROUP BY a.fascia")
+    List<TotaleFascia> sommaPerFascia(LocalDate dataInizio, LocalDate dataFine);
+}
@@ -2,36 +2,108 @@ package com.la_casa_del_rosariello.repository;
 
 import com.la_casa_del_rosariello.entity.Booking;
 import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    @Query("SELECT b FROM Booking b WHERE b.dataInizio < :dataFine AND b.dataFine > :dataInizio AND b.statoPrenotazione IN :stati")
-    List<Booking> findOverlappingBookings(LocalDate dataInizio, LocalDate dataFine, List<StatoPrenotazione> stati);
-
-    @Query("SELECT b FROM Booking b WHERE " +
-            "b.dataInizio < :dataFine AND b.dataFine > :dataInizio " +
-            "AND b.statoPrenotazione IN :stati " + // Controlla una lista di stati
-            "AND b.id <> :excludedBookingId")      // Esclude la prenotazione corrente
-    List<Booking> findOverlappingBookingsExcludingId(
-            LocalDate dataFine,
-            LocalDate dataInizio,
-            List<StatoPrenotazione> stati,        // Accetta una lista di stati
-            Long excludedBookingId
-    );
-
-    List<Booking> findByOspiteEmail(String ospiteEmail);
+    // Tutte le query sulle sovrapposizioni sono limitate a una singola unità (indice idx_booking_proprieta_stato_inizio_fine).
+    // Non usata dal codice applicativo: è la lettura delle entità sovrapposte che le verifiche di conflitto facevano
+    // prima delle query di esistenza, tenuta solo come termine di confronto (BookingServiceBenchmark.conflittoQueryEntita)
+    @Query("SELECT b FROM Booking b WHERE b.proprietaId = :proprietaId AND b.dataInizio < :dataFine AND b.dataFine > :dataInizio AND b.statoPrenotazione IN :stati")
+    List<Booking> findOverlappingBookings(Long proprietaId, LocalDate dataInizio, LocalDate dataFine, List<StatoPrenotazione> stati);
+
+    // Verifiche di conflitto nel calendario di un'unità: si legge al massimo un id (LIMIT 1), nessuna entità viene caricata.
+    // Le prenotazioni PENDENTE con scadenza passata non bloccano più, anche prima che il job di pulizia le chiuda
+    @Query("SELECT b.id FROM Booking b WHERE b.proprietaId = :proprietaId AND b.dataInizio < :dataFine AND b.dataFine > :dataInizio " +
+            "AND b.statoPrenotazione IN :stati AND (b.scadenzaHold IS NULL OR b.scadenzaHold > :adesso)")
+    List<Long> findIdSovrapposti(Long proprietaId, LocalDate dataInizio, LocalDate dataFine, List<StatoPrenotazione> stati, LocalDateTime adesso, Limit limite);
+
+    @Query("SELECT b.id FROM Booking b WHERE b.proprietaId = :proprietaId AND b.dataInizio < :dataFine AND b.dataFine > :dataInizio " +
+            "AND b.statoPrenotazione IN :stati AND (b.scadenzaHold IS NULL OR b.scadenzaHold > :adesso) " +
+            "AND b.id <> :excludedBookingId")
+    List<Long> findIdSovrappostiExcludingId(Long proprietaId, LocalDate dataInizio, LocalDate dataFine, List<StatoPrenotazione> stati, LocalDateTime adesso,
+                                            Long excludedBookingId, Limit limite);
+
+    default boolean existsOverlappingBooking(Long proprietaId, LocalDate dataInizio, LocalDate dataFine, List<StatoPrenotazione> stati) {
+        return !findIdSovrapposti(proprietaId, dataInizio, dataFine, stati, LocalDateTime.now(), Limit.of(1)).isEmpty();
+    }
+
+    default boolean existsOverlappingBookingExcludingId(Long proprietaId, LocalDate dataInizio, LocalDate dataFine, List<StatoPrenotazione> stati, Long excludedBookingId) {
+        return !findIdSovrappostiExcludingId(proprietaId, dataInizio, dataFine, stati, LocalDateTime.now(), excludedBookingId, Limit.of(1)).isEmpty();
+    }
+
+    // Un'unica scansione per intervallo, già ordinata, usata per costruire il calendario di un'unità
+    @Query("SELECT b FROM Booking b WHERE b.proprietaId = :proprietaId AND b.dataInizio < :dataFine AND b.dataFine > :dataInizio " +
+            "AND b.statoPrenotazione IN :stati AND (b.scadenzaHold IS NULL OR b.scadenzaHold > :adesso) ORDER BY b.dataInizio")
+    List<Booking> findOverlappingBookingsOrderByDataInizio(Long proprietaId, LocalDate dataInizio, LocalDate dataFine, List<StatoPrenotazione> stati, LocalDateTime adesso);
+
+    // Blocchi temporanei scaduti, i più vecchi per primi (indice idx_booking_stato_scadenza). Le righe vengono bloccate
+    // per la transazione del job; con lock timeout -2 (SKIP LOCKED) più istanze non si contendono le stesse righe
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT b FROM Booking b WHERE b.statoPrenotazione = :stato AND b.scadenzaHold <= :adesso ORDER BY b.scadenzaHold")
+    List<Booking> findHoldScaduti(StatoPrenotazione stato, LocalDateTime adesso, Limit limite);
+
+    // Blocchi scaduti che trattengono ancora notti dell'intervallo richiesto nell'unità (liberati prima di occuparle)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.proprietaId = :proprietaId AND b.statoPrenotazione = :stato AND b.scadenzaHold <= :adesso " +
+            "AND b.dataInizio < :dataFine AND b.dataFine > :dataInizio")
+    List<Booking> findHoldScadutiSovrapposti(Long proprietaId, LocalDate dataInizio, LocalDate dataFine, StatoPrenotazione stato, LocalDateTime adesso);
+
+    // Chiusura set-based dei blocchi scaduti già bloccati dalla transazione (FOR UPDATE): un solo UPDATE per blocco.
+    // La versione viene incrementata come farebbe Hibernate, così una conferma partita dalla versione precedente fallisce
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Booking b SET b.statoPrenotazione = :scaduta, b.scadenzaHold = NULL, b.versione = b.versione + 1 " +
+            "WHERE b.id IN :ids AND b.statoPrenotazione = :pendente")
+    int scadiHold(Collection<Long> ids, StatoPrenotazione pendente, StatoPrenotazione scaduta);
+
+    // Blocchi ancora attivi importati da un calendario esterno (indice idx_booking_calendario_uid)
+    List<Booking> findByCalendarioEsternoIdAndStatoPrenotazioneIn(Long calendarioEsternoId, List<StatoPrenotazione> stati);
+
     List<Booking> findByStatoPrenotazione(StatoPrenotazione statoPrenotazione);
-    // Per un ospite che vede la propria prenotazione
 
-    Optional<Booking> findByIdAndOspiteEmail(Long id, String ospiteEmail);
+    // Id delle prenotazioni di un ospite, dalla più recente: l'email va passata già normalizzata (Booking.normalizzaEmail).
+    // Servita interamente dall'indice idx_booking_email_normalizzata
+    @Query("SELECT b.id FROM Booking b WHERE b.ospiteEmailNormalizzata = :ospiteEmailNormalizzata ORDER BY b.dataInizio DESC")
+    List<Long> findIdByOspiteEmailNormalizzata(String ospiteEmailNormalizzata);
 
     Page<Booking> findAll(Pageable pageable);
+
+    // Paginazione keyset per id o per (dataInizio, id), senza COUNT(*)
+    @Query("SELECT b FROM Booking b WHERE b.id > :dopoId ORDER BY b.id")
+    List<Booking> findPaginaDopoId(Long dopoId, Limit limite);
+
+    @Query("SELECT b FROM Booking b WHERE b.dataInizio > :dopoDataInizio " +
+            "OR (b.dataInizio = :dopoDataInizio AND b.id > :dopoId) " +
+            "ORDER BY b.dataInizio, b.id")
+    List<Booking> findPaginaDopoDataInizio(LocalDate dopoDataInizio, Long dopoId, Limit limite);
+
+    // Backfill dei prezzi salvati, a blocchi ordinati per id: solo gli id, così un blocco fallito si può riprovare riga per riga
+    @Query("SELECT b.id FROM Booking b WHERE b.prezzoTotale IS NULL AND b.id > :dopoId ORDER BY b.id")
+    List<Long> findIdSenzaPrezzo(Long dopoId, Limit limite);
+
+    // Esportazione completa in streaming. Su MySQL il driver legge davvero a blocchi solo con useCursorFetch=true,
+    // impostato sul pool in application.properties; le entità sono in sola lettura (nessuno snapshot)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Booking b ORDER BY b.id")
+    Stream<Booking> streamAllOrderById();
 }
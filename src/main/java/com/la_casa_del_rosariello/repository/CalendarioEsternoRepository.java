@@ -0,0 +1,12 @@
+package com.la_casa_del_rosariello.repository;
+
+import com.la_casa_del_rosariello.entity.CalendarioEsterno;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface CalendarioEsternoRepository extends JpaRepository<CalendarioEsterno, Long> {
+    List<CalendarioEsterno> findByProprietaIdOrderById(Long proprietaId);
+
+    List<CalendarioEsterno> findByAttivoTrueOrderById();
+}
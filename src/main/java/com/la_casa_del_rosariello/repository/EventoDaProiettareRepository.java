@@ -0,0 +1,28 @@
+package com.la_casa_del_rosariello.repository;
+
+import com.la_casa_del_rosariello.entity.EventoDaProiettare;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface EventoDaProiettareRepository extends JpaRepository<EventoDaProiettare, Long> {
+
+    // Come per i blocchi scaduti: righe bloccate per la transazione del proiettore, con SKIP LOCKED
+    // più istanze si dividono la coda invece di applicare due volte gli stessi eventi
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EventoDaProiettare e ORDER BY e.eventoId")
+    List<EventoDaProiettare> findDaProiettare(Limit limite);
+
+    @Modifying
+    @Query("DELETE FROM EventoDaProiettare e WHERE e.eventoId IN :eventoIds")
+    int deleteByEventoIdIn(Collection<Long> eventoIds);
+}
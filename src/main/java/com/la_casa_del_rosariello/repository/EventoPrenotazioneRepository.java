@@ -0,0 +1,33 @@
+package com.la_casa_del_rosariello.repository;
+
+import com.la_casa_del_rosariello.entity.EventoPrenotazione;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EventoPrenotazioneRepository extends JpaRepository<EventoPrenotazione, Long> {
+
+    interface StatoRegistro {
+        long getEventi();
+        LocalDateTime getUltimo();
+    }
+
+    @Query("SELECT e FROM EventoPrenotazione e WHERE e.id IN :ids ORDER BY e.id")
+    List<EventoPrenotazione> findByIdInOrderById(Collection<Long> ids);
+
+    // Ricostruzione delle proiezioni: l'intero registro a blocchi ordinati per id (keyset sulla chiave primaria)
+    @Query("SELECT e FROM EventoPrenotazione e WHERE e.id > :dopoId ORDER BY e.id")
+    List<EventoPrenotazione> findDopoId(Long dopoId, Limit limite);
+
+    // Storia di una prenotazione, nell'ordine delle sue versioni (indice idx_evento_prenotazione_booking)
+    List<EventoPrenotazione> findByBookingIdOrderByVersioneAscIdAsc(Long bookingId);
+
+    // Numero di eventi e ultimo evento di un'unità: il registro cresce soltanto, quindi il conteggio cambia
+    // a ogni scrittura. Letto solo dall'indice idx_evento_prenotazione_proprieta
+    @Query("SELECT COUNT(e) AS eventi, MAX(e.registratoIl) AS ultimo FROM EventoPrenotazione e WHERE e.proprietaId = :proprietaId")
+    StatoRegistro findStatoRegistro(Long proprietaId);
+}
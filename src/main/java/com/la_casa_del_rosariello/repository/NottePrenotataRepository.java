@@ -0,0 +1,24 @@
+package com.la_casa_del_rosariello.repository;
+
+import com.la_casa_del_rosariello.entity.NottePrenotata;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface NottePrenotataRepository extends JpaRepository<NottePrenotata, Long> {
+    // Notti occupate di un'unità in [dataInizio, dataFine), lette sul vincolo di unicità (proprieta_id, notte)
+    List<NottePrenotata> findByProprietaIdAndNotteGreaterThanEqualAndNotteLessThan(Long proprietaId, LocalDate dataInizio, LocalDate dataFine);
+
+    // DELETE massivo: eseguito subito, prima di eventuali nuove righe per la stessa prenotazione
+    @Modifying
+    @Query("DELETE FROM NottePrenotata n WHERE n.bookingId = :bookingId")
+    int deleteByBookingId(Long bookingId);
+
+    @Modifying
+    @Query("DELETE FROM NottePrenotata n WHERE n.bookingId IN :bookingIds")
+    int deleteByBookingIdIn(Collection<Long> bookingIds);
+}
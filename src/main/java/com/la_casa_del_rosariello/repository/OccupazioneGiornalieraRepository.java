@@ -0,0 +1,31 @@
+package com.la_casa_del_rosariello.repository;
+
+import com.la_casa_del_rosariello.entity.OccupazioneGiornaliera;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface OccupazioneGiornalieraRepository extends JpaRepository<OccupazioneGiornaliera, OccupazioneGiornaliera.Chiave> {
+
+    // Totali di un giorno (di un'unità o di tutte)
+    interface TotaleGiorno {
+        LocalDate getGiorno();
+        Long getNotti();
+        Double getRicavo();
+    }
+
+    // Intervallo sulla chiave primaria (proprieta_id, giorno); dataFine esclusa
+    List<OccupazioneGiornaliera> findByProprietaIdAndGiornoGreaterThanEqualAndGiornoLessThanOrderByGiorno(Long proprietaId, LocalDate dataInizio, LocalDate dataFine);
+
+    @Query("SELECT o.giorno AS giorno, SUM(o.nottiOccupate) AS notti, SUM(o.ricavo) AS ricavo FROM OccupazioneGiornaliera o " +
+            "WHERE o.proprietaId = :proprietaId AND o.giorno >= :dataInizio AND o.giorno < :dataFine GROUP BY o.giorno")
+    List<TotaleGiorno> sommaPerGiorno(Long proprietaId, LocalDate dataInizio, LocalDate dataFine);
+
+    // Tutte le unità attive, le stesse contate per le notti disponibili: le righe si leggono dall'indice
+    // idx_occupazione_giornaliera_giorno, l'unità per chiave primaria
+    @Query("SELECT o.giorno AS giorno, SUM(o.nottiOccupate) AS notti, SUM(o.ricavo) AS ricavo FROM OccupazioneGiornaliera o, Proprieta p " +
+            "WHERE p.id = o.proprietaId AND p.attiva = true AND o.giorno >= :dataInizio AND o.giorno < :dataFine GROUP BY o.giorno")
+    List<TotaleGiorno> sommaPerGiornoUnitaAttive(LocalDate dataInizio, LocalDate dataFine);
+}
@@ -0,0 +1,18 @@
+package com.la_casa_del_rosariello.repository;
+
+import com.la_casa_del_rosariello.entity.ProiezionePrenotazione;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProiezionePrenotazioneRepository extends JpaRepository<ProiezionePrenotazione, Long> {
+
+    // Bloccate fino al commit: due proiettori non calcolano differenze dalla stessa fotografia
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM ProiezionePrenotazione p WHERE p.bookingId IN :bookingIds")
+    List<ProiezionePrenotazione> findByBookingIdIn(Collection<Long> bookingIds);
+}
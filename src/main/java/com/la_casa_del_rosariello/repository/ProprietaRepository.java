@@ -0,0 +1,35 @@
+package com.la_casa_del_rosariello.repository;
+
+import com.la_casa_del_rosariello.entity.Proprieta;
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ProprietaRepository extends JpaRepository<Proprieta, Long> {
+    List<Proprieta> findByAttivaTrueOrderById();
+
+    long countByAttivaTrue();
+
+    // Candidate per una ricerca: attive e con capienza sufficiente (indice idx_proprieta_attiva_capienza)
+    List<Proprieta> findByAttivaTrueAndCapienzaGreaterThanEqualOrderById(int ospiti);
+
+    // Unità attive libere nel periodo, con una sola query per tutte le unità: l'anti-join è risolto dal database
+    // con una ricerca sull'indice (proprieta_id, stato_prenotazione, data_inizio, data_fine) per ogni unità
+    @Query("SELECT p FROM Proprieta p WHERE p.attiva = true AND p.capienza >= :ospiti AND NOT EXISTS (" +
+            "SELECT b.id FROM Booking b WHERE b.proprietaId = p.id AND b.statoPrenotazione IN :stati " +
+            "AND b.dataInizio < :dataFine AND b.dataFine > :dataInizio " +
+            "AND (b.scadenzaHold IS NULL OR b.scadenzaHold > :adesso)) ORDER BY p.id")
+    List<Proprieta> findDisponibili(LocalDate dataInizio, LocalDate dataFine, int ospiti, List<StatoPrenotazione> stati, LocalDateTime adesso);
+
+    // Stesso anti-join limitato a un blocco di unità già selezionate: usato dalla ricerca parallela
+    @Query("SELECT p.id FROM Proprieta p WHERE p.id IN :ids AND NOT EXISTS (" +
+            "SELECT b.id FROM Booking b WHERE b.proprietaId = p.id AND b.statoPrenotazione IN :stati " +
+            "AND b.dataInizio < :dataFine AND b.dataFine > :dataInizio " +
+            "AND (b.scadenzaHold IS NULL OR b.scadenzaHold > :adesso))")
+    List<Long> findIdDisponibiliTra(Collection<Long> ids, LocalDate dataInizio, LocalDate dataFine, List<StatoPrenotazione> stati, LocalDateTime adesso);
+}
@@ -0,0 +1,12 @@
+package com.la_casa_del_rosariello.repository;
+
+import com.la_casa_del_rosariello.entity.RicavoMensile;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RicavoMensileRepository extends JpaRepository<RicavoMensile, RicavoMensile.Chiave> {
+
+    List<RicavoMensile> findByProprietaIdAndMeseBetweenOrderByMese(Long proprietaId, LocalDate primoMese, LocalDate ultimoMese);
+}
@@ -0,0 +1,7 @@
+package com.la_casa_del_rosariello.repository;
+
+import com.la_casa_del_rosariello.entity.RiepilogoOspite;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RiepilogoOspiteRepository extends JpaRepository<RiepilogoOspite, String> {
+}
@@ -0,0 +1,11 @@
+package com.la_casa_del_rosariello.repository;
+
+import com.la_casa_del_rosariello.entity.TariffaStagionale;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface TariffaStagionaleRepository extends JpaRepository<TariffaStagionale, Long> {
+    // Ordine di inserimento: a parità di notte prevale l'ultima tariffa
+    List<TariffaStagionale> findAllByOrderByIdAsc();
+}
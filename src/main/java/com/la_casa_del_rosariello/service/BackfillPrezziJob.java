@@ -0,0 +1,114 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.TipoEventoPrenotazione;
+import com.la_casa_del_rosariello.repository.BookingRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+// Popola il prezzo salvato sulle prenotazioni create prima che esistesse la colonna.
+// Lavora a blocchi, ognuno nella propria transazione, così non tiene lock a lungo né riempie la memoria.
+// Gira in background dopo l'avvio: l'istanza risponde subito e le righe non ancora allineate
+// vengono prezzate al volo da BookingMapper. Una riga che non si riesce a prezzare viene registrata nel log
+// e saltata, senza fermare il resto del backfill; al prossimo avvio viene riprovata.
+@Component
+public class BackfillPrezziJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackfillPrezziJob.class);
+
+    private final BookingRepository bookingRepository;
+    private final BookingService bookingService;
+    private final RegistroEventi registroEventi;
+    private final TransactionTemplate transactionTemplate;
+    private final int dimensioneBlocco;
+    private final ExecutorService esecutore = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("backfill-prezzi").factory());
+
+    public BackfillPrezziJob(BookingRepository bookingRepository,
+                             BookingService bookingService,
+                             RegistroEventi registroEventi,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${booking.backfill-prezzi.blocco:500}") int dimensioneBlocco) {
+        this.bookingRepository = bookingRepository;
+        this.bookingService = bookingService;
+        this.registroEventi = registroEventi;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dimensioneBlocco = dimensioneBlocco;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void esegui() {
+        esecutore.execute(() -> {
+            try {
+                aggiorna();
+            } catch (RuntimeException e) {
+                logger.error("Backfill prezzi interrotto", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void chiudi() {
+        esecutore.shutdownNow();
+    }
+
+    // Restituisce il numero di prenotazioni aggiornate; usata dal job e dai test
+    public int aggiorna() {
+        long dopoId = 0;
+        int aggiornate = 0;
+        int saltate = 0;
+        List<Long> idBlocco;
+        do {
+            idBlocco = bookingRepository.findIdSenzaPrezzo(dopoId, Limit.of(dimensioneBlocco));
+            if (idBlocco.isEmpty()) {
+                break;
+            }
+            try {
+                aggiornate += aggiornaBlocco(idBlocco);
+            } catch (RuntimeException e) {
+                // Si riprova una riga alla volta per isolare quelle che non si riescono a prezzare
+                logger.warn("Backfill prezzi: blocco dopo l'id {} non aggiornato ({}), si riprova riga per riga", dopoId, e.toString());
+                for (Long id : idBlocco) {
+                    try {
+                        aggiornate += aggiornaBlocco(List.of(id));
+                    } catch (RuntimeException erroreRiga) {
+                        saltate++;
+                        logger.error("Backfill prezzi: prenotazione {} saltata", id, erroreRiga);
+                    }
+                }
+            }
+            dopoId = idBlocco.get(idBlocco.size() - 1);
+        } while (idBlocco.size() == dimensioneBlocco && !Thread.currentThread().isInterrupted());
+
+        if (aggiornate > 0 || saltate > 0) {
+            logger.info("Backfill prezzi completato: {} prenotazioni aggiornate, {} saltate", aggiornate, saltate);
+        }
+        return aggiornate;
+    }
+
+    private int aggiornaBlocco(List<Long> ids) {
+        return transactionTemplate.execute(status -> {
+            // Una richiesta può aver fissato il prezzo dopo la lettura degli id
+            List<Booking> blocco = bookingRepository.findAllById(ids).stream()
+                    .filter(booking -> booking.getPrezzoTotale() == null)
+                    .collect(Collectors.toList());
+            // Il dirty checking scrive le modifiche al flush, in batch JDBC; gli eventi portano il prezzo nei ricavi dei report
+            blocco.forEach(bookingService::applicaPreventivo);
+            bookingRepository.flush();
+            registroEventi.registra(TipoEventoPrenotazione.MODIFICATA, blocco);
+            return blocco.size();
+        });
+    }
+}
@@ -2,93 +2,257 @@ package com.la_casa_del_rosariello.service;
 
 import com.la_casa_del_rosariello.dto.BookingRequestDTO;
 import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.NottePrenotata;
+import com.la_casa_del_rosariello.entity.Proprieta;
 import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import com.la_casa_del_rosariello.entity.TipoEventoPrenotazione;
 import com.la_casa_del_rosariello.exception.BookingConflictException;
 import com.la_casa_del_rosariello.exception.BookingNotFoundException;
 import com.la_casa_del_rosariello.exception.InvalidGuestNumberException;
-import com.la_casa_del_rosariello.dto.BookingResponseDTO;
+import com.la_casa_del_rosariello.exception.PreconditionFailedException;
+import com.la_casa_del_rosariello.dto.IntervalloCalendarioDTO;
+import com.la_casa_del_rosariello.event.PrenotazioneModificataEvent;
 import com.la_casa_del_rosariello.repository.BookingRepository;
+import com.la_casa_del_rosariello.repository.NottePrenotataRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @Transactional
 public class BookingService {
 
+    // Stati che bloccano la disponibilità del calendario
+    public static final List<StatoPrenotazione> STATI_BLOCCANTI = List.of(StatoPrenotazione.CONFERMATA, StatoPrenotazione.PENDENTE);
+
     @Autowired
     private BookingRepository bookingRepository;
 
-    private final double PREZZO_PER_NOTTE = 60;
+    @Autowired
+    private NottePrenotataRepository nottePrenotataRepository;
+
+    @Autowired
+    private IndiceOccupazione indiceOccupazione;
+
+    @Autowired
+    private CacheDisponibilita cacheDisponibilita;
+
+    @Autowired
+    private CachePrenotazioniOspite cachePrenotazioniOspite;
+
+    @Autowired
+    private GestoreHold gestoreHold;
+
+    @Autowired
+    private ProprietaService proprietaService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RegistroEventi registroEventi;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TabellaPrezzi tabellaPrezzi;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-    public Page<BookingResponseDTO> findAllBookings(Pageable pageable) {
-        // Logica di logging qui se necessaria, come discusso nel punto 3
-        Page<Booking> bookingPage = bookingRepository.findAll(pageable);
+    @Transactional(readOnly = true)
+    // La mappatura verso BookingResponseDTO avviene una sola volta, nel controller
+    public Page<Booking> findAllBookings(Pageable pageable) {
+        return bookingRepository.findAll(pageable);
+    }
+
+    // Paginazione keyset (seek) per il back-office: nessuna COUNT(*) e costo costante anche sulle pagine lontane.
+    // Legge limite + 1 righe per sapere se esiste una pagina successiva.
+    @Transactional(readOnly = true)
+    public List<Booking> findPaginaKeyset(Long dopoId, LocalDate dopoDataInizio, int limite) {
+        if (dopoDataInizio != null) {
+            return bookingRepository.findPaginaDopoDataInizio(dopoDataInizio, dopoId != null ? dopoId : 0L, Limit.of(limite + 1));
+        }
+        return bookingRepository.findPaginaDopoId(dopoId != null ? dopoId : 0L, Limit.of(limite + 1));
+    }
 
-        return bookingPage.map(booking -> {
-            // Esegui il mapping da Entity a DTO
-            BookingResponseDTO dto = new BookingResponseDTO();
-            dto.setId(booking.getId());
-            // Assicurati di mappare tutti gli altri campi rilevanti
-            // es: dto.setDataInizio(booking.getDataInizio());
-            // es: dto.setDataFine(booking.getDataFine());
-            return dto;
-        });
+    // Esportazione a memoria costante: le righe arrivano dal cursore JDBC una alla volta
+    // e vengono staccate dal contesto di persistenza subito dopo essere state scritte
+    @Transactional(readOnly = true)
+    public void esportaPrenotazioni(Consumer<Booking> scrittore) {
+        try (Stream<Booking> prenotazioni = bookingRepository.streamAllOrderById()) {
+            prenotazioni.forEach(booking -> {
+                scrittore.accept(booking);
+                entityManager.detach(booking);
+            });
+        }
     }
+
+    @Transactional(readOnly = true)
     public Optional<Booking> findBookingById(Long id) {
         return bookingRepository.findById(id);
     }
 
+    // Area ospite: id dalla cache per ospite (o dall'indice sull'email normalizzata), entità dalla cache di secondo livello.
+    // multiLoad conserva l'ordine degli id e salta quelli nel frattempo eliminati
+    @Transactional(readOnly = true)
+    public List<Booking> findPrenotazioniOspite(String email) {
+        String emailNormalizzata = Booking.normalizzaEmail(email);
+        List<Long> ids = cachePrenotazioniOspite.prenotazioni(emailNormalizzata,
+                () -> bookingRepository.findIdByOspiteEmailNormalizzata(emailNormalizzata));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.unwrap(Session.class).byMultipleIds(Booking.class).multiLoad(ids).stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // Una prenotazione è visibile all'ospite solo se l'email coincide: lettura per id, poi confronto dell'email
+    @Transactional(readOnly = true)
+    public Optional<Booking> findPrenotazioneOspite(Long id, String email) {
+        String emailNormalizzata = Booking.normalizzaEmail(email);
+        return bookingRepository.findById(id)
+                .filter(booking -> emailNormalizzata.equals(booking.getOspiteEmailNormalizzata()));
+    }
+
     public Booking createdBooking(Booking newBooking) {
-        if (newBooking.getNumeroOspiti() > 2) {
-            throw new InvalidGuestNumberException("Il numero massimo di ospiti è 2!");
+        return createdBooking(newBooking, false);
+    }
+
+    // hold = true: la prenotazione nasce PENDENTE e trattiene le date solo fino alla scadenza (es. checkout in corso).
+    // Senza unità indicata la prenotazione va all'unità predefinita
+    public Booking createdBooking(Booking newBooking, boolean hold) {
+        if (newBooking.getProprietaId() == null) {
+            newBooking.setProprietaId(Proprieta.PREDEFINITA);
+        }
+        Proprieta proprieta = proprietaService.trovaProprieta(newBooking.getProprietaId());
+        if (newBooking.getNumeroOspiti() > proprieta.getCapienza()) {
+            throw new InvalidGuestNumberException("Il numero massimo di ospiti per " + proprieta.getNome() + " è " + proprieta.getCapienza() + "!");
         }
 
         if (newBooking.getDataFine().isBefore(newBooking.getDataInizio()) || newBooking.getDataFine().isEqual(newBooking.getDataInizio())) {
             throw new IllegalArgumentException("La data di fine vacanza deve essere successiva alla data di inizio!");
         }
 
-        if (!verificaDisponibilita(newBooking.getDataInizio(), newBooking.getDataFine())) {
-            throw new BookingConflictException("Le date selezionate non sono disponibili !");
+        if (!misuraVerifica("verificaDisponibilita",
+                () -> verificaDisponibilita(newBooking.getProprietaId(), newBooking.getDataInizio(), newBooking.getDataFine()))) {
+            throw new BookingConflictException("Le date selezionate non sono disponibili !",
+                    newBooking.getProprietaId(), newBooking.getDataInizio(), newBooking.getDataFine());
+        }
+        if (newBooking.getDataCreazione() == null) {
+            newBooking.setDataCreazione(LocalDateTime.now()); // Serve anche all'anticipo di prenotazione nei report
         }
-        newBooking.setStatoPrenotazione(StatoPrenotazione.CONFERMATA);
+        newBooking.setStatoPrenotazione(hold ? StatoPrenotazione.PENDENTE : StatoPrenotazione.CONFERMATA);
+        newBooking.setScadenzaHold(hold ? gestoreHold.nuovaScadenza() : null);
+        applicaPreventivo(newBooking);
 
-        return bookingRepository.save(newBooking);
+        Booking salvata = bookingRepository.save(newBooking);
+        // La verifica sopra è solo un controllo rapido: la garanzia contro le doppie prenotazioni è il vincolo sulle notti
+        occupaNotti(salvata);
+        pubblicaModifica(salvata.getId(), null, null, null, null, salvata);
+        return salvata;
     }
 
-    public boolean verificaDisponibilita(LocalDate dataInizioRichiesta, LocalDate dataFineRichiesta) {
-        // Definisci gli stati che bloccano la disponibilità
-        List<StatoPrenotazione> statiInConflitto = Arrays.asList(StatoPrenotazione.CONFERMATA, StatoPrenotazione.PENDENTE);
+    // Sola lettura: Hibernate salta flush e snapshot per il dirty checking
+    // (se chiamato da un metodo di scrittura partecipa alla sua transazione)
+    @Transactional(readOnly = true)
+    public boolean verificaDisponibilita(Long proprietaId, LocalDate dataInizioRichiesta, LocalDate dataFineRichiesta) {
+        // Dentro la finestra dell'indice in memoria non serve interrogare il database
+        if (indiceOccupazione.isCoperto(dataInizioRichiesta, dataFineRichiesta)) {
+            return indiceOccupazione.isLibero(proprietaId, dataInizioRichiesta, dataFineRichiesta);
+        }
 
-        List<Booking> prenotazioniInConflittoInterne = bookingRepository.findOverlappingBookings(
+        // Basta sapere se esiste almeno una prenotazione in conflitto: nessuna entità viene caricata
+        return cacheDisponibilita.disponibilita(proprietaId, dataInizioRichiesta, dataFineRichiesta, () -> !bookingRepository.existsOverlappingBooking(
+                proprietaId,
                 dataInizioRichiesta,
                 dataFineRichiesta,
-                statiInConflitto // Passa la lista di stati
-        );
+                STATI_BLOCCANTI // Passa la lista di stati
+        ));
+    }
+
 
-        // La logica ora è corretta: se la lista non è vuota, non è disponibile
-        return prenotazioniInConflittoInterne.isEmpty();
+    // Calendario servito dalla cache: lo stesso periodo viene richiesto da molti visitatori
+    @Transactional(readOnly = true)
+    public List<IntervalloCalendarioDTO> getCalendario(Long proprietaId, LocalDate dataInizio, LocalDate dataFine) {
+        return cacheDisponibilita.calendario(proprietaId, dataInizio, dataFine, () -> calcolaCalendario(proprietaId, dataInizio, dataFine));
     }
 
+    // Calendario run-length delle notti [dataInizio, dataFine) di un'unità, calcolato con una sola query sull'intervallo
+    @Transactional(readOnly = true)
+    public List<IntervalloCalendarioDTO> calcolaCalendario(Long proprietaId, LocalDate dataInizio, LocalDate dataFine) {
+        List<Booking> prenotazioni = bookingRepository.findOverlappingBookingsOrderByDataInizio(proprietaId, dataInizio, dataFine, STATI_BLOCCANTI, LocalDateTime.now());
+
+        List<IntervalloCalendarioDTO> intervalli = new ArrayList<>();
+        LocalDate cursore = dataInizio;
+        for (Booking booking : prenotazioni) {
+            LocalDate inizioOccupato = booking.getDataInizio().isBefore(cursore) ? cursore : booking.getDataInizio();
+            LocalDate fineOccupato = booking.getDataFine().isAfter(dataFine) ? dataFine : booking.getDataFine();
+            if (!fineOccupato.isAfter(cursore)) {
+                continue; // Già coperta da una prenotazione precedente
+            }
+            if (inizioOccupato.isAfter(cursore)) {
+                intervalli.add(new IntervalloCalendarioDTO(cursore, inizioOccupato, false));
+            }
+            // Prenotazioni contigue o sovrapposte vengono fuse in un unico tratto occupato
+            IntervalloCalendarioDTO ultimo = intervalli.isEmpty() ? null : intervalli.get(intervalli.size() - 1);
+            if (ultimo != null && ultimo.isOccupato() && !ultimo.getDataFine().isBefore(inizioOccupato)) {
+                ultimo.setDataFine(fineOccupato);
+            } else {
+                intervalli.add(new IntervalloCalendarioDTO(inizioOccupato, fineOccupato, true));
+            }
+            cursore = fineOccupato;
+        }
+        if (cursore.isBefore(dataFine)) {
+            intervalli.add(new IntervalloCalendarioDTO(cursore, dataFine, false));
+        }
+        return intervalli;
+    }
 
     public Booking aggiornaPrenotazione(Long id, BookingRequestDTO newDatiPrenotazione) {
+        return aggiornaPrenotazione(id, newDatiPrenotazione, null);
+    }
+
+    // versioneAttesa (da If-Match) null = aggiornamento incondizionato; resta comunque il controllo di @Version al commit.
+    // L'unità non cambia: un eventuale proprietaId nella richiesta viene ignorato (spostare un soggiorno = nuova prenotazione)
+    public Booking aggiornaPrenotazione(Long id, BookingRequestDTO newDatiPrenotazione, Long versioneAttesa) {
         Booking existingBooking = bookingRepository.findById(id)
                 .orElseThrow(() -> new BookingNotFoundException("Prenotazione con ID " + id + " non trovata."));
+        verificaVersione(existingBooking, versioneAttesa);
+        // Un blocco scaduto ma non ancora chiuso dal job viene chiuso ora: da qui in poi vale come SCADUTA
+        if (existingBooking.isHoldScaduto(LocalDateTime.now())) {
+            gestoreHold.rilascia(existingBooking);
+        }
 
         // Preleva i vecchi dati per confrontare
         LocalDate oldDataInizio = existingBooking.getDataInizio();
         LocalDate oldDataFine = existingBooking.getDataFine();
         StatoPrenotazione oldStato = existingBooking.getStatoPrenotazione();
+        String oldEmail = existingBooking.getOspiteEmailNormalizzata();
 
         // Controlla se le date o lo stato (se CONFERMATA/PENDENTE) sono cambiati in modo da richiedere una verifica
         boolean datesChanged = !oldDataInizio.isEqual(newDatiPrenotazione.getDataInizio()) ||
@@ -101,61 +265,175 @@ public class BookingService {
         // Se le date sono cambiate O lo stato sta passando a CONFERMATA/PENDENTE (necessita di bloccare date)
         if (datesChanged || statusChangingToConfirmedOrPending) {
             // Esegui la verifica della disponibilità escludendo la prenotazione attuale
-            if (!verificaDisponibilitaEscludendo(newDatiPrenotazione.getDataInizio(), newDatiPrenotazione.getDataFine(), id)) {
+            if (!misuraVerifica("verificaDisponibilitaEscludendo",
+                    () -> verificaDisponibilitaEscludendo(newDatiPrenotazione.getDataInizio(), newDatiPrenotazione.getDataFine(), existingBooking))) {
                 throw new BookingConflictException("Le date " + newDatiPrenotazione.getDataInizio() + " - " + newDatiPrenotazione.getDataFine() + " sono già occupate da un'altra prenotazione.");
             }
         }
 
         // Validazione del numero di ospiti (se cambiasse e fosse fuori range)
-        if (newDatiPrenotazione.getNumeroOspiti() < 1 || newDatiPrenotazione.getNumeroOspiti() > 2) {
-            throw new InvalidGuestNumberException("Il numero di ospiti deve essere compreso tra 1 e 2.");
+        int capienza = proprietaService.trovaProprieta(existingBooking.getProprietaId()).getCapienza();
+        if (newDatiPrenotazione.getNumeroOspiti() < 1 || newDatiPrenotazione.getNumeroOspiti() > capienza) {
+            throw new InvalidGuestNumberException("Il numero di ospiti deve essere compreso tra 1 e " + capienza + ".");
         }
 
         // Aggiorna i campi della prenotazione esistente
         existingBooking.setDataInizio(newDatiPrenotazione.getDataInizio());
         existingBooking.setDataFine(newDatiPrenotazione.getDataFine());
+        // Il prezzo salvato resta quello pattuito, salvo cambio di date
+        if (datesChanged || existingBooking.getPrezzoTotale() == null) {
+            applicaPreventivo(existingBooking);
+        }
         existingBooking.setOspiteNome(newDatiPrenotazione.getNomeOspite());
         existingBooking.setOspiteCognome(newDatiPrenotazione.getCognomeOspite());
         existingBooking.setOspiteEmail(newDatiPrenotazione.getEmailOspite());
         existingBooking.setNumeroOspiti(newDatiPrenotazione.getNumeroOspiti());
         existingBooking.setStatoPrenotazione(newDatiPrenotazione.getStatoPrenotazione());
         existingBooking.setNote(newDatiPrenotazione.getNote());
+        // La scadenza parte quando la prenotazione diventa PENDENTE e non viene prorogata dalle modifiche successive
+        if (existingBooking.getStatoPrenotazione() != StatoPrenotazione.PENDENTE) {
+            existingBooking.setScadenzaHold(null);
+        } else if (oldStato != StatoPrenotazione.PENDENTE) {
+            existingBooking.setScadenzaHold(gestoreHold.nuovaScadenza());
+        }
 
         // Non aggiornare dataCreazione, è gestito da @PrePersist
 
-        return bookingRepository.save(existingBooking);
+        // Riallinea le notti rivendicate solo se cambia l'insieme delle notti bloccate
+        boolean bloccava = STATI_BLOCCANTI.contains(oldStato);
+        boolean blocca = STATI_BLOCCANTI.contains(existingBooking.getStatoPrenotazione());
+        if (bloccava && (!blocca || datesChanged)) {
+            nottePrenotataRepository.deleteByBookingId(id);
+        }
+        if (blocca && (!bloccava || datesChanged)) {
+            occupaNotti(existingBooking);
+        }
+
+        Booking salvata = bookingRepository.save(existingBooking);
+        pubblicaModifica(id, oldDataInizio, oldDataFine, oldStato, oldEmail, salvata);
+        return salvata;
     }
 
-    private boolean verificaDisponibilitaEscludendo(LocalDate dataInizioRichiesta, LocalDate dataFineRichiesta, Long excludedBookingId) {
-        // Riutilizza la stessa logica degli stati
-        List<StatoPrenotazione> statiInConflitto = Arrays.asList(StatoPrenotazione.CONFERMATA, StatoPrenotazione.PENDENTE);
+    // Le chiamate interne non passano dal proxy di MetricheBookingAspect: la verifica dentro creazione e modifica
+    // è misurata qui, sullo stesso timer booking.service e con gli stessi esiti
+    private boolean misuraVerifica(String metodo, BooleanSupplier verifica) {
+        Timer.Sample campione = Timer.start(meterRegistry);
+        String esito = "errore";
+        try {
+            boolean disponibile = verifica.getAsBoolean();
+            esito = disponibile ? "disponibile" : "occupato";
+            return disponibile;
+        } finally {
+            campione.stop(meterRegistry.timer("booking.service", "metodo", metodo, "esito", esito));
+        }
+    }
 
-        List<Booking> prenotazioniInConflittoInterne = bookingRepository.findOverlappingBookingsExcludingId(
+    private boolean verificaDisponibilitaEscludendo(LocalDate dataInizioRichiesta, LocalDate dataFineRichiesta, Booking excludedBooking) {
+        if (indiceOccupazione.isCoperto(dataInizioRichiesta, dataFineRichiesta)) {
+            // Le notti della prenotazione esclusa vanno scontate solo se oggi bloccano il calendario
+            boolean esclusaBloccante = STATI_BLOCCANTI.contains(excludedBooking.getStatoPrenotazione());
+            return indiceOccupazione.isLiberoEscludendo(excludedBooking.getProprietaId(), dataInizioRichiesta, dataFineRichiesta, excludedBooking.getId(),
+                    esclusaBloccante ? excludedBooking.getDataInizio() : null,
+                    esclusaBloccante ? excludedBooking.getDataFine() : null);
+        }
+
+        return !bookingRepository.existsOverlappingBookingExcludingId(
+                excludedBooking.getProprietaId(),
                 dataInizioRichiesta,
                 dataFineRichiesta,
-                statiInConflitto, // Passa la lista di stati
-                excludedBookingId
+                STATI_BLOCCANTI, // Passa la lista di stati
+                excludedBooking.getId()
         );
-        return prenotazioniInConflittoInterne.isEmpty();
     }
 
     public Booking cancellaPrenotazione(Long id) {
+        return cancellaPrenotazione(id, null);
+    }
+
+    public Booking cancellaPrenotazione(Long id, Long versioneAttesa) {
         Booking prenotazioneDaCancellare = bookingRepository.findById(id)
                 .orElseThrow(() -> new BookingNotFoundException("Prenotazione non trovata con ID: " + id));
+        verificaVersione(prenotazioneDaCancellare, versioneAttesa);
 
+        StatoPrenotazione oldStato = prenotazioneDaCancellare.getStatoPrenotazione();
         prenotazioneDaCancellare.setStatoPrenotazione(StatoPrenotazione.CANCELLATA);
-        return bookingRepository.save(prenotazioneDaCancellare);
+        prenotazioneDaCancellare.setScadenzaHold(null);
+        if (STATI_BLOCCANTI.contains(oldStato)) {
+            nottePrenotataRepository.deleteByBookingId(id);
+        }
+        Booking salvata = bookingRepository.save(prenotazioneDaCancellare);
+        pubblicaModifica(id, salvata.getDataInizio(), salvata.getDataFine(), oldStato, salvata.getOspiteEmailNormalizzata(), salvata);
+        return salvata;
+    }
+
+    // Il client ha modificato una versione ormai superata: si rifiuta subito, prima di qualunque verifica o scrittura
+    private void verificaVersione(Booking booking, Long versioneAttesa) {
+        if (versioneAttesa != null && !versioneAttesa.equals(booking.getVersione())) {
+            throw new PreconditionFailedException("La prenotazione " + booking.getId() + " è stata modificata nel frattempo (versione attuale "
+                    + booking.getVersione() + ", attesa " + versioneAttesa + ").");
+        }
+    }
+
+    // Inserisce una riga per ogni notte della prenotazione: se un'altra transazione ha già rivendicato
+    // anche una sola di queste notti, il vincolo di unicità fa fallire l'inserimento e la transazione viene annullata.
+    // Le notti sono inserite in ordine crescente, così due richieste sovrapposte si contendono le chiavi nello stesso ordine.
+    private void occupaNotti(Booking booking) {
+        // Le notti trattenute da blocchi già scaduti vanno liberate prima, altrimenti il vincolo le darebbe per occupate
+        gestoreHold.rilasciaScaduti(booking.getProprietaId(), booking.getDataInizio(), booking.getDataFine());
+        List<NottePrenotata> notti = new ArrayList<>();
+        for (LocalDate notte = booking.getDataInizio(); notte.isBefore(booking.getDataFine()); notte = notte.plusDays(1)) {
+            notti.add(new NottePrenotata(booking.getId(), booking.getProprietaId(), notte));
+        }
+        try {
+            nottePrenotataRepository.saveAllAndFlush(notti);
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            throw new BookingConflictException("Le date " + booking.getDataInizio() + " - " + booking.getDataFine() + " sono appena state prenotate da un'altra richiesta.",
+                    booking.getProprietaId(), booking.getDataInizio(), booking.getDataFine());
+        }
+    }
+
+    // Registra l'evento nella transazione e notifica (dopo il commit) chi mantiene strutture derivate dal calendario,
+    // es. l'indice di occupazione
+    private void pubblicaModifica(Long id, LocalDate oldDataInizio, LocalDate oldDataFine, StatoPrenotazione oldStato, String oldEmail, Booking attuale) {
+        boolean bloccava = oldStato != null && STATI_BLOCCANTI.contains(oldStato);
+        boolean blocca = STATI_BLOCCANTI.contains(attuale.getStatoPrenotazione());
+        // Il flush scrive l'UPDATE della prenotazione: l'evento riporta la versione appena salvata
+        bookingRepository.flush();
+        registroEventi.registra(oldStato == null ? TipoEventoPrenotazione.CREATA
+                : attuale.getStatoPrenotazione() == StatoPrenotazione.CANCELLATA ? TipoEventoPrenotazione.CANCELLATA
+                : TipoEventoPrenotazione.MODIFICATA, attuale);
+        eventPublisher.publishEvent(new PrenotazioneModificataEvent(id, attuale.getProprietaId(),
+                bloccava ? oldDataInizio : null,
+                bloccava ? oldDataFine : null,
+                blocca ? attuale.getDataInizio() : null,
+                blocca ? attuale.getDataFine() : null,
+                oldEmail,
+                attuale.getOspiteEmailNormalizzata(),
+                blocca ? attuale.getScadenzaHold() : null));
     }
 
     public double getPrezzoPerNotte() {
-        return PREZZO_PER_NOTTE;
+        return tabellaPrezzi.getPrezzoBase();
     }
 
     public double calcolaPrezzoTotale(LocalDate dataInizio, LocalDate dataFine) {
+        return calcolaPreventivo(dataInizio, dataFine).getTotale();
+    }
+
+    // Fissa sulla prenotazione il preventivo calcolato con il listino attuale e il coefficiente della sua unità
+    public void applicaPreventivo(Booking booking) {
+        double coefficiente = proprietaService.trovaProprieta(booking.getProprietaId()).getCoefficientePrezzo();
+        PreventivoSoggiorno preventivo = calcolaPreventivo(booking.getDataInizio(), booking.getDataFine()).conCoefficiente(coefficiente);
+        booking.setPrezzoNotti(preventivo.getImportoNotti());
+        booking.setScontoDurata(preventivo.getScontoDurata());
+        booking.setPrezzoTotale(preventivo.getTotale());
+    }
+
+    // Prezzo con tariffe stagionali, weekend e sconti per durata: lettura O(1) dalla tabella compilata
+    public PreventivoSoggiorno calcolaPreventivo(LocalDate dataInizio, LocalDate dataFine) {
         if (dataFine.isBefore(dataInizio) || dataFine.isEqual(dataInizio)) {
             throw new IllegalArgumentException("La data di fine deve essere successiva alla data di inizio per calcolare il prezzo.");
         }
-        long numeroNotti = ChronoUnit.DAYS.between(dataInizio, dataFine);
-        return numeroNotti * PREZZO_PER_NOTTE;
+        return tabellaPrezzi.calcolaPreventivo(dataInizio, dataFine);
     }
 }
@@ -0,0 +1,112 @@
+package com.la_casa_del_rosariello.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.la_casa_del_rosariello.dto.IntervalloCalendarioDTO;
+import com.la_casa_del_rosariello.event.PrenotazioneModificataEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Cache delle risposte di disponibilità che richiedono il database (periodi fuori dalla finestra dell'indice)
+// e dei calendari. Le chiavi sono periodi di un'unità: una scrittura invalida solo le voci della stessa unità
+// il cui periodo si sovrappone alle date toccate.
+@Component
+public class CacheDisponibilita {
+
+    private record Periodo(Long proprietaId, LocalDate dataInizio, LocalDate dataFine) {
+        boolean siSovrappone(LocalDate inizio, LocalDate fine) {
+            return dataInizio.isBefore(fine) && dataFine.isAfter(inizio);
+        }
+    }
+
+    // Cache Caffeine con le chiavi raggruppate per unità: l'invalidazione scorre solo i periodi dell'unità scritta,
+    // non tutte le voci. Una chiave entra nell'indice prima del calcolo del valore ed esce con l'invalidazione
+    // o con lo sfratto (dimensione/scadenza)
+    private static class CachePerUnita<V> {
+        private final Cache<Periodo, V> cache;
+        private final Map<Long, Set<Periodo>> chiaviPerUnita = new ConcurrentHashMap<>();
+
+        CachePerUnita(MeterRegistry meterRegistry, String nome, long dimensioneMassima, Duration durata) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(dimensioneMassima)
+                    .expireAfterWrite(durata)
+                    .recordStats()
+                    .<Periodo, V>evictionListener((periodo, valore, causa) -> dimentica(periodo))
+                    .build();
+            // Espone cache.gets (hit/miss), cache.evictions, cache.size con tag cache=<nome>
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, nome);
+        }
+
+        V get(Periodo periodo, Function<Periodo, V> calcolo) {
+            return cache.get(periodo, chiave -> {
+                chiaviPerUnita.computeIfAbsent(chiave.proprietaId(), unita -> ConcurrentHashMap.newKeySet()).add(chiave);
+                return calcolo.apply(chiave);
+            });
+        }
+
+        void invalida(Long proprietaId, LocalDate dataInizio, LocalDate dataFine) {
+            Set<Periodo> chiavi = chiaviPerUnita.get(proprietaId);
+            if (chiavi == null) {
+                return;
+            }
+            Set<Periodo> toccate = chiavi.stream()
+                    .filter(periodo -> periodo.siSovrappone(dataInizio, dataFine))
+                    .collect(Collectors.toSet());
+            chiavi.removeAll(toccate);
+            cache.invalidateAll(toccate);
+        }
+
+        private void dimentica(Periodo periodo) {
+            Set<Periodo> chiavi = chiaviPerUnita.get(periodo.proprietaId());
+            if (chiavi != null) {
+                chiavi.remove(periodo);
+            }
+        }
+    }
+
+    private final CachePerUnita<Boolean> disponibilita;
+    private final CachePerUnita<List<IntervalloCalendarioDTO>> calendari;
+
+    public CacheDisponibilita(MeterRegistry meterRegistry,
+                              @Value("${booking.cache.dimensione-massima:10000}") long dimensioneMassima,
+                              @Value("${booking.cache.durata:30s}") Duration durata) {
+        this.disponibilita = new CachePerUnita<>(meterRegistry, "disponibilita", dimensioneMassima, durata);
+        this.calendari = new CachePerUnita<>(meterRegistry, "calendario", dimensioneMassima, durata);
+    }
+
+    public boolean disponibilita(Long proprietaId, LocalDate dataInizio, LocalDate dataFine, Supplier<Boolean> calcolo) {
+        return disponibilita.get(new Periodo(proprietaId, dataInizio, dataFine), chiave -> calcolo.get());
+    }
+
+    public List<IntervalloCalendarioDTO> calendario(Long proprietaId, LocalDate dataInizio, LocalDate dataFine, Supplier<List<IntervalloCalendarioDTO>> calcolo) {
+        return calendari.get(new Periodo(proprietaId, dataInizio, dataFine), chiave -> List.copyOf(calcolo.get()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPrenotazioneModificata(PrenotazioneModificataEvent event) {
+        if (event.isBloccavaDate()) {
+            invalida(event.getProprietaId(), event.getVecchiaDataInizio(), event.getVecchiaDataFine());
+        }
+        if (event.isBloccaDate()) {
+            invalida(event.getProprietaId(), event.getNuovaDataInizio(), event.getNuovaDataFine());
+        }
+    }
+
+    private void invalida(Long proprietaId, LocalDate dataInizio, LocalDate dataFine) {
+        disponibilita.invalida(proprietaId, dataInizio, dataFine);
+        calendari.invalida(proprietaId, dataInizio, dataFine);
+    }
+}
@@ -0,0 +1,50 @@
+package com.la_casa_del_rosariello.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.la_casa_del_rosariello.event.PrenotazioneModificataEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Id delle prenotazioni di ciascun ospite, per email normalizzata. Solo gli id: le entità restano legate alla sessione
+// che le ha caricate e vengono rilette (dalla cache di secondo livello) a ogni richiesta.
+// Una scrittura invalida solo la voce dell'ospite attuale e, se l'email è stata modificata, quella dell'email
+// precedente, riportata dall'evento: nessuna scansione delle altre voci.
+@Component
+public class CachePrenotazioniOspite {
+
+    private final Cache<String, List<Long>> prenotazioni;
+
+    public CachePrenotazioniOspite(MeterRegistry meterRegistry,
+                                   @Value("${booking.cache.ospiti.dimensione-massima:10000}") long dimensioneMassima,
+                                   @Value("${booking.cache.ospiti.durata:10m}") Duration durata) {
+        this.prenotazioni = Caffeine.newBuilder()
+                .maximumSize(dimensioneMassima)
+                .expireAfterWrite(durata)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, prenotazioni, "prenotazioni-ospite");
+    }
+
+    public List<Long> prenotazioni(String emailNormalizzata, Supplier<List<Long>> caricamento) {
+        return prenotazioni.get(emailNormalizzata, chiave -> List.copyOf(caricamento.get()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPrenotazioneModificata(PrenotazioneModificataEvent event) {
+        if (event.getEmailOspite() != null) {
+            prenotazioni.invalidate(event.getEmailOspite());
+        }
+        // Creazione (nessuna email precedente) o email invariata: basta la voce attuale
+        if (event.getVecchiaEmailOspite() != null && !event.getVecchiaEmailOspite().equals(event.getEmailOspite())) {
+            prenotazioni.invalidate(event.getVecchiaEmailOspite());
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.CalendarioEsterno;
+import com.la_casa_del_rosariello.entity.NottePrenotata;
+import com.la_casa_del_rosariello.entity.Proprieta;
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import com.la_casa_del_rosariello.entity.TipoEventoPrenotazione;
+import com.la_casa_del_rosariello.event.PrenotazioneModificataEvent;
+import com.la_casa_del_rosariello.exception.BookingConflictException;
+import com.la_casa_del_rosariello.exception.CalendarioEsternoNotFoundException;
+import com.la_casa_del_rosariello.repository.BookingRepository;
+import com.la_casa_del_rosariello.repository.CalendarioEsternoRepository;
+import com.la_casa_del_rosariello.repository.EventoPrenotazioneRepository;
+import com.la_casa_del_rosariello.repository.NottePrenotataRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Sincronizzazione della disponibilità con i portali esterni tramite iCal.
+// Esportazione: le date bloccate di un'unità, generate dalle prenotazioni, con un ETag che cambia a ogni evento
+// del registro dell'unità (i portali che interrogano spesso ricevono quasi sempre un 304).
+// Importazione: gli eventi di un feed esterno diventano blocchi CONFERMATA senza prezzo; un nuovo scaricamento
+// viene confrontato per UID con i blocchi già importati e si scrivono solo le differenze.
+@Service
+@Transactional
+public class CalendarioIcalService {
+
+    // Identificativo dei blocchi nel feed esportato: stabile, senza dati dell'ospite
+    private static final String DOMINIO_UID = "@la-casa-del-rosariello";
+    private static final String RIEPILOGO_ESPORTATO = "Non disponibile";
+    private static final int LUNGHEZZA_MASSIMA = 255;
+    private static final int LUNGHEZZA_MASSIMA_ESITO = 1024;
+
+    public record Versione(String etag, long ultimaModifica) {}
+
+    public record Esito(int creati, int spostati, int cancellati, int invariati, List<String> conflitti) {
+        public String descrizione() {
+            String descrizione = "creati " + creati + ", spostati " + spostati + ", cancellati " + cancellati + ", invariati " + invariati;
+            return conflitti.isEmpty() ? descrizione : descrizione + ", in conflitto " + conflitti.size() + ": " + String.join("; ", conflitti);
+        }
+    }
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private NottePrenotataRepository nottePrenotataRepository;
+
+    @Autowired
+    private CalendarioEsternoRepository calendarioEsternoRepository;
+
+    @Autowired
+    private EventoPrenotazioneRepository eventoPrenotazioneRepository;
+
+    @Autowired
+    private ProprietaService proprietaService;
+
+    @Autowired
+    private GestoreHold gestoreHold;
+
+    @Autowired
+    private RegistroEventi registroEventi;
+
+    @Autowired
+    private LettoreIcal lettoreIcal;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${booking.ical.orizzonte-giorni:730}")
+    private int orizzonteGiorni;
+
+    // --- Esportazione ---
+
+    // Ogni scrittura su una prenotazione dell'unità aggiunge un evento al registro, quindi il numero di eventi
+    // basta come versione; la data entra nell'ETag perché il feed parte da oggi e cambia comunque a ogni giorno.
+    // Due righe lette dall'indice, senza caricare le prenotazioni
+    @Transactional(readOnly = true)
+    public Versione versione(Long proprietaId) {
+        proprietaService.trovaProprieta(proprietaId);
+        LocalDate oggi = LocalDate.now();
+        EventoPrenotazioneRepository.StatoRegistro stato = eventoPrenotazioneRepository.findStatoRegistro(proprietaId);
+        LocalDateTime inizioGiornata = oggi.atStartOfDay();
+        LocalDateTime ultimo = stato.getUltimo() != null && stato.getUltimo().isAfter(inizioGiornata) ? stato.getUltimo() : inizioGiornata;
+        return new Versione("\"" + proprietaId + "-" + stato.getEventi() + "-" + oggi + "\"",
+                ultimo.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    @Transactional(readOnly = true)
+    public String esporta(Long proprietaId, Instant dataGenerazione) {
+        Proprieta proprieta = proprietaService.trovaProprieta(proprietaId);
+        LocalDate oggi = LocalDate.now();
+        List<FormatoIcal.Evento> eventi = bookingRepository.findOverlappingBookingsOrderByDataInizio(proprietaId, oggi, oggi.plusDays(orizzonteGiorni),
+                        BookingService.STATI_BLOCCANTI, LocalDateTime.now()).stream()
+                // I blocchi importati dai portali non tornano ai portali: ognuno li rileggerebbe come prenotazioni di qui
+                .filter(booking -> booking.getCalendarioEsternoId() == null)
+                .map(booking -> new FormatoIcal.Evento("booking-" + booking.getId() + DOMINIO_UID,
+                        booking.getDataInizio(), booking.getDataFine(), RIEPILOGO_ESPORTATO))
+                .collect(Collectors.toList());
+        return FormatoIcal.scrivi(proprieta.getNome(), eventi, dataGenerazione);
+    }
+
+    // --- Calendari esterni ---
+
+    @Transactional(readOnly = true)
+    public List<CalendarioEsterno> elencaCalendari(Long proprietaId) {
+        proprietaService.trovaProprieta(proprietaId);
+        return calendarioEsternoRepository.findByProprietaIdOrderById(proprietaId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CalendarioEsterno> elencaCalendariAttivi() {
+        return calendarioEsternoRepository.findByAttivoTrueOrderById();
+    }
+
+    @Transactional(readOnly = true)
+    public CalendarioEsterno trovaCalendario(Long proprietaId, Long calendarioId) {
+        return calendarioEsternoRepository.findById(calendarioId)
+                .filter(calendario -> calendario.getProprietaId().equals(proprietaId))
+                .orElseThrow(() -> new CalendarioEsternoNotFoundException("Calendario esterno non trovato con ID: " + calendarioId));
+    }
+
+    public CalendarioEsterno creaCalendario(CalendarioEsterno calendario) {
+        proprietaService.trovaProprieta(calendario.getProprietaId());
+        lettoreIcal.verifica(calendario.getUrl());
+        return calendarioEsternoRepository.save(calendario);
+    }
+
+    // Esito di uno scaricamento non andato a buon fine o di un feed invariato (nessun blocco toccato)
+    public void registraEsito(Long calendarioId, String esito) {
+        calendarioEsternoRepository.findById(calendarioId).ifPresent(calendario -> {
+            calendario.setUltimaSincronizzazione(LocalDateTime.now());
+            calendario.setUltimoEsito(tronca(esito, LUNGHEZZA_MASSIMA_ESITO));
+        });
+    }
+
+    // --- Importazione ---
+
+    // Applica un nuovo scaricamento ai blocchi del calendario. Si considerano solo eventi e blocchi che iniziano
+    // da oggi in poi: quelli già iniziati restano come sono. Un blocco il cui UID non compare più viene cancellato,
+    // uno con date diverse viene spostato, un UID nuovo diventa un blocco nuovo. Le date già occupate da altre
+    // prenotazioni non vengono sovrascritte: l'evento viene riportato tra i conflitti (e il vecchio blocco,
+    // ormai superato, viene cancellato)
+    public Esito applica(Long calendarioId, LettoreIcal.Scaricamento scaricamento) {
+        CalendarioEsterno calendario = calendarioEsternoRepository.findById(calendarioId)
+                .orElseThrow(() -> new CalendarioEsternoNotFoundException("Calendario esterno non trovato con ID: " + calendarioId));
+        Long proprietaId = calendario.getProprietaId();
+        LocalDate oggi = LocalDate.now();
+        LocalDate limite = oggi.plusDays(orizzonteGiorni);
+
+        Map<String, FormatoIcal.Evento> eventi = new LinkedHashMap<>();
+        Set<String> giaIniziati = new HashSet<>();
+        for (FormatoIcal.Evento evento : FormatoIcal.leggi(scaricamento.contenuto())) {
+            String uid = tronca(evento.uid());
+            if (evento.dataInizio().isBefore(oggi)) {
+                giaIniziati.add(uid);
+            } else if (evento.dataInizio().isBefore(limite) && !evento.dataFine().isAfter(evento.dataInizio().plusDays(orizzonteGiorni))) {
+                // Oltre l'orizzonte dell'esportazione (o con durate fuori scala) gli eventi non vengono importati
+                eventi.putIfAbsent(uid, evento);
+            }
+        }
+        Map<String, Booking> blocchi = bookingRepository.findByCalendarioEsternoIdAndStatoPrenotazioneIn(calendarioId, BookingService.STATI_BLOCCANTI).stream()
+                .filter(booking -> !booking.getDataInizio().isBefore(oggi))
+                .collect(Collectors.toMap(Booking::getUidEsterno, booking -> booking, (primo, secondo) -> primo));
+
+        List<Booking> daCancellare = new ArrayList<>();
+        List<Booking> daSpostare = new ArrayList<>();
+        List<Booking> daCreare = new ArrayList<>();
+        int invariati = 0;
+        for (Booking blocco : blocchi.values()) {
+            FormatoIcal.Evento evento = eventi.get(blocco.getUidEsterno());
+            if (evento == null) {
+                if (!giaIniziati.contains(blocco.getUidEsterno())) {
+                    daCancellare.add(blocco);
+                }
+            } else if (!evento.dataInizio().equals(blocco.getDataInizio()) || !evento.dataFine().equals(blocco.getDataFine())) {
+                daSpostare.add(blocco);
+            } else {
+                invariati++;
+            }
+        }
+        eventi.forEach((uid, evento) -> {
+            if (!blocchi.containsKey(uid)) {
+                daCreare.add(nuovoBlocco(calendario, uid, evento));
+            }
+        });
+        if (daCancellare.isEmpty() && daSpostare.isEmpty() && daCreare.isEmpty()) {
+            Esito esito = new Esito(0, 0, 0, invariati, List.of());
+            aggiornaCalendario(calendario, scaricamento, esito);
+            return esito;
+        }
+
+        // Date vecchie dei blocchi spostati, per l'evento di modifica
+        Map<Long, LocalDate[]> dateVecchie = daSpostare.stream()
+                .collect(Collectors.toMap(Booking::getId, booking -> new LocalDate[]{booking.getDataInizio(), booking.getDataFine()}));
+        List<String> conflitti = new ArrayList<>();
+        List<Booking> spostati = new ArrayList<>();
+        List<Booking> creati = new ArrayList<>();
+        selezionaSenzaConflitti(proprietaId, eventi, daCancellare, daSpostare, daCreare, spostati, creati, conflitti);
+
+        // Un solo DELETE per le notti di tutti i blocchi toccati, poi le notti nuove in batch JDBC
+        List<Long> toccati = new ArrayList<>();
+        daCancellare.forEach(booking -> toccati.add(booking.getId()));
+        spostati.forEach(booking -> toccati.add(booking.getId()));
+        if (!toccati.isEmpty()) {
+            nottePrenotataRepository.deleteByBookingIdIn(toccati);
+        }
+        for (Booking booking : daCancellare) {
+            booking.setStatoPrenotazione(StatoPrenotazione.CANCELLATA);
+        }
+        for (Booking booking : spostati) {
+            FormatoIcal.Evento evento = eventi.get(booking.getUidEsterno());
+            booking.setDataInizio(evento.dataInizio());
+            booking.setDataFine(evento.dataFine());
+        }
+        bookingRepository.saveAll(creati);
+
+        List<NottePrenotata> notti = new ArrayList<>();
+        for (Booking booking : spostati) {
+            aggiungiNotti(booking, notti);
+        }
+        for (Booking booking : creati) {
+            aggiungiNotti(booking, notti);
+        }
+        nottePrenotataRepository.saveAll(notti);
+        try {
+            nottePrenotataRepository.flush();
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            // Una prenotazione concorrente ha occupato le stesse notti dopo la verifica: riprova il prossimo giro
+            throw new BookingConflictException("Alcune date del calendario " + calendario.getNome() + " sono state prenotate durante la sincronizzazione, riprovare.");
+        }
+
+        // Dopo il flush: gli eventi riportano le versioni appena scritte
+        registroEventi.registra(TipoEventoPrenotazione.CANCELLATA, daCancellare);
+        registroEventi.registra(TipoEventoPrenotazione.MODIFICATA, spostati);
+        registroEventi.registra(TipoEventoPrenotazione.IMPORTATA, creati);
+        for (Booking booking : daCancellare) {
+            eventPublisher.publishEvent(new PrenotazioneModificataEvent(booking.getId(), proprietaId,
+                    booking.getDataInizio(), booking.getDataFine(), null, null, booking.getOspiteEmailNormalizzata(), booking.getOspiteEmailNormalizzata(), null));
+        }
+        for (Booking booking : spostati) {
+            LocalDate[] vecchie = dateVecchie.get(booking.getId());
+            eventPublisher.publishEvent(new PrenotazioneModificataEvent(booking.getId(), proprietaId,
+                    vecchie[0], vecchie[1], booking.getDataInizio(), booking.getDataFine(), booking.getOspiteEmailNormalizzata(),
+                    booking.getOspiteEmailNormalizzata(), null));
+        }
+        for (Booking booking : creati) {
+            eventPublisher.publishEvent(new PrenotazioneModificataEvent(booking.getId(), proprietaId,
+                    null, null, booking.getDataInizio(), booking.getDataFine(), null, booking.getOspiteEmailNormalizzata(), null));
+        }
+
+        Esito esito = new Esito(creati.size(), spostati.size(), daCancellare.size(), invariati, conflitti);
+        aggiornaCalendario(calendario, scaricamento, esito);
+        return esito;
+    }
+
+    // Notti occupate lette con una sola query sull'intervallo dei candidati, escluse quelle dei blocchi che stanno
+    // per essere spostati o cancellati; i candidati si accettano in ordine di data. Uno spostamento rifiutato
+    // finisce tra i blocchi da cancellare
+    private void selezionaSenzaConflitti(Long proprietaId, Map<String, FormatoIcal.Evento> eventi, List<Booking> daCancellare,
+                                         List<Booking> daSpostare, List<Booking> daCreare,
+                                         List<Booking> spostati, List<Booking> creati, List<String> conflitti) {
+        List<Booking> candidati = new ArrayList<>(daCreare);
+        Map<Booking, FormatoIcal.Evento> destinazioni = new LinkedHashMap<>();
+        for (Booking booking : daSpostare) {
+            destinazioni.put(booking, eventi.get(booking.getUidEsterno()));
+            candidati.add(booking);
+        }
+        for (Booking booking : daCreare) {
+            destinazioni.put(booking, eventi.get(booking.getUidEsterno()));
+        }
+        if (candidati.isEmpty()) {
+            return;
+        }
+        candidati.sort(Comparator.comparing((Booking booking) -> destinazioni.get(booking).dataInizio())
+                .thenComparing(booking -> destinazioni.get(booking).dataFine()));
+
+        LocalDate minInizio = destinazioni.values().stream().map(FormatoIcal.Evento::dataInizio).min(Comparator.naturalOrder()).get();
+        LocalDate maxFine = destinazioni.values().stream().map(FormatoIcal.Evento::dataFine).max(Comparator.naturalOrder()).get();
+        // I blocchi temporanei già scaduti non contano come occupati e le loro notti vanno liberate prima del salvataggio
+        gestoreHold.rilasciaScaduti(proprietaId, minInizio, maxFine);
+
+        Set<Long> liberati = new HashSet<>();
+        daCancellare.forEach(booking -> liberati.add(booking.getId()));
+        daSpostare.forEach(booking -> liberati.add(booking.getId()));
+        Set<LocalDate> occupate = nottePrenotataRepository.findByProprietaIdAndNotteGreaterThanEqualAndNotteLessThan(proprietaId, minInizio, maxFine).stream()
+                .filter(notte -> !liberati.contains(notte.getBookingId()))
+                .map(NottePrenotata::getNotte)
+                .collect(Collectors.toCollection(HashSet::new));
+
+        for (Booking booking : candidati) {
+            FormatoIcal.Evento evento = destinazioni.get(booking);
+            if (evento.dataInizio().datesUntil(evento.dataFine()).anyMatch(occupate::contains)) {
+                conflitti.add(booking.getUidEsterno() + " (" + evento.dataInizio() + " - " + evento.dataFine() + ")");
+                if (booking.getId() != null) {
+                    daCancellare.add(booking);
+                }
+                continue;
+            }
+            evento.dataInizio().datesUntil(evento.dataFine()).forEach(occupate::add);
+            (booking.getId() != null ? spostati : creati).add(booking);
+        }
+    }
+
+    // Un blocco non ha un ospite: i campi obbligatori identificano il portale di provenienza.
+    // Prezzi a zero (non è un soggiorno venduto qui): il job di backfill non li ricalcola, e il proiettore li esclude dai report
+    private static Booking nuovoBlocco(CalendarioEsterno calendario, String uid, FormatoIcal.Evento evento) {
+        Booking booking = new Booking();
+        booking.setProprietaId(calendario.getProprietaId());
+        booking.setDataInizio(evento.dataInizio());
+        booking.setDataFine(evento.dataFine());
+        booking.setOspiteNome("Blocco");
+        booking.setOspiteCognome(tronca(calendario.getNome()));
+        booking.setOspiteEmail("ical-" + calendario.getId() + "@calendari.invalid");
+        booking.setNumeroOspiti(1);
+        booking.setStatoPrenotazione(StatoPrenotazione.CONFERMATA);
+        booking.setNote(tronca(evento.descrizione()));
+        booking.setPrezzoNotti(0.0);
+        booking.setScontoDurata(0.0);
+        booking.setPrezzoTotale(0.0);
+        booking.setDataCreazione(LocalDateTime.now());
+        booking.setCalendarioEsternoId(calendario.getId());
+        booking.setUidEsterno(uid);
+        return booking;
+    }
+
+    private static void aggiungiNotti(Booking booking, List<NottePrenotata> notti) {
+        for (LocalDate notte = booking.getDataInizio(); notte.isBefore(booking.getDataFine()); notte = notte.plusDays(1)) {
+            notti.add(new NottePrenotata(booking.getId(), booking.getProprietaId(), notte));
+        }
+    }
+
+    private static void aggiornaCalendario(CalendarioEsterno calendario, LettoreIcal.Scaricamento scaricamento, Esito esito) {
+        calendario.setEtag(scaricamento.etag());
+        calendario.setUltimaModifica(scaricamento.ultimaModifica());
+        calendario.setUltimaSincronizzazione(LocalDateTime.now());
+        calendario.setUltimoEsito(tronca(esito.descrizione(), LUNGHEZZA_MASSIMA_ESITO));
+    }
+
+    private static String tronca(String testo) {
+        return tronca(testo, LUNGHEZZA_MASSIMA);
+    }
+
+    private static String tronca(String testo, int lunghezza) {
+        return testo != null && testo.length() > lunghezza ? testo.substring(0, lunghezza) : testo;
+    }
+}
@@ -0,0 +1,112 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.ProiezionePrenotazione;
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+// Variazioni delle tabelle di lettura accumulate su un blocco di eventi: ogni chiave riceve un solo UPSERT
+// anche quando più eventi del blocco la toccano (es. una prenotazione creata e subito cancellata si annulla qui)
+class DeltaProiezioni {
+
+    record Giorno(Long proprietaId, LocalDate giorno) {}
+
+    record Mese(Long proprietaId, LocalDate mese) {}
+
+    record Arrivo(Long proprietaId, LocalDate giornoArrivo, int fascia) {}
+
+    // Fasce di anticipo tra prenotazione e arrivo, in giorni: 0-6, 7-13, 14-29, 30-59, 60-89, 90-179, 180 e oltre
+    static final int[] FASCE_ANTICIPO = {0, 7, 14, 30, 60, 90, 180};
+
+    static final class Notti {
+        int notti;
+        double ricavo;
+
+        boolean isNulla() {
+            return notti == 0 && Math.abs(ricavo) < 1e-9;
+        }
+    }
+
+    static final class Ospite {
+        int prenotazioni;
+        int confermate;
+        int notti;
+        double spesa;
+
+        boolean isNulla() {
+            return prenotazioni == 0 && confermate == 0 && notti == 0 && Math.abs(spesa) < 1e-9;
+        }
+    }
+
+    // Ordine fisso delle chiavi negli UPSERT: due proiettori concorrenti bloccano le righe nello stesso ordine
+    static final Comparator<Giorno> ORDINE_GIORNI = Comparator.comparing(Giorno::proprietaId).thenComparing(Giorno::giorno);
+    static final Comparator<Mese> ORDINE_MESI = Comparator.comparing(Mese::proprietaId).thenComparing(Mese::mese);
+    static final Comparator<Arrivo> ORDINE_ARRIVI = Comparator.comparing(Arrivo::proprietaId).thenComparing(Arrivo::giornoArrivo)
+            .thenComparingInt(Arrivo::fascia);
+
+    final Map<Giorno, Notti> giorni = new HashMap<>();
+    final Map<Mese, Notti> mesi = new HashMap<>();
+    final Map<String, Ospite> ospiti = new HashMap<>();
+    final Map<Arrivo, Integer> arrivi = new HashMap<>();
+
+    // Prenotazioni fatte dopo l'arrivo (es. registrate a posteriori) finiscono nella prima fascia
+    static int fascia(long giorniAnticipo) {
+        int fascia = FASCE_ANTICIPO[0];
+        for (int limite : FASCE_ANTICIPO) {
+            if (giorniAnticipo >= limite) {
+                fascia = limite;
+            }
+        }
+        return fascia;
+    }
+
+    void togli(ProiezionePrenotazione fotografia) {
+        applica(fotografia, -1);
+    }
+
+    void aggiungi(ProiezionePrenotazione fotografia) {
+        applica(fotografia, 1);
+    }
+
+    // Solo le prenotazioni CONFERMATA sono notti vendute; il prezzo totale è ripartito in parti uguali sulle notti
+    private void applica(ProiezionePrenotazione fotografia, int segno) {
+        if (fotografia.getStatoPrenotazione() == null) {
+            return; // Prenotazione non ancora proiettata: nessun contributo da togliere
+        }
+        boolean venduta = fotografia.getStatoPrenotazione() == StatoPrenotazione.CONFERMATA;
+        int notti = (int) ChronoUnit.DAYS.between(fotografia.getDataInizio(), fotografia.getDataFine());
+        double prezzo = fotografia.getPrezzoTotale() != null ? fotografia.getPrezzoTotale() : 0;
+
+        if (fotografia.getOspiteEmailNormalizzata() != null) {
+            Ospite ospite = ospiti.computeIfAbsent(fotografia.getOspiteEmailNormalizzata(), email -> new Ospite());
+            ospite.prenotazioni += segno;
+            if (venduta) {
+                ospite.confermate += segno;
+                ospite.notti += segno * notti;
+                ospite.spesa += segno * prezzo;
+            }
+        }
+
+        if (!venduta || notti <= 0) {
+            return;
+        }
+        double ricavoNotte = prezzo / notti;
+        Long proprietaId = fotografia.getProprietaId();
+        if (fotografia.getDataPrenotazione() != null) {
+            int fascia = fascia(ChronoUnit.DAYS.between(fotografia.getDataPrenotazione(), fotografia.getDataInizio()));
+            arrivi.merge(new Arrivo(proprietaId, fotografia.getDataInizio(), fascia), segno, Integer::sum);
+        }
+        for (LocalDate notte = fotografia.getDataInizio(); notte.isBefore(fotografia.getDataFine()); notte = notte.plusDays(1)) {
+            Notti giorno = giorni.computeIfAbsent(new Giorno(proprietaId, notte), chiave -> new Notti());
+            giorno.notti += segno;
+            giorno.ricavo += segno * ricavoNotte;
+            Notti mese = mesi.computeIfAbsent(new Mese(proprietaId, notte.withDayOfMonth(1)), chiave -> new Notti());
+            mese.notti += segno;
+            mese.ricavo += segno * ricavoNotte;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.dto.InvalidazioneDisponibilitaDTO;
+import com.la_casa_del_rosariello.event.PrenotazioneModificataEvent;
+import com.la_casa_del_rosariello.exception.FlussoSaturoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Notifiche push (Server-Sent Events) delle date la cui disponibilità è cambiata, al posto del polling
+// di /bookings/disponibilita dal widget di prenotazione. Un'unica distribuzione nel processo:
+// - una connessione inattiva non occupa thread (richiesta asincrona del servlet container), solo l'iscrizione in memoria;
+// - ogni iscritto ha una coda limitata, svuotata da un virtual thread solo quando c'è qualcosa da inviare.
+//   Chi pubblica (il thread della richiesta, dopo il commit) accoda e basta, un client lento non rallenta nessuno;
+// - a coda piena i messaggi in attesa vengono sostituiti da un solo "ricarica": il client rilegge tutto il suo periodo;
+// - un battito periodico tiene aperte le connessioni attraverso i proxy e fa emergere i client spariti;
+// - nessuna ripetizione degli eventi persi: un client che si ricollega (Last-Event-ID) riceve subito un "ricarica".
+@Component
+public class FlussoDisponibilita {
+
+    public static final String EVENTO_INVALIDAZIONE = "invalidazione";
+    public static final String EVENTO_RICARICA = "ricarica";
+
+    // Battito: commento SSE, ignorato dai client
+    private static final Messaggio BATTITO = new Messaggio(null, null);
+
+    private record Messaggio(String nome, InvalidazioneDisponibilitaDTO dati) {}
+
+    private final class Iscrizione {
+        private final SseEmitter emitter;
+        private final Long proprietaId;
+        private final LocalDate dataInizio; // null = tutte le date dell'unità
+        private final LocalDate dataFine;
+        private final Queue<Messaggio> coda;
+        // Richieste di invio non ancora servite: chi la porta da 0 a 1 avvia lo svuotamento, gli altri si accodano
+        private final AtomicInteger daServire = new AtomicInteger();
+        private volatile boolean saturata;
+
+        private Iscrizione(SseEmitter emitter, Long proprietaId, LocalDate dataInizio, LocalDate dataFine) {
+            this.emitter = emitter;
+            this.proprietaId = proprietaId;
+            this.dataInizio = dataInizio;
+            this.dataFine = dataFine;
+            this.coda = new ArrayBlockingQueue<>(dimensioneCoda);
+        }
+
+        private boolean interessa(InvalidazioneDisponibilitaDTO invalidazione) {
+            return proprietaId.equals(invalidazione.getProprietaId())
+                    && (dataInizio == null || (dataInizio.isBefore(invalidazione.getDataFine()) && dataFine.isAfter(invalidazione.getDataInizio())));
+        }
+    }
+
+    private final Map<Long, Iscrizione> iscrizioni = new ConcurrentHashMap<>();
+    // Posti occupati, riservati prima della registrazione: il limite tiene anche con molte iscrizioni simultanee
+    private final AtomicInteger posti = new AtomicInteger();
+    private final AtomicLong prossimoId = new AtomicLong();
+    private final AtomicLong prossimoEvento = new AtomicLong();
+    private final ExecutorService invii = Executors.newVirtualThreadPerTaskExecutor();
+    private final Duration durata;
+    private final int connessioniMassime;
+    private final int dimensioneCoda;
+    private final Counter ricariche;
+    private final Counter disconnessi;
+
+    public FlussoDisponibilita(MeterRegistry meterRegistry,
+                               @Value("${booking.flusso.durata:30m}") Duration durata,
+                               @Value("${booking.flusso.connessioni-massime:10000}") int connessioniMassime,
+                               @Value("${booking.flusso.dimensione-coda:32}") int dimensioneCoda) {
+        this.durata = durata;
+        this.connessioniMassime = connessioniMassime;
+        this.dimensioneCoda = dimensioneCoda;
+        this.ricariche = meterRegistry.counter("booking.flusso.ricariche");
+        this.disconnessi = meterRegistry.counter("booking.flusso.disconnessi");
+        Gauge.builder("booking.flusso.connessioni", iscrizioni, Map::size)
+                .description("Connessioni SSE aperte sulle invalidazioni di disponibilità")
+                .register(meterRegistry);
+    }
+
+    // dataInizio/dataFine facoltative: senza periodo arrivano le invalidazioni di tutte le date dell'unità.
+    // Alla scadenza di durata la connessione si chiude e il client (EventSource) si ricollega da solo.
+    // ricollegamento: il client aveva già un flusso (Last-Event-ID) e può aver perso invalidazioni nel frattempo
+    public SseEmitter iscrivi(Long proprietaId, LocalDate dataInizio, LocalDate dataFine, boolean ricollegamento) {
+        return registra(new SseEmitter(durata.toMillis()), proprietaId, dataInizio, dataFine, ricollegamento);
+    }
+
+    SseEmitter registra(SseEmitter emitter, Long proprietaId, LocalDate dataInizio, LocalDate dataFine, boolean ricollegamento) {
+        if (posti.incrementAndGet() > connessioniMassime) {
+            posti.decrementAndGet();
+            throw new FlussoSaturoException("Troppe connessioni aperte sulle notifiche di disponibilità, riprovare più tardi.");
+        }
+        Long id = prossimoId.incrementAndGet();
+        Iscrizione iscrizione = new Iscrizione(emitter, proprietaId, dataInizio, dataFine);
+        // Gli eventi persi non vengono ripetuti: la prima cosa inviata è la ricarica
+        iscrizione.saturata = ricollegamento;
+        iscrizioni.put(id, iscrizione);
+        emitter.onCompletion(() -> rimuovi(id));
+        emitter.onTimeout(() -> rimuovi(id));
+        emitter.onError(errore -> rimuovi(id));
+        // Un primo battito fa partire subito la risposta (intestazioni incluse) anche attraverso i proxy
+        accoda(id, iscrizione, BATTITO);
+        return emitter;
+    }
+
+    // Libera il posto una sola volta, qualunque sia la via di chiusura (completamento, scadenza, errore di invio)
+    private void rimuovi(Long id) {
+        if (iscrizioni.remove(id) != null) {
+            posti.decrementAndGet();
+        }
+    }
+
+    public int connessioni() {
+        return iscrizioni.size();
+    }
+
+    // Dopo il commit (o subito, fuori transazione): solo le date che bloccavano o bloccano il calendario cambiano la disponibilità
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPrenotazioneModificata(PrenotazioneModificataEvent event) {
+        if (iscrizioni.isEmpty()) {
+            return;
+        }
+        if (event.isBloccavaDate()) {
+            pubblica(new InvalidazioneDisponibilitaDTO(event.getProprietaId(), event.getVecchiaDataInizio(), event.getVecchiaDataFine()));
+        }
+        if (event.isBloccaDate()) {
+            pubblica(new InvalidazioneDisponibilitaDTO(event.getProprietaId(), event.getNuovaDataInizio(), event.getNuovaDataFine()));
+        }
+    }
+
+    void pubblica(InvalidazioneDisponibilitaDTO invalidazione) {
+        Messaggio messaggio = new Messaggio(EVENTO_INVALIDAZIONE, invalidazione);
+        iscrizioni.forEach((id, iscrizione) -> {
+            if (iscrizione.interessa(invalidazione)) {
+                accoda(id, iscrizione, messaggio);
+            }
+        });
+    }
+
+    // Solo alle connessioni senza invii in corso: le altre stanno già scrivendo
+    @Scheduled(fixedRateString = "${booking.flusso.battito:25s}", initialDelayString = "${booking.flusso.battito:25s}")
+    public void battito() {
+        iscrizioni.forEach((id, iscrizione) -> {
+            if (iscrizione.daServire.get() == 0) {
+                accoda(id, iscrizione, BATTITO);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void chiudi() {
+        invii.shutdownNow();
+        iscrizioni.values().forEach(iscrizione -> iscrizione.emitter.complete());
+        iscrizioni.clear();
+    }
+
+    // Mai bloccante: a coda piena si scartano i messaggi in attesa e si segna la connessione come saturata
+    private void accoda(Long id, Iscrizione iscrizione, Messaggio messaggio) {
+        if (!iscrizione.coda.offer(messaggio)) {
+            iscrizione.saturata = true;
+            iscrizione.coda.clear();
+        }
+        if (iscrizione.daServire.getAndIncrement() == 0) {
+            try {
+                invii.execute(() -> svuota(id, iscrizione));
+            } catch (RejectedExecutionException e) {
+                // Arresto dell'applicazione in corso
+            }
+        }
+    }
+
+    // Un solo svuotamento alla volta per connessione: le scritture sullo stesso stream non si sovrappongono.
+    // Gli invii sono I/O bloccante, per questo girano su virtual thread e non su un pool di dimensione fissa
+    private void svuota(Long id, Iscrizione iscrizione) {
+        int richieste = 1;
+        do {
+            try {
+                Messaggio messaggio;
+                do {
+                    // La ricarica sostituisce quanto è rimasto in coda
+                    if (iscrizione.saturata) {
+                        iscrizione.saturata = false;
+                        iscrizione.coda.clear();
+                        ricariche.increment();
+                        invia(iscrizione.emitter, new Messaggio(EVENTO_RICARICA, null));
+                    }
+                    messaggio = iscrizione.coda.poll();
+                    if (messaggio != null) {
+                        invia(iscrizione.emitter, messaggio);
+                    }
+                } while (messaggio != null);
+            } catch (IOException | IllegalStateException e) {
+                // Client disconnesso (o emitter già chiuso): la connessione non riceverà altro
+                disconnessi.increment();
+                rimuovi(id);
+                iscrizione.emitter.completeWithError(e);
+                return;
+            }
+            richieste = iscrizione.daServire.addAndGet(-richieste);
+        } while (richieste != 0);
+    }
+
+    private void invia(SseEmitter emitter, Messaggio messaggio) throws IOException {
+        if (messaggio == BATTITO) {
+            emitter.send(SseEmitter.event().comment("battito"));
+        } else if (messaggio.dati() == null) {
+            emitter.send(SseEmitter.event().id(String.valueOf(prossimoEvento.incrementAndGet())).name(messaggio.nome()).data(""));
+        } else {
+            emitter.send(SseEmitter.event().id(String.valueOf(prossimoEvento.incrementAndGet())).name(messaggio.nome())
+                    .data(messaggio.dati(), MediaType.APPLICATION_JSON));
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.la_casa_del_rosariello.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Il sottoinsieme di iCalendar (RFC 5545) usato dai portali per scambiarsi la disponibilità: eventi VEVENT a giornata
+// intera con UID, DTSTART, DTEND (esclusa), SUMMARY e STATUS. Le proprietà non riconosciute vengono ignorate.
+public final class FormatoIcal {
+
+    public record Evento(String uid, LocalDate dataInizio, LocalDate dataFine, String descrizione) {}
+
+    private static final DateTimeFormatter DATA = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter DATA_ORA = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter ISTANTE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final String FINE_RIGA = "\r\n";
+    // Lunghezza massima di una riga in ottetti, esclusa l'interruzione di riga
+    private static final int LUNGHEZZA_RIGA = 75;
+
+    private FormatoIcal() {}
+
+    // Eventi validi del feed: quelli cancellati, senza DTSTART o con date incoerenti vengono saltati.
+    // DTSTART/DTEND con orario contano per il solo giorno; senza DTEND l'evento dura una notte
+    public static List<Evento> leggi(String contenuto) {
+        return leggi(contenuto, ZoneId.systemDefault());
+    }
+
+    // Un orario in UTC (suffisso Z) o con TZID viene riportato nel fuso indicato (quello delle date delle prenotazioni)
+    // prima di prenderne il giorno; un orario senza fuso ("floating") è già locale e vale il giorno scritto
+    public static List<Evento> leggi(String contenuto, ZoneId zona) {
+        List<Evento> eventi = new ArrayList<>();
+        // Le righe lunghe sono spezzate su più righe che iniziano con uno spazio o una tabulazione
+        String[] righe = contenuto.replaceAll("\r?\n[ \t]", "").split("\r?\n");
+
+        boolean inEvento = false;
+        int annidamento = 0; // Componenti dentro un VEVENT (es. VALARM): le loro proprietà non sono dell'evento
+        String uid = null;
+        String descrizione = null;
+        String stato = null;
+        LocalDate inizio = null;
+        LocalDate fine = null;
+
+        for (String riga : righe) {
+            int duePunti = riga.indexOf(':');
+            if (duePunti < 0) {
+                continue;
+            }
+            String[] intestazione = riga.substring(0, duePunti).split(";");
+            String nome = intestazione[0].trim().toUpperCase(Locale.ROOT);
+            String valore = riga.substring(duePunti + 1).trim();
+
+            if (nome.equals("BEGIN")) {
+                if (inEvento) {
+                    annidamento++;
+                } else if (valore.equalsIgnoreCase("VEVENT")) {
+                    inEvento = true;
+                    uid = descrizione = stato = null;
+                    inizio = fine = null;
+                }
+                continue;
+            }
+            if (!inEvento) {
+                continue;
+            }
+            if (nome.equals("END")) {
+                if (annidamento > 0) {
+                    annidamento--;
+                    continue;
+                }
+                inEvento = false;
+                if (inizio == null || "CANCELLED".equalsIgnoreCase(stato)) {
+                    continue;
+                }
+                LocalDate dataFine = fine != null ? fine : inizio.plusDays(1);
+                if (!dataFine.isAfter(inizio)) {
+                    continue;
+                }
+                // Alcuni portali non indicano l'UID: le date identificano comunque l'evento tra due scaricamenti
+                eventi.add(new Evento(uid != null ? uid : "senza-uid-" + inizio + "-" + dataFine, inizio, dataFine, descrizione));
+                continue;
+            }
+            if (annidamento > 0) {
+                continue;
+            }
+            switch (nome) {
+                case "UID" -> uid = valore;
+                case "SUMMARY" -> descrizione = testo(valore);
+                case "STATUS" -> stato = valore;
+                case "DTSTART" -> inizio = data(valore, fuso(intestazione), zona);
+                case "DTEND" -> fine = data(valore, fuso(intestazione), zona);
+                default -> { }
+            }
+        }
+        return eventi;
+    }
+
+    public static String scrivi(String nomeCalendario, List<Evento> eventi, Instant dataGenerazione) {
+        StringBuilder ics = new StringBuilder(256 + eventi.size() * 192);
+        riga(ics, "BEGIN:VCALENDAR");
+        riga(ics, "VERSION:2.0");
+        riga(ics, "PRODID:-//La Casa del Rosariello//Disponibilita//IT");
+        riga(ics, "CALSCALE:GREGORIAN");
+        riga(ics, "METHOD:PUBLISH");
+        riga(ics, "X-WR-CALNAME:" + escape(nomeCalendario));
+        String dtstamp = ISTANTE.format(dataGenerazione);
+        for (Evento evento : eventi) {
+            riga(ics, "BEGIN:VEVENT");
+            riga(ics, "UID:" + evento.uid());
+            riga(ics, "DTSTAMP:" + dtstamp);
+            riga(ics, "DTSTART;VALUE=DATE:" + DATA.format(evento.dataInizio()));
+            riga(ics, "DTEND;VALUE=DATE:" + DATA.format(evento.dataFine()));
+            riga(ics, "SUMMARY:" + escape(evento.descrizione()));
+            riga(ics, "TRANSP:OPAQUE");
+            riga(ics, "END:VEVENT");
+        }
+        riga(ics, "END:VCALENDAR");
+        return ics.toString();
+    }
+
+    private static LocalDate data(String valore, String tzid, ZoneId zona) {
+        if (valore.length() < 8) {
+            return null;
+        }
+        try {
+            LocalDate giorno = LocalDate.parse(valore.substring(0, 8), DATA);
+            if (valore.length() < 15 || valore.charAt(8) != 'T') {
+                return giorno; // VALUE=DATE
+            }
+            LocalDateTime orario = LocalDateTime.parse(valore.substring(0, 15), DATA_ORA);
+            if (valore.endsWith("Z")) {
+                return orario.atOffset(ZoneOffset.UTC).atZoneSameInstant(zona).toLocalDate();
+            }
+            if (tzid != null) {
+                return orario.atZone(ZoneId.of(tzid)).withZoneSameInstant(zona).toLocalDate();
+            }
+            return giorno;
+        } catch (DateTimeParseException e) {
+            return null;
+        } catch (DateTimeException e) {
+            // TZID non riconosciuto (es. un nome definito solo nel VTIMEZONE del feed): vale il giorno scritto
+            return LocalDate.parse(valore.substring(0, 8), DATA);
+        }
+    }
+
+    // Parametro TZID della proprietà, senza virgolette; null se assente
+    private static String fuso(String[] intestazione) {
+        for (int i = 1; i < intestazione.length; i++) {
+            String parametro = intestazione[i].trim();
+            if (parametro.regionMatches(true, 0, "TZID=", 0, 5)) {
+                return parametro.substring(5).replace("\"", "");
+            }
+        }
+        return null;
+    }
+
+    private static String testo(String valore) {
+        return valore.replace("\\n", " ").replace("\\N", " ").replace("\\,", ",").replace("\\;", ";").replace("\\\\", "\\");
+    }
+
+    private static String escape(String testo) {
+        if (testo == null) {
+            return "";
+        }
+        return testo.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,").replace("\r", "").replace("\n", "\\n");
+    }
+
+    // Piega le righe oltre i 75 ottetti senza spezzare un carattere UTF-8
+    private static void riga(StringBuilder ics, String riga) {
+        int ottetti = 0;
+        for (int i = 0; i < riga.length(); i++) {
+            char c = riga.charAt(i);
+            int lunghezza = Character.isHighSurrogate(c) ? 4 : String.valueOf(c).getBytes(StandardCharsets.UTF_8).length;
+            if (ottetti + lunghezza > LUNGHEZZA_RIGA) {
+                ics.append(FINE_RIGA).append(' ');
+                ottetti = 1;
+            }
+            ics.append(c);
+            if (Character.isHighSurrogate(c) && i + 1 < riga.length()) {
+                ics.append(riga.charAt(++i));
+            }
+            ottetti += lunghezza;
+        }
+        ics.append(FINE_RIGA);
+    }
+}
@@ -0,0 +1,142 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import com.la_casa_del_rosariello.entity.TipoEventoPrenotazione;
+import com.la_casa_del_rosariello.event.PrenotazioneModificataEvent;
+import com.la_casa_del_rosariello.repository.BookingRepository;
+import com.la_casa_del_rosariello.repository.NottePrenotataRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Blocchi temporanei: una prenotazione PENDENTE trattiene le date fino a scadenzaHold, poi passa a SCADUTA
+// e le sue notti tornano libere. La chiusura avviene nel job periodico, a blocchi, oppure subito quando una nuova
+// prenotazione deve occupare notti ancora rivendicate da un blocco già scaduto.
+@Component
+public class GestoreHold {
+
+    private static final Logger logger = LoggerFactory.getLogger(GestoreHold.class);
+
+    private final BookingRepository bookingRepository;
+    private final NottePrenotataRepository nottePrenotataRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RegistroEventi registroEventi;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration durata;
+    private final int dimensioneBlocco;
+    private final Counter scadutiPulizia;
+    private final Counter scadutiRichiesta;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public GestoreHold(BookingRepository bookingRepository,
+                       NottePrenotataRepository nottePrenotataRepository,
+                       ApplicationEventPublisher eventPublisher,
+                       RegistroEventi registroEventi,
+                       PlatformTransactionManager transactionManager,
+                       IndiceOccupazione indiceOccupazione,
+                       MeterRegistry meterRegistry,
+                       @Value("${booking.hold.durata:30m}") Duration durata,
+                       @Value("${booking.hold.blocco-pulizia:200}") int dimensioneBlocco) {
+        this.bookingRepository = bookingRepository;
+        this.nottePrenotataRepository = nottePrenotataRepository;
+        this.eventPublisher = eventPublisher;
+        this.registroEventi = registroEventi;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.durata = durata;
+        this.dimensioneBlocco = dimensioneBlocco;
+        this.scadutiPulizia = meterRegistry.counter("booking.hold.scaduti", "origine", "pulizia");
+        this.scadutiRichiesta = meterRegistry.counter("booking.hold.scaduti", "origine", "richiesta");
+        Gauge.builder("booking.hold.notti", indiceOccupazione, IndiceOccupazione::nottiInHold)
+                .description("Notti trattenute da prenotazioni PENDENTE non ancora scadute")
+                .register(meterRegistry);
+    }
+
+    public LocalDateTime nuovaScadenza() {
+        return LocalDateTime.now().plus(durata);
+    }
+
+    // Nella transazione del chiamante, prima di occupare le notti [dataInizio, dataFine) dell'unità
+    @Transactional
+    public void rilasciaScaduti(Long proprietaId, LocalDate dataInizio, LocalDate dataFine) {
+        List<Booking> scaduti = bookingRepository.findHoldScadutiSovrapposti(proprietaId, dataInizio, dataFine, StatoPrenotazione.PENDENTE, LocalDateTime.now());
+        scadi(scaduti);
+        scadutiRichiesta.increment(scaduti.size());
+    }
+
+    // Nella transazione del chiamante, per una prenotazione già caricata (es. prima di modificarla): qui l'entità
+    // viene aggiornata in memoria, perché il chiamante continua a modificarla e la salva con il controllo di @Version
+    @Transactional
+    public void rilascia(Booking booking) {
+        nottePrenotataRepository.deleteByBookingId(booking.getId());
+        booking.setStatoPrenotazione(StatoPrenotazione.SCADUTA);
+        booking.setScadenzaHold(null);
+        bookingRepository.flush();
+        pubblicaScadenza(booking);
+        registroEventi.registra(TipoEventoPrenotazione.SCADUTA, booking);
+        scadutiRichiesta.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${booking.hold.intervallo-pulizia:60s}", initialDelayString = "${booking.hold.intervallo-pulizia:60s}")
+    public void pulisci() {
+        int totale = 0;
+        int chiusi;
+        do {
+            chiusi = transactionTemplate.execute(status -> {
+                List<Booking> blocco = bookingRepository.findHoldScaduti(StatoPrenotazione.PENDENTE, LocalDateTime.now(), Limit.of(dimensioneBlocco));
+                scadi(blocco);
+                return blocco.size();
+            });
+            totale += chiusi;
+        } while (chiusi == dimensioneBlocco);
+
+        if (totale > 0) {
+            scadutiPulizia.increment(totale);
+            logger.info("Pulizia blocchi temporanei: {} prenotazioni PENDENTE scadute", totale);
+        }
+    }
+
+    // Le righe sono già bloccate (FOR UPDATE) dalla query che le ha lette: un solo DELETE per le notti e un solo UPDATE
+    // per le prenotazioni del blocco, che incrementa la versione (una conferma partita dalla versione PENDENTE fallisce
+    // al commit). Le entità lette diventano obsolete con l'UPDATE: vengono staccate e rilette con una sola query,
+    // per registrare gli eventi SCADUTA con le versioni appena scritte.
+    // L'UPDATE massivo invalida la regione Booking della cache di secondo livello: costa solo quando ci sono blocchi scaduti
+    private void scadi(List<Booking> scaduti) {
+        if (scaduti.isEmpty()) {
+            return;
+        }
+        List<Long> ids = scaduti.stream().map(Booking::getId).collect(Collectors.toList());
+        scaduti.forEach(entityManager::detach);
+        nottePrenotataRepository.deleteByBookingIdIn(ids);
+        bookingRepository.scadiHold(ids, StatoPrenotazione.PENDENTE, StatoPrenotazione.SCADUTA);
+
+        List<Booking> aggiornati = bookingRepository.findAllById(ids);
+        aggiornati.forEach(this::pubblicaScadenza);
+        registroEventi.registra(TipoEventoPrenotazione.SCADUTA, aggiornati);
+    }
+
+    private void pubblicaScadenza(Booking booking) {
+        eventPublisher.publishEvent(new PrenotazioneModificataEvent(booking.getId(), booking.getProprietaId(),
+                booking.getDataInizio(), booking.getDataFine(), null, null, booking.getOspiteEmailNormalizzata(), booking.getOspiteEmailNormalizzata(), null));
+    }
+}
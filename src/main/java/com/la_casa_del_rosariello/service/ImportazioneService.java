@@ -0,0 +1,228 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.dto.BookingRequestDTO;
+import com.la_casa_del_rosariello.dto.ImportazioneResponseDTO;
+import com.la_casa_del_rosariello.dto.IntervalloCalendarioDTO;
+import com.la_casa_del_rosariello.dto.RigaScartataDTO;
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.NottePrenotata;
+import com.la_casa_del_rosariello.entity.Proprieta;
+import com.la_casa_del_rosariello.entity.TipoEventoPrenotazione;
+import com.la_casa_del_rosariello.event.PrenotazioneModificataEvent;
+import com.la_casa_del_rosariello.exception.BookingConflictException;
+import com.la_casa_del_rosariello.repository.BookingRepository;
+import com.la_casa_del_rosariello.repository.NottePrenotataRepository;
+import com.la_casa_del_rosariello.service.LettoreImportazione.RigaImportazione;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Importazione massiva di prenotazioni (channel manager, fogli di calcolo storici).
+// Il lotto viene validato in memoria, i conflitti si trovano con un'unica passata sulle righe ordinate per data
+// confrontate con le prenotazioni esistenti lette con una sola query per unità, e il salvataggio usa i batch JDBC.
+@Service
+@Transactional
+public class ImportazioneService {
+
+    // Allineato a hibernate.jdbc.batch_size
+    private static final int DIMENSIONE_BLOCCO = 50;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private NottePrenotataRepository nottePrenotataRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private GestoreHold gestoreHold;
+
+    @Autowired
+    private ProprietaService proprietaService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RegistroEventi registroEventi;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ImportazioneResponseDTO importa(List<RigaImportazione> righe) {
+        List<RigaScartataDTO> scartate = new ArrayList<>();
+        List<RigaImportazione> bloccanti = new ArrayList<>();
+        List<RigaImportazione> accettate = new ArrayList<>();
+        Map<Long, Proprieta> unita = proprietaService.elencaProprieta().stream()
+                .collect(Collectors.toMap(Proprieta::getId, Function.identity()));
+
+        for (RigaImportazione riga : righe) {
+            String errore = riga.getErrore() != null ? riga.getErrore() : valida(riga.getRichiesta(), unita);
+            if (errore != null) {
+                scartate.add(new RigaScartataDTO(riga.getNumero(), errore));
+            } else if (BookingService.STATI_BLOCCANTI.contains(riga.getRichiesta().getStatoPrenotazione())) {
+                bloccanti.add(riga);
+            } else {
+                accettate.add(riga); // Le righe CANCELLATA non occupano date
+            }
+        }
+
+        // Unità diverse hanno calendari indipendenti: la ricerca dei conflitti si fa separatamente per ciascuna
+        Map<Long, List<RigaImportazione>> bloccantiPerUnita = bloccanti.stream()
+                .collect(Collectors.groupingBy(riga -> proprietaDi(riga.getRichiesta()), TreeMap::new, Collectors.toList()));
+        bloccantiPerUnita.forEach((proprietaId, righeUnita) -> accettate.addAll(selezionaSenzaConflitti(proprietaId, righeUnita, scartate)));
+        List<Long> idCreati = salva(accettate);
+
+        scartate.sort(Comparator.comparingInt(RigaScartataDTO::getRiga));
+        return new ImportazioneResponseDTO(righe.size(), idCreati, scartate);
+    }
+
+    // Sweep-line: righe ordinate per dataInizio, confrontate con gli intervalli già occupati (fusi e ordinati)
+    // e con la fine dell'ultima riga accettata. Ogni riga e ogni intervallo vengono visitati una sola volta.
+    private List<RigaImportazione> selezionaSenzaConflitti(Long proprietaId, List<RigaImportazione> bloccanti, List<RigaScartataDTO> scartate) {
+        List<RigaImportazione> accettate = new ArrayList<>();
+        if (bloccanti.isEmpty()) {
+            return accettate;
+        }
+        bloccanti.sort(Comparator.comparing((RigaImportazione r) -> r.getRichiesta().getDataInizio())
+                .thenComparingInt(RigaImportazione::getNumero));
+
+        LocalDate minInizio = bloccanti.get(0).getRichiesta().getDataInizio();
+        LocalDate maxFine = bloccanti.stream().map(r -> r.getRichiesta().getDataFine()).max(Comparator.naturalOrder()).get();
+        // I blocchi temporanei già scaduti non contano come occupati e le loro notti vanno liberate prima del salvataggio
+        gestoreHold.rilasciaScaduti(proprietaId, minInizio, maxFine);
+        List<IntervalloCalendarioDTO> occupati = bookingService.calcolaCalendario(proprietaId, minInizio, maxFine).stream()
+                .filter(IntervalloCalendarioDTO::isOccupato)
+                .collect(Collectors.toList());
+
+        int p = 0;
+        LocalDate fineUltimaAccettata = LocalDate.MIN;
+        for (RigaImportazione riga : bloccanti) {
+            BookingRequestDTO richiesta = riga.getRichiesta();
+            while (p < occupati.size() && !occupati.get(p).getDataFine().isAfter(richiesta.getDataInizio())) {
+                p++;
+            }
+            if (p < occupati.size() && occupati.get(p).getDataInizio().isBefore(richiesta.getDataFine())) {
+                scartate.add(new RigaScartataDTO(riga.getNumero(), "Le date " + richiesta.getDataInizio() + " - " + richiesta.getDataFine() + " sono già occupate da un'altra prenotazione."));
+                continue;
+            }
+            if (fineUltimaAccettata.isAfter(richiesta.getDataInizio())) {
+                scartate.add(new RigaScartataDTO(riga.getNumero(), "Le date " + richiesta.getDataInizio() + " - " + richiesta.getDataFine() + " si sovrappongono a un'altra riga del lotto."));
+                continue;
+            }
+            fineUltimaAccettata = richiesta.getDataFine();
+            accettate.add(riga);
+        }
+        return accettate;
+    }
+
+    private List<Long> salva(List<RigaImportazione> accettate) {
+        List<Long> idCreati = new ArrayList<>(accettate.size());
+        List<PrenotazioneModificataEvent> eventi = new ArrayList<>();
+
+        for (int i = 0; i < accettate.size(); i += DIMENSIONE_BLOCCO) {
+            List<Booking> blocco = accettate.subList(i, Math.min(i + DIMENSIONE_BLOCCO, accettate.size())).stream()
+                    .map(riga -> daRichiesta(riga.getRichiesta()))
+                    .collect(Collectors.toList());
+            bookingRepository.saveAll(blocco);
+
+            List<NottePrenotata> notti = new ArrayList<>();
+            for (Booking booking : blocco) {
+                if (!BookingService.STATI_BLOCCANTI.contains(booking.getStatoPrenotazione())) {
+                    // Non blocca il calendario, ma compare comunque tra le prenotazioni dell'ospite
+                    eventi.add(new PrenotazioneModificataEvent(booking.getId(), booking.getProprietaId(), null, null, null, null,
+                            null, booking.getOspiteEmailNormalizzata(), null));
+                    continue;
+                }
+                for (LocalDate notte = booking.getDataInizio(); notte.isBefore(booking.getDataFine()); notte = notte.plusDays(1)) {
+                    notti.add(new NottePrenotata(booking.getId(), booking.getProprietaId(), notte));
+                }
+                eventi.add(new PrenotazioneModificataEvent(booking.getId(), booking.getProprietaId(), null, null, booking.getDataInizio(), booking.getDataFine(),
+                        null, booking.getOspiteEmailNormalizzata(), booking.getScadenzaHold()));
+            }
+            nottePrenotataRepository.saveAll(notti);
+            // Le prenotazioni nuove hanno già la versione iniziale: gli eventi partono nello stesso flush delle notti
+            registroEventi.registra(TipoEventoPrenotazione.IMPORTATA, blocco);
+
+            try {
+                nottePrenotataRepository.flush();
+            } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+                // Un'altra richiesta ha occupato le stesse notti dopo la verifica: il lotto viene annullato per intero
+                throw new BookingConflictException("Alcune date del lotto sono state prenotate durante l'importazione, riprovare.");
+            }
+            // Il contesto di persistenza non cresce con la dimensione del lotto
+            entityManager.clear();
+            blocco.forEach(booking -> idCreati.add(booking.getId()));
+        }
+
+        eventi.forEach(eventPublisher::publishEvent);
+        return idCreati;
+    }
+
+    // Solo il gruppo Default: senza BookingRequestDTO.DateFuture si importano anche i soggiorni passati
+    private String valida(BookingRequestDTO richiesta, Map<Long, Proprieta> unita) {
+        Set<ConstraintViolation<BookingRequestDTO>> violazioni = validator.validate(richiesta);
+        if (!violazioni.isEmpty()) {
+            return violazioni.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (!richiesta.getDataFine().isAfter(richiesta.getDataInizio())) {
+            return "La data di fine vacanza deve essere successiva alla data di inizio!";
+        }
+        Proprieta proprieta = unita.get(proprietaDi(richiesta));
+        if (proprieta == null) {
+            return "Unità non trovata con ID: " + proprietaDi(richiesta);
+        }
+        if (richiesta.getNumeroOspiti() > proprieta.getCapienza()) {
+            return "Il numero massimo di ospiti per " + proprieta.getNome() + " è " + proprieta.getCapienza() + "!";
+        }
+        return null;
+    }
+
+    private static Long proprietaDi(BookingRequestDTO richiesta) {
+        return richiesta.getProprietaId() != null ? richiesta.getProprietaId() : Proprieta.PREDEFINITA;
+    }
+
+    private Booking daRichiesta(BookingRequestDTO richiesta) {
+        Booking booking = new Booking();
+        booking.setProprietaId(proprietaDi(richiesta));
+        booking.setDataInizio(richiesta.getDataInizio());
+        booking.setDataFine(richiesta.getDataFine());
+        booking.setOspiteNome(richiesta.getNomeOspite());
+        booking.setOspiteCognome(richiesta.getCognomeOspite());
+        booking.setOspiteEmail(richiesta.getEmailOspite());
+        booking.setNumeroOspiti(richiesta.getNumeroOspiti());
+        booking.setNote(richiesta.getNote());
+        // Nessun blocco temporaneo: una PENDENTE importata (es. in attesa di caparra nel foglio) non è un checkout
+        // in corso e resta tale, senza scadenza, finché non viene confermata o cancellata
+        booking.setStatoPrenotazione(richiesta.getStatoPrenotazione());
+        // Registrate a posteriori: il giorno in cui sono state fatte non è noto, non il momento dell'importazione
+        booking.setDataCreazioneNonNota(true);
+        bookingService.applicaPreventivo(booking);
+        return booking;
+    }
+}
@@ -0,0 +1,232 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import com.la_casa_del_rosariello.event.PrenotazioneModificataEvent;
+import com.la_casa_del_rosariello.repository.BookingRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Indice in memoria dell'occupazione del calendario: per ogni unità un contatore per notte, indicizzato per epoch day,
+// che copre una finestra di qualche anno a partire dal giorno di avvio.
+// Le verifiche di disponibilità dentro la finestra non toccano il database; fuori finestra si ricade sulla query.
+// La finestra non scorre: ogni giorno di attività dell'istanza toglie un giorno di futuro coperto e le verifiche
+// oltre la fine tornano alla query. Il gauge booking.occupazione.orizzonte (giorni coperti da oggi) dice quando
+// serve un riavvio; l'estensione a caldo non è fatta perché, come il ricaricamento, conterebbe due volte le
+// prenotazioni scritte durante la lettura del nuovo tratto.
+// I blocchi temporanei (PENDENTE con scadenza) sono tenuti a parte con la loro scadenza: smettono di occupare
+// le date appena scadono, senza attendere il job di pulizia.
+// Ogni unità ha la sua partizione con il proprio lock: verifiche e scritture su unità diverse non si contendono nulla.
+@Component
+public class IndiceOccupazione {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceOccupazione.class);
+
+    private final BookingRepository bookingRepository;
+    private final int anniCoperti;
+
+    private record Hold(long da, long a, LocalDateTime scadenza) {
+        boolean attivoSu(long inizio, long fine, LocalDateTime adesso) {
+            return scadenza.isAfter(adesso) && da < fine && a > inizio;
+        }
+    }
+
+    // Calendario di una singola unità
+    private static final class Partizione {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        // notti[i] = numero di prenotazioni bloccanti sulla notte (epochDayIniziale + i)
+        private final int[] notti;
+        // Blocchi temporanei per id prenotazione: pochi alla volta, non contati in notti[]
+        private final Map<Long, Hold> hold = new HashMap<>();
+
+        private Partizione(int giorni) {
+            this.notti = new int[giorni];
+        }
+    }
+
+    // Sostituita per intero ad ogni caricamento; una unità senza prenotazioni bloccanti non ha partizione
+    private volatile Map<Long, Partizione> partizioni = new ConcurrentHashMap<>();
+    private volatile long epochDayIniziale;
+    private volatile int giorni;
+    private volatile boolean caricato = false;
+    // Un caricamento alla volta. Non synchronized: il caricamento legge dal database e un monitor tenuto durante l'I/O
+    // aggancerebbe il virtual thread al carrier
+    private final ReentrantLock caricamento = new ReentrantLock();
+
+    public IndiceOccupazione(BookingRepository bookingRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${booking.occupazione.anni:3}") int anniCoperti) {
+        this.bookingRepository = bookingRepository;
+        this.anniCoperti = anniCoperti;
+        Gauge.builder("booking.occupazione.orizzonte", this, IndiceOccupazione::giorniCopertiDaOggi)
+                .description("Giorni da oggi coperti dall'indice di occupazione; oltre si interroga il database")
+                .baseUnit("days")
+                .register(meterRegistry);
+    }
+
+    // Da chiamare solo prima che l'applicazione riceva scritture: all'avvio e, nei benchmark, subito dopo aver popolato
+    // il database via JDBC. Durante il caricamento l'indice non risponde (si ricade sulla query) e gli eventi di modifica
+    // vengono ignorati: non potendo sapere se la lettura li ha già visti, riapplicarli conterebbe due volte le stesse notti.
+    // Per riallineare l'indice con il traffico in corso serve un riavvio dell'istanza
+    @PostConstruct
+    public void carica() {
+        caricamento.lock();
+        try {
+            LocalDate oggi = LocalDate.now();
+            long inizio = oggi.toEpochDay();
+            int giorniCoperti = (int) (oggi.plusYears(anniCoperti).toEpochDay() - inizio);
+
+            caricato = false;
+            epochDayIniziale = inizio;
+            giorni = giorniCoperti;
+            Map<Long, Partizione> nuove = new ConcurrentHashMap<>();
+            int caricate = 0;
+            for (StatoPrenotazione stato : BookingService.STATI_BLOCCANTI) {
+                for (Booking booking : bookingRepository.findByStatoPrenotazione(stato)) {
+                    Partizione partizione = nuove.computeIfAbsent(booking.getProprietaId(), id -> new Partizione(giorniCoperti));
+                    aggiungi(partizione, booking.getId(), booking.getDataInizio(), booking.getDataFine(),
+                            stato == StatoPrenotazione.PENDENTE ? booking.getScadenzaHold() : null);
+                    caricate++;
+                }
+            }
+            partizioni = nuove;
+            caricato = true;
+            logger.info("Indice occupazione caricato: {} prenotazioni bloccanti su {} unità, {} giorni a partire da {}",
+                    caricate, nuove.size(), giorniCoperti, oggi);
+        } finally {
+            caricamento.unlock();
+        }
+    }
+
+    // Vero se l'intervallo di notti [dataInizio, dataFine) cade interamente nella finestra dell'indice
+    public boolean isCoperto(LocalDate dataInizio, LocalDate dataFine) {
+        if (!caricato) {
+            return false;
+        }
+        return dataInizio.toEpochDay() >= epochDayIniziale
+                && dataFine.toEpochDay() <= epochDayIniziale + giorni;
+    }
+
+    // Notti future ancora dentro la finestra (0 prima del caricamento)
+    public long giorniCopertiDaOggi() {
+        if (!caricato) {
+            return 0;
+        }
+        return Math.max(0, epochDayIniziale + giorni - LocalDate.now().toEpochDay());
+    }
+
+    public boolean isLibero(Long proprietaId, LocalDate dataInizio, LocalDate dataFine) {
+        return isLiberoEscludendo(proprietaId, dataInizio, dataFine, null, null, null);
+    }
+
+    // Come isLibero, ma ignora la prenotazione esclusaId, che occupa [esclusaInizio, esclusaFine) nella stessa unità
+    // (usato quando si modifica una prenotazione che blocca già il calendario)
+    public boolean isLiberoEscludendo(Long proprietaId, LocalDate dataInizio, LocalDate dataFine,
+                                      Long esclusaId, LocalDate esclusaInizio, LocalDate esclusaFine) {
+        Partizione partizione = partizioni.get(proprietaId);
+        if (partizione == null) {
+            return true;
+        }
+        long da = dataInizio.toEpochDay();
+        long a = dataFine.toEpochDay();
+        LocalDateTime adesso = LocalDateTime.now();
+
+        partizione.lock.readLock().lock();
+        try {
+            // Se l'esclusa è un blocco temporaneo le sue notti non sono nei contatori
+            boolean esclusaContata = esclusaId == null || !partizione.hold.containsKey(esclusaId);
+            long exDa = esclusaContata && esclusaInizio != null ? esclusaInizio.toEpochDay() : Long.MAX_VALUE;
+            long exA = esclusaContata && esclusaFine != null ? esclusaFine.toEpochDay() : Long.MIN_VALUE;
+
+            for (long giorno = da; giorno < a; giorno++) {
+                int occupate = partizione.notti[(int) (giorno - epochDayIniziale)];
+                if (giorno >= exDa && giorno < exA) {
+                    occupate--;
+                }
+                if (occupate > 0) {
+                    return false;
+                }
+            }
+            for (Map.Entry<Long, Hold> voce : partizione.hold.entrySet()) {
+                if (!voce.getKey().equals(esclusaId) && voce.getValue().attivoSu(da, a, adesso)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            partizione.lock.readLock().unlock();
+        }
+    }
+
+    // Notti trattenute da blocchi temporanei non ancora scaduti, su tutte le unità (metrica)
+    public long nottiInHold() {
+        LocalDateTime adesso = LocalDateTime.now();
+        long totale = 0;
+        for (Partizione partizione : partizioni.values()) {
+            partizione.lock.readLock().lock();
+            try {
+                totale += partizione.hold.values().stream()
+                        .filter(h -> h.scadenza().isAfter(adesso))
+                        .mapToLong(h -> h.a() - h.da())
+                        .sum();
+            } finally {
+                partizione.lock.readLock().unlock();
+            }
+        }
+        return totale;
+    }
+
+    // Aggiornato solo dopo il commit, così l'indice rispecchia sempre dati persistiti
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPrenotazioneModificata(PrenotazioneModificataEvent event) {
+        if (!caricato || (!event.isBloccavaDate() && !event.isBloccaDate())) {
+            return;
+        }
+        int giorniCoperti = giorni;
+        Partizione partizione = partizioni.computeIfAbsent(event.getProprietaId(), id -> new Partizione(giorniCoperti));
+        partizione.lock.writeLock().lock();
+        try {
+            if (event.isBloccavaDate() && partizione.hold.remove(event.getBookingId()) == null) {
+                modifica(partizione, event.getVecchiaDataInizio(), event.getVecchiaDataFine(), -1);
+            }
+            if (event.isBloccaDate()) {
+                aggiungi(partizione, event.getBookingId(), event.getNuovaDataInizio(), event.getNuovaDataFine(), event.getScadenzaHold());
+            }
+        } finally {
+            partizione.lock.writeLock().unlock();
+        }
+    }
+
+    // Da chiamare con il write lock della partizione acquisito (o su una partizione non ancora pubblicata)
+    private void aggiungi(Partizione partizione, Long bookingId, LocalDate dataInizio, LocalDate dataFine, LocalDateTime scadenzaHold) {
+        if (scadenzaHold != null) {
+            partizione.hold.put(bookingId, new Hold(dataInizio.toEpochDay(), dataFine.toEpochDay(), scadenzaHold));
+        } else {
+            modifica(partizione, dataInizio, dataFine, 1);
+        }
+    }
+
+    // Come aggiungi; le notti fuori finestra vengono ignorate
+    private void modifica(Partizione partizione, LocalDate dataInizio, LocalDate dataFine, int delta) {
+        long da = Math.max(dataInizio.toEpochDay(), epochDayIniziale);
+        long a = Math.min(dataFine.toEpochDay(), epochDayIniziale + partizione.notti.length);
+        for (long giorno = da; giorno < a; giorno++) {
+            int i = (int) (giorno - epochDayIniziale);
+            partizione.notti[i] = Math.max(0, partizione.notti[i] + delta);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.exception.InvalidCalendarioUrlException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+// Scarica i feed iCal dei portali esterni. Le richieste HTTP sono condizionali (If-None-Match / If-Modified-Since
+// con i validatori dell'ultimo scaricamento): un feed invariato costa una risposta 304 senza corpo.
+// Gli URL file: sono ammessi solo dentro booking.ical.cartella (vuota = sorgenti locali disabilitate);
+// per un file il validatore è la data di modifica.
+// L'URL è scelto da chi configura il calendario: gli host che risolvono su indirizzi interni (loopback, link-local,
+// reti private) sono rifiutati, anche come destinazione di un reindirizzamento, e il corpo ha una dimensione massima.
+@Component
+public class LettoreIcal {
+
+    public record Scaricamento(String contenuto, String etag, String ultimaModifica) {}
+
+    private static final Set<Integer> REINDIRIZZAMENTI = Set.of(301, 302, 303, 307, 308);
+    private static final int REINDIRIZZAMENTI_MASSIMI = 5;
+
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final Path cartella;
+    private final long dimensioneMassima;
+    private final boolean indirizziInterni;
+
+    public LettoreIcal(@Value("${booking.ical.timeout:10s}") Duration timeout,
+                       @Value("${booking.ical.cartella:}") String cartella,
+                       @Value("${booking.ical.dimensione-massima:5MB}") DataSize dimensioneMassima,
+                       @Value("${booking.ical.indirizzi-interni:false}") boolean indirizziInterni) {
+        this.timeout = timeout;
+        this.cartella = cartella.isBlank() ? null : Path.of(cartella).toAbsolutePath().normalize();
+        this.dimensioneMassima = dimensioneMassima.toBytes();
+        this.indirizziInterni = indirizziInterni;
+        // I reindirizzamenti sono seguiti a mano, per verificare ogni destinazione
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    // Rifiuta gli schemi non supportati, gli host interni e i file fuori dalla cartella configurata
+    public void verifica(String url) {
+        URI uri = uri(url);
+        String schema = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "";
+        switch (schema) {
+            case "http", "https" -> verificaHost(uri);
+            case "file" -> percorso(uri);
+            default -> throw new InvalidCalendarioUrlException("Sono ammessi solo URL http, https o file: " + url);
+        }
+    }
+
+    // null se il calendario non è cambiato rispetto ai validatori indicati
+    public Scaricamento scarica(String url, String etag, String ultimaModifica) throws IOException, InterruptedException {
+        URI uri = uri(url);
+        if ("file".equalsIgnoreCase(uri.getScheme())) {
+            return leggiFile(percorso(uri), ultimaModifica);
+        }
+
+        URI destinazione = uri;
+        for (int salti = 0; ; salti++) {
+            URI attuale = destinazione;
+            verificaHost(attuale);
+            HttpResponse<String> risposta = httpClient.send(richiesta(attuale, etag, ultimaModifica), informazioni -> new CorpoLimitato(dimensioneMassima));
+            if (REINDIRIZZAMENTI.contains(risposta.statusCode())) {
+                if (salti >= REINDIRIZZAMENTI_MASSIMI) {
+                    throw new IOException("Troppi reindirizzamenti da " + uri.getHost());
+                }
+                String posizione = risposta.headers().firstValue(HttpHeaders.LOCATION)
+                        .orElseThrow(() -> new IOException("Reindirizzamento senza Location da " + attuale.getHost()));
+                destinazione = reindirizzamento(attuale, posizione);
+                continue;
+            }
+            if (risposta.statusCode() == 304) {
+                return null;
+            }
+            if (risposta.statusCode() != 200) {
+                throw new IOException("Risposta HTTP " + risposta.statusCode() + " da " + attuale.getHost());
+            }
+            return new Scaricamento(risposta.body(),
+                    risposta.headers().firstValue(HttpHeaders.ETAG).orElse(null),
+                    risposta.headers().firstValue(HttpHeaders.LAST_MODIFIED).orElse(null));
+        }
+    }
+
+    private HttpRequest richiesta(URI uri, String etag, String ultimaModifica) {
+        HttpRequest.Builder richiesta = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header(HttpHeaders.ACCEPT, "text/calendar, */*;q=0.5")
+                .GET();
+        if (etag != null) {
+            richiesta.header(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        if (ultimaModifica != null) {
+            richiesta.header(HttpHeaders.IF_MODIFIED_SINCE, ultimaModifica);
+        }
+        return richiesta.build();
+    }
+
+    // Come Redirect.NORMAL: solo http/https e mai da https a http
+    private static URI reindirizzamento(URI origine, String posizione) throws IOException {
+        URI destinazione;
+        try {
+            destinazione = origine.resolve(new URI(posizione.trim()));
+        } catch (URISyntaxException e) {
+            throw new IOException("Reindirizzamento non valido da " + origine.getHost() + ": " + posizione);
+        }
+        String schema = destinazione.getScheme() != null ? destinazione.getScheme().toLowerCase(Locale.ROOT) : "";
+        if (!schema.equals("https") && !(schema.equals("http") && "http".equalsIgnoreCase(origine.getScheme()))) {
+            throw new IOException("Reindirizzamento non ammesso da " + origine.getHost() + " verso " + destinazione);
+        }
+        return destinazione;
+    }
+
+    // Tutti gli indirizzi dell'host devono essere pubblici. La risoluzione del client HTTP è successiva a questa:
+    // resta la finestra di un DNS che cambia risposta tra le due (rebinding)
+    private void verificaHost(URI uri) {
+        if (uri.getHost() == null) {
+            throw new InvalidCalendarioUrlException("URL del calendario senza host: " + uri);
+        }
+        if (indirizziInterni) {
+            return;
+        }
+        InetAddress[] indirizzi;
+        try {
+            indirizzi = InetAddress.getAllByName(uri.getHost());
+        } catch (UnknownHostException e) {
+            throw new InvalidCalendarioUrlException("Host del calendario non trovato: " + uri.getHost());
+        }
+        for (InetAddress indirizzo : indirizzi) {
+            if (interno(indirizzo)) {
+                throw new InvalidCalendarioUrlException("L'host del calendario risolve su un indirizzo interno: " + uri.getHost());
+            }
+        }
+    }
+
+    private static boolean interno(InetAddress indirizzo) {
+        return indirizzo.isAnyLocalAddress() || indirizzo.isLoopbackAddress() || indirizzo.isLinkLocalAddress()
+                || indirizzo.isSiteLocalAddress() || indirizzo.isMulticastAddress()
+                // Unique local IPv6 (fc00::/7), l'equivalente delle reti private
+                || (indirizzo instanceof Inet6Address && (indirizzo.getAddress()[0] & 0xfe) == 0xfc);
+    }
+
+    // Legge il corpo fino a dimensioneMassima byte, poi interrompe lo scaricamento
+    private static final class CorpoLimitato implements HttpResponse.BodySubscriber<String> {
+        private final long dimensioneMassima;
+        private final ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+        private final CompletableFuture<String> risultato = new CompletableFuture<>();
+        private Flow.Subscription sottoscrizione;
+
+        private CorpoLimitato(long dimensioneMassima) {
+            this.dimensioneMassima = dimensioneMassima;
+        }
+
+        @Override
+        public CompletionStage<String> getBody() {
+            return risultato;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription sottoscrizione) {
+            this.sottoscrizione = sottoscrizione;
+            sottoscrizione.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> blocchi) {
+            if (risultato.isDone()) {
+                return;
+            }
+            for (ByteBuffer blocco : blocchi) {
+                if (corpo.size() + blocco.remaining() > dimensioneMassima) {
+                    sottoscrizione.cancel();
+                    risultato.completeExceptionally(new IOException("Calendario oltre " + dimensioneMassima + " byte"));
+                    return;
+                }
+                byte[] dati = new byte[blocco.remaining()];
+                blocco.get(dati);
+                corpo.write(dati, 0, dati.length);
+            }
+        }
+
+        @Override
+        public void onError(Throwable errore) {
+            risultato.completeExceptionally(errore);
+        }
+
+        @Override
+        public void onComplete() {
+            risultato.complete(corpo.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    private Scaricamento leggiFile(Path file, String ultimaModifica) throws IOException {
+        String modifica = String.valueOf(Files.getLastModifiedTime(file).toMillis());
+        if (modifica.equals(ultimaModifica)) {
+            return null;
+        }
+        if (Files.size(file) > dimensioneMassima) {
+            throw new IOException("Calendario oltre " + dimensioneMassima + " byte: " + file.getFileName());
+        }
+        return new Scaricamento(Files.readString(file, StandardCharsets.UTF_8), null, modifica);
+    }
+
+    private Path percorso(URI uri) {
+        if (cartella == null) {
+            throw new InvalidCalendarioUrlException("Calendari da file non abilitati (booking.ical.cartella non configurata).");
+        }
+        Path file;
+        try {
+            file = Path.of(uri).toAbsolutePath().normalize();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCalendarioUrlException("Percorso del calendario non valido: " + uri);
+        }
+        if (!file.startsWith(cartella)) {
+            throw new InvalidCalendarioUrlException("Il file del calendario deve trovarsi in " + cartella + ": " + uri);
+        }
+        return file;
+    }
+
+    private static URI uri(String url) {
+        try {
+            return new URI(url.trim());
+        } catch (URISyntaxException e) {
+            throw new InvalidCalendarioUrlException("URL del calendario non valido: " + url);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.la_casa_del_rosariello.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.la_casa_del_rosariello.dto.BookingRequestDTO;
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Legge i lotti di importazione (lista JSON, NDJSON o CSV) riga per riga dal corpo della richiesta,
+// senza bufferizzarlo per intero. Gli errori di lettura non interrompono il lotto: finiscono nella riga corrispondente.
+@Component
+public class LettoreImportazione {
+
+    private final ObjectMapper objectMapper;
+
+    public LettoreImportazione(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public static class RigaImportazione {
+        private final int numero;
+        private final BookingRequestDTO richiesta;
+        private final String errore;
+
+        public RigaImportazione(int numero, BookingRequestDTO richiesta, String errore) {
+            this.numero = numero;
+            this.richiesta = richiesta;
+            this.errore = errore;
+        }
+
+        public int getNumero() { return numero; }
+
+        public BookingRequestDTO getRichiesta() { return richiesta; }
+
+        public String getErrore() { return errore; }
+    }
+
+    public List<RigaImportazione> daLista(List<BookingRequestDTO> richieste) {
+        List<RigaImportazione> righe = new ArrayList<>(richieste.size());
+        for (int i = 0; i < richieste.size(); i++) {
+            righe.add(new RigaImportazione(i + 1, conStatoPredefinito(richieste.get(i)), null));
+        }
+        return righe;
+    }
+
+    public List<RigaImportazione> leggiNdjson(InputStream input) throws IOException {
+        List<RigaImportazione> righe = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String linea;
+            int numero = 0;
+            while ((linea = reader.readLine()) != null) {
+                if (linea.isBlank()) {
+                    continue;
+                }
+                numero++;
+                try {
+                    BookingRequestDTO richiesta = objectMapper.readValue(linea, BookingRequestDTO.class);
+                    righe.add(new RigaImportazione(numero, conStatoPredefinito(richiesta), null));
+                } catch (JsonProcessingException e) {
+                    righe.add(new RigaImportazione(numero, null, "JSON non valido: " + e.getOriginalMessage()));
+                }
+            }
+        }
+        return righe;
+    }
+
+    // La prima riga è l'intestazione con i nomi dei campi di BookingRequestDTO, in qualsiasi ordine
+    public List<RigaImportazione> leggiCsv(InputStream input) throws IOException {
+        List<RigaImportazione> righe = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String intestazione = reader.readLine();
+            if (intestazione == null) {
+                return righe;
+            }
+            Map<String, Integer> colonne = new HashMap<>();
+            List<String> nomi = dividiCampi(intestazione);
+            for (int i = 0; i < nomi.size(); i++) {
+                colonne.put(nomi.get(i), i);
+            }
+
+            String linea;
+            int numero = 0;
+            while ((linea = reader.readLine()) != null) {
+                if (linea.isBlank()) {
+                    continue;
+                }
+                numero++;
+                List<String> campi = dividiCampi(linea);
+                try {
+                    BookingRequestDTO richiesta = new BookingRequestDTO();
+                    String dataInizio = campo(campi, colonne, "dataInizio");
+                    String dataFine = campo(campi, colonne, "dataFine");
+                    String numeroOspiti = campo(campi, colonne, "numeroOspiti");
+                    String stato = campo(campi, colonne, "statoPrenotazione");
+                    String proprietaId = campo(campi, colonne, "proprietaId");
+                    richiesta.setDataInizio(dataInizio != null ? LocalDate.parse(dataInizio) : null);
+                    richiesta.setDataFine(dataFine != null ? LocalDate.parse(dataFine) : null);
+                    richiesta.setNomeOspite(campo(campi, colonne, "nomeOspite"));
+                    richiesta.setCognomeOspite(campo(campi, colonne, "cognomeOspite"));
+                    richiesta.setEmailOspite(campo(campi, colonne, "emailOspite"));
+                    richiesta.setNumeroOspiti(numeroOspiti != null ? Integer.parseInt(numeroOspiti) : 0);
+                    richiesta.setNote(campo(campi, colonne, "note"));
+                    richiesta.setStatoPrenotazione(stato != null ? StatoPrenotazione.valueOf(stato) : null);
+                    richiesta.setProprietaId(proprietaId != null ? Long.valueOf(proprietaId) : null);
+                    righe.add(new RigaImportazione(numero, conStatoPredefinito(richiesta), null));
+                } catch (DateTimeParseException | IllegalArgumentException e) {
+                    righe.add(new RigaImportazione(numero, null, "Valore non valido: " + e.getMessage()));
+                }
+            }
+        }
+        return righe;
+    }
+
+    // Le righe senza stato vengono importate come CONFERMATA, come le prenotazioni create da POST /bookings
+    private BookingRequestDTO conStatoPredefinito(BookingRequestDTO richiesta) {
+        if (richiesta != null && richiesta.getStatoPrenotazione() == null) {
+            richiesta.setStatoPrenotazione(StatoPrenotazione.CONFERMATA);
+        }
+        return richiesta;
+    }
+
+    private String campo(List<String> campi, Map<String, Integer> colonne, String nome) {
+        Integer indice = colonne.get(nome);
+        if (indice == null || indice >= campi.size() || campi.get(indice).isEmpty()) {
+            return null;
+        }
+        return campi.get(indice);
+    }
+
+    // Separazione per virgole con supporto ai campi tra virgolette ("" per una virgoletta letterale)
+    private List<String> dividiCampi(String linea) {
+        List<String> campi = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean traVirgolette = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (traVirgolette) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else if (c == '"') {
+                    traVirgolette = false;
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                traVirgolette = true;
+            } else if (c == ',') {
+                campi.add(campo.toString().trim());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campi.add(campo.toString().trim());
+        return campi;
+    }
+}
@@ -0,0 +1,34 @@
+package com.la_casa_del_rosariello.service;
+
+// Scomposizione del prezzo di un soggiorno calcolata da TabellaPrezzi
+public class PreventivoSoggiorno {
+    private final long notti;
+    private final double importoNotti;  // Somma delle tariffe notte per notte
+    private final double scontoDurata;  // Sconto per soggiorni lunghi
+    private final double totale;
+
+    public PreventivoSoggiorno(long notti, double importoNotti, double scontoDurata, double totale) {
+        this.notti = notti;
+        this.importoNotti = importoNotti;
+        this.scontoDurata = scontoDurata;
+        this.totale = totale;
+    }
+
+    public long getNotti() { return notti; }
+
+    public double getImportoNotti() { return importoNotti; }
+
+    public double getScontoDurata() { return scontoDurata; }
+
+    public double getTotale() { return totale; }
+
+    // Stesso soggiorno in un'unità con prezzi diversi dal listino (Proprieta.coefficientePrezzo), arrotondato al centesimo
+    public PreventivoSoggiorno conCoefficiente(double coefficiente) {
+        if (coefficiente == 1.0) {
+            return this;
+        }
+        long importo = Math.round(importoNotti * coefficiente * 100);
+        long sconto = Math.round(scontoDurata * coefficiente * 100);
+        return new PreventivoSoggiorno(notti, importo / 100.0, sconto / 100.0, (importo - sconto) / 100.0);
+    }
+}
@@ -0,0 +1,225 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.EventoDaProiettare;
+import com.la_casa_del_rosariello.entity.EventoPrenotazione;
+import com.la_casa_del_rosariello.entity.ProiezionePrenotazione;
+import com.la_casa_del_rosariello.repository.EventoDaProiettareRepository;
+import com.la_casa_del_rosariello.repository.EventoPrenotazioneRepository;
+import com.la_casa_del_rosariello.repository.ProiezionePrenotazioneRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Mantiene le tabelle di lettura (occupazione giornaliera, ricavi mensili, riepiloghi ospite, anticipo) a partire dal registro
+// degli eventi, fuori dalle transazioni delle richieste: il job svuota la coda a blocchi, ognuno nella propria transazione.
+// Le tabelle sono aggiornate per differenza (si toglie la fotografia precedente della prenotazione e si aggiunge la nuova)
+// con un UPSERT per chiave in batch JDBC; la ricostruzione riapplica l'intero registro con lo stesso codice.
+// Le tabelle servono solo ai report (/report/*), che tollerano il ritardo del job: ricerca dell'ospite, calendario,
+// disponibilità ed elenco amministrativo leggono booking, che resta la fonte sempre aggiornata.
+@Component
+public class ProiettoreEventi {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProiettoreEventi.class);
+
+    private static final String UPSERT_GIORNO = "INSERT INTO occupazione_giornaliera (proprieta_id, giorno, notti_occupate, ricavo) VALUES (?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE notti_occupate = notti_occupate + ?, ricavo = ricavo + ?";
+    private static final String UPSERT_MESE = "INSERT INTO ricavo_mensile (proprieta_id, mese, notti, ricavo) VALUES (?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE notti = notti + ?, ricavo = ricavo + ?";
+    private static final String UPSERT_OSPITE = "INSERT INTO riepilogo_ospite (ospite_email_normalizzata, prenotazioni, prenotazioni_confermate, notti, spesa) "
+            + "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE prenotazioni = prenotazioni + ?, prenotazioni_confermate = prenotazioni_confermate + ?, "
+            + "notti = notti + ?, spesa = spesa + ?";
+    private static final String UPSERT_ARRIVO = "INSERT INTO anticipo_prenotazione (proprieta_id, giorno_arrivo, fascia, prenotazioni) VALUES (?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE prenotazioni = prenotazioni + ?";
+    private static final List<String> TABELLE_PROIETTATE = List.of(
+            "evento_da_proiettare", "proiezione_prenotazione", "occupazione_giornaliera", "ricavo_mensile", "riepilogo_ospite",
+            "anticipo_prenotazione");
+
+    private final EventoPrenotazioneRepository eventoPrenotazioneRepository;
+    private final EventoDaProiettareRepository eventoDaProiettareRepository;
+    private final ProiezionePrenotazioneRepository proiezionePrenotazioneRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int dimensioneBlocco;
+    private final int dimensioneBloccoRicostruzione;
+    private final Counter eventiProiettati;
+
+    // Nella stessa istanza la ricostruzione e il job non lavorano mai insieme
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProiettoreEventi(EventoPrenotazioneRepository eventoPrenotazioneRepository,
+                            EventoDaProiettareRepository eventoDaProiettareRepository,
+                            ProiezionePrenotazioneRepository proiezionePrenotazioneRepository,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${booking.proiezioni.blocco:200}") int dimensioneBlocco,
+                            @Value("${booking.proiezioni.blocco-ricostruzione:2000}") int dimensioneBloccoRicostruzione) {
+        this.eventoPrenotazioneRepository = eventoPrenotazioneRepository;
+        this.eventoDaProiettareRepository = eventoDaProiettareRepository;
+        this.proiezionePrenotazioneRepository = proiezionePrenotazioneRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dimensioneBlocco = dimensioneBlocco;
+        this.dimensioneBloccoRicostruzione = dimensioneBloccoRicostruzione;
+        this.eventiProiettati = meterRegistry.counter("booking.proiezioni.eventi");
+    }
+
+    @Scheduled(fixedDelayString = "${booking.proiezioni.intervallo:2s}", initialDelayString = "${booking.proiezioni.intervallo:2s}")
+    public void elabora() {
+        if (!lock.tryLock()) {
+            return; // Ricostruzione in corso: riapplica già tutto il registro
+        }
+        try {
+            int totale = 0;
+            int elaborati;
+            do {
+                elaborati = transactionTemplate.execute(status -> {
+                    List<Long> eventoIds = eventoDaProiettareRepository.findDaProiettare(Limit.of(dimensioneBlocco)).stream()
+                            .map(EventoDaProiettare::getEventoId)
+                            .collect(Collectors.toList());
+                    if (eventoIds.isEmpty()) {
+                        return 0;
+                    }
+                    applica(eventoPrenotazioneRepository.findByIdInOrderById(eventoIds));
+                    eventoDaProiettareRepository.deleteByEventoIdIn(eventoIds);
+                    return eventoIds.size();
+                });
+                totale += elaborati;
+            } while (elaborati == dimensioneBlocco);
+
+            if (totale > 0) {
+                eventiProiettati.increment(totale);
+                logger.debug("Proiezioni aggiornate con {} eventi", totale);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Svuota le tabelle di lettura e riapplica il registro dall'inizio, a blocchi ordinati per id.
+    // Usata da RicostruzioneProiezioniJob e dai test, mai da un endpoint
+    // Durante la ricostruzione i report sono incompleti; gli eventi scritti nel frattempo restano in coda
+    // e il job li scarta se la ricostruzione li ha già applicati (stessa versione della fotografia)
+    public int ricostruisci() {
+        lock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> TABELLE_PROIETTATE.forEach(tabella -> jdbcTemplate.update("DELETE FROM " + tabella)));
+
+            long dopoId = 0;
+            int totale = 0;
+            int letti;
+            do {
+                final long cursore = dopoId;
+                List<Long> eventoIds = transactionTemplate.execute(status -> {
+                    List<EventoPrenotazione> blocco = eventoPrenotazioneRepository.findDopoId(cursore, Limit.of(dimensioneBloccoRicostruzione));
+                    applica(blocco);
+                    return blocco.stream().map(EventoPrenotazione::getId).collect(Collectors.toList());
+                });
+                letti = eventoIds.size();
+                if (letti > 0) {
+                    totale += letti;
+                    dopoId = eventoIds.get(letti - 1);
+                }
+            } while (letti == dimensioneBloccoRicostruzione);
+
+            logger.info("Proiezioni ricostruite da {} eventi del registro", totale);
+            return totale;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void applica(List<EventoPrenotazione> eventi) {
+        if (eventi.isEmpty()) {
+            return;
+        }
+        Map<Long, ProiezionePrenotazione> fotografie = proiezionePrenotazioneRepository.findByBookingIdIn(
+                        eventi.stream().map(EventoPrenotazione::getBookingId).distinct().collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(ProiezionePrenotazione::getBookingId, Function.identity()));
+
+        DeltaProiezioni delta = new DeltaProiezioni();
+        for (EventoPrenotazione evento : eventi) {
+            if (evento.getCalendarioEsternoId() != null) {
+                continue; // Blocco di un portale: né notti vendute né ospite, resta fuori da tutti i report
+            }
+            ProiezionePrenotazione fotografia = fotografie.computeIfAbsent(evento.getBookingId(), bookingId -> {
+                ProiezionePrenotazione nuova = new ProiezionePrenotazione(bookingId);
+                entityManager.persist(nuova);
+                return nuova;
+            });
+            if (!fotografia.isSuperatoDa(evento)) {
+                continue; // Già applicato, o superato da una versione più recente
+            }
+            delta.togli(fotografia);
+            fotografia.aggiorna(evento);
+            delta.aggiungi(fotografia);
+        }
+        // Le fotografie (INSERT/UPDATE) vanno scritte nella stessa transazione degli UPSERT
+        entityManager.flush();
+        scrivi(delta);
+        entityManager.clear();
+    }
+
+    private void scrivi(DeltaProiezioni delta) {
+        List<Object[]> giorni = delta.giorni.entrySet().stream()
+                .filter(voce -> !voce.getValue().isNulla())
+                .sorted(Map.Entry.comparingByKey(DeltaProiezioni.ORDINE_GIORNI))
+                .map(voce -> new Object[]{voce.getKey().proprietaId(), Date.valueOf(voce.getKey().giorno()),
+                        voce.getValue().notti, voce.getValue().ricavo, voce.getValue().notti, voce.getValue().ricavo})
+                .collect(Collectors.toList());
+        List<Object[]> mesi = delta.mesi.entrySet().stream()
+                .filter(voce -> !voce.getValue().isNulla())
+                .sorted(Map.Entry.comparingByKey(DeltaProiezioni.ORDINE_MESI))
+                .map(voce -> new Object[]{voce.getKey().proprietaId(), Date.valueOf(voce.getKey().mese()),
+                        voce.getValue().notti, voce.getValue().ricavo, voce.getValue().notti, voce.getValue().ricavo})
+                .collect(Collectors.toList());
+        List<Object[]> ospiti = delta.ospiti.entrySet().stream()
+                .filter(voce -> !voce.getValue().isNulla())
+                .sorted(Map.Entry.comparingByKey())
+                .map(voce -> {
+                    DeltaProiezioni.Ospite o = voce.getValue();
+                    return new Object[]{voce.getKey(), o.prenotazioni, o.confermate, o.notti, o.spesa,
+                            o.prenotazioni, o.confermate, o.notti, o.spesa};
+                })
+                .collect(Collectors.toList());
+        List<Object[]> arrivi = delta.arrivi.entrySet().stream()
+                .filter(voce -> voce.getValue() != 0)
+                .sorted(Map.Entry.comparingByKey(DeltaProiezioni.ORDINE_ARRIVI))
+                .map(voce -> new Object[]{voce.getKey().proprietaId(), Date.valueOf(voce.getKey().giornoArrivo()), voce.getKey().fascia(),
+                        voce.getValue(), voce.getValue()})
+                .collect(Collectors.toList());
+
+        if (!giorni.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_GIORNO, giorni);
+        }
+        if (!mesi.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_MESE, mesi);
+        }
+        if (!ospiti.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_OSPITE, ospiti);
+        }
+        if (!arrivi.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_ARRIVO, arrivi);
+        }
+    }
+}
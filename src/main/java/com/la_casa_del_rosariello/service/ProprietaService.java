@@ -0,0 +1,55 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.Proprieta;
+import com.la_casa_del_rosariello.exception.ProprietaNotFoundException;
+import com.la_casa_del_rosariello.repository.ProprietaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Gestione delle unità prenotabili e ricerca delle unità libere in un periodo.
+@Service
+@Transactional
+public class ProprietaService {
+
+    @Autowired
+    private ProprietaRepository proprietaRepository;
+
+    @Autowired
+    private IndiceOccupazione indiceOccupazione;
+
+    @Transactional(readOnly = true)
+    public List<Proprieta> elencaProprieta() {
+        return proprietaRepository.findAll();
+    }
+
+    // Letta dalla cache di secondo livello dopo il primo accesso
+    @Transactional(readOnly = true)
+    public Proprieta trovaProprieta(Long id) {
+        return proprietaRepository.findById(id)
+                .orElseThrow(() -> new ProprietaNotFoundException("Unità non trovata con ID: " + id));
+    }
+
+    public Proprieta creaProprieta(Proprieta proprieta) {
+        return proprietaRepository.save(proprieta);
+    }
+
+    // Unità attive con capienza sufficiente e nessuna prenotazione bloccante nel periodo.
+    // Dentro la finestra dell'indice: una query per le unità attive e un controllo in memoria per unità, nessuna query
+    // sulle prenotazioni. Fuori finestra: una sola query con anti-join, indipendente dal numero di unità.
+    @Transactional(readOnly = true)
+    public List<Proprieta> findDisponibili(LocalDate dataInizio, LocalDate dataFine, int ospiti) {
+        if (indiceOccupazione.isCoperto(dataInizio, dataFine)) {
+            return proprietaRepository.findByAttivaTrueOrderById().stream()
+                    .filter(proprieta -> proprieta.getCapienza() >= ospiti)
+                    .filter(proprieta -> indiceOccupazione.isLibero(proprieta.getId(), dataInizio, dataFine))
+                    .collect(Collectors.toList());
+        }
+        return proprietaRepository.findDisponibili(dataInizio, dataFine, ospiti, BookingService.STATI_BLOCCANTI, LocalDateTime.now());
+    }
+}
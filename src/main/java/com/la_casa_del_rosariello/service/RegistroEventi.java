@@ -0,0 +1,38 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.EventoDaProiettare;
+import com.la_casa_del_rosariello.entity.EventoPrenotazione;
+import com.la_casa_del_rosariello.entity.TipoEventoPrenotazione;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Scrive nel registro degli eventi, nella transazione della modifica: se la modifica viene annullata sparisce
+// anche l'evento, e nessun evento confermato può andare perso. Ogni evento entra anche nella coda del proiettore.
+@Component
+public class RegistroEventi {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Le prenotazioni devono essere già state scritte (flush): l'evento riporta la versione salvata nel database
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registra(TipoEventoPrenotazione tipo, Booking booking) {
+        EventoPrenotazione evento = new EventoPrenotazione(tipo, booking);
+        entityManager.persist(evento);
+        entityManager.persist(new EventoDaProiettare(evento.getId()));
+    }
+
+    // Gli INSERT partono al flush successivo, in batch JDBC insieme al resto della transazione
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registra(TipoEventoPrenotazione tipo, List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            registra(tipo, booking);
+        }
+    }
+}
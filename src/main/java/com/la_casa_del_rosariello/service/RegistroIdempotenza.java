@@ -0,0 +1,128 @@
+package com.la_casa_del_rosariello.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.la_casa_del_rosariello.exception.IdempotencyKeyException;
+import com.la_casa_del_rosariello.exception.RichiestaInCorsoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+// Risposte delle scritture eseguite con un header Idempotency-Key, tenute in memoria per un periodo limitato.
+// Un nuovo invio con la stessa chiave riceve la risposta originale senza passare dal service né dal database;
+// se arriva mentre la prima richiesta è ancora in corso ne attende l'esito (al più booking.idempotenza.attesa-massima,
+// poi 409) invece di eseguirla una seconda volta.
+// Le chiavi valgono per cliente (utente autenticato o indirizzo del chiamante): client diversi non vedono le risposte
+// degli altri anche se scelgono la stessa chiave.
+// Vengono conservati solo gli esiti positivi: dopo un errore la chiave torna libera e il client può riprovare.
+@Component
+public class RegistroIdempotenza {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String HEADER_RIPETUTA = "Idempotent-Replayed";
+
+    private static final Pattern FORMATO_VALIDO = Pattern.compile("[A-Za-z0-9._:-]{1,255}");
+
+    private record Esecuzione(byte[] impronta, CompletableFuture<ResponseEntity<?>> risposta) {}
+
+    private final Cache<String, Esecuzione> esecuzioni;
+    private final ObjectMapper objectMapper;
+    private final Duration attesaMassima;
+
+    public RegistroIdempotenza(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                               @Value("${booking.idempotenza.dimensione-massima:100000}") long dimensioneMassima,
+                               @Value("${booking.idempotenza.durata:24h}") Duration durata,
+                               @Value("${booking.idempotenza.attesa-massima:30s}") Duration attesaMassima) {
+        this.objectMapper = objectMapper;
+        this.attesaMassima = attesaMassima;
+        this.esecuzioni = Caffeine.newBuilder()
+                .maximumSize(dimensioneMassima)
+                .expireAfterWrite(durata)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, esecuzioni, "idempotenza");
+    }
+
+    // cliente identifica chi invia (es. "utente:mario" o "ip:10.0.0.7"), operazione distingue gli endpoint
+    // (es. "PUT /bookings/42"): la stessa chiave di clienti diversi o su risorse diverse non collide
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> esegui(String cliente, String operazione, String chiave, Object richiesta, Supplier<ResponseEntity<T>> esecuzione) {
+        if (chiave == null) {
+            return esecuzione.get();
+        }
+        if (!FORMATO_VALIDO.matcher(chiave).matches()) {
+            throw new IdempotencyKeyException("Header " + HEADER + " non valido: al massimo 255 caratteri tra lettere, cifre e . _ : -");
+        }
+
+        byte[] impronta = impronta(richiesta);
+        Esecuzione nuova = new Esecuzione(impronta, new CompletableFuture<>());
+        String voce = cliente + " " + operazione + " " + chiave;
+        Esecuzione esistente = esecuzioni.asMap().putIfAbsent(voce, nuova);
+
+        if (esistente != null) {
+            if (!Arrays.equals(esistente.impronta(), impronta)) {
+                throw new IdempotencyKeyException("La chiave " + chiave + " è già stata usata con una richiesta diversa");
+            }
+            ResponseEntity<T> originale = (ResponseEntity<T>) attendi(esistente.risposta());
+            return ResponseEntity.status(originale.getStatusCode())
+                    .headers(originale.getHeaders())
+                    .header(HEADER_RIPETUTA, "true")
+                    .body(originale.getBody());
+        }
+
+        try {
+            ResponseEntity<T> risposta = esecuzione.get();
+            if (!risposta.getStatusCode().is2xxSuccessful()) {
+                esecuzioni.asMap().remove(voce, nuova);
+            }
+            nuova.risposta().complete(risposta);
+            return risposta;
+        } catch (RuntimeException e) {
+            esecuzioni.asMap().remove(voce, nuova);
+            nuova.risposta().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Attesa limitata: una richiesta originale bloccata non trattiene all'infinito i thread dei nuovi invii
+    private ResponseEntity<?> attendi(CompletableFuture<ResponseEntity<?>> risposta) {
+        try {
+            return risposta.get(attesaMassima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Chi attendeva riceve lo stesso errore della richiesta originale (es. 409)
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RichiestaInCorsoException("Una richiesta con la stessa " + HEADER + " è ancora in corso, riprovare più tardi.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RichiestaInCorsoException("Attesa della richiesta con la stessa " + HEADER + " interrotta.");
+        }
+    }
+
+    private byte[] impronta(Object richiesta) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsString(richiesta).getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Impossibile calcolare l'impronta della richiesta", e);
+        }
+    }
+}
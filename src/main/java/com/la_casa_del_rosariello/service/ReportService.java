@@ -0,0 +1,182 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.EventoPrenotazione;
+import com.la_casa_del_rosariello.entity.OccupazioneGiornaliera;
+import com.la_casa_del_rosariello.entity.RicavoMensile;
+import com.la_casa_del_rosariello.entity.RiepilogoOspite;
+import com.la_casa_del_rosariello.entity.TariffaStagionale;
+import com.la_casa_del_rosariello.repository.AnticipoPrenotazioneRepository;
+import com.la_casa_del_rosariello.repository.EventoPrenotazioneRepository;
+import com.la_casa_del_rosariello.repository.OccupazioneGiornalieraRepository;
+import com.la_casa_del_rosariello.repository.ProprietaRepository;
+import com.la_casa_del_rosariello.repository.RicavoMensileRepository;
+import com.la_casa_del_rosariello.repository.RiepilogoOspiteRepository;
+import com.la_casa_del_rosariello.repository.TariffaStagionaleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Letture sulle tabelle di lettura mantenute da ProiettoreEventi: nessuna aggregazione sulle prenotazioni,
+// solo intervalli sulle chiavi primarie. I dati sono indietro al più di un giro del proiettore.
+@Service
+@Transactional(readOnly = true)
+public class ReportService {
+
+    public static final String FUORI_STAGIONE = "Fuori stagione";
+
+    public enum Raggruppamento {
+        TOTALE,
+        MESE,
+        // Per nome della tariffa stagionale che copre il giorno (le stagioni con lo stesso nome in anni diversi si sommano)
+        STAGIONE
+    }
+
+    // Notti disponibili = giorni del sotto-periodo × unità considerate
+    public record Andamento(String etichetta, LocalDate dataInizio, LocalDate dataFine,
+                            long nottiDisponibili, long nottiVendute, double ricavo) {}
+
+    // giorniMassimi null per l'ultima fascia (aperta)
+    public record FasciaAnticipo(int giorniMinimi, Integer giorniMassimi, long prenotazioni) {}
+
+    private static final class Accumulo {
+        final LocalDate dataInizio;
+        LocalDate dataFine;
+        long giorni;
+        long notti;
+        double ricavo;
+
+        Accumulo(LocalDate dataInizio) {
+            this.dataInizio = dataInizio;
+        }
+    }
+
+    @Autowired
+    private OccupazioneGiornalieraRepository occupazioneGiornalieraRepository;
+
+    @Autowired
+    private RicavoMensileRepository ricavoMensileRepository;
+
+    @Autowired
+    private RiepilogoOspiteRepository riepilogoOspiteRepository;
+
+    @Autowired
+    private EventoPrenotazioneRepository eventoPrenotazioneRepository;
+
+    @Autowired
+    private AnticipoPrenotazioneRepository anticipoPrenotazioneRepository;
+
+    @Autowired
+    private ProprietaRepository proprietaRepository;
+
+    @Autowired
+    private TariffaStagionaleRepository tariffaStagionaleRepository;
+
+    @Autowired
+    private ProprietaService proprietaService;
+
+    // Solo i giorni con almeno una notte venduta in passato (le righe a zero restano dopo una cancellazione)
+    public List<OccupazioneGiornaliera> occupazioneGiornaliera(Long proprietaId, LocalDate dataInizio, LocalDate dataFine) {
+        return occupazioneGiornalieraRepository.findByProprietaIdAndGiornoGreaterThanEqualAndGiornoLessThanOrderByGiorno(proprietaId, dataInizio, dataFine);
+    }
+
+    public List<RicavoMensile> ricaviMensili(Long proprietaId, YearMonth primoMese, YearMonth ultimoMese) {
+        return ricavoMensileRepository.findByProprietaIdAndMeseBetweenOrderByMese(proprietaId, primoMese.atDay(1), ultimoMese.atDay(1));
+    }
+
+    public Optional<RiepilogoOspite> riepilogoOspite(String email) {
+        return riepilogoOspiteRepository.findById(Booking.normalizzaEmail(email));
+    }
+
+    public List<EventoPrenotazione> eventiPrenotazione(Long bookingId) {
+        return eventoPrenotazioneRepository.findByBookingIdOrderByVersioneAscIdAsc(bookingId);
+    }
+
+    // Notti vendute e ricavo di [dataInizio, dataFine), di un'unità o di tutte le unità attive (proprietaId null).
+    // Senza unità, notti vendute e notti disponibili si riferiscono allo stesso insieme: le unità disattivate non contano
+    // Una sola query che somma le righe giornaliere (al più una per giorno del periodo), poi il raggruppamento in memoria
+    public List<Andamento> andamento(Long proprietaId, LocalDate dataInizio, LocalDate dataFine, Raggruppamento raggruppamento) {
+        long unita;
+        List<OccupazioneGiornalieraRepository.TotaleGiorno> totali;
+        if (proprietaId != null) {
+            proprietaService.trovaProprieta(proprietaId);
+            unita = 1;
+            totali = occupazioneGiornalieraRepository.sommaPerGiorno(proprietaId, dataInizio, dataFine);
+        } else {
+            unita = proprietaRepository.countByAttivaTrue();
+            totali = occupazioneGiornalieraRepository.sommaPerGiornoUnitaAttive(dataInizio, dataFine);
+        }
+        Map<LocalDate, OccupazioneGiornalieraRepository.TotaleGiorno> perGiorno = totali.stream()
+                .collect(Collectors.toMap(OccupazioneGiornalieraRepository.TotaleGiorno::getGiorno, Function.identity()));
+
+        Function<LocalDate, String> etichetta = switch (raggruppamento) {
+            case TOTALE -> giorno -> dataInizio + "/" + dataFine;
+            case MESE -> giorno -> YearMonth.from(giorno).toString();
+            case STAGIONE -> stagioni(dataInizio, dataFine);
+        };
+
+        Map<String, Accumulo> gruppi = new LinkedHashMap<>();
+        for (LocalDate giorno = dataInizio; giorno.isBefore(dataFine); giorno = giorno.plusDays(1)) {
+            final LocalDate inizio = giorno;
+            Accumulo accumulo = gruppi.computeIfAbsent(etichetta.apply(giorno), chiave -> new Accumulo(inizio));
+            accumulo.dataFine = giorno.plusDays(1);
+            accumulo.giorni++;
+            OccupazioneGiornalieraRepository.TotaleGiorno totale = perGiorno.get(giorno);
+            if (totale != null) {
+                accumulo.notti += totale.getNotti();
+                accumulo.ricavo += totale.getRicavo();
+            }
+        }
+        return gruppi.entrySet().stream()
+                .map(voce -> new Andamento(voce.getKey(), voce.getValue().dataInizio, voce.getValue().dataFine,
+                        voce.getValue().giorni * unita, voce.getValue().notti, voce.getValue().ricavo))
+                .collect(Collectors.toList());
+    }
+
+    // Prenotazioni confermate con arrivo nel periodo, per fascia di anticipo. Contano solo le prenotazioni
+    // di cui si conosce il giorno di creazione (non quelle importate senza data)
+    public List<FasciaAnticipo> anticipo(Long proprietaId, LocalDate dataInizio, LocalDate dataFine) {
+        List<AnticipoPrenotazioneRepository.TotaleFascia> totali;
+        if (proprietaId != null) {
+            proprietaService.trovaProprieta(proprietaId);
+            totali = anticipoPrenotazioneRepository.sommaPerFascia(proprietaId, dataInizio, dataFine);
+        } else {
+            totali = anticipoPrenotazioneRepository.sommaPerFascia(dataInizio, dataFine);
+        }
+        Map<Integer, Long> perFascia = totali.stream()
+                .collect(Collectors.toMap(AnticipoPrenotazioneRepository.TotaleFascia::getFascia, AnticipoPrenotazioneRepository.TotaleFascia::getPrenotazioni));
+
+        int[] limiti = DeltaProiezioni.FASCE_ANTICIPO;
+        List<FasciaAnticipo> fasce = new ArrayList<>(limiti.length);
+        for (int i = 0; i < limiti.length; i++) {
+            fasce.add(new FasciaAnticipo(limiti[i], i + 1 < limiti.length ? limiti[i + 1] - 1 : null, perFascia.getOrDefault(limiti[i], 0L)));
+        }
+        return fasce;
+    }
+
+    // Nome della stagione di un giorno: la tariffa che lo copre, l'ultima inserita se più tariffe si sovrappongono
+    private Function<LocalDate, String> stagioni(LocalDate dataInizio, LocalDate dataFine) {
+        List<TariffaStagionale> tariffe = tariffaStagionaleRepository.findAllByOrderByIdAsc().stream()
+                .filter(t -> t.getDataInizio().isBefore(dataFine) && t.getDataFine().isAfter(dataInizio))
+                .collect(Collectors.toList());
+        return giorno -> {
+            for (int i = tariffe.size() - 1; i >= 0; i--) {
+                TariffaStagionale tariffa = tariffe.get(i);
+                if (!giorno.isBefore(tariffa.getDataInizio()) && giorno.isBefore(tariffa.getDataFine())) {
+                    return tariffa.getNome();
+                }
+            }
+            return FUORI_STAGIONE;
+        };
+    }
+}
@@ -0,0 +1,163 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.Proprieta;
+import com.la_casa_del_rosariello.repository.ProprietaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+// Ricerca "qualsiasi unità libera da X a Y per N ospiti".
+// Le unità candidate (attive, con capienza sufficiente) si leggono con una sola query e vengono valutate a blocchi
+// in parallelo su un numero limitato di virtual thread: dentro la finestra dell'indice ogni blocco è un controllo
+// in memoria, fuori finestra un'unica query anti-join per blocco, mai una query per unità.
+// Il preventivo si calcola una volta sul listino e si scala con il coefficiente di ciascuna unità.
+// Allo scadere del budget di latenza i blocchi non ancora valutati vengono annullati e il risultato è marcato parziale.
+@Component
+public class RicercaDisponibilita {
+
+    public record Risultato(Proprieta proprieta, PreventivoSoggiorno preventivo) {}
+
+    public record Esito(List<Risultato> risultati, int unitaCandidate, int unitaValutate, boolean parziale) {}
+
+    // Prima il prezzo più basso; a parità l'unità più piccola che basta, così quelle grandi restano libere per i gruppi
+    private static final Comparator<Risultato> ORDINAMENTO = Comparator
+            .comparingDouble((Risultato r) -> r.preventivo().getTotale())
+            .thenComparingInt(r -> r.proprieta().getCapienza())
+            .thenComparing(r -> r.proprieta().getId());
+
+    private final ProprietaRepository proprietaRepository;
+    private final IndiceOccupazione indiceOccupazione;
+    private final TabellaPrezzi tabellaPrezzi;
+    private final ExecutorService esecutore;
+    private final int dimensioneBlocco;
+    private final Duration budget;
+    private final Counter ricercheParziali;
+
+    public RicercaDisponibilita(ProprietaRepository proprietaRepository,
+                                IndiceOccupazione indiceOccupazione,
+                                TabellaPrezzi tabellaPrezzi,
+                                MeterRegistry meterRegistry,
+                                @Value("${booking.ricerca.parallelismo:8}") int parallelismo,
+                                @Value("${booking.ricerca.blocco:50}") int dimensioneBlocco,
+                                @Value("${booking.ricerca.budget:300ms}") Duration budget) {
+        this.proprietaRepository = proprietaRepository;
+        this.indiceOccupazione = indiceOccupazione;
+        this.tabellaPrezzi = tabellaPrezzi;
+        // Al più "parallelismo" blocchi alla volta: fuori finestra ognuno occupa una connessione del pool
+        this.esecutore = Executors.newFixedThreadPool(parallelismo, Thread.ofVirtual().name("ricerca-", 0).factory());
+        this.dimensioneBlocco = dimensioneBlocco;
+        this.budget = budget;
+        this.ricercheParziali = meterRegistry.counter("booking.ricerca.parziali");
+    }
+
+    @PreDestroy
+    public void chiudi() {
+        esecutore.shutdownNow();
+    }
+
+    public Esito cerca(LocalDate dataInizio, LocalDate dataFine, int ospiti, int limite) {
+        long scadenza = System.nanoTime() + budget.toNanos();
+        List<Proprieta> candidate = proprietaRepository.findByAttivaTrueAndCapienzaGreaterThanEqualOrderById(ospiti);
+        PreventivoSoggiorno preventivo = tabellaPrezzi.calcolaPreventivo(dataInizio, dataFine);
+        boolean inMemoria = indiceOccupazione.isCoperto(dataInizio, dataFine);
+        LocalDateTime adesso = LocalDateTime.now();
+
+        List<List<Proprieta>> blocchi = new ArrayList<>();
+        List<Future<List<Proprieta>>> valutazioni = new ArrayList<>();
+        for (int i = 0; i < candidate.size(); i += dimensioneBlocco) {
+            List<Proprieta> blocco = candidate.subList(i, Math.min(i + dimensioneBlocco, candidate.size()));
+            blocchi.add(blocco);
+            valutazioni.add(esecutore.submit(() -> libere(blocco, dataInizio, dataFine, adesso, inMemoria)));
+        }
+
+        List<Risultato> risultati = new ArrayList<>();
+        int valutate = 0;
+        boolean parziale = false;
+        for (int i = 0; i < valutazioni.size(); i++) {
+            Future<List<Proprieta>> valutazione = valutazioni.get(i);
+            List<Proprieta> libere = parziale ? giaPronto(valutazione) : entro(valutazione, scadenza);
+            if (libere == null) {
+                // Budget esaurito: i blocchi restanti si raccolgono solo se già completati
+                parziale = true;
+                valutazione.cancel(true);
+                continue;
+            }
+            valutate += blocchi.get(i).size();
+            for (Proprieta proprieta : libere) {
+                risultati.add(new Risultato(proprieta, preventivo.conCoefficiente(proprieta.getCoefficientePrezzo())));
+            }
+        }
+
+        if (parziale) {
+            ricercheParziali.increment();
+        }
+        risultati.sort(ORDINAMENTO);
+        return new Esito(risultati.size() > limite ? List.copyOf(risultati.subList(0, limite)) : risultati,
+                candidate.size(), valutate, parziale);
+    }
+
+    private List<Proprieta> libere(List<Proprieta> blocco, LocalDate dataInizio, LocalDate dataFine, LocalDateTime adesso, boolean inMemoria) {
+        if (inMemoria) {
+            return blocco.stream()
+                    .filter(proprieta -> indiceOccupazione.isLibero(proprieta.getId(), dataInizio, dataFine))
+                    .collect(Collectors.toList());
+        }
+        List<Long> ids = blocco.stream().map(Proprieta::getId).collect(Collectors.toList());
+        Set<Long> libere = new HashSet<>(proprietaRepository.findIdDisponibiliTra(ids, dataInizio, dataFine,
+                BookingService.STATI_BLOCCANTI, adesso));
+        return blocco.stream()
+                .filter(proprieta -> libere.contains(proprieta.getId()))
+                .collect(Collectors.toList());
+    }
+
+    // Esito del blocco, oppure null se non arriva entro la scadenza
+    private static List<Proprieta> entro(Future<List<Proprieta>> valutazione, long scadenza) {
+        try {
+            return valutazione.get(Math.max(0, scadenza - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw rilancia(e);
+        }
+    }
+
+    private static List<Proprieta> giaPronto(Future<List<Proprieta>> valutazione) {
+        if (!valutazione.isDone()) {
+            return null;
+        }
+        try {
+            return valutazione.get();
+        } catch (CancellationException | InterruptedException e) {
+            return null;
+        } catch (ExecutionException e) {
+            throw rilancia(e);
+        }
+    }
+
+    // Un errore del database in un blocco fa fallire la ricerca come farebbe la query singola
+    private static RuntimeException rilancia(ExecutionException e) {
+        return e.getCause() instanceof RuntimeException causa ? causa : new IllegalStateException(e.getCause());
+    }
+}
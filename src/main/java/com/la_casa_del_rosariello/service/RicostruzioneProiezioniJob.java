@@ -0,0 +1,24 @@
+package com.la_casa_del_rosariello.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Ricostruzione delle tabelle di lettura lanciata dall'operatore all'avvio di un'istanza, non da un endpoint:
+// svuota le tabelle dei report, quindi non deve essere raggiungibile da chi usa le API
+@Component
+@ConditionalOnProperty(name = "booking.proiezioni.ricostruisci-all-avvio", havingValue = "true")
+public class RicostruzioneProiezioniJob {
+
+    private final ProiettoreEventi proiettoreEventi;
+
+    public RicostruzioneProiezioniJob(ProiettoreEventi proiettoreEventi) {
+        this.proiettoreEventi = proiettoreEventi;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void esegui() {
+        proiettoreEventi.ricostruisci();
+    }
+}
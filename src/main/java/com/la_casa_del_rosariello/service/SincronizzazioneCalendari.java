@@ -0,0 +1,87 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.CalendarioEsterno;
+import com.la_casa_del_rosariello.exception.RichiestaInCorsoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Job di importazione dei calendari esterni attivi. Lo scaricamento avviene fuori da qualunque transazione
+// (nessuna connessione al database trattenuta durante l'attesa del portale); solo il confronto e le scritture
+// girano nella transazione di CalendarioIcalService.applica. Un calendario alla volta: l'errore di un portale
+// viene registrato sul suo calendario e non ferma gli altri.
+@Component
+public class SincronizzazioneCalendari {
+
+    private static final Logger logger = LoggerFactory.getLogger(SincronizzazioneCalendari.class);
+
+    private final CalendarioIcalService calendarioIcalService;
+    private final LettoreIcal lettoreIcal;
+    private final MeterRegistry meterRegistry;
+
+    // Calendari in sincronizzazione in questa istanza: il job e una richiesta manuale non lavorano insieme sullo stesso
+    private final Set<Long> inCorso = ConcurrentHashMap.newKeySet();
+
+    public SincronizzazioneCalendari(CalendarioIcalService calendarioIcalService, LettoreIcal lettoreIcal, MeterRegistry meterRegistry) {
+        this.calendarioIcalService = calendarioIcalService;
+        this.lettoreIcal = lettoreIcal;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Scheduled(fixedDelayString = "${booking.ical.intervallo:15m}", initialDelayString = "${booking.ical.ritardo-iniziale:1m}")
+    public void sincronizzaTutti() {
+        for (CalendarioEsterno calendario : calendarioIcalService.elencaCalendariAttivi()) {
+            try {
+                sincronizza(calendario, false);
+            } catch (RichiestaInCorsoException e) {
+                // Una sincronizzazione manuale sta già aggiornando questo calendario: non è un errore del portale
+                logger.debug("Calendario esterno {} già in sincronizzazione, saltato", calendario.getId());
+            } catch (IOException | RuntimeException e) {
+                registraErrore(calendario, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // null se il feed non è cambiato dall'ultimo scaricamento. Con forza i validatori salvati non vengono inviati
+    public CalendarioIcalService.Esito sincronizza(CalendarioEsterno calendario, boolean forza) throws IOException, InterruptedException {
+        if (!inCorso.add(calendario.getId())) {
+            // Non è un conflitto di date: stesso 409 delle richieste idempotenti ancora in corso
+            throw new RichiestaInCorsoException("Sincronizzazione del calendario " + calendario.getId() + " già in corso, riprovare più tardi.");
+        }
+        try {
+            LettoreIcal.Scaricamento scaricamento = forza
+                    ? lettoreIcal.scarica(calendario.getUrl(), null, null)
+                    : lettoreIcal.scarica(calendario.getUrl(), calendario.getEtag(), calendario.getUltimaModifica());
+            if (scaricamento == null) {
+                calendarioIcalService.registraEsito(calendario.getId(), "invariato");
+                meterRegistry.counter("booking.ical.sincronizzazioni", "esito", "invariato").increment();
+                return null;
+            }
+            CalendarioIcalService.Esito esito = calendarioIcalService.applica(calendario.getId(), scaricamento);
+            meterRegistry.counter("booking.ical.sincronizzazioni", "esito", "applicato").increment();
+            if (!esito.conflitti().isEmpty()) {
+                logger.warn("Calendario esterno {} ({}): {}", calendario.getId(), calendario.getNome(), esito.descrizione());
+            } else {
+                logger.debug("Calendario esterno {} ({}): {}", calendario.getId(), calendario.getNome(), esito.descrizione());
+            }
+            return esito;
+        } finally {
+            inCorso.remove(calendario.getId());
+        }
+    }
+
+    public void registraErrore(CalendarioEsterno calendario, Exception e) {
+        meterRegistry.counter("booking.ical.sincronizzazioni", "esito", "errore").increment();
+        logger.warn("Sincronizzazione del calendario esterno {} ({}) non riuscita: {}", calendario.getId(), calendario.getNome(), e.toString());
+        calendarioIcalService.registraEsito(calendario.getId(), "errore: " + e.getMessage());
+    }
+}
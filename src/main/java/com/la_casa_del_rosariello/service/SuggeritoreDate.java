@@ -0,0 +1,65 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.dto.IntervalloCalendarioDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+// Date alternative per un soggiorno che non si può prenotare: il periodo libero della stessa durata più vicino
+// prima e quello più vicino dopo le date richieste, nella stessa unità.
+// Il calendario della finestra attorno alla richiesta (intervalli occupati già fusi e ordinati) arriva da una sola query,
+// poi basta una passata sui tratti liberi, invece di una verifica di disponibilità per ogni data provata.
+@Component
+public class SuggeritoreDate {
+
+    public record Periodo(LocalDate dataInizio, LocalDate dataFine) {}
+
+    public record Suggerimenti(Periodo prima, Periodo dopo) {}
+
+    private final BookingService bookingService;
+    private final int giorniFinestra;
+
+    public SuggeritoreDate(BookingService bookingService,
+                           @Value("${booking.suggerimenti.finestra-giorni:60}") int giorniFinestra) {
+        this.bookingService = bookingService;
+        this.giorniFinestra = giorniFinestra;
+    }
+
+    public Suggerimenti suggerisci(Long proprietaId, LocalDate dataInizio, LocalDate dataFine) {
+        LocalDate oggi = LocalDate.now();
+        LocalDate da = dataInizio.minusDays(giorniFinestra).isBefore(oggi) ? oggi : dataInizio.minusDays(giorniFinestra);
+        LocalDate a = dataFine.plusDays(giorniFinestra);
+        if (!a.isAfter(da)) {
+            return new Suggerimenti(null, null);
+        }
+        return cerca(bookingService.calcolaCalendario(proprietaId, da, a), dataInizio, ChronoUnit.DAYS.between(dataInizio, dataFine));
+    }
+
+    // Calendario ordinato per data; un periodo libero di "notti" notti può iniziare in un tratto libero [inizio, fine)
+    // in qualunque giorno tra inizio e fine - notti. Il suggerimento precedente è l'ultimo inizio valido prima della richiesta,
+    // quello successivo il primo inizio valido dopo: scorrendo i tratti in ordine il secondo chiude la ricerca.
+    static Suggerimenti cerca(List<IntervalloCalendarioDTO> calendario, LocalDate richiesta, long notti) {
+        Periodo prima = null;
+        for (IntervalloCalendarioDTO tratto : calendario) {
+            if (tratto.isOccupato()) {
+                continue;
+            }
+            LocalDate ultimoInizio = tratto.getDataFine().minusDays(notti);
+            if (ultimoInizio.isBefore(tratto.getDataInizio())) {
+                continue; // Tratto più corto del soggiorno
+            }
+            if (tratto.getDataInizio().isBefore(richiesta)) {
+                LocalDate inizio = ultimoInizio.isBefore(richiesta) ? ultimoInizio : richiesta.minusDays(1);
+                prima = new Periodo(inizio, inizio.plusDays(notti));
+            }
+            if (ultimoInizio.isAfter(richiesta)) {
+                LocalDate inizio = tratto.getDataInizio().isAfter(richiesta) ? tratto.getDataInizio() : richiesta.plusDays(1);
+                return new Suggerimenti(prima, new Periodo(inizio, inizio.plusDays(notti)));
+            }
+        }
+        return new Suggerimenti(prima, null);
+    }
+}
@@ -0,0 +1,152 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.TariffaStagionale;
+import com.la_casa_del_rosariello.repository.TariffaStagionaleRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Listino compilato: prezzo di ogni notte (in centesimi) per una finestra di anni, con le somme prefisse.
+// Il costo di un soggiorno dentro la finestra è una sottrazione tra due somme prefisse, qualunque sia la durata.
+// La tabella è immutabile e viene sostituita per intero: le letture non prendono lock.
+@Component
+public class TabellaPrezzi {
+
+    private final TariffaStagionaleRepository tariffaRepository;
+    private final long prezzoBase;
+    private final long prezzoWeekend;
+    private final NavigableMap<Integer, Integer> scontiDurata;
+    private final int anniCoperti;
+
+    private volatile List<TariffaStagionale> tariffe = List.of();
+    private volatile Tabella tabella;
+
+    private static final class Tabella {
+        final long epochDayIniziale;
+        final long[] prezzi;    // prezzi[i] = prezzo della notte epochDayIniziale + i
+        final long[] cumulati;  // cumulati[i] = somma di prezzi[0..i-1]
+
+        Tabella(long epochDayIniziale, long[] prezzi, long[] cumulati) {
+            this.epochDayIniziale = epochDayIniziale;
+            this.prezzi = prezzi;
+            this.cumulati = cumulati;
+        }
+
+        boolean copre(long da, long a) {
+            return da >= epochDayIniziale && a <= epochDayIniziale + prezzi.length;
+        }
+    }
+
+    public TabellaPrezzi(TariffaStagionaleRepository tariffaRepository,
+                         @Value("${booking.prezzi.base:60}") double prezzoBase,
+                         @Value("${booking.prezzi.weekend:60}") double prezzoWeekend,
+                         @Value("${booking.prezzi.sconti-durata:}") String scontiDurata,
+                         @Value("${booking.prezzi.anni:3}") int anniCoperti) {
+        this.tariffaRepository = tariffaRepository;
+        this.prezzoBase = inCentesimi(prezzoBase);
+        this.prezzoWeekend = inCentesimi(prezzoWeekend);
+        this.scontiDurata = leggiScontiDurata(scontiDurata);
+        this.anniCoperti = anniCoperti;
+    }
+
+    @PostConstruct
+    public void carica() {
+        // Un anno all'indietro per le prenotazioni recenti mostrate negli elenchi
+        LocalDate inizio = LocalDate.now().minusYears(1);
+        int giorni = (int) ChronoUnit.DAYS.between(inizio, LocalDate.now().plusYears(anniCoperti));
+        List<TariffaStagionale> regole = tariffaRepository.findAllByOrderByIdAsc();
+
+        long[] prezzi = new long[giorni];
+        for (int i = 0; i < giorni; i++) {
+            prezzi[i] = prezzoNotte(inizio.plusDays(i), regole);
+        }
+        tariffe = regole;
+        tabella = new Tabella(inizio.toEpochDay(), prezzi, cumula(prezzi, new long[giorni + 1], 0));
+    }
+
+    // Ricompila solo le notti [da, a) toccate da una tariffa modificata, poi riallinea le somme prefisse da lì in avanti
+    public synchronized void aggiornaTariffe(List<TariffaStagionale> nuoveTariffe, LocalDate da, LocalDate a) {
+        Tabella corrente = tabella;
+        long[] prezzi = corrente.prezzi.clone();
+        int iDa = (int) Math.max(0, da.toEpochDay() - corrente.epochDayIniziale);
+        int iA = (int) Math.min(prezzi.length, a.toEpochDay() - corrente.epochDayIniziale);
+        for (int i = iDa; i < iA; i++) {
+            prezzi[i] = prezzoNotte(LocalDate.ofEpochDay(corrente.epochDayIniziale + i), nuoveTariffe);
+        }
+        long[] cumulati = iDa < iA ? cumula(prezzi, Arrays.copyOf(corrente.cumulati, corrente.cumulati.length), iDa) : corrente.cumulati;
+
+        tariffe = nuoveTariffe;
+        tabella = new Tabella(corrente.epochDayIniziale, prezzi, cumulati);
+    }
+
+    public PreventivoSoggiorno calcolaPreventivo(LocalDate dataInizio, LocalDate dataFine) {
+        Tabella t = tabella;
+        long da = dataInizio.toEpochDay();
+        long a = dataFine.toEpochDay();
+        long notti = a - da;
+
+        long importo;
+        if (t.copre(da, a)) {
+            importo = t.cumulati[(int) (a - t.epochDayIniziale)] - t.cumulati[(int) (da - t.epochDayIniziale)];
+        } else {
+            // Fuori finestra (soggiorni molto lontani o storici): calcolo notte per notte
+            List<TariffaStagionale> regole = tariffe;
+            importo = 0;
+            for (LocalDate notte = dataInizio; notte.isBefore(dataFine); notte = notte.plusDays(1)) {
+                importo += prezzoNotte(notte, regole);
+            }
+        }
+
+        Map.Entry<Integer, Integer> sconto = scontiDurata.floorEntry((int) notti);
+        long importoSconto = sconto != null ? Math.round(importo * sconto.getValue() / 100.0) : 0;
+        return new PreventivoSoggiorno(notti, importo / 100.0, importoSconto / 100.0, (importo - importoSconto) / 100.0);
+    }
+
+    public double getPrezzoBase() {
+        return prezzoBase / 100.0;
+    }
+
+    private long prezzoNotte(LocalDate notte, List<TariffaStagionale> regole) {
+        boolean weekend = notte.getDayOfWeek() == DayOfWeek.FRIDAY || notte.getDayOfWeek() == DayOfWeek.SATURDAY;
+        for (int i = regole.size() - 1; i >= 0; i--) {
+            TariffaStagionale tariffa = regole.get(i);
+            if (tariffa.copre(notte)) {
+                return inCentesimi(weekend && tariffa.getPrezzoWeekend() != null ? tariffa.getPrezzoWeekend() : tariffa.getPrezzoPerNotte());
+            }
+        }
+        return weekend ? prezzoWeekend : prezzoBase;
+    }
+
+    private static long[] cumula(long[] prezzi, long[] cumulati, int da) {
+        for (int i = da; i < prezzi.length; i++) {
+            cumulati[i + 1] = cumulati[i] + prezzi[i];
+        }
+        return cumulati;
+    }
+
+    private static long inCentesimi(double euro) {
+        return Math.round(euro * 100);
+    }
+
+    // Formato "notti:percentuale" separati da virgola, es. "7:10,14:15" = 10% da 7 notti, 15% da 14 notti
+    private static NavigableMap<Integer, Integer> leggiScontiDurata(String configurazione) {
+        NavigableMap<Integer, Integer> sconti = new TreeMap<>();
+        if (configurazione == null || configurazione.isBlank()) {
+            return sconti;
+        }
+        for (String voce : configurazione.split(",")) {
+            String[] parti = voce.trim().split(":");
+            sconti.put(Integer.parseInt(parti[0].trim()), Integer.parseInt(parti[1].trim()));
+        }
+        return sconti;
+    }
+}
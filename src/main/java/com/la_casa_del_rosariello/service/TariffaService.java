@@ -0,0 +1,40 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.TariffaStagionale;
+import com.la_casa_del_rosariello.exception.TariffaNotFoundException;
+import com.la_casa_del_rosariello.repository.TariffaStagionaleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Gestione delle tariffe stagionali. Ogni modifica ricompila nella TabellaPrezzi solo il periodo interessato.
+@Service
+public class TariffaService {
+
+    @Autowired
+    private TariffaStagionaleRepository tariffaRepository;
+
+    @Autowired
+    private TabellaPrezzi tabellaPrezzi;
+
+    public List<TariffaStagionale> elencaTariffe() {
+        return tariffaRepository.findAllByOrderByIdAsc();
+    }
+
+    public TariffaStagionale creaTariffa(TariffaStagionale tariffa) {
+        if (!tariffa.getDataFine().isAfter(tariffa.getDataInizio())) {
+            throw new IllegalArgumentException("La data di fine della tariffa deve essere successiva alla data di inizio!");
+        }
+        TariffaStagionale salvata = tariffaRepository.save(tariffa);
+        tabellaPrezzi.aggiornaTariffe(tariffaRepository.findAllByOrderByIdAsc(), salvata.getDataInizio(), salvata.getDataFine());
+        return salvata;
+    }
+
+    public void eliminaTariffa(Long id) {
+        TariffaStagionale tariffa = tariffaRepository.findById(id)
+                .orElseThrow(() -> new TariffaNotFoundException("Tariffa non trovata con ID: " + id));
+        tariffaRepository.delete(tariffa);
+        tabellaPrezzi.aggiornaTariffe(tariffaRepository.findAllByOrderByIdAsc(), tariffa.getDataInizio(), tariffa.getDataFine());
+    }
+}
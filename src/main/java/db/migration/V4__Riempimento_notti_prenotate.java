@@ -0,0 +1,59 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+// Popola notte_prenotata per le prenotazioni attive già presenti, dalla data odierna in avanti.
+// Se dati storici contengono sovrapposizioni, la notte resta assegnata alla prenotazione più vecchia.
+public class V4__Riempimento_notti_prenotate extends BaseJavaMigration {
+
+    // Valori ordinali di StatoPrenotazione: CONFERMATA = 0, PENDENTE = 1
+    private static final String SELECT_ATTIVE =
+            "SELECT id, data_inizio, data_fine FROM booking WHERE stato_prenotazione IN (0, 1) AND data_fine > ? ORDER BY id";
+    private static final String INSERT_NOTTE =
+            "INSERT INTO notte_prenotata (booking_id, notte) VALUES (?, ?)";
+    private static final int DIMENSIONE_BATCH = 500;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        LocalDate oggi = LocalDate.now();
+        Set<LocalDate> occupate = new HashSet<>();
+
+        try (PreparedStatement select = connection.prepareStatement(SELECT_ATTIVE);
+             PreparedStatement insert = connection.prepareStatement(INSERT_NOTTE)) {
+            select.setDate(1, Date.valueOf(oggi));
+            int inBatch = 0;
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    long bookingId = rs.getLong("id");
+                    LocalDate inizio = rs.getDate("data_inizio").toLocalDate();
+                    LocalDate fine = rs.getDate("data_fine").toLocalDate();
+                    for (LocalDate notte = inizio.isBefore(oggi) ? oggi : inizio; notte.isBefore(fine); notte = notte.plusDays(1)) {
+                        if (!occupate.add(notte)) {
+                            continue;
+                        }
+                        insert.setLong(1, bookingId);
+                        insert.setDate(2, Date.valueOf(notte));
+                        insert.addBatch();
+                        if (++inBatch == DIMENSIONE_BATCH) {
+                            insert.executeBatch();
+                            inBatch = 0;
+                        }
+                    }
+                }
+            }
+            if (inBatch > 0) {
+                insert.executeBatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,2 @@
+-- Versione per il blocco ottimistico (@Version su Booking) e per gli ETag
+ALTER TABLE booking ADD COLUMN versione BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,7 @@
+-- Scadenza dei blocchi temporanei (prenotazioni PENDENTE). Le pendenti già presenti ricevono un giorno di margine
+-- prima di essere liberate dal job di pulizia.
+ALTER TABLE booking ADD COLUMN scadenza_hold DATETIME(6);
+UPDATE booking SET scadenza_hold = DATE_ADD(NOW(6), INTERVAL 1 DAY) WHERE stato_prenotazione = 1;
+
+-- Job di pulizia: stato_prenotazione = PENDENTE AND scadenza_hold <= ? ORDER BY scadenza_hold
+CREATE INDEX idx_booking_stato_scadenza ON booking (stato_prenotazione, scadenza_hold);
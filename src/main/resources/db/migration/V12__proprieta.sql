@@ -0,0 +1,23 @@
+-- Più unità prenotabili. La struttura esistente diventa l'unità 1 e vi vengono assegnate tutte le prenotazioni presenti.
+CREATE TABLE proprieta (
+    id          BIGINT        NOT NULL AUTO_INCREMENT,
+    nome        VARCHAR(255)  NOT NULL,
+    descrizione VARCHAR(255),
+    capienza    INT           NOT NULL,
+    attiva      BIT           NOT NULL DEFAULT 1,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO proprieta (id, nome, capienza, attiva) VALUES (1, 'La Casa del Rosariello', 2, 1);
+
+ALTER TABLE booking ADD COLUMN proprieta_id BIGINT NOT NULL DEFAULT 1;
+
+-- Verifiche di conflitto e ricerca delle unità libere: proprieta_id = ? AND stato_prenotazione IN (...) AND data_inizio < ? AND data_fine > ?
+-- Creato prima della chiave esterna, che lo usa come indice sulla colonna referenziante
+CREATE INDEX idx_booking_proprieta_stato_inizio_fine ON booking (proprieta_id, stato_prenotazione, data_inizio, data_fine);
+ALTER TABLE booking ADD CONSTRAINT fk_booking_proprieta FOREIGN KEY (proprieta_id) REFERENCES proprieta (id);
+
+-- Una notte può essere occupata una sola volta per unità: il vincolo passa da (notte) a (proprieta_id, notte)
+ALTER TABLE notte_prenotata ADD COLUMN proprieta_id BIGINT NOT NULL DEFAULT 1;
+ALTER TABLE notte_prenotata ADD CONSTRAINT uk_notte_prenotata_proprieta_notte UNIQUE (proprieta_id, notte);
+ALTER TABLE notte_prenotata DROP INDEX uk_notte_prenotata_notte;
@@ -0,0 +1,5 @@
+-- Prezzo per unità come multiplo del listino comune; le unità esistenti mantengono i prezzi attuali
+ALTER TABLE proprieta ADD COLUMN coefficiente_prezzo FLOAT(53) NOT NULL DEFAULT 1;
+
+-- Ricerca delle unità candidate: attiva = 1 AND capienza >= ?
+CREATE INDEX idx_proprieta_attiva_capienza ON proprieta (attiva, capienza);
@@ -0,0 +1,76 @@
+-- Registro delle scritture sulle prenotazioni (solo in aggiunta) e coda degli eventi da proiettare (outbox)
+CREATE TABLE evento_prenotazione (
+    id                        BIGINT        NOT NULL,
+    booking_id                BIGINT        NOT NULL,
+    proprieta_id              BIGINT        NOT NULL,
+    tipo                      VARCHAR(20)   NOT NULL,
+    stato_prenotazione        TINYINT       NOT NULL,
+    data_inizio               DATE          NOT NULL,
+    data_fine                 DATE          NOT NULL,
+    ospite_email_normalizzata VARCHAR(255),
+    numero_ospiti             INT           NOT NULL,
+    prezzo_totale             DOUBLE,
+    data_creazione            DATETIME(6),
+    versione                  BIGINT        NOT NULL,
+    registrato_il             DATETIME(6)   NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_evento_prenotazione_booking ON evento_prenotazione (booking_id, versione);
+
+CREATE TABLE evento_prenotazione_seq (
+    next_val BIGINT
+);
+INSERT INTO evento_prenotazione_seq (next_val) VALUES (1);
+
+CREATE TABLE evento_da_proiettare (
+    evento_id BIGINT NOT NULL,
+    PRIMARY KEY (evento_id)
+);
+
+-- Ultima fotografia applicata per ogni prenotazione, usata dal proiettore per calcolare le differenze
+CREATE TABLE proiezione_prenotazione (
+    booking_id                BIGINT       NOT NULL,
+    proprieta_id              BIGINT,
+    stato_prenotazione        TINYINT,
+    data_inizio               DATE,
+    data_fine                 DATE,
+    ospite_email_normalizzata VARCHAR(255),
+    prezzo_totale             DOUBLE,
+    versione                  BIGINT,
+    PRIMARY KEY (booking_id)
+);
+
+-- Tabelle di lettura
+CREATE TABLE occupazione_giornaliera (
+    proprieta_id   BIGINT  NOT NULL,
+    giorno         DATE    NOT NULL,
+    notti_occupate INT     NOT NULL,
+    ricavo         DOUBLE  NOT NULL,
+    PRIMARY KEY (proprieta_id, giorno)
+);
+
+CREATE TABLE ricavo_mensile (
+    proprieta_id BIGINT  NOT NULL,
+    mese         DATE    NOT NULL,
+    notti        INT     NOT NULL,
+    ricavo       DOUBLE  NOT NULL,
+    PRIMARY KEY (proprieta_id, mese)
+);
+
+CREATE TABLE riepilogo_ospite (
+    ospite_email_normalizzata VARCHAR(255) NOT NULL,
+    prenotazioni              INT          NOT NULL,
+    prenotazioni_confermate   INT          NOT NULL,
+    notti                     INT          NOT NULL,
+    spesa                     DOUBLE       NOT NULL,
+    PRIMARY KEY (ospite_email_normalizzata)
+);
+
+-- Le prenotazioni esistenti entrano nel registro con un evento IMPORTATA e vengono proiettate al primo giro del proiettore
+INSERT INTO evento_prenotazione (id, booking_id, proprieta_id, tipo, stato_prenotazione, data_inizio, data_fine,
+                                 ospite_email_normalizzata, numero_ospiti, prezzo_totale, data_creazione, versione, registrato_il)
+SELECT id, id, proprieta_id, 'IMPORTATA', stato_prenotazione, data_inizio, data_fine,
+       ospite_email_normalizzata, numero_ospiti, prezzo_totale, data_creazione, versione, NOW(6)
+FROM booking;
+UPDATE evento_prenotazione_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + 51 FROM evento_prenotazione);
+INSERT INTO evento_da_proiettare (evento_id) SELECT id FROM evento_prenotazione;
@@ -0,0 +1,24 @@
+-- Giorno della prenotazione nella fotografia proiettata e prenotazioni per fascia di anticipo sull'arrivo
+ALTER TABLE proiezione_prenotazione ADD COLUMN data_prenotazione DATE;
+
+CREATE TABLE anticipo_prenotazione (
+    proprieta_id  BIGINT  NOT NULL,
+    giorno_arrivo DATE    NOT NULL,
+    fascia        INT     NOT NULL,
+    prenotazioni  INT     NOT NULL,
+    PRIMARY KEY (proprieta_id, giorno_arrivo, fascia)
+);
+
+-- Report su tutte le unità: le SUM per giorno e per fascia si risolvono sugli indici, senza leggere le tabelle
+CREATE INDEX idx_occupazione_giornaliera_giorno ON occupazione_giornaliera (giorno, notti_occupate, ricavo);
+CREATE INDEX idx_anticipo_prenotazione_arrivo ON anticipo_prenotazione (giorno_arrivo, fascia, prenotazioni);
+
+-- Le fotografie già proiettate non hanno il giorno della prenotazione: le proiezioni ripartono da zero
+-- e il proiettore riapplica l'intero registro al primo giro
+DELETE FROM proiezione_prenotazione;
+DELETE FROM occupazione_giornaliera;
+DELETE FROM ricavo_mensile;
+DELETE FROM riepilogo_ospite;
+INSERT INTO evento_da_proiettare (evento_id)
+SELECT e.id FROM evento_prenotazione e
+WHERE NOT EXISTS (SELECT 1 FROM evento_da_proiettare d WHERE d.evento_id = e.id);
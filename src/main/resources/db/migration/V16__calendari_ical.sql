@@ -0,0 +1,22 @@
+-- Calendari iCal esterni (portali) da cui importare blocchi, con i dati per lo scaricamento condizionale
+CREATE TABLE calendario_esterno (
+    id                       BIGINT        NOT NULL AUTO_INCREMENT,
+    proprieta_id             BIGINT        NOT NULL,
+    nome                     VARCHAR(255)  NOT NULL,
+    url                      VARCHAR(1024) NOT NULL,
+    attivo                   BIT           NOT NULL DEFAULT 1,
+    etag                     VARCHAR(255),
+    ultima_modifica          VARCHAR(255),
+    ultima_sincronizzazione  DATETIME(6),
+    ultimo_esito             VARCHAR(1024),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_calendario_esterno_proprieta FOREIGN KEY (proprieta_id) REFERENCES proprieta (id)
+);
+
+-- Origine dei blocchi importati: calendario e UID dell'evento iCal
+ALTER TABLE booking ADD COLUMN calendario_esterno_id BIGINT;
+ALTER TABLE booking ADD COLUMN uid_esterno VARCHAR(255);
+CREATE INDEX idx_booking_calendario_uid ON booking (calendario_esterno_id, uid_esterno);
+
+-- ETag e Last-Modified del feed .ics di un'unità: COUNT e MAX sugli eventi dell'unità, solo dall'indice
+CREATE INDEX idx_evento_prenotazione_proprieta ON evento_prenotazione (proprieta_id, registrato_il);
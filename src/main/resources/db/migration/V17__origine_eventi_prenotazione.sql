@@ -0,0 +1,9 @@
+-- Origine degli eventi: i blocchi importati dai calendari esterni restano fuori dalle proiezioni dei report
+ALTER TABLE evento_prenotazione ADD COLUMN calendario_esterno_id BIGINT;
+
+UPDATE evento_prenotazione e
+JOIN booking b ON b.id = e.booking_id
+SET e.calendario_esterno_id = b.calendario_esterno_id
+WHERE b.calendario_esterno_id IS NOT NULL;
+
+-- I blocchi già proiettati escono dai report alla prossima ricostruzione (booking.proiezioni.ricostruisci-all-avvio=true)
@@ -0,0 +1,15 @@
+-- Schema di partenza, equivalente a quello generato finora da Hibernate per l'entità Booking.
+-- Sui database già esistenti questa versione viene marcata come baseline e non rieseguita.
+CREATE TABLE IF NOT EXISTS booking (
+    id                 BIGINT       NOT NULL AUTO_INCREMENT,
+    data_inizio        DATE         NOT NULL,
+    data_fine          DATE         NOT NULL,
+    ospite_nome        VARCHAR(255) NOT NULL,
+    ospite_cognome     VARCHAR(255) NOT NULL,
+    ospite_email       VARCHAR(255) NOT NULL,
+    numero_ospiti      INT          NOT NULL,
+    stato_prenotazione TINYINT      NOT NULL,
+    data_creazione     DATETIME(6),
+    note               VARCHAR(255),
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,8 @@
+-- Query di sovrapposizione: stato_prenotazione IN (CONFERMATA, PENDENTE) AND data_inizio < :fine AND data_fine > :inizio.
+-- Lo stato in prima posizione fa sì che le righe CANCELLATA (mai cancellate fisicamente) restino fuori dalle scansioni
+-- per intervallo: MySQL non supporta indici parziali, questo ne è l'equivalente pratico.
+-- Copre anche findByStatoPrenotazione tramite il prefisso sinistro.
+CREATE INDEX idx_booking_stato_inizio_fine ON booking (stato_prenotazione, data_inizio, data_fine);
+
+-- findByOspiteEmail / findByIdAndOspiteEmail
+CREATE INDEX idx_booking_ospite_email ON booking (ospite_email);
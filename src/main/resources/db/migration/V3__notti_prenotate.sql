@@ -0,0 +1,12 @@
+-- Una riga per notte bloccata: il vincolo UNIQUE rende impossibili due prenotazioni attive sulla stessa notte.
+-- Richieste su notti diverse toccano chiavi diverse e non si bloccano a vicenda.
+CREATE TABLE notte_prenotata (
+    id         BIGINT NOT NULL AUTO_INCREMENT,
+    booking_id BIGINT NOT NULL,
+    notte      DATE   NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_notte_prenotata_notte UNIQUE (notte),
+    CONSTRAINT fk_notte_prenotata_booking FOREIGN KEY (booking_id) REFERENCES booking (id)
+);
+
+CREATE INDEX idx_notte_prenotata_booking ON notte_prenotata (booking_id);
@@ -0,0 +1,12 @@
+-- Tabelle usate da Hibernate per emulare le sequenze su MySQL (ottimizzatore "pooled").
+-- Il valore iniziale supera il massimo id esistente di almeno un blocco di allocazione,
+-- così il primo blocco riservato non può sovrapporsi a id già assegnati da AUTO_INCREMENT.
+CREATE TABLE booking_seq (
+    next_val BIGINT
+);
+INSERT INTO booking_seq (next_val) SELECT COALESCE(MAX(id), 0) + 51 FROM booking;
+
+CREATE TABLE notte_prenotata_seq (
+    next_val BIGINT
+);
+INSERT INTO notte_prenotata_seq (next_val) SELECT COALESCE(MAX(id), 0) + 101 FROM notte_prenotata;
@@ -0,0 +1,2 @@
+-- Paginazione keyset del back-office ordinata per (data_inizio, id)
+CREATE INDEX idx_booking_inizio_id ON booking (data_inizio, id);
@@ -0,0 +1,9 @@
+CREATE TABLE tariffa_stagionale (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    nome             VARCHAR(255) NOT NULL,
+    data_inizio      DATE         NOT NULL,
+    data_fine        DATE         NOT NULL,
+    prezzo_per_notte FLOAT(53)    NOT NULL,
+    prezzo_weekend   FLOAT(53),
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,4 @@
+-- Prezzo fissato sulla prenotazione; le righe esistenti vengono popolate all'avvio da BackfillPrezziJob
+ALTER TABLE booking ADD COLUMN prezzo_notti FLOAT(53);
+ALTER TABLE booking ADD COLUMN sconto_durata FLOAT(53);
+ALTER TABLE booking ADD COLUMN prezzo_totale FLOAT(53);
@@ -0,0 +1,8 @@
+-- Email dell'ospite normalizzata (minuscolo, senza spazi) per le ricerche self-service:
+-- WHERE ospite_email_normalizzata = ? è una ricerca sull'indice, il secondo campo serve all'ordinamento per data.
+ALTER TABLE booking ADD COLUMN ospite_email_normalizzata VARCHAR(255);
+UPDATE booking SET ospite_email_normalizzata = LOWER(TRIM(ospite_email));
+CREATE INDEX idx_booking_email_normalizzata ON booking (ospite_email_normalizzata, data_inizio);
+
+-- Sostituito dall'indice sulla colonna normalizzata
+DROP INDEX idx_booking_ospite_email ON booking;
@@ -0,0 +1,73 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.controller.BookingMapper;
+import com.la_casa_del_rosariello.dto.BookingResponseDTO;
+import com.la_casa_del_rosariello.entity.Booking;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+import static com.la_casa_del_rosariello.service.PrenotazioniDiProva.nuovaPrenotazione;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+public class BackfillPrezziJobIT {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BackfillPrezziJob backfillPrezziJob;
+
+    @Autowired
+    private BookingMapper bookingMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testLePrenotazioniSenzaPrezzoVengonoAllineateSaltandoQuelleNonPrezzabili() {
+        LocalDate base = LocalDate.now().plusDays(1400);
+        Booking prima = bookingService.createdBooking(nuovaPrenotazione(base, base.plusDays(3)));
+        Booking nonPrezzabile = bookingService.createdBooking(nuovaPrenotazione(base.plusDays(5), base.plusDays(7)));
+        Booking seconda = bookingService.createdBooking(nuovaPrenotazione(base.plusDays(10), base.plusDays(17)));
+
+        // Righe precedenti alla colonna del prezzo; la terza ha date che il listino rifiuta e fa fallire il blocco
+        jdbcTemplate.update("UPDATE booking SET prezzo_notti = NULL, sconto_durata = NULL, prezzo_totale = NULL WHERE id IN (?, ?, ?)",
+                prima.getId(), nonPrezzabile.getId(), seconda.getId());
+        jdbcTemplate.update("UPDATE booking SET data_fine = data_inizio WHERE id = ?", nonPrezzabile.getId());
+        entityManagerFactory.getCache().evict(Booking.class);
+
+        assertEquals(2, backfillPrezziJob.aggiorna());
+
+        for (Booking originale : new Booking[]{prima, seconda}) {
+            Booking aggiornata = bookingService.findBookingById(originale.getId()).orElseThrow();
+            assertEquals(originale.getPrezzoTotale(), aggiornata.getPrezzoTotale());
+            assertEquals(originale.getPrezzoNotti(), aggiornata.getPrezzoNotti());
+            assertEquals(originale.getScontoDurata(), aggiornata.getScontoDurata());
+
+            // La lettura copia il prezzo salvato invece di ricalcolarlo
+            BookingResponseDTO dto = bookingMapper.mapToBookingResponseDTO(aggiornata);
+            assertEquals(aggiornata.getPrezzoTotale(), dto.getPrezzoTotale());
+            assertEquals(aggiornata.getPrezzoNotti(), dto.getImportoNotti());
+        }
+        assertNull(bookingService.findBookingById(nonPrezzabile.getId()).orElseThrow().getPrezzoTotale());
+
+        // Corretta la riga, l'esecuzione successiva la riprende
+        jdbcTemplate.update("UPDATE booking SET data_fine = ? WHERE id = ?", Date.valueOf(base.plusDays(7)), nonPrezzabile.getId());
+        entityManagerFactory.getCache().evict(Booking.class);
+
+        assertEquals(1, backfillPrezziJob.aggiorna());
+        assertNotNull(bookingService.findBookingById(nonPrezzabile.getId()).orElseThrow().getPrezzoTotale());
+    }
+}
@@ -0,0 +1,104 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.exception.BookingConflictException;
+import com.la_casa_del_rosariello.exception.PreconditionFailedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static com.la_casa_del_rosariello.service.PrenotazioniDiProva.nuovaPrenotazione;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class BookingConcorrenzaIT {
+
+    private static final int THREAD = 16;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Test
+    void testRichiesteSovrapposteUnaSolaVince() throws Exception {
+        LocalDate base = LocalDate.now().plusDays(200);
+        AtomicInteger create = new AtomicInteger();
+        AtomicInteger conflitti = new AtomicInteger();
+
+        // Tutti gli intervalli condividono almeno la notte base+2
+        eseguiInParallelo(i -> {
+            LocalDate inizio = base.plusDays(i % 3);
+            try {
+                bookingService.createdBooking(nuovaPrenotazione(inizio, inizio.plusDays(4)));
+                create.incrementAndGet();
+            } catch (BookingConflictException e) {
+                conflitti.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, create.get());
+        assertEquals(THREAD - 1, conflitti.get());
+    }
+
+    @Test
+    void testRichiesteDisgiunteNonSiBloccano() throws Exception {
+        LocalDate base = LocalDate.now().plusDays(400);
+        AtomicInteger create = new AtomicInteger();
+
+        eseguiInParallelo(i -> {
+            LocalDate inizio = base.plusDays(i * 3L);
+            bookingService.createdBooking(nuovaPrenotazione(inizio, inizio.plusDays(3)));
+            create.incrementAndGet();
+        });
+
+        assertEquals(THREAD, create.get());
+    }
+
+    @Test
+    void testModificheConcorrentiSullaStessaVersioneUnaSolaVince() throws Exception {
+        LocalDate base = LocalDate.now().plusDays(600);
+        Booking prenotazione = bookingService.createdBooking(nuovaPrenotazione(base, base.plusDays(3)));
+        Long versione = prenotazione.getVersione();
+        AtomicInteger riuscite = new AtomicInteger();
+        AtomicInteger rifiutate = new AtomicInteger();
+
+        // Tutti partono dalla stessa versione (stesso If-Match): le altre devono fallire, non sovrascrivere
+        eseguiInParallelo(i -> {
+            try {
+                bookingService.cancellaPrenotazione(prenotazione.getId(), versione);
+                riuscite.incrementAndGet();
+            } catch (PreconditionFailedException | ObjectOptimisticLockingFailureException e) {
+                rifiutate.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, riuscite.get());
+        assertEquals(THREAD - 1, rifiutate.get());
+        assertEquals(versione + 1, bookingService.findBookingById(prenotazione.getId()).orElseThrow().getVersione());
+    }
+
+    private void eseguiInParallelo(IntConsumer compito) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD);
+        CountDownLatch partenza = new CountDownLatch(1);
+        for (int i = 0; i < THREAD; i++) {
+            int indice = i;
+            executor.submit(() -> {
+                partenza.await();
+                compito.accept(indice);
+                return null;
+            });
+        }
+        partenza.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+    }
+}
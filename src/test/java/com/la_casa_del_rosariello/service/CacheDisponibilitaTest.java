@@ -0,0 +1,84 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.event.PrenotazioneModificataEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CacheDisponibilitaTest {
+
+    private static final Long UNITA = 1L;
+    private static final Long ALTRA_UNITA = 2L;
+
+    private CacheDisponibilita cache;
+    private AtomicInteger calcoli;
+    private LocalDate base;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CacheDisponibilita(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+        calcoli = new AtomicInteger();
+        base = LocalDate.now().plusDays(500);
+    }
+
+    @Test
+    void testUnaScritturaInvalidaSoloIPeriodiSovrappostiDellaStessaUnita() {
+        disponibilita(UNITA, base, base.plusDays(5));
+        disponibilita(UNITA, base.plusDays(10), base.plusDays(12));
+        disponibilita(ALTRA_UNITA, base, base.plusDays(5));
+        calendario(UNITA, base, base.plusDays(30));
+        calendario(ALTRA_UNITA, base, base.plusDays(30));
+        assertEquals(5, calcoli.get());
+
+        // Nuova prenotazione sull'unità 1 dal giorno 2 al 4
+        cache.onPrenotazioneModificata(new PrenotazioneModificataEvent(99L, UNITA, null, null, base.plusDays(2), base.plusDays(4),
+                null, "mario.rossi@example.com", null));
+
+        calcoli.set(0);
+        disponibilita(UNITA, base.plusDays(10), base.plusDays(12));
+        disponibilita(ALTRA_UNITA, base, base.plusDays(5));
+        calendario(ALTRA_UNITA, base, base.plusDays(30));
+        assertEquals(0, calcoli.get());
+
+        disponibilita(UNITA, base, base.plusDays(5));
+        calendario(UNITA, base, base.plusDays(30));
+        assertEquals(2, calcoli.get());
+    }
+
+    @Test
+    void testLeDateLiberateInvalidanoIPeriodiCheLeContenevano() {
+        disponibilita(UNITA, base.plusDays(20), base.plusDays(25));
+        disponibilita(UNITA, base.plusDays(25), base.plusDays(27));
+
+        // Cancellazione: non blocca più le date dal 22 al 24 e non ne occupa di nuove
+        cache.onPrenotazioneModificata(new PrenotazioneModificataEvent(99L, UNITA, base.plusDays(22), base.plusDays(24), null, null,
+                "mario.rossi@example.com", "mario.rossi@example.com", null));
+
+        calcoli.set(0);
+        disponibilita(UNITA, base.plusDays(25), base.plusDays(27));
+        assertEquals(0, calcoli.get());
+        disponibilita(UNITA, base.plusDays(20), base.plusDays(25));
+        assertEquals(1, calcoli.get());
+    }
+
+    private void disponibilita(Long unita, LocalDate dataInizio, LocalDate dataFine) {
+        cache.disponibilita(unita, dataInizio, dataFine, () -> {
+            calcoli.incrementAndGet();
+            return true;
+        });
+    }
+
+    private void calendario(Long unita, LocalDate dataInizio, LocalDate dataFine) {
+        cache.calendario(unita, dataInizio, dataFine, () -> {
+            calcoli.incrementAndGet();
+            return List.of();
+        });
+    }
+}
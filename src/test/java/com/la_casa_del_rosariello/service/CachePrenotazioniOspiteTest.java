@@ -0,0 +1,73 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.event.PrenotazioneModificataEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CachePrenotazioniOspiteTest {
+
+    private static final String MARIO = "mario.rossi@example.com";
+    private static final String ANNA = "anna.bianchi@example.com";
+    private static final String LUCA = "luca.verdi@example.com";
+
+    private CachePrenotazioniOspite cache;
+    private AtomicInteger caricamenti;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CachePrenotazioniOspite(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+        caricamenti = new AtomicInteger();
+        carica(MARIO, 1L);
+        carica(ANNA, 2L);
+        carica(LUCA, 3L);
+        caricamenti.set(0);
+    }
+
+    @Test
+    void testLaCreazioneInvalidaSoloLOspiteAttuale() {
+        cache.onPrenotazioneModificata(new PrenotazioneModificataEvent(4L, 1L, null, null, null, null, null, MARIO, null));
+
+        carica(ANNA, 2L);
+        carica(LUCA, 3L);
+        assertEquals(0, caricamenti.get());
+        carica(MARIO, 1L, 4L);
+        assertEquals(1, caricamenti.get());
+    }
+
+    @Test
+    void testIlCambioDiEmailInvalidaLaVecchiaELaNuova() {
+        // La prenotazione 1 passa da Mario ad Anna
+        cache.onPrenotazioneModificata(new PrenotazioneModificataEvent(1L, 1L, null, null, null, null, MARIO, ANNA, null));
+
+        carica(LUCA, 3L);
+        assertEquals(0, caricamenti.get());
+        carica(MARIO);
+        carica(ANNA, 1L, 2L);
+        assertEquals(2, caricamenti.get());
+    }
+
+    @Test
+    void testLaCancellazioneInvalidaSoloLOspiteDellaPrenotazione() {
+        cache.onPrenotazioneModificata(new PrenotazioneModificataEvent(2L, 1L, null, null, null, null, ANNA, ANNA, null));
+
+        carica(MARIO, 1L);
+        carica(LUCA, 3L);
+        assertEquals(0, caricamenti.get());
+        carica(ANNA, 2L);
+        assertEquals(1, caricamenti.get());
+    }
+
+    private void carica(String email, Long... ids) {
+        cache.prenotazioni(email, () -> {
+            caricamenti.incrementAndGet();
+            return List.of(ids);
+        });
+    }
+}
@@ -0,0 +1,115 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.EventoPrenotazione;
+import com.la_casa_del_rosariello.entity.ProiezionePrenotazione;
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import com.la_casa_del_rosariello.entity.TipoEventoPrenotazione;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeltaProiezioniTest {
+
+    private static final LocalDate BASE = LocalDate.of(2030, 7, 30);
+
+    private static EventoPrenotazione evento(StatoPrenotazione stato, LocalDate inizio, LocalDate fine, double prezzo) {
+        return evento(stato, inizio, fine, prezzo, LocalDateTime.of(2030, 6, 1, 10, 0));
+    }
+
+    private static EventoPrenotazione evento(StatoPrenotazione stato, LocalDate inizio, LocalDate fine, double prezzo, LocalDateTime dataCreazione) {
+        Booking booking = new Booking(1L, inizio, fine, "Mario", "Rossi", "Mario.Rossi@Example.com", 2, stato, dataCreazione);
+        booking.setPrezzoTotale(prezzo);
+        return new EventoPrenotazione(TipoEventoPrenotazione.MODIFICATA, booking);
+    }
+
+    @Test
+    void testRicavoRipartitoSulleNottiEDueMesi() {
+        // 30 luglio - 2 agosto: 3 notti, due a luglio e una ad agosto
+        ProiezionePrenotazione fotografia = new ProiezionePrenotazione(1L);
+        fotografia.aggiorna(evento(StatoPrenotazione.CONFERMATA, BASE, BASE.plusDays(3), 300));
+
+        DeltaProiezioni delta = new DeltaProiezioni();
+        delta.aggiungi(fotografia);
+
+        assertEquals(3, delta.giorni.size());
+        assertEquals(100, delta.giorni.get(new DeltaProiezioni.Giorno(1L, BASE)).ricavo, 1e-9);
+        assertEquals(2, delta.mesi.get(new DeltaProiezioni.Mese(1L, LocalDate.of(2030, 7, 1))).notti);
+        assertEquals(200, delta.mesi.get(new DeltaProiezioni.Mese(1L, LocalDate.of(2030, 7, 1))).ricavo, 1e-9);
+        assertEquals(1, delta.mesi.get(new DeltaProiezioni.Mese(1L, LocalDate.of(2030, 8, 1))).notti);
+
+        DeltaProiezioni.Ospite ospite = delta.ospiti.get("mario.rossi@example.com");
+        assertEquals(1, ospite.prenotazioni);
+        assertEquals(1, ospite.confermate);
+        assertEquals(3, ospite.notti);
+        assertEquals(300, ospite.spesa, 1e-9);
+    }
+
+    @Test
+    void testCancellazioneTogliContributo() {
+        ProiezionePrenotazione fotografia = new ProiezionePrenotazione(1L);
+        DeltaProiezioni delta = new DeltaProiezioni();
+
+        // Nessun contributo da togliere per una prenotazione mai proiettata
+        delta.togli(fotografia);
+        fotografia.aggiorna(evento(StatoPrenotazione.CONFERMATA, BASE, BASE.plusDays(2), 200));
+        delta.aggiungi(fotografia);
+
+        delta.togli(fotografia);
+        fotografia.aggiorna(evento(StatoPrenotazione.CANCELLATA, BASE, BASE.plusDays(2), 200));
+        delta.aggiungi(fotografia);
+
+        assertTrue(delta.giorni.values().stream().allMatch(DeltaProiezioni.Notti::isNulla));
+        assertTrue(delta.mesi.values().stream().allMatch(DeltaProiezioni.Notti::isNulla));
+        // La prenotazione cancellata resta tra quelle dell'ospite, ma non tra le confermate
+        DeltaProiezioni.Ospite ospite = delta.ospiti.get("mario.rossi@example.com");
+        assertFalse(ospite.isNulla());
+        assertEquals(1, ospite.prenotazioni);
+        assertEquals(0, ospite.confermate);
+        assertEquals(0, ospite.notti);
+    }
+
+    @Test
+    void testPendenteNonVende() {
+        ProiezionePrenotazione fotografia = new ProiezionePrenotazione(1L);
+        fotografia.aggiorna(evento(StatoPrenotazione.PENDENTE, BASE, BASE.plusDays(2), 200));
+
+        DeltaProiezioni delta = new DeltaProiezioni();
+        delta.aggiungi(fotografia);
+
+        assertTrue(delta.giorni.isEmpty());
+        assertEquals(1, delta.ospiti.get("mario.rossi@example.com").prenotazioni);
+        assertEquals(0, delta.ospiti.get("mario.rossi@example.com").spesa, 1e-9);
+    }
+
+    @Test
+    void testFasceAnticipo() {
+        assertEquals(0, DeltaProiezioni.fascia(-3));
+        assertEquals(0, DeltaProiezioni.fascia(6));
+        assertEquals(7, DeltaProiezioni.fascia(7));
+        assertEquals(30, DeltaProiezioni.fascia(59));
+        assertEquals(180, DeltaProiezioni.fascia(400));
+    }
+
+    @Test
+    void testAnticipoSoloConDataCreazione() {
+        // Prenotata il 1 giugno per il 30 luglio: 59 giorni di anticipo
+        ProiezionePrenotazione conData = new ProiezionePrenotazione(1L);
+        conData.aggiorna(evento(StatoPrenotazione.CONFERMATA, BASE, BASE.plusDays(2), 200));
+        ProiezionePrenotazione senzaData = new ProiezionePrenotazione(2L);
+        senzaData.aggiorna(evento(StatoPrenotazione.CONFERMATA, BASE, BASE.plusDays(2), 200, null));
+
+        DeltaProiezioni delta = new DeltaProiezioni();
+        delta.aggiungi(conData);
+        delta.aggiungi(senzaData);
+
+        assertEquals(1, delta.arrivi.size());
+        assertEquals(1, delta.arrivi.get(new DeltaProiezioni.Arrivo(1L, BASE, 30)));
+        assertEquals(4, delta.giorni.get(new DeltaProiezioni.Giorno(1L, BASE)).notti + delta.giorni.get(new DeltaProiezioni.Giorno(1L, BASE.plusDays(1))).notti);
+    }
+}
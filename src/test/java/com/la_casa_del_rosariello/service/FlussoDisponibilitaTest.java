@@ -0,0 +1,156 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.dto.InvalidazioneDisponibilitaDTO;
+import com.la_casa_del_rosariello.event.PrenotazioneModificataEvent;
+import com.la_casa_del_rosariello.exception.FlussoSaturoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FlussoDisponibilitaTest {
+
+    private static final LocalDate BASE = LocalDate.of(2030, 7, 1);
+
+    // Registra il tipo di ogni messaggio ricevuto ("battito" per i commenti); il primo invio può restare bloccato
+    private static class EmitterDiProva extends SseEmitter {
+        private final List<String> ricevuti = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sblocco;
+        private final CountDownLatch primoInvio = new CountDownLatch(1);
+
+        EmitterDiProva(CountDownLatch sblocco) {
+            this.sblocco = sblocco;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            primoInvio.countDown();
+            try {
+                sblocco.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            String testo = builder.build().stream().map(parte -> String.valueOf(parte.getData())).collect(Collectors.joining());
+            ricevuti.add(testo.startsWith(":") ? "battito" : testo.replaceAll("(?s).*event:(\\w+).*", "$1"));
+        }
+    }
+
+    private FlussoDisponibilita flusso;
+
+    @BeforeEach
+    void setUp() {
+        flusso = new FlussoDisponibilita(new SimpleMeterRegistry(), Duration.ofMinutes(1), 100, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        flusso.chiudi();
+    }
+
+    private static void attendi(BooleanSupplier condizione) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condizione.getAsBoolean() && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertTrue(condizione.getAsBoolean());
+    }
+
+    @Test
+    void testSoloLeInvalidazioniDellUnitaEDelPeriodo() throws InterruptedException {
+        EmitterDiProva luglio = new EmitterDiProva(new CountDownLatch(0));
+        EmitterDiProva tutto = new EmitterDiProva(new CountDownLatch(0));
+        flusso.registra(luglio, 1L, BASE, BASE.plusMonths(1), false);
+        flusso.registra(tutto, 1L, null, null, false);
+
+        // Spostamento da agosto a luglio: il periodo vecchio interessa solo chi segue tutte le date
+        flusso.onPrenotazioneModificata(new PrenotazioneModificataEvent(10L, 1L, BASE.plusMonths(1), BASE.plusMonths(1).plusDays(3),
+                BASE.plusDays(5), BASE.plusDays(8), null, null, null));
+        // Altra unità: nessuno
+        flusso.pubblica(new InvalidazioneDisponibilitaDTO(2L, BASE, BASE.plusDays(3)));
+
+        attendi(() -> tutto.ricevuti.size() == 3 && luglio.ricevuti.size() == 2);
+        assertEquals(List.of("battito", "invalidazione"), luglio.ricevuti);
+        assertEquals(List.of("battito", "invalidazione", "invalidazione"), tutto.ricevuti);
+        assertEquals(2, flusso.connessioni());
+    }
+
+    @Test
+    void testClientLentoRiceveUnaSolaRicarica() throws InterruptedException {
+        CountDownLatch sblocco = new CountDownLatch(1);
+        EmitterDiProva lento = new EmitterDiProva(sblocco);
+        flusso.registra(lento, 1L, null, null, false);
+        assertTrue(lento.primoInvio.await(5, TimeUnit.SECONDS));
+
+        // Il primo invio è fermo: le invalidazioni superano la coda (4) senza bloccare chi pubblica
+        for (int i = 0; i < 20; i++) {
+            flusso.pubblica(new InvalidazioneDisponibilitaDTO(1L, BASE.plusDays(i), BASE.plusDays(i + 1)));
+        }
+        sblocco.countDown();
+
+        attendi(() -> lento.ricevuti.size() == 2);
+        Thread.sleep(50);
+        assertEquals(List.of("battito", "ricarica"), lento.ricevuti);
+    }
+
+    @Test
+    void testRicollegamentoRiceveSubitoUnaRicarica() throws InterruptedException {
+        EmitterDiProva ricollegato = new EmitterDiProva(new CountDownLatch(0));
+        flusso.registra(ricollegato, 1L, BASE, BASE.plusMonths(1), true);
+        // La ricarica sostituisce anche il battito iniziale
+        attendi(() -> ricollegato.ricevuti.size() == 1);
+        flusso.pubblica(new InvalidazioneDisponibilitaDTO(1L, BASE, BASE.plusDays(3)));
+
+        attendi(() -> ricollegato.ricevuti.size() == 2);
+        assertEquals(List.of("ricarica", "invalidazione"), ricollegato.ricevuti);
+    }
+
+    @Test
+    void testLimiteDiConnessioniConIscrizioniSimultanee() throws Exception {
+        CountDownLatch partenza = new CountDownLatch(1);
+        ExecutorService esecutore = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Boolean>> esiti = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                esiti.add(esecutore.submit(() -> {
+                    partenza.await();
+                    try {
+                        flusso.registra(new EmitterDiProva(new CountDownLatch(0)), 1L, null, null, false);
+                        return true;
+                    } catch (FlussoSaturoException e) {
+                        return false;
+                    }
+                }));
+            }
+            partenza.countDown();
+            int accettate = 0;
+            for (Future<Boolean> esito : esiti) {
+                if (esito.get(5, TimeUnit.SECONDS)) {
+                    accettate++;
+                }
+            }
+            // connessioniMassime = 100
+            assertEquals(100, accettate);
+            assertEquals(100, flusso.connessioni());
+        } finally {
+            esecutore.shutdownNow();
+        }
+    }
+}
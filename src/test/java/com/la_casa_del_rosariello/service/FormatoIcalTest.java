@@ -0,0 +1,121 @@
+package com.la_casa_del_rosariello.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FormatoIcalTest {
+
+    private static final ZoneId ROMA = ZoneId.of("Europe/Rome");
+
+    private static String calendario(String... righe) {
+        return "BEGIN:VCALENDAR\r\nVERSION:2.0\r\n" + String.join("\r\n", righe) + "\r\nEND:VCALENDAR\r\n";
+    }
+
+    @Test
+    void testLetturaDateERigheSpezzate() {
+        String ics = calendario(
+                "BEGIN:VEVENT",
+                "UID:abc@portale",
+                "DTSTART;VALUE=DATE:20300701",
+                "DTEND;VALUE=DATE:20300705",
+                "SUMMARY:Prenotazione\\, ospite",
+                "  esterno",
+                "END:VEVENT");
+
+        List<FormatoIcal.Evento> eventi = FormatoIcal.leggi(ics);
+
+        assertEquals(1, eventi.size());
+        assertEquals("abc@portale", eventi.get(0).uid());
+        assertEquals(LocalDate.of(2030, 7, 1), eventi.get(0).dataInizio());
+        assertEquals(LocalDate.of(2030, 7, 5), eventi.get(0).dataFine());
+        assertEquals("Prenotazione, ospite esterno", eventi.get(0).descrizione());
+    }
+
+    @Test
+    void testEventiSenzaFineSenzaUidCancellatiEComponentiAnnidati() {
+        String ics = calendario(
+                "BEGIN:VEVENT",
+                "DTSTART:20300710T140000Z",
+                "BEGIN:VALARM",
+                "UID:allarme",
+                "END:VALARM",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:cancellato",
+                "STATUS:CANCELLED",
+                "DTSTART;VALUE=DATE:20300801",
+                "DTEND;VALUE=DATE:20300803",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:incoerente",
+                "DTSTART;VALUE=DATE:20300901",
+                "DTEND;VALUE=DATE:20300901",
+                "END:VEVENT");
+
+        List<FormatoIcal.Evento> eventi = FormatoIcal.leggi(ics, ROMA);
+
+        // Solo il primo: una notte (nessun DTEND), UID ricavato dalle date, l'UID del VALARM ignorato
+        assertEquals(1, eventi.size());
+        assertEquals("senza-uid-2030-07-10-2030-07-11", eventi.get(0).uid());
+        assertEquals(LocalDate.of(2030, 7, 11), eventi.get(0).dataFine());
+        assertNull(eventi.get(0).descrizione());
+    }
+
+    @Test
+    void testOrariConFusoRiportatiAlGiornoLocale() {
+        String ics = calendario(
+                "BEGIN:VEVENT",
+                "UID:utc",
+                "DTSTART:20300701T230000Z",
+                "DTEND:20300704T080000Z",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:new-york",
+                "DTSTART;TZID=America/New_York:20300710T200000",
+                "DTEND;TZID=\"America/New_York\":20300712T100000",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:senza-fuso",
+                "DTSTART:20300720T230000",
+                "DTEND:20300722T100000",
+                "END:VEVENT");
+
+        List<FormatoIcal.Evento> eventi = FormatoIcal.leggi(ics, ROMA);
+
+        // 23:00 UTC è già il giorno dopo a Roma
+        assertEquals(LocalDate.of(2030, 7, 2), eventi.get(0).dataInizio());
+        assertEquals(LocalDate.of(2030, 7, 4), eventi.get(0).dataFine());
+        // 20:00 a New York sono le 02:00 del giorno dopo a Roma
+        assertEquals(LocalDate.of(2030, 7, 11), eventi.get(1).dataInizio());
+        assertEquals(LocalDate.of(2030, 7, 12), eventi.get(1).dataFine());
+        // Orario senza fuso: il giorno scritto
+        assertEquals(LocalDate.of(2030, 7, 20), eventi.get(2).dataInizio());
+    }
+
+    @Test
+    void testScritturaRiletta() {
+        String nome = "Casa del Rosariello, appartamento con vista sul golfo e terrazza panoramica";
+        List<FormatoIcal.Evento> eventi = List.of(
+                new FormatoIcal.Evento("booking-1@la-casa-del-rosariello", LocalDate.of(2030, 7, 1), LocalDate.of(2030, 7, 3), "Non disponibile"),
+                new FormatoIcal.Evento("booking-2@la-casa-del-rosariello", LocalDate.of(2030, 7, 3), LocalDate.of(2030, 7, 10), "Non disponibile"));
+
+        String ics = FormatoIcal.scrivi(nome, eventi, Instant.parse("2030-06-01T10:00:00Z"));
+
+        assertTrue(ics.contains("DTSTART;VALUE=DATE:20300701\r\n"));
+        assertTrue(ics.contains("DTSTAMP:20300601T100000Z\r\n"));
+        // Nessuna riga oltre i 75 ottetti
+        for (String riga : ics.split("\r\n")) {
+            assertTrue(riga.getBytes(StandardCharsets.UTF_8).length <= 75, riga);
+        }
+        assertEquals(eventi, FormatoIcal.leggi(ics));
+    }
+}
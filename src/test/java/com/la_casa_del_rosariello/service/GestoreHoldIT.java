@@ -0,0 +1,158 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.EventoPrenotazione;
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import com.la_casa_del_rosariello.entity.TipoEventoPrenotazione;
+import com.la_casa_del_rosariello.repository.BookingRepository;
+import com.la_casa_del_rosariello.repository.EventoPrenotazioneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.la_casa_del_rosariello.service.PrenotazioniDiProva.nuovaPrenotazione;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class GestoreHoldIT {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private GestoreHold gestoreHold;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EventoPrenotazioneRepository eventoPrenotazioneRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void testPuliziaChiudeIBlocchiScadutiELiberaLeNotti() {
+        LocalDate inizio = LocalDate.now().plusDays(800);
+        Booking hold = bookingService.createdBooking(nuovaPrenotazione(inizio, inizio.plusDays(3)), true);
+        Long versione = hold.getVersione();
+        scadenzaNelPassato(hold.getId());
+
+        gestoreHold.pulisci();
+
+        assertEquals(StatoPrenotazione.SCADUTA.ordinal(), stato(hold.getId()));
+        Booking scaduta = bookingService.findBookingById(hold.getId()).orElseThrow();
+        assertEquals(StatoPrenotazione.SCADUTA, scaduta.getStatoPrenotazione());
+        assertEquals(versione + 1, scaduta.getVersione());
+
+        // L'evento del registro riporta la versione scritta dall'UPDATE
+        List<EventoPrenotazione> eventi = eventoPrenotazioneRepository.findByBookingIdOrderByVersioneAscIdAsc(hold.getId());
+        EventoPrenotazione ultimo = eventi.get(eventi.size() - 1);
+        assertEquals(TipoEventoPrenotazione.SCADUTA, ultimo.getTipo());
+        assertEquals(versione + 1, ultimo.getVersione());
+
+        // Notti di nuovo libere
+        bookingService.createdBooking(nuovaPrenotazione(inizio, inizio.plusDays(3)));
+    }
+
+    @Test
+    void testPuliziaSaltaLeRigheBloccateDaUnAltraTransazione() throws Exception {
+        LocalDate inizio = LocalDate.now().plusDays(820);
+        Booking hold = bookingService.createdBooking(nuovaPrenotazione(inizio, inizio.plusDays(2)), true);
+        scadenzaNelPassato(hold.getId());
+
+        CountDownLatch bloccata = new CountDownLatch(1);
+        CountDownLatch rilascio = new CountDownLatch(1);
+        CompletableFuture<Void> transazione = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT id FROM booking WHERE id = ? FOR UPDATE", Long.class, hold.getId());
+            bloccata.countDown();
+            try {
+                rilascio.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        try {
+            assertTrue(bloccata.await(10, TimeUnit.SECONDS));
+            // SKIP LOCKED: il job non attende la riga bloccata e la lascia al giro successivo
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> gestoreHold.pulisci());
+            assertEquals(StatoPrenotazione.PENDENTE.ordinal(), stato(hold.getId()));
+        } finally {
+            rilascio.countDown();
+            transazione.get(10, TimeUnit.SECONDS);
+        }
+
+        gestoreHold.pulisci();
+        assertEquals(StatoPrenotazione.SCADUTA.ordinal(), stato(hold.getId()));
+    }
+
+    @Test
+    void testConfermaPartitaPrimaDellaScadenzaFallisceSullaVersione() throws Exception {
+        LocalDate inizio = LocalDate.now().plusDays(840);
+        Booking hold = bookingService.createdBooking(nuovaPrenotazione(inizio, inizio.plusDays(2)), true);
+        scadenzaNelPassato(hold.getId());
+
+        // La conferma legge la prenotazione ancora PENDENTE, il job la chiude e fa commit prima che la conferma scriva
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            Booking letta = bookingRepository.findById(hold.getId()).orElseThrow();
+            CompletableFuture.runAsync(gestoreHold::pulisci).join();
+            letta.setStatoPrenotazione(StatoPrenotazione.CONFERMATA);
+            letta.setScadenzaHold(null);
+            bookingRepository.saveAndFlush(letta);
+        }));
+
+        assertEquals(StatoPrenotazione.SCADUTA.ordinal(), stato(hold.getId()));
+    }
+
+    @Test
+    void testConfermaGiaSalvataNonVieneChiusa() {
+        LocalDate inizio = LocalDate.now().plusDays(860);
+        Booking hold = bookingService.createdBooking(nuovaPrenotazione(inizio, inizio.plusDays(2)), true);
+        Booking confermata = transactionTemplate.execute(status -> {
+            Booking letta = bookingRepository.findById(hold.getId()).orElseThrow();
+            letta.setStatoPrenotazione(StatoPrenotazione.CONFERMATA);
+            letta.setScadenzaHold(null);
+            return bookingRepository.saveAndFlush(letta);
+        });
+
+        gestoreHold.pulisci();
+
+        assertEquals(StatoPrenotazione.CONFERMATA.ordinal(), stato(hold.getId()));
+        assertEquals(confermata.getVersione(), bookingService.findBookingById(hold.getId()).orElseThrow().getVersione());
+    }
+
+    private void scadenzaNelPassato(Long id) {
+        jdbcTemplate.update("UPDATE booking SET scadenza_hold = ? WHERE id = ?", Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), id);
+    }
+
+    private int stato(Long id) {
+        return jdbcTemplate.queryForObject("SELECT stato_prenotazione FROM booking WHERE id = ?", Integer.class, id);
+    }
+}
@@ -0,0 +1,101 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.dto.BookingRequestDTO;
+import com.la_casa_del_rosariello.dto.ImportazioneResponseDTO;
+import com.la_casa_del_rosariello.dto.RigaScartataDTO;
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.Proprieta;
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.la_casa_del_rosariello.service.PrenotazioniDiProva.nuovaPrenotazione;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class ImportazioneServiceIT {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ImportazioneService importazioneService;
+
+    @Autowired
+    private LettoreImportazione lettoreImportazione;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testLottoConSovrapposizioniInterneEConPrenotazioneEsistente() {
+        LocalDate base = LocalDate.now().plusDays(1300);
+        Booking esistente = bookingService.createdBooking(nuovaPrenotazione(base.plusDays(10), base.plusDays(13)));
+
+        BookingRequestDTO troppiOspiti = richiesta(base.plusDays(20), base.plusDays(22), StatoPrenotazione.CONFERMATA);
+        troppiOspiti.setNumeroOspiti(3);
+        List<BookingRequestDTO> lotto = List.of(
+                richiesta(base.plusDays(2), base.plusDays(5), StatoPrenotazione.CONFERMATA),   // 1: sovrapposta alla riga 2, che inizia prima
+                richiesta(base, base.plusDays(3), StatoPrenotazione.CONFERMATA),                // 2: accettata
+                richiesta(base.plusDays(11), base.plusDays(12), StatoPrenotazione.PENDENTE),    // 3: dentro la prenotazione esistente
+                richiesta(base.plusDays(3), base.plusDays(5), StatoPrenotazione.PENDENTE),      // 4: accettata, arriva il giorno della partenza della 2
+                richiesta(base.plusDays(1), base.plusDays(4), StatoPrenotazione.CANCELLATA),    // 5: accettata, non occupa date
+                richiesta(base.plusDays(13), base.plusDays(14), StatoPrenotazione.CONFERMATA),  // 6: accettata, arriva alla partenza dell'esistente
+                troppiOspiti);                                                                  // 7: oltre la capienza dell'unità
+
+        ImportazioneResponseDTO esito = importazioneService.importa(lettoreImportazione.daLista(lotto));
+
+        assertEquals(7, esito.getRigheLette());
+        assertEquals(4, esito.getIdCreati().size());
+        assertEquals(List.of(1, 3, 7), esito.getScartate().stream().map(RigaScartataDTO::getRiga).collect(Collectors.toList()));
+        assertTrue(esito.getScartate().get(0).getMotivo().contains("un'altra riga del lotto"));
+        assertTrue(esito.getScartate().get(1).getMotivo().contains("già occupate"));
+        assertTrue(esito.getScartate().get(2).getMotivo().contains("numero massimo di ospiti"));
+
+        // Le notti occupate sono quelle delle righe bloccanti accettate più quelle della prenotazione esistente
+        assertEquals(List.of(
+                base + " " + idPer(esito, base),
+                base.plusDays(1) + " " + idPer(esito, base),
+                base.plusDays(2) + " " + idPer(esito, base),
+                base.plusDays(3) + " " + idPer(esito, base.plusDays(3)),
+                base.plusDays(4) + " " + idPer(esito, base.plusDays(3)),
+                base.plusDays(10) + " " + esistente.getId(),
+                base.plusDays(11) + " " + esistente.getId(),
+                base.plusDays(12) + " " + esistente.getId(),
+                base.plusDays(13) + " " + idPer(esito, base.plusDays(13))),
+                jdbcTemplate.query(
+                        "SELECT notte, booking_id FROM notte_prenotata WHERE proprieta_id = ? AND notte >= ? AND notte < ? ORDER BY notte",
+                        (rs, i) -> rs.getDate(1).toLocalDate() + " " + rs.getLong(2),
+                        Proprieta.PREDEFINITA, Date.valueOf(base), Date.valueOf(base.plusDays(30))));
+    }
+
+    // Id della prenotazione importata, tra quelle bloccanti, che arriva nel giorno indicato
+    private Long idPer(ImportazioneResponseDTO esito, LocalDate dataInizio) {
+        return esito.getIdCreati().stream()
+                .map(id -> bookingService.findBookingById(id).orElseThrow())
+                .filter(booking -> booking.getDataInizio().equals(dataInizio) && booking.getStatoPrenotazione() != StatoPrenotazione.CANCELLATA)
+                .map(Booking::getId)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private BookingRequestDTO richiesta(LocalDate dataInizio, LocalDate dataFine, StatoPrenotazione stato) {
+        BookingRequestDTO richiesta = new BookingRequestDTO();
+        richiesta.setDataInizio(dataInizio);
+        richiesta.setDataFine(dataFine);
+        richiesta.setNomeOspite("Giulia");
+        richiesta.setCognomeOspite("Esposito");
+        richiesta.setEmailOspite("importazione.it@example.com");
+        richiesta.setNumeroOspiti(2);
+        richiesta.setStatoPrenotazione(stato);
+        return richiesta;
+    }
+}
@@ -0,0 +1,98 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.Proprieta;
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import com.la_casa_del_rosariello.event.PrenotazioneModificataEvent;
+import com.la_casa_del_rosariello.repository.BookingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class IndiceOccupazioneTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private static final Long UNITA = Proprieta.PREDEFINITA;
+
+    private IndiceOccupazione indice;
+    private LocalDate oggi;
+
+    @BeforeEach
+    void setUp() {
+        oggi = LocalDate.now();
+        Booking confermata = new Booking(1L, oggi.plusDays(10), oggi.plusDays(13), "Mario", "Rossi", "mario.rossi@example.com", 2, StatoPrenotazione.CONFERMATA, null);
+        when(bookingRepository.findByStatoPrenotazione(StatoPrenotazione.CONFERMATA)).thenReturn(List.of(confermata));
+        when(bookingRepository.findByStatoPrenotazione(StatoPrenotazione.PENDENTE)).thenReturn(Collections.emptyList());
+
+        indice = new IndiceOccupazione(bookingRepository, new SimpleMeterRegistry(), 3);
+        indice.carica();
+    }
+
+    @Test
+    void testNottiOccupateDalCaricamento() {
+        assertFalse(indice.isLibero(UNITA, oggi.plusDays(12), oggi.plusDays(14)));
+        // Il giorno di check-out è libero
+        assertTrue(indice.isLibero(UNITA, oggi.plusDays(13), oggi.plusDays(15)));
+        assertTrue(indice.isLibero(UNITA, oggi.plusDays(5), oggi.plusDays(10)));
+    }
+
+    @Test
+    void testEsclusioneDellaPrenotazioneModificata() {
+        assertTrue(indice.isLiberoEscludendo(UNITA, oggi.plusDays(11), oggi.plusDays(14), 1L, oggi.plusDays(10), oggi.plusDays(13)));
+    }
+
+    @Test
+    void testAggiornamentoDopoCancellazione() {
+        indice.onPrenotazioneModificata(new PrenotazioneModificataEvent(1L, UNITA, oggi.plusDays(10), oggi.plusDays(13), null, null, null, null, null));
+        assertTrue(indice.isLibero(UNITA, oggi.plusDays(10), oggi.plusDays(13)));
+    }
+
+    @Test
+    void testBlocchiTemporanei() {
+        indice.onPrenotazioneModificata(new PrenotazioneModificataEvent(2L, UNITA, null, null, oggi.plusDays(20), oggi.plusDays(22), null, null, LocalDateTime.now().plusMinutes(30)));
+        indice.onPrenotazioneModificata(new PrenotazioneModificataEvent(3L, UNITA, null, null, oggi.plusDays(30), oggi.plusDays(32), null, null, LocalDateTime.now().minusMinutes(1)));
+
+        assertFalse(indice.isLibero(UNITA, oggi.plusDays(21), oggi.plusDays(23)));
+        // Scaduto: non blocca più, anche se il job di pulizia non è ancora passato
+        assertTrue(indice.isLibero(UNITA, oggi.plusDays(30), oggi.plusDays(32)));
+        assertEquals(2, indice.nottiInHold());
+        // Il blocco stesso, in modifica, non si considera in conflitto
+        assertTrue(indice.isLiberoEscludendo(UNITA, oggi.plusDays(21), oggi.plusDays(23), 2L, oggi.plusDays(20), oggi.plusDays(22)));
+    }
+
+    @Test
+    void testUnitaIndipendenti() {
+        Long altraUnita = 2L;
+        // Le stesse date restano libere nelle altre unità, anche in quelle senza prenotazioni caricate
+        assertTrue(indice.isLibero(altraUnita, oggi.plusDays(10), oggi.plusDays(13)));
+
+        indice.onPrenotazioneModificata(new PrenotazioneModificataEvent(4L, altraUnita, null, null, oggi.plusDays(40), oggi.plusDays(43), null, null, null));
+        assertFalse(indice.isLibero(altraUnita, oggi.plusDays(41), oggi.plusDays(42)));
+        assertTrue(indice.isLibero(UNITA, oggi.plusDays(41), oggi.plusDays(42)));
+        assertFalse(indice.isLibero(UNITA, oggi.plusDays(10), oggi.plusDays(13)));
+    }
+
+    @Test
+    void testFuoriFinestraNonCoperto() {
+        assertFalse(indice.isCoperto(oggi.minusDays(1), oggi.plusDays(2)));
+        assertFalse(indice.isCoperto(oggi.plusYears(4), oggi.plusYears(4).plusDays(2)));
+        // Il giorno di avvio è oggi: l'orizzonte coperto è l'intera finestra
+        assertEquals(oggi.plusYears(3).toEpochDay() - oggi.toEpochDay(), indice.giorniCopertiDaOggi());
+    }
+}
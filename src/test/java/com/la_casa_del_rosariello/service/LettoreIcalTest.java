@@ -0,0 +1,132 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.exception.InvalidCalendarioUrlException;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LettoreIcalTest {
+
+    private static final String ICS = "BEGIN:VCALENDAR\r\nEND:VCALENDAR\r\n";
+    private static final DataSize CINQUE_MB = DataSize.ofMegabytes(5);
+
+    @TempDir
+    Path cartella;
+
+    @Test
+    void testFileNellaCartellaERiletturaInvariata() throws Exception {
+        Path file = Files.writeString(cartella.resolve("portale.ics"), ICS);
+        LettoreIcal lettore = new LettoreIcal(Duration.ofSeconds(2), cartella.toString(), CINQUE_MB, false);
+
+        LettoreIcal.Scaricamento primo = lettore.scarica(file.toUri().toString(), null, null);
+        assertEquals(ICS, primo.contenuto());
+        // Stessa data di modifica: nessuna lettura
+        assertNull(lettore.scarica(file.toUri().toString(), null, primo.ultimaModifica()));
+    }
+
+    @Test
+    void testFileFuoriCartellaRifiutato() throws Exception {
+        LettoreIcal lettore = new LettoreIcal(Duration.ofSeconds(2), cartella.resolve("calendari").toString(), CINQUE_MB, false);
+        String fuori = cartella.resolve("calendari/../altro.ics").toUri().toString();
+
+        assertThrows(InvalidCalendarioUrlException.class, () -> lettore.verifica(fuori));
+        assertThrows(InvalidCalendarioUrlException.class, () -> new LettoreIcal(Duration.ofSeconds(2), "", CINQUE_MB, false).verifica(fuori));
+        assertThrows(InvalidCalendarioUrlException.class, () -> lettore.verifica("ftp://portale.example/calendario.ics"));
+    }
+
+    @Test
+    void testRichiestaCondizionaleHttp() throws Exception {
+        AtomicInteger corpiInviati = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/calendario.ics", scambio -> {
+            if ("\"v1\"".equals(scambio.getRequestHeaders().getFirst("If-None-Match"))) {
+                scambio.sendResponseHeaders(304, -1);
+            } else {
+                byte[] corpo = ICS.getBytes(StandardCharsets.UTF_8);
+                scambio.getResponseHeaders().add("ETag", "\"v1\"");
+                scambio.sendResponseHeaders(200, corpo.length);
+                scambio.getResponseBody().write(corpo);
+                corpiInviati.incrementAndGet();
+            }
+            scambio.close();
+        });
+        server.start();
+        try {
+            // Il server di prova è in loopback: indirizzi interni ammessi solo qui
+            LettoreIcal lettore = new LettoreIcal(Duration.ofSeconds(2), "", CINQUE_MB, true);
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/calendario.ics";
+
+            LettoreIcal.Scaricamento primo = lettore.scarica(url, null, null);
+            assertNotNull(primo);
+            assertEquals("\"v1\"", primo.etag());
+            assertNull(lettore.scarica(url, primo.etag(), primo.ultimaModifica()));
+            assertEquals(1, corpiInviati.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testHostInterniRifiutati() {
+        LettoreIcal lettore = new LettoreIcal(Duration.ofSeconds(2), "", CINQUE_MB, false);
+
+        assertThrows(InvalidCalendarioUrlException.class, () -> lettore.verifica("http://127.0.0.1:8080/calendario.ics"));
+        assertThrows(InvalidCalendarioUrlException.class, () -> lettore.verifica("http://localhost/calendario.ics"));
+        assertThrows(InvalidCalendarioUrlException.class, () -> lettore.verifica("http://169.254.169.254/latest/meta-data"));
+        assertThrows(InvalidCalendarioUrlException.class, () -> lettore.verifica("https://10.0.0.5/calendario.ics"));
+        assertThrows(InvalidCalendarioUrlException.class, () -> lettore.verifica("http://[::1]/calendario.ics"));
+        assertThrows(InvalidCalendarioUrlException.class, () -> lettore.scarica("http://192.168.1.1/calendario.ics", null, null));
+    }
+
+    @Test
+    void testReindirizzamentiSeguitiECorpoLimitato() throws Exception {
+        byte[] grande = new byte[64 * 1024];
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/vecchio.ics", scambio -> {
+            scambio.getResponseHeaders().add("Location", "/calendario.ics");
+            scambio.sendResponseHeaders(302, -1);
+            scambio.close();
+        });
+        server.createContext("/calendario.ics", scambio -> {
+            byte[] corpo = ICS.getBytes(StandardCharsets.UTF_8);
+            scambio.sendResponseHeaders(200, corpo.length);
+            scambio.getResponseBody().write(corpo);
+            scambio.close();
+        });
+        server.createContext("/locale.ics", scambio -> {
+            scambio.getResponseHeaders().add("Location", "file:///etc/passwd");
+            scambio.sendResponseHeaders(302, -1);
+            scambio.close();
+        });
+        server.createContext("/grande.ics", scambio -> {
+            scambio.sendResponseHeaders(200, grande.length);
+            scambio.getResponseBody().write(grande);
+            scambio.close();
+        });
+        server.start();
+        try {
+            LettoreIcal lettore = new LettoreIcal(Duration.ofSeconds(2), "", DataSize.ofKilobytes(16), true);
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+            assertEquals(ICS, lettore.scarica(base + "/vecchio.ics", null, null).contenuto());
+            assertThrows(IOException.class, () -> lettore.scarica(base + "/locale.ics", null, null));
+            assertThrows(IOException.class, () -> lettore.scarica(base + "/grande.ics", null, null));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.la_casa_del_rosariello.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.la_casa_del_rosariello.dto.BookingRequestDTO;
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import com.la_casa_del_rosariello.service.LettoreImportazione.RigaImportazione;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LettoreImportazioneTest {
+
+    private LettoreImportazione lettore;
+
+    @BeforeEach
+    void setUp() {
+        lettore = new LettoreImportazione(new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    void testListaJsonNumeraLeRigheEApplicaLoStatoPredefinito() {
+        BookingRequestDTO senzaStato = new BookingRequestDTO();
+        BookingRequestDTO cancellata = new BookingRequestDTO();
+        cancellata.setStatoPrenotazione(StatoPrenotazione.CANCELLATA);
+
+        List<RigaImportazione> righe = lettore.daLista(List.of(senzaStato, cancellata));
+
+        assertEquals(2, righe.size());
+        assertEquals(1, righe.get(0).getNumero());
+        assertEquals(StatoPrenotazione.CONFERMATA, righe.get(0).getRichiesta().getStatoPrenotazione());
+        assertEquals(2, righe.get(1).getNumero());
+        assertEquals(StatoPrenotazione.CANCELLATA, righe.get(1).getRichiesta().getStatoPrenotazione());
+        assertNull(righe.get(1).getErrore());
+    }
+
+    @Test
+    void testNdjsonSegnalaLaRigaNonValidaESaltaLeRigheVuote() throws IOException {
+        List<RigaImportazione> righe = lettore.leggiNdjson(corpo(
+                "{\"dataInizio\":\"2030-05-01\",\"dataFine\":\"2030-05-04\",\"nomeOspite\":\"Mario\",\"numeroOspiti\":2}\n"
+                        + "\n"
+                        + "{\"dataInizio\":\"2030-05-10\",\"dataFine\":\n"
+                        + "{\"dataInizio\":\"2030-13-01\",\"dataFine\":\"2030-05-04\"}\n"
+                        + "{\"dataInizio\":\"2030-06-01\",\"dataFine\":\"2030-06-02\",\"statoPrenotazione\":\"PENDENTE\"}\n"));
+
+        assertEquals(4, righe.size());
+        assertEquals(LocalDate.of(2030, 5, 1), righe.get(0).getRichiesta().getDataInizio());
+        assertEquals(StatoPrenotazione.CONFERMATA, righe.get(0).getRichiesta().getStatoPrenotazione());
+        assertNull(righe.get(0).getErrore());
+
+        // La riga vuota non conta: la riga troncata è la 2 e la data impossibile la 3
+        assertEquals(2, righe.get(1).getNumero());
+        assertNull(righe.get(1).getRichiesta());
+        assertTrue(righe.get(1).getErrore().startsWith("JSON non valido"));
+        assertEquals(3, righe.get(2).getNumero());
+        assertTrue(righe.get(2).getErrore().startsWith("JSON non valido"));
+
+        assertEquals(4, righe.get(3).getNumero());
+        assertEquals(StatoPrenotazione.PENDENTE, righe.get(3).getRichiesta().getStatoPrenotazione());
+    }
+
+    @Test
+    void testCsvSegnalaIValoriNonValidiPerRiga() throws IOException {
+        List<RigaImportazione> righe = lettore.leggiCsv(corpo(
+                "nomeOspite,dataFine,dataInizio,numeroOspiti,statoPrenotazione,note\n"
+                        + "Mario,2030-05-04,2030-05-01,2,,\"Arrivo tardi, dopo le 22 \"\"circa\"\"\"\n"
+                        + "Anna,2030-05-04,01/05/2030,2,,\n"
+                        + "Luca,2030-05-04,2030-05-01,due,,\n"
+                        + "Sara,2030-05-04,2030-05-01,2,SCONOSCIUTO,\n"
+                        + "\n"
+                        + "Paolo,2030-06-02,2030-06-01,1,CANCELLATA\n"));
+
+        assertEquals(5, righe.size());
+        BookingRequestDTO prima = righe.get(0).getRichiesta();
+        assertEquals("Mario", prima.getNomeOspite());
+        assertEquals(LocalDate.of(2030, 5, 1), prima.getDataInizio());
+        assertEquals(LocalDate.of(2030, 5, 4), prima.getDataFine());
+        assertEquals("Arrivo tardi, dopo le 22 \"circa\"", prima.getNote());
+        assertEquals(StatoPrenotazione.CONFERMATA, prima.getStatoPrenotazione());
+
+        // Data, numero e stato non validi: ognuno scarta solo la propria riga
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(i + 1, righe.get(i).getNumero());
+            assertNull(righe.get(i).getRichiesta());
+            assertTrue(righe.get(i).getErrore().startsWith("Valore non valido"));
+        }
+
+        RigaImportazione ultima = righe.get(4);
+        assertEquals(5, ultima.getNumero());
+        assertNotNull(ultima.getRichiesta());
+        assertNull(ultima.getRichiesta().getNote()); // Colonna mancante in coda alla riga
+        assertEquals(StatoPrenotazione.CANCELLATA, ultima.getRichiesta().getStatoPrenotazione());
+    }
+
+    private InputStream corpo(String testo) {
+        return new ByteArrayInputStream(testo.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,29 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.Booking;
+
+import java.time.LocalDate;
+
+// Prenotazioni di partenza per i test di integrazione: solo i campi obbligatori, sulla proprietà predefinita
+final class PrenotazioniDiProva {
+
+    static final String EMAIL = "mario.rossi@example.com";
+
+    private PrenotazioniDiProva() {
+    }
+
+    static Booking nuovaPrenotazione(LocalDate dataInizio, LocalDate dataFine) {
+        return nuovaPrenotazione(dataInizio, dataFine, EMAIL);
+    }
+
+    static Booking nuovaPrenotazione(LocalDate dataInizio, LocalDate dataFine, String email) {
+        Booking booking = new Booking();
+        booking.setDataInizio(dataInizio);
+        booking.setDataFine(dataFine);
+        booking.setOspiteNome("Mario");
+        booking.setOspiteCognome("Rossi");
+        booking.setOspiteEmail(email);
+        booking.setNumeroOspiti(2);
+        return booking;
+    }
+}
@@ -0,0 +1,144 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.dto.BookingRequestDTO;
+import com.la_casa_del_rosariello.dto.ImportazioneResponseDTO;
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.Proprieta;
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.la_casa_del_rosariello.service.PrenotazioniDiProva.nuovaPrenotazione;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Gli UPSERT del proiettore (ON DUPLICATE KEY UPDATE) girano qui su H2 in modalità MySQL
+@SpringBootTest
+public class ProiettoreEventiIT {
+
+    private static final String EMAIL = "proiezioni.it@example.com";
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private GestoreHold gestoreHold;
+
+    @Autowired
+    private ProiettoreEventi proiettoreEventi;
+
+    @Autowired
+    private ImportazioneService importazioneService;
+
+    @Autowired
+    private LettoreImportazione lettoreImportazione;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testAggiornamentoIncrementaleERicostruzioneDannoLoStessoRisultato() {
+        LocalDate base = LocalDate.now().plusDays(1000);
+
+        // Confermata: 3 notti vendute
+        bookingService.createdBooking(nuovaPrenotazione(base, base.plusDays(3), EMAIL));
+        // Confermata e poi cancellata: nessun contributo alle notti
+        Booking cancellata = bookingService.createdBooking(nuovaPrenotazione(base.plusDays(10), base.plusDays(12), EMAIL));
+        bookingService.cancellaPrenotazione(cancellata.getId());
+        // Blocco scaduto: nessun contributo alle notti
+        Booking hold = bookingService.createdBooking(nuovaPrenotazione(base.plusDays(20), base.plusDays(22), EMAIL), true);
+        jdbcTemplate.update("UPDATE booking SET scadenza_hold = ? WHERE id = ?", Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), hold.getId());
+        gestoreHold.pulisci();
+
+        proietta();
+
+        List<String> occupazione = occupazione(base);
+        assertEquals(3, occupazione.size());
+        assertTrue(occupazione.get(0).startsWith(base + " 1 "));
+        assertEquals(List.of("3 1 3"), jdbcTemplate.query(
+                "SELECT prenotazioni, prenotazioni_confermate, notti FROM riepilogo_ospite WHERE ospite_email_normalizzata = ?",
+                (rs, i) -> rs.getInt(1) + " " + rs.getInt(2) + " " + rs.getInt(3), EMAIL));
+        assertEquals(List.of(base + " 180 1"), anticipo(base));
+
+        List<String> incrementale = letture(base);
+
+        proiettoreEventi.ricostruisci();
+
+        assertEquals(incrementale, letture(base));
+    }
+
+    @Test
+    void testPrenotazioneImportataContaNelleNottiMaNonNellAnticipo() {
+        LocalDate base = LocalDate.now().plusDays(1100);
+        BookingRequestDTO richiesta = new BookingRequestDTO();
+        richiesta.setDataInizio(base);
+        richiesta.setDataFine(base.plusDays(2));
+        richiesta.setNomeOspite("Anna");
+        richiesta.setCognomeOspite("Bianchi");
+        richiesta.setEmailOspite("importata.it@example.com"); // Il riepilogo di EMAIL resta quello dell'altro test
+        richiesta.setNumeroOspiti(2);
+        richiesta.setStatoPrenotazione(StatoPrenotazione.CONFERMATA);
+
+        ImportazioneResponseDTO esito = importazioneService.importa(lettoreImportazione.daLista(List.of(richiesta)));
+        assertEquals(1, esito.getIdCreati().size());
+        assertNull(bookingService.findBookingById(esito.getIdCreati().get(0)).orElseThrow().getDataCreazione());
+
+        proietta();
+
+        assertEquals(2, occupazione(base).size());
+        assertEquals(List.of(), anticipo(base));
+    }
+
+    // Il job programmato può avere il lock in questo momento: si ripete finché la coda non è vuota
+    private void proietta() {
+        long limite = System.currentTimeMillis() + 10_000;
+        do {
+            proiettoreEventi.elabora();
+            if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM evento_da_proiettare", Long.class) == 0) {
+                return;
+            }
+        } while (System.currentTimeMillis() < limite);
+        throw new AssertionError("Coda degli eventi non svuotata");
+    }
+
+    // Righe non nulle delle tabelle di lettura nel periodo del test: l'aggiornamento incrementale può lasciare
+    // righe a zero (prenotazione creata e cancellata in due blocchi) che la ricostruzione non scrive affatto
+    private List<String> letture(LocalDate base) {
+        List<String> righe = new ArrayList<>(occupazione(base));
+        righe.addAll(jdbcTemplate.query(
+                "SELECT mese, notti, ricavo FROM ricavo_mensile WHERE proprieta_id = ? AND mese >= ? AND mese <= ? AND notti <> 0 ORDER BY mese",
+                (rs, i) -> rs.getDate(1).toLocalDate() + " " + rs.getInt(2) + " " + Math.round(rs.getDouble(3) * 100),
+                Proprieta.PREDEFINITA, Date.valueOf(base.withDayOfMonth(1)), Date.valueOf(base.plusDays(30))));
+        righe.addAll(jdbcTemplate.query(
+                "SELECT prenotazioni, prenotazioni_confermate, notti, spesa FROM riepilogo_ospite WHERE ospite_email_normalizzata = ?",
+                (rs, i) -> rs.getInt(1) + " " + rs.getInt(2) + " " + rs.getInt(3) + " " + Math.round(rs.getDouble(4) * 100), EMAIL));
+        righe.addAll(anticipo(base));
+        return righe;
+    }
+
+    private List<String> occupazione(LocalDate base) {
+        return jdbcTemplate.query(
+                "SELECT giorno, notti_occupate, ricavo FROM occupazione_giornaliera WHERE proprieta_id = ? AND giorno >= ? AND giorno < ? "
+                        + "AND notti_occupate <> 0 ORDER BY giorno",
+                (rs, i) -> rs.getDate(1).toLocalDate() + " " + rs.getInt(2) + " " + Math.round(rs.getDouble(3) * 100),
+                Proprieta.PREDEFINITA, Date.valueOf(base), Date.valueOf(base.plusDays(30)));
+    }
+
+    private List<String> anticipo(LocalDate base) {
+        return jdbcTemplate.query(
+                "SELECT giorno_arrivo, fascia, prenotazioni FROM anticipo_prenotazione WHERE proprieta_id = ? AND giorno_arrivo >= ? "
+                        + "AND giorno_arrivo < ? AND prenotazioni <> 0 ORDER BY giorno_arrivo, fascia",
+                (rs, i) -> rs.getDate(1).toLocalDate() + " " + rs.getInt(2) + " " + rs.getInt(3),
+                Proprieta.PREDEFINITA, Date.valueOf(base), Date.valueOf(base.plusDays(30)));
+    }
+}
@@ -0,0 +1,115 @@
+package com.la_casa_del_rosariello.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.la_casa_del_rosariello.exception.BookingConflictException;
+import com.la_casa_del_rosariello.exception.IdempotencyKeyException;
+import com.la_casa_del_rosariello.exception.RichiestaInCorsoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RegistroIdempotenzaTest {
+
+    private static final String CLIENTE = "ip:127.0.0.1";
+
+    private RegistroIdempotenza registro;
+    private AtomicInteger esecuzioni;
+
+    @BeforeEach
+    void setUp() {
+        registro = new RegistroIdempotenza(new ObjectMapper(), new SimpleMeterRegistry(), 100, Duration.ofMinutes(5), Duration.ofMillis(200));
+        esecuzioni = new AtomicInteger();
+    }
+
+    private ResponseEntity<String> crea() {
+        return new ResponseEntity<>("prenotazione " + esecuzioni.incrementAndGet(), HttpStatus.CREATED);
+    }
+
+    @Test
+    void testNuovoInvioRestituisceLaRispostaOriginale() {
+        ResponseEntity<String> prima = registro.esegui(CLIENTE, "POST /bookings", "chiave-1", List.of("a"), this::crea);
+        ResponseEntity<String> seconda = registro.esegui(CLIENTE, "POST /bookings", "chiave-1", List.of("a"), this::crea);
+
+        assertEquals(1, esecuzioni.get());
+        assertEquals(HttpStatus.CREATED, seconda.getStatusCode());
+        assertEquals(prima.getBody(), seconda.getBody());
+        assertEquals("true", seconda.getHeaders().getFirst(RegistroIdempotenza.HEADER_RIPETUTA));
+    }
+
+    @Test
+    void testChiaveRiusataConDatiDiversi() {
+        registro.esegui(CLIENTE, "POST /bookings", "chiave-1", List.of("a"), this::crea);
+        assertThrows(IdempotencyKeyException.class,
+                () -> registro.esegui(CLIENTE, "POST /bookings", "chiave-1", List.of("b"), this::crea));
+    }
+
+    @Test
+    void testSenzaChiaveOgniInvioVieneEseguito() {
+        registro.esegui(CLIENTE, "POST /bookings", null, List.of("a"), this::crea);
+        registro.esegui(CLIENTE, "POST /bookings", null, List.of("a"), this::crea);
+        assertEquals(2, esecuzioni.get());
+    }
+
+    @Test
+    void testDopoUnErroreLaChiaveTornaLibera() {
+        assertThrows(BookingConflictException.class, () -> registro.esegui(CLIENTE, "POST /bookings", "chiave-1", List.of("a"), () -> {
+            throw new BookingConflictException("Le date selezionate non sono disponibili !");
+        }));
+
+        registro.esegui(CLIENTE, "POST /bookings", "chiave-1", List.of("a"), this::crea);
+        assertEquals(1, esecuzioni.get());
+    }
+
+    @Test
+    void testLaStessaChiaveDiClientiDiversiNonCollide() {
+        ResponseEntity<String> primo = registro.esegui(CLIENTE, "POST /bookings", "chiave-1", List.of("a"), this::crea);
+        ResponseEntity<String> secondo = registro.esegui("ip:10.0.0.7", "POST /bookings", "chiave-1", List.of("a"), this::crea);
+
+        assertEquals(2, esecuzioni.get());
+        assertNotEquals(primo.getBody(), secondo.getBody());
+        assertNull(secondo.getHeaders().getFirst(RegistroIdempotenza.HEADER_RIPETUTA));
+    }
+
+    @Test
+    void testAttesaLimitataSullaRichiestaInCorso() throws Exception {
+        CountDownLatch inCorso = new CountDownLatch(1);
+        CountDownLatch sblocco = new CountDownLatch(1);
+        ExecutorService esecutore = Executors.newSingleThreadExecutor();
+        try {
+            Future<ResponseEntity<String>> prima = esecutore.submit(() -> registro.esegui(CLIENTE, "POST /bookings", "chiave-1", List.of("a"), () -> {
+                inCorso.countDown();
+                try {
+                    sblocco.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return crea();
+            }));
+            inCorso.await();
+
+            assertThrows(RichiestaInCorsoException.class,
+                    () -> registro.esegui(CLIENTE, "POST /bookings", "chiave-1", List.of("a"), this::crea));
+
+            sblocco.countDown();
+            assertEquals(HttpStatus.CREATED, prima.get().getStatusCode());
+            assertEquals(1, esecuzioni.get());
+        } finally {
+            esecutore.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.Booking;
+import com.la_casa_del_rosariello.entity.Proprieta;
+import com.la_casa_del_rosariello.entity.StatoPrenotazione;
+import com.la_casa_del_rosariello.repository.BookingRepository;
+import com.la_casa_del_rosariello.repository.ProprietaRepository;
+import com.la_casa_del_rosariello.repository.TariffaStagionaleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RicercaDisponibilitaTest {
+
+    @Mock
+    private ProprietaRepository proprietaRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private TariffaStagionaleRepository tariffaRepository;
+
+    private IndiceOccupazione indice;
+    private TabellaPrezzi tabellaPrezzi;
+    private RicercaDisponibilita ricerca;
+    private LocalDate lunedi;
+
+    @BeforeEach
+    void setUp() {
+        lunedi = LocalDate.now().plusWeeks(2).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+        Booking occupata = new Booking(1L, lunedi, lunedi.plusDays(3), "Mario", "Rossi", "mario.rossi@example.com", 2, StatoPrenotazione.CONFERMATA, null);
+        occupata.setProprietaId(3L);
+        when(bookingRepository.findByStatoPrenotazione(StatoPrenotazione.CONFERMATA)).thenReturn(List.of(occupata));
+        when(bookingRepository.findByStatoPrenotazione(StatoPrenotazione.PENDENTE)).thenReturn(Collections.emptyList());
+        indice = new IndiceOccupazione(bookingRepository, new SimpleMeterRegistry(), 3);
+        indice.carica();
+
+        when(tariffaRepository.findAllByOrderByIdAsc()).thenReturn(Collections.emptyList());
+        tabellaPrezzi = new TabellaPrezzi(tariffaRepository, 60, 60, "", 5);
+        tabellaPrezzi.carica();
+
+        when(proprietaRepository.findByAttivaTrueAndCapienzaGreaterThanEqualOrderById(2)).thenReturn(List.of(
+                unita(1L, "Camera", 2, 1.0),
+                unita(2L, "Appartamento", 4, 0.8),
+                unita(3L, "Suite", 2, 1.5)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ricerca != null) {
+            ricerca.chiudi();
+        }
+    }
+
+    @Test
+    void testRisultatiOrdinatiPerPrezzo() {
+        ricerca = new RicercaDisponibilita(proprietaRepository, indice, tabellaPrezzi, new SimpleMeterRegistry(), 2, 1, Duration.ofSeconds(5));
+
+        RicercaDisponibilita.Esito esito = ricerca.cerca(lunedi, lunedi.plusDays(3), 2, 10);
+
+        // La Suite è occupata; l'appartamento costa meno grazie al coefficiente
+        assertEquals(List.of(2L, 1L), esito.risultati().stream().map(r -> r.proprieta().getId()).collect(Collectors.toList()));
+        assertEquals(144.0, esito.risultati().get(0).preventivo().getTotale());
+        assertEquals(180.0, esito.risultati().get(1).preventivo().getTotale());
+        assertEquals(3, esito.unitaValutate());
+        assertFalse(esito.parziale());
+    }
+
+    @Test
+    void testBudgetScadutoRisultatoParziale() {
+        ricerca = new RicercaDisponibilita(proprietaRepository, indice, tabellaPrezzi, new SimpleMeterRegistry(), 1, 3, Duration.ofMillis(50));
+        // Fuori dalla finestra dell'indice si interroga il database, qui più lento del budget
+        LocalDate lontano = LocalDate.now().plusYears(4);
+        when(proprietaRepository.findIdDisponibiliTra(anyCollection(), any(), any(), anyList(), any())).thenAnswer(invocazione -> {
+            Thread.sleep(2_000);
+            return List.of(1L, 2L, 3L);
+        });
+
+        RicercaDisponibilita.Esito esito = ricerca.cerca(lontano, lontano.plusDays(2), 2, 10);
+
+        assertTrue(esito.parziale());
+        assertEquals(0, esito.unitaValutate());
+        assertEquals(3, esito.unitaCandidate());
+        assertTrue(esito.risultati().isEmpty());
+    }
+
+    private static Proprieta unita(Long id, String nome, int capienza, double coefficiente) {
+        Proprieta proprieta = new Proprieta(nome, null, capienza);
+        ReflectionTestUtils.setField(proprieta, "id", id);
+        proprieta.setCoefficientePrezzo(coefficiente);
+        return proprieta;
+    }
+}
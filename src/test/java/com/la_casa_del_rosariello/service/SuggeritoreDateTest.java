@@ -0,0 +1,56 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.dto.IntervalloCalendarioDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SuggeritoreDateTest {
+
+    private static final LocalDate BASE = LocalDate.of(2030, 7, 1);
+
+    @Test
+    void testPeriodiPiuViciniPrimaEDopo() {
+        // Libero 1-8, occupato 8-12, libero 12-13 (troppo corto), occupato 13-20, libero 20-31
+        List<IntervalloCalendarioDTO> calendario = List.of(
+                new IntervalloCalendarioDTO(BASE, BASE.plusDays(7), false),
+                new IntervalloCalendarioDTO(BASE.plusDays(7), BASE.plusDays(11), true),
+                new IntervalloCalendarioDTO(BASE.plusDays(11), BASE.plusDays(12), false),
+                new IntervalloCalendarioDTO(BASE.plusDays(12), BASE.plusDays(19), true),
+                new IntervalloCalendarioDTO(BASE.plusDays(19), BASE.plusDays(30), false));
+
+        SuggeritoreDate.Suggerimenti suggerimenti = SuggeritoreDate.cerca(calendario, BASE.plusDays(9), 3);
+
+        assertEquals(new SuggeritoreDate.Periodo(BASE.plusDays(4), BASE.plusDays(7)), suggerimenti.prima());
+        assertEquals(new SuggeritoreDate.Periodo(BASE.plusDays(19), BASE.plusDays(22)), suggerimenti.dopo());
+    }
+
+    @Test
+    void testSpostamentoDiUnGiorno() {
+        // Solo la prima notte richiesta è occupata: basta partire un giorno dopo
+        List<IntervalloCalendarioDTO> calendario = List.of(
+                new IntervalloCalendarioDTO(BASE, BASE.plusDays(10), true),
+                new IntervalloCalendarioDTO(BASE.plusDays(10), BASE.plusDays(30), false));
+
+        SuggeritoreDate.Suggerimenti suggerimenti = SuggeritoreDate.cerca(calendario, BASE.plusDays(9), 2);
+
+        assertNull(suggerimenti.prima());
+        assertEquals(new SuggeritoreDate.Periodo(BASE.plusDays(10), BASE.plusDays(12)), suggerimenti.dopo());
+    }
+
+    @Test
+    void testNessunPeriodoNellaFinestra() {
+        List<IntervalloCalendarioDTO> calendario = List.of(
+                new IntervalloCalendarioDTO(BASE, BASE.plusDays(2), false),
+                new IntervalloCalendarioDTO(BASE.plusDays(2), BASE.plusDays(30), true));
+
+        SuggeritoreDate.Suggerimenti suggerimenti = SuggeritoreDate.cerca(calendario, BASE.plusDays(9), 3);
+
+        assertNull(suggerimenti.prima());
+        assertNull(suggerimenti.dopo());
+    }
+}
@@ -0,0 +1,68 @@
+package com.la_casa_del_rosariello.service;
+
+import com.la_casa_del_rosariello.entity.TariffaStagionale;
+import com.la_casa_del_rosariello.repository.TariffaStagionaleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TabellaPrezziTest {
+
+    @Mock
+    private TariffaStagionaleRepository tariffaRepository;
+
+    private TabellaPrezzi tabellaPrezzi;
+    private LocalDate lunedi;
+
+    @BeforeEach
+    void setUp() {
+        when(tariffaRepository.findAllByOrderByIdAsc()).thenReturn(Collections.emptyList());
+        tabellaPrezzi = new TabellaPrezzi(tariffaRepository, 60, 80, "7:10", 3);
+        tabellaPrezzi.carica();
+        lunedi = LocalDate.now().plusWeeks(2).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+    }
+
+    @Test
+    void testPrezzoFeriale() {
+        PreventivoSoggiorno preventivo = tabellaPrezzi.calcolaPreventivo(lunedi, lunedi.plusDays(3));
+        assertEquals(3, preventivo.getNotti());
+        assertEquals(180.0, preventivo.getTotale());
+    }
+
+    @Test
+    void testWeekendEScontoDurata() {
+        // Lunedì -> lunedì: 5 notti feriali + venerdì e sabato, 10% di sconto da 7 notti
+        PreventivoSoggiorno preventivo = tabellaPrezzi.calcolaPreventivo(lunedi, lunedi.plusDays(7));
+        assertEquals(460.0, preventivo.getImportoNotti());
+        assertEquals(46.0, preventivo.getScontoDurata());
+        assertEquals(414.0, preventivo.getTotale());
+    }
+
+    @Test
+    void testAggiornamentoIncrementaleDelleTariffe() {
+        TariffaStagionale alta = new TariffaStagionale("Alta stagione", lunedi.plusDays(1), lunedi.plusDays(3), 100, null);
+        tabellaPrezzi.aggiornaTariffe(List.of(alta), alta.getDataInizio(), alta.getDataFine());
+
+        assertEquals(260.0, tabellaPrezzi.calcolaPreventivo(lunedi, lunedi.plusDays(3)).getTotale());
+        // Le somme prefisse successive al periodo modificato restano coerenti
+        assertEquals(180.0, tabellaPrezzi.calcolaPreventivo(lunedi.plusDays(7), lunedi.plusDays(10)).getTotale());
+    }
+
+    @Test
+    void testFuoriFinestraCalcoloNottePerNotte() {
+        LocalDate lontano = LocalDate.now().plusYears(5).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        assertEquals(120.0, tabellaPrezzi.calcolaPreventivo(lontano, lontano.plusDays(2)).getTotale());
+    }
+}
@@ -0,0 +1,2 @@
+-- Unità predefinita, creata in produzione dalla migrazione V12
+INSERT INTO proprieta (id, nome, capienza, coefficiente_prezzo, attiva) VALUES (1, 'La Casa del Rosariello', 2, 1.0, TRUE);